@@ -0,0 +1,60 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.benchmarks;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The message every benchmark transmits: a few scalar fields around a payload of
+ * configurable size, so each serializer has some structure to walk.
+ */
+public class BenchmarkMessage implements Serializable {
+
+    private static final long serialVersionUID = 2411736598013364921L;
+
+    /**
+     * Repeated to fill the payload: text compresses like typical application data, unlike
+     * random bytes (incompressible) or zeros (trivially compressible).
+     */
+    private static final byte[] FILLER = ("jackpot transmits Java objects via a stream; "
+        + "every message is serialized, boxed, framed, written and acknowledged. ")
+        .getBytes(StandardCharsets.US_ASCII);
+
+    public long sequence;
+
+    public String name;
+
+    public byte[] payload;
+
+    public BenchmarkMessage() {
+    }
+
+    public BenchmarkMessage(final long sequence, final String name, final byte[] payload) {
+        this.sequence = sequence;
+        this.name = name;
+        this.payload = payload;
+    }
+
+    /**
+     * @param size the payload length. Unit: [bytes].
+     * @return a message with a compressible payload of the given size
+     */
+    public static BenchmarkMessage ofPayloadSize(final int size) {
+        return new BenchmarkMessage(size, "benchmark", payload(size));
+    }
+
+    /**
+     * @param size the length. Unit: [bytes].
+     * @return compressible bytes of the given length
+     */
+    public static byte[] payload(final int size) {
+        final byte[] payload = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            payload[i] = FILLER[i % FILLER.length];
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,69 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * {@link BinaryMessage#box} and {@link BinaryMessage#unbox}, the compression step between
+ * the serialize and write layers, per {@link Compression} and payload size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryMessageBoxBenchmark {
+
+    @Param
+    public Compression compression;
+
+    /**
+     * Below, at and far above {@link net.ladenthin.jackpot.configuration.CompressCondition#minimalLength}.
+     * Unit: [bytes].
+     */
+    @Param({"64", "1439", "65536"})
+    public int payloadSize;
+
+    private SettingsCompression settings;
+
+    private byte[] payload;
+
+    private BinaryMessage boxed;
+
+    @Setup
+    public void setUp() throws IOException {
+        settings = compression.settings();
+        payload = BenchmarkMessage.payload(payloadSize);
+        boxed = BinaryMessage.box(1, payload, settings);
+    }
+
+    @Benchmark
+    public BinaryMessage box() throws IOException {
+        return BinaryMessage.box(1, payload, settings);
+    }
+
+    @Benchmark
+    public byte[] unbox() throws IOException {
+        return boxed.unbox(settings);
+    }
+}
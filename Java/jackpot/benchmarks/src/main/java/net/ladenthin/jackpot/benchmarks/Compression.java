@@ -0,0 +1,60 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.benchmarks;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import net.ladenthin.jackpot.configuration.BooleanCondition;
+import net.ladenthin.jackpot.configuration.CLZ4Compressor;
+import net.ladenthin.jackpot.configuration.CLZ4Decompressor;
+import net.ladenthin.jackpot.configuration.CompressCondition;
+import net.ladenthin.jackpot.configuration.ConditionGZIP;
+import net.ladenthin.jackpot.configuration.ConditionLZ4;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+
+/**
+ * The {@link SettingsCompression} configurations compared by the benchmarks. The enabled
+ * codecs compress every payload unconditionally, so a benchmark measures the codec and not
+ * the size threshold of the default {@link CompressCondition}.
+ */
+public enum Compression {
+
+    /**
+     * The default settings: no compression.
+     */
+    None {
+        @Override
+        SettingsCompression settings() {
+            return new SettingsCompression();
+        }
+    },
+    GZIP {
+        @Override
+        SettingsCompression settings() {
+            return new SettingsCompression(
+                Arrays.asList(new ConditionGZIP(Deflater.BEST_SPEED, ALWAYS)),
+                null, true, false, GZIP_BUFFER_SIZE, null);
+        }
+    },
+    LZ4 {
+        @Override
+        SettingsCompression settings() {
+            return new SettingsCompression(
+                null, Arrays.asList(new ConditionLZ4(CLZ4Compressor.unsafeFastCompressor, ALWAYS)),
+                false, true, GZIP_BUFFER_SIZE, CLZ4Decompressor.safeFastDecompressor);
+        }
+    };
+
+    private static final CompressCondition ALWAYS =
+        new CompressCondition(BooleanCondition.greaterEqual, 0, false);
+
+    /**
+     * Unit: [bytes].
+     */
+    private static final int GZIP_BUFFER_SIZE = 2048;
+
+    abstract SettingsCompression settings();
+}
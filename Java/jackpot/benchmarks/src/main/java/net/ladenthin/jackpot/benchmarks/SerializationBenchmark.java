@@ -0,0 +1,82 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ladenthin.jackpot.DeserializerFactoryImpl;
+import net.ladenthin.jackpot.SerializerFactoryImpl;
+import net.ladenthin.jackpot.configuration.CMessageIdLong;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.Heartbeat;
+import net.ladenthin.jackpot.configuration.SerializationType;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+
+/**
+ * Every {@link SerializationType}, through the same factories the serialize and deserialize
+ * layers use.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param
+    public SerializationType serialization;
+
+    /**
+     * Unit: [bytes].
+     */
+    @Param({"64", "65536"})
+    public int payloadSize;
+
+    private SerializerFactoryImpl<BenchmarkMessage> serializerFactory;
+
+    private DeserializerFactoryImpl<BenchmarkMessage> deserializerFactory;
+
+    private BenchmarkMessage message;
+
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws Exception {
+        final CTransceiver transceiver = new CTransceiver(serialization, serialization,
+            ConnectionType.ClientSocketConnection, new SettingsCompression(), null,
+            new Heartbeat(), new CMessageIdLong());
+        final CTransceiverSession session = new CTransceiverSession("serializationBenchmark",
+            BenchmarkMessage.class, BenchmarkMessage.class, transceiver);
+        serializerFactory = new SerializerFactoryImpl<>(session);
+        deserializerFactory = new DeserializerFactoryImpl<>(session);
+        message = BenchmarkMessage.ofPayloadSize(payloadSize);
+        serialized = serializerFactory.getSerializer().serialize(message);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return serializerFactory.getSerializer().serialize(message);
+    }
+
+    @Benchmark
+    public BenchmarkMessage deserialize() throws Exception {
+        return deserializerFactory.getDeserializer().deserialize(serialized);
+    }
+}
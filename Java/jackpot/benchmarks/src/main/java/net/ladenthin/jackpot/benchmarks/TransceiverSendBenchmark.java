@@ -0,0 +1,225 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.CUnixNamedPipeClientConnector;
+import net.ladenthin.jackpot.configuration.CUnixNamedPipeServerConnector;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+
+/**
+ * The whole pipeline end to end: {@link Transceiver#send} on the client until the server
+ * acknowledged the message, i.e. serialize, box, write, read, unbox, deserialize and the
+ * acknowledgement on the way back.
+ * <p>
+ * {@link #throughput} keeps a burst of sends in flight, {@link #latency} sends one message
+ * at a time and reports the percentiles of the acknowledgement round trip. Acknowledgements
+ * are sent at most once per {@link net.ladenthin.jackpot.configuration.Heartbeat#heartbeatCheckInterval},
+ * which bounds both; {@link #delivery} measures the one-way pipeline up to the server's
+ * listener instead.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransceiverSendBenchmark {
+
+    public enum Transport {
+        /**
+         * Loopback TCP, a reader thread per transceiver.
+         */
+        Socket,
+        /**
+         * Loopback TCP, served by the shared selector loops.
+         */
+        SocketChannel,
+        /**
+         * A pair of POSIX FIFOs; needs {@code mkfifo}.
+         */
+        UnixNamedPipe
+    }
+
+    /**
+     * The number of sends {@link #throughput} keeps in flight before it waits.
+     */
+    private static final int BURST = 64;
+
+    private static final String HOST = "localhost";
+
+    /**
+     * Distinct from the ports of the integration tests.
+     */
+    private static final int PORT = 29100;
+
+    /**
+     * Time budget for the server to open its connector before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for connecting and for the first acknowledged message. Unit: [s].
+     */
+    private static final long CONNECT_TIMEOUT_SECONDS = 30;
+
+    @Param
+    public Transport transport;
+
+    /**
+     * Unit: [bytes].
+     */
+    @Param({"64", "16384"})
+    public int payloadSize;
+
+    private Transceiver<BenchmarkMessage> server;
+
+    private Transceiver<BenchmarkMessage> client;
+
+    private BenchmarkMessage message;
+
+    private final CompletableFuture<?>[] burst = new CompletableFuture<?>[BURST];
+
+    /**
+     * Messages the server's listener received so far.
+     */
+    private final AtomicLong delivered = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        message = BenchmarkMessage.ofPayloadSize(payloadSize);
+        final CompletableFuture<Transceiver<BenchmarkMessage>> serverStarted =
+            CompletableFuture.supplyAsync(() -> new Transceiver<>(serverSession()));
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final CompletableFuture<Transceiver<BenchmarkMessage>> clientStarted =
+            CompletableFuture.supplyAsync(() -> new Transceiver<>(clientSession()));
+        server = serverStarted.get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        client = clientStarted.get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        server.addListener(received -> delivered.incrementAndGet());
+        /**
+         * The connection is established once the first message is acknowledged.
+         */
+        client.send(message).get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BURST)
+    public void throughput() throws Exception {
+        for (int i = 0; i < BURST; ++i) {
+            burst[i] = client.send(message);
+        }
+        CompletableFuture.allOf(burst).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency() throws Exception {
+        client.send(message).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BURST)
+    public void delivery() {
+        final long target = delivered.get() + BURST;
+        for (int i = 0; i < BURST; ++i) {
+            client.send(message);
+        }
+        while (delivered.get() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private CTransceiverSession serverSession() {
+        final CConnector connector;
+        final ConnectionType connectionType;
+        switch (transport) {
+        case SocketChannel:
+            connector = new CConnector(new CServerSocketConnector(PORT));
+            connectionType = ConnectionType.ServerSocketChannelConnection;
+            break;
+        case UnixNamedPipe:
+            connector = new CConnector(new CUnixNamedPipeServerConnector(requestPipe(), responsePipe()));
+            connectionType = ConnectionType.UnixNamedPipeServer;
+            break;
+        default:
+        case Socket:
+            connector = new CConnector(new CServerSocketConnector(PORT));
+            connectionType = ConnectionType.ServerSocketConnection;
+            break;
+        }
+        return session("benchmarkServer", new CTransceiver(connectionType, connector));
+    }
+
+    private CTransceiverSession clientSession() {
+        final CConnector connector;
+        final ConnectionType connectionType;
+        switch (transport) {
+        case SocketChannel:
+            connector = new CConnector(new CClientSocketConnector(HOST, PORT));
+            connectionType = ConnectionType.ClientSocketChannelConnection;
+            break;
+        case UnixNamedPipe:
+            connector = new CConnector(new CUnixNamedPipeClientConnector(responsePipe(), requestPipe()));
+            connectionType = ConnectionType.UnixNamedPipeClient;
+            break;
+        default:
+        case Socket:
+            connector = new CConnector(new CClientSocketConnector(HOST, PORT));
+            connectionType = ConnectionType.ClientSocketConnection;
+            break;
+        }
+        return session("benchmarkClient", new CTransceiver(connectionType, connector));
+    }
+
+    private static CTransceiverSession session(final String id, final CTransceiver transceiver) {
+        return new CTransceiverSession(id, BenchmarkMessage.class, BenchmarkMessage.class, transceiver);
+    }
+
+    private static String requestPipe() {
+        return new File(System.getProperty("java.io.tmpdir"), "jackpot-benchmark-request").getPath();
+    }
+
+    private static String responsePipe() {
+        return new File(System.getProperty("java.io.tmpdir"), "jackpot-benchmark-response").getPath();
+    }
+}
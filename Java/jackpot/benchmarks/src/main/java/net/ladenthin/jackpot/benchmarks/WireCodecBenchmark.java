@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.BinaryMessageDecoder;
+
+/**
+ * The {@link BinaryMessage} wire format: the stream codec of the socket and pipe connectors
+ * against the buffer codec of the channel transport.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireCodecBenchmark {
+
+    /**
+     * Unit: [bytes].
+     */
+    @Param({"64", "1439", "65536"})
+    public int payloadSize;
+
+    private BinaryMessage message;
+
+    private ByteArrayOutputStream streamSink;
+
+    private DataOutputStream dataOutput;
+
+    private byte[] encoded;
+
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        message = BinaryMessage.box(1, BenchmarkMessage.payload(payloadSize), new SettingsCompression());
+        streamSink = new ByteArrayOutputStream(message.getFrameLength());
+        dataOutput = new DataOutputStream(streamSink);
+        message.toDataOutput(dataOutput);
+        encoded = streamSink.toByteArray();
+        buffer = ByteBuffer.allocateDirect(message.getFrameLength());
+    }
+
+    @Benchmark
+    public int encodeDataOutput() throws IOException {
+        streamSink.reset();
+        message.toDataOutput(dataOutput);
+        return streamSink.size();
+    }
+
+    @Benchmark
+    public int encodeByteBuffer() {
+        buffer.clear();
+        message.toByteBuffer(buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public BinaryMessage decodeDataInput() throws IOException {
+        return BinaryMessage.fromDataInputJava8(
+            new DataInputStream(new ByteArrayInputStream(encoded)),
+            CTransceiver.DEFAULT_MAX_PAYLOAD_LENGTH);
+    }
+
+    @Benchmark
+    public BinaryMessage decodeByteBuffer() throws IOException {
+        buffer.clear();
+        buffer.put(encoded).flip();
+        return new BinaryMessageDecoder(CTransceiver.DEFAULT_MAX_PAYLOAD_LENGTH).decode(buffer);
+    }
+}
@@ -8,21 +8,31 @@ package net.ladenthin.jackpot;
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
 import net.ladenthin.jackpot.connector.Connector;
 import net.ladenthin.jackpot.connector.ConnectorFactory;
+import net.ladenthin.jackpot.connector.SelectableConnector;
 import net.ladenthin.jackpot.interfaces.MessageIdGenerator;
 import net.ladenthin.jackpot.interfaces.ShutdownRunnable;
 import net.ladenthin.jackpot.messageprocessing.SequentialBinaryMessageTransmitter;
+import net.ladenthin.jackpot.nio.ChannelConnect;
+import net.ladenthin.jackpot.nio.ChannelConnectListener;
+import net.ladenthin.jackpot.nio.ChannelTransport;
+import net.ladenthin.jackpot.nio.ChannelTransportListener;
+import net.ladenthin.jackpot.nio.SelectorLoopGroup;
 import net.ladenthin.jackpot.util.*;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectableChannel;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
-        SequentialBinaryMessageTransmitter {
+        SequentialBinaryMessageTransmitter, ChannelTransportListener, ChannelConnectListener {
+
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
 
     /**
      * The boolean flag to shutdown the {@link #run()} method.
@@ -66,6 +76,83 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
 
     private final Connector connector;
 
+    /**
+     * The {@link #connector} if it is a channel connector, otherwise {@code null}. A channel
+     * connection has no reader thread: a {@link net.ladenthin.jackpot.nio.SelectorLoop} of
+     * the shared {@link #selectorLoopGroup} connects and reads it, the {@link WriteLayer}
+     * loop starts the (re)connects (see {@link #maintainConnection()}) and the
+     * {@link #connectTimer} paces them.
+     */
+    private final SelectableConnector selectableConnector;
+
+    /**
+     * The shared selector loops, referenced while this layer lives; {@code null} for stream
+     * connectors.
+     */
+    private final SelectorLoopGroup selectorLoopGroup;
+
+    /**
+     * Whether the {@link #selectorLoopGroup} reference was handed back already.
+     */
+    private final AtomicBoolean selectorLoopGroupReleased = new AtomicBoolean(false);
+
+    /**
+     * The live channel connection; {@code null} while disconnected. Replaces the streams for
+     * a {@link #selectableConnector}.
+     */
+    private final AtomicReference<ChannelTransport> channelTransport = new AtomicReference<>();
+
+    /**
+     * The shared timer pacing the connect attempts of a {@link #selectableConnector};
+     * {@code null} for stream connectors.
+     */
+    private final HashedWheelTimer connectTimer;
+
+    /**
+     * Guards the connect state of a {@link #selectableConnector}: {@link #connecting} and
+     * the fields following it. Held briefly by the writer, the selector and the timer
+     * thread; never while blocking.
+     */
+    private final ReentrantLock connectLock = new ReentrantLock();
+
+    /**
+     * Whether connect attempts are being made: from a missing connection until one is
+     * established or {@link net.ladenthin.jackpot.configuration.CTransceiver#reconnectTimeout}
+     * is over.
+     */
+    private boolean connecting;
+
+    /**
+     * Whether the next connect attempt is due; set when the connecting starts and by the
+     * {@link #connectTimer} after {@link net.ladenthin.jackpot.configuration.CTransceiver#reconnectInterval}.
+     */
+    private boolean connectAttemptDue;
+
+    /**
+     * When the connecting started. Unit: [ns], see {@link System#nanoTime()}.
+     */
+    private long connectStartNanos;
+
+    /**
+     * The flight recorder event of the connecting.
+     */
+    private Object connectEvent;
+
+    /**
+     * The attempt the selector loop is completing, {@code null} between attempts.
+     */
+    private ChannelConnect pendingConnect;
+
+    /**
+     * Fires the next attempt after {@link net.ladenthin.jackpot.configuration.CTransceiver#reconnectInterval}.
+     */
+    private HashedWheelTimer.Timeout connectRetry;
+
+    /**
+     * Ends the connecting after {@link net.ladenthin.jackpot.configuration.CTransceiver#reconnectTimeout}.
+     */
+    private HashedWheelTimer.Timeout connectGiveUp;
+
     /**
      * The {@link ConnectorFactory}.
      */
@@ -90,29 +177,62 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
     private final ReadLayer<T> readLayer;
     private final MessageIdGenerator messageIdGenerator;
 
+    /**
+     * Records connects, reconnect durations and connect failures.
+     */
+    private final TransceiverMetrics metrics;
+
     public ConnectionLayer(
         final CTransceiverSession cTransceiverSession,
         final Transceiver transceiver,
         final ErrorLayer errorLayer,
         final MessageIdGenerator messageIdGenerator,
         final FlowControl flowControl,
-        final SendCompletionTracker sendCompletionTracker
+        final SendCompletionTracker sendCompletionTracker,
+        final TransceiverMetrics metrics
     ) {
         this.transceiverSession = cTransceiverSession;
+        this.rangeEncodedAcknowledgement =
+            cTransceiverSession.transceiverConfiguration.rangeEncodedAcknowledgement;
         this.transceiver = transceiver;
         this.errorLayer = errorLayer;
         this.messageIdGenerator = messageIdGenerator;
+        this.metrics = metrics;
 
         this.connectorFactory = new ConnectorFactoryImpl(this.transceiverSession);
 
         connector = connectorFactory.getConnector();
 
-        writeLayer = new WriteLayer(errorLayer, this, flowControl, sendCompletionTracker);
-        readLayer = new ReadLayer<>(cTransceiverSession, this, errorLayer, transceiver);
+        if (connector instanceof SelectableConnector) {
+            selectableConnector = (SelectableConnector) connector;
+            try {
+                selectorLoopGroup = SelectorLoopGroup.acquire();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            connectTimer = HashedWheelTimer.acquire();
+        } else {
+            selectableConnector = null;
+            selectorLoopGroup = null;
+            connectTimer = null;
+        }
+
+        writeLayer = new WriteLayer(errorLayer, this, flowControl, sendCompletionTracker, metrics);
+        readLayer = new ReadLayer<>(cTransceiverSession, this, errorLayer, transceiver, metrics);
 
-        this.thread = new Thread(this,
-            "jackpot-ConnectionLayer-" + cTransceiverSession.transceiverId);
-        thread.start();
+        if (selectableConnector == null) {
+            this.thread = NamedJackpotThreadFactory.newThread(
+                cTransceiverSession.transceiverConfiguration.threadType, this,
+                "jackpot-ConnectionLayer-" + cTransceiverSession.transceiverId);
+            thread.start();
+        } else {
+            this.thread = null;
+            /**
+             * No reader thread connects a channel connection: wake the writer loop, which
+             * establishes it (see {@link #maintainConnection()}).
+             */
+            writeLayer.heartbeatSignal();
+        }
 
     }
 
@@ -124,6 +244,10 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
      */
     public final void writeBoxedSendableByteMessage(final BinaryMessage bm) throws NoConnectionPossible {
         Transceiver.debugLog("ConnectionLayer.writeBoxedSendableByteMessage(final BinaryMessage bm)");
+        if (selectableConnector != null) {
+            writeToChannel(bm);
+            return;
+        }
         for (;;) {
             boolean hasToConnect = false;
             try {
@@ -166,6 +290,337 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
         }
     }
 
+    /**
+     * Writes a batch of messages with a single flush, so small messages share one system call
+     * and TCP segment instead of paying one each. Like
+     * {@link #writeBoxedSendableByteMessage}, a broken connection is re-established and the
+     * whole batch is written again; the other side discards what it already received.
+     *
+     * @param batch the messages in write order
+     */
+    public final void writeBoxedSendableByteMessages(final List<BinaryMessage> batch) throws NoConnectionPossible {
+        Transceiver.debugLog("ConnectionLayer.writeBoxedSendableByteMessages(final List<BinaryMessage> batch)");
+        if (selectableConnector != null) {
+            final ChannelTransport transport = channelTransport.get();
+            if (transport != null && transport.write(batch)) {
+                return;
+            }
+            channelNotWritable();
+        }
+        for (;;) {
+            boolean hasToConnect = false;
+            try {
+                writeLock.lock();
+                /**
+                 * See {@link #writeBoxedSendableByteMessage}: check the stream inside the
+                 * lock, connect outside of it.
+                 */
+                if (dos == null) {
+                    hasToConnect = true;
+                } else {
+                    for (int i = 0; i < batch.size(); ++i) {
+                        batch.get(i).toDataOutput(dos);
+                    }
+                    dos.flush();
+                }
+            } catch (IOException e) {
+                hasToConnect = true;
+            } finally {
+                writeLock.unlock();
+            }
+
+            if (hasToConnect) {
+                if (shutdown.get()) {
+                    throw new NoConnectionPossible();
+                }
+                connect();
+                continue;
+            }
+
+            return;
+        }
+    }
+
+    /**
+     * The channel counterpart of {@link #writeBoxedSendableByteMessage}: the frame goes to the
+     * current {@link ChannelTransport}, a broken or missing transport is reconnected.
+     */
+    private void writeToChannel(final BinaryMessage bm) throws NoConnectionPossible {
+        final ChannelTransport transport = channelTransport.get();
+        if (transport != null && transport.write(bm)) {
+            return;
+        }
+        channelNotWritable();
+    }
+
+    /**
+     * A channel write failed: the reconnect proceeds on the selector loop instead of this
+     * thread, the written messages are retained and the resend sweep delivers them.
+     *
+     * @throws NoConnectionPossibleOtherThread while the reconnect proceeds
+     * @throws NoConnectionPossible during shutdown, when a failed write is expected (the
+     * channel was closed on purpose)
+     */
+    private void channelNotWritable() throws NoConnectionPossible {
+        if (shutdown.get()) {
+            throw new NoConnectionPossible();
+        }
+        startConnecting();
+        throw new NoConnectionPossibleOtherThread();
+    }
+
+    /**
+     * @return whether a channel connection is missing and being established on the selector
+     * loop, so a write cannot proceed yet; never for stream connectors, which reconnect
+     * within the write
+     */
+    public final boolean isConnecting() {
+        return selectableConnector != null && !isConnected();
+    }
+
+    /**
+     * Keeps a channel connection alive; a no-op for stream connectors, whose reader thread
+     * does this. Establishes a missing connection (initially and after a failure reported by
+     * the selector loop) and breaks one that stayed silent for longer than the connector's
+     * read timeout — the equivalent of a timed-out blocking read. Driven by the
+     * {@link WriteLayer} loop.
+     */
+    public final void maintainConnection() {
+        if (selectableConnector == null || shutdown.get()) {
+            return;
+        }
+        final ChannelTransport transport = channelTransport.get();
+        if (transport != null) {
+            final int readTimeout = selectableConnector.getReadTimeout();
+            if (readTimeout > 0
+                && System.currentTimeMillis() - transport.getLastReadActivity() > readTimeout) {
+                transport.fail(new SocketTimeoutException("no data for " + readTimeout + " ms"));
+            }
+            if (!transport.isClosed()) {
+                return;
+            }
+        }
+        startConnecting();
+    }
+
+    /**
+     * Starts connecting a {@link #selectableConnector} unless it is connecting already, and
+     * starts the due attempt. Never blocks: the selector loop completes the attempt (see
+     * {@link #connectReady(ChannelConnect)}), the {@link #connectTimer} paces the next one
+     * and ends the connecting after
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#reconnectTimeout}.
+     */
+    private void startConnecting() {
+        connectLock.lock();
+        try {
+            if (shutdown.get()) {
+                return;
+            }
+            if (!connecting) {
+                connecting = true;
+                connectAttemptDue = true;
+                connectStartNanos = System.nanoTime();
+                connectEvent = EVENTS.begin(FlightRecorderEvents.Kind.Reconnect);
+                connectGiveUp = connectTimer.newTimeout(this::giveUpConnecting,
+                    transceiverSession.transceiverConfiguration.reconnectTimeout,
+                    TimeUnit.MILLISECONDS);
+            }
+            if (!connectAttemptDue) {
+                return;
+            }
+            connectAttemptDue = false;
+            final ChannelTransport previous = channelTransport.getAndSet(null);
+            if (previous != null) {
+                previous.close();
+            }
+            final SelectableChannel channel;
+            try {
+                channel = selectableConnector.beginConnect();
+            } catch (IOException e) {
+                Transceiver.debugLog("ConnectionLayer.startConnecting: " + e);
+                scheduleConnectAttempt();
+                return;
+            }
+            pendingConnect = new ChannelConnect(channel, selectorLoopGroup.next(), this);
+            pendingConnect.start();
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    /**
+     * Schedules the next attempt after a failed one. With the {@link #connectLock} held.
+     */
+    private void scheduleConnectAttempt() {
+        closeConnector();
+        connectRetry = connectTimer.newTimeout(new Runnable() {
+            @Override
+            public void run() {
+                connectLock.lock();
+                try {
+                    if (!connecting) {
+                        return;
+                    }
+                    connectAttemptDue = true;
+                } finally {
+                    connectLock.unlock();
+                }
+                /**
+                 * The writer loop starts the attempt: resolving the address must not hold
+                 * the shared timer.
+                 */
+                writeLayer.heartbeatSignal();
+            }
+        }, transceiverSession.transceiverConfiguration.reconnectInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The {@link net.ladenthin.jackpot.configuration.CTransceiver#reconnectTimeout} is over
+     * without a connection: the pending attempt is abandoned and the error surfaced. Runs on
+     * the {@link #connectTimer}.
+     */
+    private void giveUpConnecting() {
+        connectLock.lock();
+        try {
+            if (!connecting) {
+                return;
+            }
+            stopConnecting();
+            closeConnector();
+        } finally {
+            connectLock.unlock();
+        }
+        if (!shutdown.get()) {
+            metrics.connectFailed();
+            errorLayer.notifyNoConnectionPossible();
+        }
+    }
+
+    /**
+     * Ends the connecting and cancels its pending attempt and timeouts. With the
+     * {@link #connectLock} held.
+     */
+    private void stopConnecting() {
+        connecting = false;
+        connectAttemptDue = false;
+        if (pendingConnect != null) {
+            pendingConnect.cancel();
+            pendingConnect = null;
+        }
+        if (connectRetry != null) {
+            connectRetry.cancel();
+            connectRetry = null;
+        }
+        if (connectGiveUp != null) {
+            connectGiveUp.cancel();
+            connectGiveUp = null;
+        }
+    }
+
+    private void closeConnector() {
+        try {
+            connector.close();
+        } catch (IOException e) {
+        }
+    }
+
+    @Override
+    public final void connectReady(final ChannelConnect connect) throws IOException {
+        connectLock.lock();
+        try {
+            if (connect != pendingConnect || !selectableConnector.finishConnect()
+                || !connect.complete()) {
+                return;
+            }
+            pendingConnect = null;
+            /**
+             * A connected client channel is registered with the loop of its attempt already.
+             */
+            final ChannelTransport transport = new ChannelTransport(
+                selectableConnector.getSocketChannel(), connect.getLoop(),
+                transceiverSession.transceiverConfiguration.maxPayloadLength,
+                transceiverSession.transceiverConfiguration.maxOutboundBytes, this);
+            /**
+             * Publish before starting: the first frame may arrive on the selector thread
+             * before start() returns.
+             */
+            channelTransport.set(transport);
+            transport.start();
+            metrics.connected(System.nanoTime() - connectStartNanos);
+            EVENTS.commit(connectEvent, -1, 0, 0);
+            stopConnecting();
+        } finally {
+            connectLock.unlock();
+        }
+        /**
+         * Write what queued up meanwhile.
+         */
+        writeLayer.heartbeatSignal();
+    }
+
+    @Override
+    public final void connectFailed(final ChannelConnect connect, final Exception cause) {
+        Transceiver.debugLog("ConnectionLayer.connectFailed: " + cause);
+        connectLock.lock();
+        try {
+            if (connect != pendingConnect) {
+                return;
+            }
+            pendingConnect = null;
+            if (!shutdown.get()) {
+                scheduleConnectAttempt();
+            }
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    @Override
+    public final void frameReceived(final ChannelTransport transport, final BinaryMessage bm) {
+        if (transport != channelTransport.get()) {
+            // a late frame of a replaced connection
+            return;
+        }
+        try {
+            /**
+             * Liveness: a successfully read message proves the other side is alive.
+             */
+            lastReadActivity = System.currentTimeMillis();
+            expiredNotified.set(false);
+            readLayer.receiveMessage(bm);
+        } catch (RuntimeException e) {
+            /**
+             * Never let an unexpected RuntimeException escape into the shared selector loop,
+             * which serves other transceivers too.
+             */
+            if (!shutdown.get()) {
+                errorLayer.notifyException(e);
+            }
+        }
+    }
+
+    @Override
+    public final void transportFailed(final ChannelTransport transport, final Exception cause) {
+        Transceiver.debugLog("ConnectionLayer.transportFailed: " + cause);
+        if (channelTransport.compareAndSet(transport, null) && !shutdown.get()) {
+            /**
+             * Reconnect without waiting for the next timer tick.
+             */
+            writeLayer.heartbeatSignal();
+        }
+    }
+
+    /**
+     * @return whether the current connection (streams or channel) is usable
+     */
+    private boolean isConnected() {
+        if (selectableConnector != null) {
+            final ChannelTransport transport = channelTransport.get();
+            return transport != null && !transport.isClosed();
+        }
+        return dos != null && bos != null && dis != null && bis != null;
+    }
+
     /**
      * This is an sequential function
      * @throws NoConnectionPossible
@@ -218,6 +673,11 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
     private final void enforceDisconnect() {
         Transceiver.debugLog("ConnectionLayer.enforceDisconnect()");
 
+        final ChannelTransport transport = channelTransport.getAndSet(null);
+        if (transport != null) {
+            transport.close();
+        }
+
         if(dis != null) {
             try {
                 dis.close();
@@ -258,16 +718,17 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
 
     private final void connectLoop() throws NoConnectionPossible {
         Transceiver.debugLog("ConnectionLayer.connectLoop()");
-        //TODO: configuration
-        int maximumConnectionTime = 30000;
+        final int maximumConnectionTime = transceiverSession.transceiverConfiguration.reconnectTimeout;
         //sleep after each connection try
-        int millis = 5000;
+        final int millis = transceiverSession.transceiverConfiguration.reconnectInterval;
         //256kb buffer
         int inputBufferSize = 262144;//2^18;
         int outputBufferSize = 262144;//2^18;
 
         final long startTime = System.currentTimeMillis();
         final long endTime = startTime + maximumConnectionTime;
+        final long startNanos = System.nanoTime();
+        final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Reconnect);
 
         while(System.currentTimeMillis() <= endTime && !shutdown.get()) {
             try {
@@ -291,6 +752,8 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
                 dos = new DataOutputStream(bos);
                 Transceiver.debugLog("ConnectionLayer.connectLoop().dos: " + dos);
 
+                metrics.connected(System.nanoTime() - startNanos);
+                EVENTS.commit(event, -1, 0, 0);
                 return;
             } catch (IOException e) {
                 /**
@@ -314,6 +777,9 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
         dis = null;
         bos = null;
         dos = null;
+        if (!shutdown.get()) {
+            metrics.connectFailed();
+        }
         throw new NoConnectionPossible();
     }
 
@@ -326,7 +792,7 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
             try {
                 assignLock.lock();
                 // check the successful assignment from other thread, NoConnectionPossible may already thrown
-                if( dos == null || bos == null || dis == null || bis == null) {
+                if (!isConnected()) {
                     throw new NoConnectionPossibleOtherThread();
                 }
                 return;
@@ -361,7 +827,19 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
      * Ids of received messages that still have to be acknowledged to the other side. Filled by
      * the {@link ReadLayer}, drained by the {@link WriteLayer} into acknowledgement messages.
      */
-    private final List<Long> pendingAcknowledgements = new ArrayList<>();
+    private final LongArrayList pendingAcknowledgements = new LongArrayList();
+
+    /**
+     * Guards {@link #pendingAcknowledgements}; a lock, see {@link WriteLayer}'s written lock.
+     */
+    private final ReentrantLock pendingAcknowledgementsLock = new ReentrantLock();
+
+    /**
+     * Whether acknowledgements go out range-encoded: configured, or negotiated by the first
+     * range-encoded acknowledgement received from the other side (see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#rangeEncodedAcknowledgement}).
+     */
+    private volatile boolean rangeEncodedAcknowledgement;
 
     /**
      * Timestamp of the last {@link WriteLayer#heartbeatSignal()} nudge caused by a newly
@@ -411,8 +889,11 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
      * @param id the received message id
      */
     public final void enqueueAcknowledgement(final long id) {
-        synchronized (pendingAcknowledgements) {
+        pendingAcknowledgementsLock.lock();
+        try {
             pendingAcknowledgements.add(id);
+        } finally {
+            pendingAcknowledgementsLock.unlock();
         }
         final long now = System.currentTimeMillis();
         final long lastNudge = lastAcknowledgementNudge.get();
@@ -422,22 +903,50 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
         }
     }
 
+    /**
+     * Enqueue the id of a stream chunk its reader consumed (see {@link StreamReceiver}) and
+     * nudge the {@link WriteLayer} at once: the writer on the other side waits for it to
+     * open its stream window, so the rate limit of
+     * {@link #enqueueAcknowledgement(long)} would cap the stream at a window per
+     * {@link net.ladenthin.jackpot.configuration.Heartbeat#heartbeatCheckInterval}. The
+     * other side acknowledges the carrying message rate-limited, so no ping-pong arises.
+     *
+     * @param id the read chunk id
+     */
+    public final void enqueueReadAcknowledgement(final long id) {
+        pendingAcknowledgementsLock.lock();
+        try {
+            pendingAcknowledgements.add(id);
+        } finally {
+            pendingAcknowledgementsLock.unlock();
+        }
+        writeLayer.heartbeatSignal();
+    }
+
     /**
      * Drain all pending acknowledgements.
      *
-     * @return the drained ids (possibly empty, never null)
+     * @param drained receives the pending ids in the order they were enqueued
      */
-    public final List<Long> drainPendingAcknowledgements() {
-        synchronized (pendingAcknowledgements) {
-            if (pendingAcknowledgements.isEmpty()) {
-                return Collections.emptyList();
-            }
-            final List<Long> drained = new ArrayList<>(pendingAcknowledgements);
+    public final void drainPendingAcknowledgements(final LongArrayList drained) {
+        pendingAcknowledgementsLock.lock();
+        try {
+            drained.addAll(pendingAcknowledgements);
             pendingAcknowledgements.clear();
-            return drained;
+        } finally {
+            pendingAcknowledgementsLock.unlock();
         }
     }
 
+    /**
+     * @return whether acknowledgements are sent range-encoded, see
+     * {@link BinaryMessage#createAcknowledgedRanges(long, long[])}
+     */
+    @ConcurrentMethod
+    public final boolean isRangeEncodedAcknowledgement() {
+        return rangeEncodedAcknowledgement;
+    }
+
     /**
      * Apply acknowledgements received from the other side: every acknowledged message is
      * released from the retained (resend) buffer.
@@ -450,6 +959,39 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
         }
     }
 
+    /**
+     * Apply range-encoded acknowledgements received from the other side, see
+     * {@link #applyAcknowledgements(List)}. The other side evidently decodes
+     * range-encoded acknowledgements, so ours are sent range-encoded from now on.
+     *
+     * @param ranges the acknowledged message ids as inclusive {@code first, last} pairs
+     */
+    public final void applyAcknowledgedRanges(final long[] ranges) {
+        rangeEncodedAcknowledgement = true;
+        writeLayer.acknowledgeRanges(ranges);
+    }
+
+    /**
+     * Hands a gap report about the received messages to the {@link WriteLayer}, which writes
+     * it ahead of everything queued.
+     *
+     * @param gapReport see {@link BinaryMessage#createGapReport(long, long[])}
+     */
+    @ConcurrentMethod
+    public final void reportGap(final BinaryMessage gapReport) {
+        writeLayer.transmitGapReport(gapReport);
+    }
+
+    /**
+     * Apply a gap report received from the other side: the ids it processed or holds are
+     * released, the ids missing before the held ones are retransmitted at once.
+     *
+     * @param gapReport the received gap report
+     */
+    public final void applyGapReport(final BinaryMessage gapReport) {
+        writeLayer.applyGapReport(gapReport.getId(), gapReport.getReceivedRanges());
+    }
+
     /**
      * The number of written messages not acknowledged by the other side yet.
      *
@@ -465,6 +1007,14 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
         shutdown.set(true);
         writeLayer.shutdownRunnable();
         readLayer.shutdownRunnable();
+        if (selectableConnector != null) {
+            connectLock.lock();
+            try {
+                stopConnecting();
+            } finally {
+                connectLock.unlock();
+            }
+        }
         /**
          * Close the streams and the connector so the reader thread, which is typically
          * blocked in a stream read, gets an IOException and can observe the shutdown flag.
@@ -472,6 +1022,10 @@ public final class ConnectionLayer<T> implements ShutdownRunnable, Runnable,
          * cannot exit.
          */
         enforceDisconnect();
+        if (selectorLoopGroup != null && selectorLoopGroupReleased.compareAndSet(false, true)) {
+            SelectorLoopGroup.release(selectorLoopGroup);
+            HashedWheelTimer.release(connectTimer);
+        }
     }
 
     @Override
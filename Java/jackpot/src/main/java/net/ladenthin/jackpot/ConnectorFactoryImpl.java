@@ -43,6 +43,14 @@ public class ConnectorFactoryImpl implements ConnectorFactory {
                 return new WindowsNamedPipeClientConnector(
                         cTransceiverSession.transceiverConfiguration.connector.windowsNamedPipeClient
                 );
+            case ServerSocketChannelConnection:
+                return new ServerSocketChannelConnector(
+                        cTransceiverSession.transceiverConfiguration.connector.serverSocketConnector
+                );
+            case ClientSocketChannelConnection:
+                return new ClientSocketChannelConnector(
+                        cTransceiverSession.transceiverConfiguration.connector.clientSocketConnector
+                );
             default:
                 throw new RuntimeException("Unknown connector.");
         }
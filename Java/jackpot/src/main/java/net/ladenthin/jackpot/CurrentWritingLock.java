@@ -7,6 +7,7 @@ package net.ladenthin.jackpot;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class CurrentWritingLock {
 
@@ -14,8 +15,19 @@ public final class CurrentWritingLock {
 
     private final AtomicBoolean currentWriting = new AtomicBoolean(false);
 
+    /**
+     * The id range of the message (or batch of messages) being written.
+     */
     private final AtomicLong currentWritingId = new AtomicLong();
 
+    private final AtomicLong currentWritingHighestId = new AtomicLong();
+
+    /**
+     * Makes the three values above change and read together. A lock rather than a monitor,
+     * so a virtual loop thread does not pin its carrier while it waits.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     public CurrentWritingLock(final ErrorLayer errorLayer) {
         this.errorLayer = errorLayer;
     }
@@ -33,11 +45,16 @@ public final class CurrentWritingLock {
         for (;;) {
             final boolean block;
             final long blockId;
-            synchronized (this) {
+            final long blockHighestId;
+            lock.lock();
+            try {
                 block = currentWriting.get();
                 blockId = currentWritingId.get();
+                blockHighestId = currentWritingHighestId.get();
+            } finally {
+                lock.unlock();
             }
-            if (block && blockId == id) {
+            if (block && id >= blockId && id <= blockHighestId) {
                 try {
                     Thread.sleep(10);
                 } catch (InterruptedException e) {
@@ -49,12 +66,34 @@ public final class CurrentWritingLock {
         }
     }
 
-    public final synchronized void setLock(final long id) {
-        currentWriting.set(true);
-        currentWritingId.set(id);
+    public final void setLock(final long id) {
+        setLock(id, id);
     }
 
-    public final synchronized void releaseLock() {
-        currentWriting.set(false);
+    /**
+     * Locks a batch of messages written together. The ids of a batch need not be
+     * consecutive; an id inside the range but not in the batch merely waits for the batch.
+     *
+     * @param lowestId the lowest id of the batch
+     * @param highestId the highest id of the batch
+     */
+    public final void setLock(final long lowestId, final long highestId) {
+        lock.lock();
+        try {
+            currentWriting.set(true);
+            currentWritingId.set(lowestId);
+            currentWritingHighestId.set(highestId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final void releaseLock() {
+        lock.lock();
+        try {
+            currentWriting.set(false);
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -5,39 +5,102 @@
 
 package net.ladenthin.jackpot;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ReceiveMode;
 import net.ladenthin.jackpot.interfaces.ShutdownRunnable;
 import net.ladenthin.jackpot.messageprocessing.SequentialMessageReceiver;
 import net.ladenthin.jackpot.serializer.DeserializerRunnable;
 import net.ladenthin.jackpot.serializer.DeserializerFactory;
 import net.ladenthin.jackpot.serializer.SerializerFactory;
 import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.CodecExecutor;
 import net.ladenthin.jackpot.util.ConcurrentMethod;
+import net.ladenthin.jackpot.util.FlightRecorderEvents;
+import net.ladenthin.jackpot.util.MpscQueue;
 import net.ladenthin.jackpot.util.NamedJackpotThreadFactory;
+import net.ladenthin.jackpot.util.ReorderBuffer;
+import net.ladenthin.jackpot.util.WaitStrategy;
 
 public class DeserializeLayer<T> implements Runnable, ShutdownRunnable {
 
+    /**
+     * The most deserializations in flight with {@link ReceiveMode#Pipelined}; the reader
+     * waits beyond.
+     */
+    public static final int PIPELINE_CAPACITY = 4096;
+
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
+    /**
+     * The outcome of one deserialization: the message or the failure.
+     */
+    private static final class Deserialized<T> {
+
+        private final T message;
+
+        private final Throwable failure;
+
+        private Deserialized(final T message, final Throwable failure) {
+            this.message = message;
+            this.failure = failure;
+        }
+    }
+
     /**
      * The {@link CTransceiverSession}-
      */
     private final CTransceiverSession cTransceiverSession;
 
     /**
-     * The {@link ExecutorService}.
+     * Runs the deserializations; bounded, shared or virtual per
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#codecExecutor}.
+     */
+    private final CodecExecutor deserializerExecutor;
+
+    /**
+     * The {@link Future} deserializations in receive order; consumed by {@link #run()}.
+     * {@link ReceiveMode#Staged} only.
+     */
+    protected final MpscQueue<Future<T>> deserializerFutures;
+
+    /**
+     * Restores the receive order of the completed deserializations and delivers them on the
+     * codec thread that completes the next one. {@link ReceiveMode#Pipelined} only, otherwise
+     * {@code null}.
+     */
+    private final ReorderBuffer<Deserialized<T>> reorderBuffer;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#maxDeliveryBatchMessages}.
+     */
+    private final int maxDeliveryBatchMessages;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#deliveryBatchLinger}.
+     * Unit: [ns].
      */
-    private final ExecutorService deserializerExecutor = Executors.newCachedThreadPool(
-        new NamedJackpotThreadFactory("jackpot-DeserializeLayer-pool"));
+    private final long deliveryBatchLingerNanos;
 
-    protected final Deque<Future<T>> deserializerFutures = new ArrayDeque<>();
+    /**
+     * The deserialized messages of the batch being delivered, reused across batches. Owned by
+     * the {@link #run()} loop, or by the delivering codec thread (see {@link ReorderBuffer}).
+     */
+    private final List<T> batch = new ArrayList<>();
+
+    /**
+     * A future taken from {@link #deserializerFutures} that was not done when a batch was
+     * ready; it leads the next batch. Loop thread only.
+     */
+    private Future<T> pendingFuture;
 
     /**
      * The {@link SerializerFactory}.
@@ -50,10 +113,8 @@ public class DeserializeLayer<T> implements Runnable, ShutdownRunnable {
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     /**
-     * Semaphore to run the loop.
+     * The {@link #run()} loop; {@code null} with {@link ReceiveMode#Pipelined}.
      */
-    protected final Semaphore doRun = new Semaphore(0, true);
-
     private final Thread thread;
 
     /**
@@ -64,12 +125,35 @@ public class DeserializeLayer<T> implements Runnable, ShutdownRunnable {
     private final ErrorLayer errorLayer;
 
     public DeserializeLayer(final CTransceiverSession cTransceiverSession, final ErrorLayer errorLayer,
-        final SequentialMessageReceiver<T> receiver) {
+        final SequentialMessageReceiver<T> receiver, final TransceiverMetrics metrics) {
         this.cTransceiverSession = cTransceiverSession;
         this.errorLayer = errorLayer;
         this.receiver = receiver;
+        this.deserializerFutures = new MpscQueue<>(
+            WaitStrategy.of(cTransceiverSession.transceiverConfiguration.waitStrategy));
+        this.maxDeliveryBatchMessages = Math.max(1,
+            cTransceiverSession.transceiverConfiguration.maxDeliveryBatchMessages);
+        this.deliveryBatchLingerNanos = TimeUnit.MILLISECONDS.toNanos(
+            cTransceiverSession.transceiverConfiguration.deliveryBatchLinger);
+        if (cTransceiverSession.transceiverConfiguration.receiveMode == ReceiveMode.Pipelined) {
+            this.reorderBuffer = new ReorderBuffer<>(PIPELINE_CAPACITY, maxDeliveryBatchMessages,
+                this::deliver);
+            metrics.deserializeQueueDepth(reorderBuffer::size);
+        } else {
+            this.reorderBuffer = null;
+            metrics.deserializeQueueDepth(deserializerFutures::size);
+        }
         this.deserializerFactory = new DeserializerFactoryImpl<>(cTransceiverSession);
-        this.thread = new Thread(this,
+        this.deserializerExecutor = CodecExecutor.create(
+            cTransceiverSession.transceiverConfiguration.codecExecutor,
+            cTransceiverSession.transceiverConfiguration.codecThreads,
+            "jackpot-DeserializeLayer-pool-" + cTransceiverSession.transceiverId);
+        if (reorderBuffer != null) {
+            this.thread = null;
+            return;
+        }
+        this.thread = NamedJackpotThreadFactory.newThread(
+            cTransceiverSession.transceiverConfiguration.threadType, this,
             "jackpot-DeserializeLayer-" + cTransceiverSession.transceiverId);
         thread.start();
     }
@@ -87,56 +171,112 @@ public class DeserializeLayer<T> implements Runnable, ShutdownRunnable {
             new DeserializerRunnable<>(deserializerFactory, bm,
                 cTransceiverSession.transceiverConfiguration.settingsCompression,
                 cTransceiverSession.transceiverConfiguration.maxPayloadLength);
+
+        if (reorderBuffer != null) {
+            deserializePipelined(unboxing);
+            return;
+        }
         
         /**
-         * Submit the runnable to the {@link ExecutorService}.
+         * Submit the runnable to the {@link CodecExecutor}; the loop below restores the
+         * receive order whichever thread finishes first.
          */
         final Future<T> future = deserializerExecutor.submit(unboxing);
         
         /**
-         * Add the {@link Future} to the {@link Deque} to get its result later.
-         */
-        synchronized (deserializerFutures) {
-            deserializerFutures.add(future);
-        }
-        
-        /**
-         * Releases a permit to receive the deserialization result in the
-         * {@link ReadLayer#run()} loop.
+         * Hand the {@link Future} to the {@link #run()} loop, which takes its result in
+         * receive order.
          */
-        doRun.release();
+        deserializerFutures.offer(future);
     }
     
+    /**
+     * Deserializes on the codec executor and completes the claimed sequence with the outcome,
+     * whatever it is: a sequence never completed would hold back every message behind it.
+     */
+    private void deserializePipelined(final Callable<T> unboxing) {
+        final long sequence = reorderBuffer.claim();
+        try {
+            deserializerExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    Deserialized<T> deserialized;
+                    try {
+                        deserialized = new Deserialized<>(unboxing.call(), null);
+                    } catch (Throwable e) {
+                        deserialized = new Deserialized<>(null, e);
+                    }
+                    reorderBuffer.complete(sequence, deserialized);
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            /**
+             * Rejected by a shut down executor.
+             */
+            reorderBuffer.complete(sequence, new Deserialized<T>(null, e));
+        }
+    }
+
+    /**
+     * Delivers consecutive completed deserializations in receive order as one batch; see
+     * {@link ReorderBuffer}. Surfaces a failure like the {@link #run()} loop does and never
+     * throws.
+     */
+    private void deliver(final List<Deserialized<T>> completed) {
+        if (shutdown.get()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < completed.size(); ++i) {
+                final Deserialized<T> deserialized = completed.get(i);
+                if (deserialized.failure != null) {
+                    errorLayer.notifyException(new ExecutionException(deserialized.failure));
+                } else {
+                    batch.add(deserialized.message);
+                }
+            }
+            if (!batch.isEmpty()) {
+                deliverBatch();
+            }
+        } catch (RuntimeException e) {
+            /**
+             * The delivering codec thread completes the messages behind these too: it must
+             * get back to them.
+             */
+            if (!shutdown.get()) {
+                errorLayer.notifyException(e);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
     @Override
     public void run() {
         for (;;) {
             try {
-                doRun.acquire();
-                
                 if (shutdown.get()) {
                     return;
                 }
-                
-                final Future<T> future;
-                
+
                 /**
-                 * Get the {@link Future} of the next deserialized result.
+                 * Take the deserialized results in receive order. Nothing queued: wait for
+                 * the next hand-off.
                  */
-                synchronized (deserializerFutures) {
-                    future = deserializerFutures.pollFirst();
+                fillBatch();
+                if (batch.isEmpty()) {
+                    if (pendingFuture == null) {
+                        deserializerFutures.await();
+                    }
+                    continue;
                 }
-                
-                /**
-                 * Get the deserialized result.
-                 * Waits if necessary for the computation to complete.
-                 */
-                final T tm = future.get();
-                
+
                 /**
                  * Inform the {@link ConnectionLayer}.
                  */
-                receiver.receiveMessage(tm);
-            } catch (InterruptedException | ExecutionException e) {
+                deliverBatch();
+            } catch (InterruptedException e) {
                 errorLayer.notifyException(e);
             } catch (RuntimeException e) {
                 /**
@@ -147,19 +287,108 @@ public class DeserializeLayer<T> implements Runnable, ShutdownRunnable {
                 if (!shutdown.get()) {
                     errorLayer.notifyException(e);
                 }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Hands the {@link #batch} to the receiver; a single message takes the per-message path.
+     */
+    private void deliverBatch() {
+        final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Deliver);
+        if (batch.size() == 1) {
+            receiver.receiveMessage(batch.get(0));
+        } else {
+            receiver.receiveMessages(batch);
+        }
+        EVENTS.commit(event, -1, batch.size(), 0);
+    }
+
+    /**
+     * Moves the deserialized results into the {@link #batch} in receive order until
+     * {@link #maxDeliveryBatchMessages} is reached or the next result is not ready: the
+     * first result is waited for, a later one only while the batch lingers — otherwise what
+     * is ready is delivered instead of waiting behind a slow deserialization. A batch that
+     * is not full lingers up to {@link #deliveryBatchLingerNanos} for more hand-offs. A
+     * failed deserialization is surfaced and skipped. Loop thread only.
+     */
+    private void fillBatch() throws InterruptedException {
+        final long lingerUntil = System.nanoTime() + deliveryBatchLingerNanos;
+        for (;;) {
+            Future<T> future;
+            while (batch.size() < maxDeliveryBatchMessages && (future = nextFuture()) != null) {
+                if (!batch.isEmpty() && !future.isDone() && !awaitDone(future, lingerUntil)) {
+                    pendingFuture = future;
+                    return;
+                }
+                try {
+                    /**
+                     * Waits if necessary for the computation to complete.
+                     */
+                    batch.add(future.get());
+                } catch (ExecutionException e) {
+                    errorLayer.notifyException(e);
+                }
+            }
+            if (deliveryBatchLingerNanos <= 0 || batch.isEmpty()
+                || batch.size() >= maxDeliveryBatchMessages || shutdown.get()) {
+                return;
+            }
+            final long remaining = lingerUntil - System.nanoTime();
+            if (remaining <= 0) {
+                return;
             }
+            deserializerFutures.awaitNanos(remaining);
+        }
+    }
 
+    /**
+     * Waits for a future while the batch lingers.
+     *
+     * @param lingerUntil Unit: [ns], see {@link System#nanoTime()}.
+     * @return whether the future is done
+     */
+    private boolean awaitDone(final Future<T> future, final long lingerUntil) throws InterruptedException {
+        final long remaining = lingerUntil - System.nanoTime();
+        if (deliveryBatchLingerNanos <= 0 || remaining <= 0) {
+            return false;
+        }
+        try {
+            future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // done; surfaced when the batch takes the result
         }
+        return true;
+    }
+
+    /**
+     * @return the {@link #pendingFuture} or the next queued future, {@code null} if none.
+     * Loop thread only.
+     */
+    private Future<T> nextFuture() {
+        final Future<T> future = pendingFuture;
+        if (future != null) {
+            pendingFuture = null;
+            return future;
+        }
+        return deserializerFutures.poll();
     }
 
     @ConcurrentMethod
     @Override
     public void shutdownRunnable() {
         shutdown.set(true);
-        doRun.release();
+        deserializerFutures.signal();
+        if (reorderBuffer != null) {
+            reorderBuffer.close();
+        }
         /**
-         * Stop the pool threads as well — idle cached threads would otherwise keep the JVM
-         * alive for their keep-alive time (non-daemon threads).
+         * Stop the pool threads as well (or release the shared pool) — idle threads would
+         * otherwise keep the JVM alive for their keep-alive time (non-daemon threads).
          */
         deserializerExecutor.shutdown();
     }
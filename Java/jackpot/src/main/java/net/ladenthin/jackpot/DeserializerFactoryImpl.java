@@ -11,25 +11,37 @@ import net.ladenthin.jackpot.deserializer.GsonDeserializer;
 import net.ladenthin.jackpot.deserializer.ObjectOutputStreamDeserializer;
 import net.ladenthin.jackpot.deserializer.ProtostuffDeserializer;
 import net.ladenthin.jackpot.serializer.DeserializerFactory;
+import net.ladenthin.jackpot.util.ConcurrentMethod;
 
 public class DeserializerFactoryImpl<T> extends SerializationFactory implements
     DeserializerFactory<T> {
 
+    /**
+     * Built once, see {@link SerializerFactoryImpl}.
+     */
+    private final Deserializer<T> deserializer;
+
     public DeserializerFactoryImpl(final CTransceiverSession cTransceiverSession) {
         super(cTransceiverSession);
+        deserializer = createDeserializer();
     }
 
-    @Override
-    public Deserializer<T> getDeserializer(final byte[] bytes) {
+    private Deserializer<T> createDeserializer() {
         switch (getTransmissionType()) {
         case ProtostuffSerialization:
-            return new ProtostuffDeserializer<>(getMessageType(), getMessageClass(), bytes);
+            return new ProtostuffDeserializer<>(getMessageType(), getMessageClass());
         case GsonSerialization:
-            return new GsonDeserializer<>(getMessageType(), getMessageClass(), bytes);
+            return new GsonDeserializer<>(getMessageType(), getMessageClass());
         default:
         case ObjectOutputStreamSerialization:
-            return new ObjectOutputStreamDeserializer<>(getMessageType(), getMessageClass(), bytes);
+            return new ObjectOutputStreamDeserializer<>(getMessageType(), getMessageClass());
         }
     }
 
+    @Override
+    @ConcurrentMethod
+    public Deserializer<T> getDeserializer() {
+        return deserializer;
+    }
+
 }
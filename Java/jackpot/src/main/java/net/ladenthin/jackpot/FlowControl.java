@@ -8,6 +8,8 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import net.ladenthin.jackpot.util.FlightRecorderEvents;
+
 /**
  * Sender-side backpressure: bounds the number of application messages that were accepted for
  * sending but not yet acknowledged by the other side. {@link Transceiver#update} acquires a
@@ -18,6 +20,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public final class FlowControl {
 
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
     /**
      * The configured bound; {@code 0} disables backpressure entirely.
      */
@@ -41,15 +45,24 @@ public final class FlowControl {
      */
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
+    /**
+     * Records how long senders block.
+     */
+    private final TransceiverMetrics metrics;
+
     /**
      * @param maxPendingMessages the pending bound; {@code 0} disables backpressure
      * @param sendTimeout reject an acquisition after this wait; {@code <= 0} waits
      * indefinitely. Unit: [ms].
+     * @param metrics records the wait times and the pending count
      */
-    public FlowControl(final int maxPendingMessages, final long sendTimeout) {
+    public FlowControl(final int maxPendingMessages, final long sendTimeout,
+        final TransceiverMetrics metrics) {
         this.maxPendingMessages = maxPendingMessages;
         this.sendTimeout = sendTimeout;
         this.permits = maxPendingMessages > 0 ? new Semaphore(maxPendingMessages, true) : null;
+        this.metrics = metrics;
+        metrics.pendingSendCount(this::getPendingCount);
     }
 
     /**
@@ -58,21 +71,56 @@ public final class FlowControl {
      * elapses without capacity.
      */
     public void acquire() {
+        acquire(1);
+    }
+
+    /**
+     * Acquire capacity for {@code count} messages in one step, see {@link #acquire()}: the
+     * fair semaphore hands out all of them at once or none, so a bulk sender neither holds a
+     * part of the capacity while waiting nor is overtaken by later senders.
+     *
+     * @param count the number of messages, at least {@code 1}; rejected with an
+     * {@link IllegalArgumentException} when it exceeds {@link #maxPendingMessages}, such a
+     * request could never be satisfied
+     */
+    public void acquire(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1: " + count);
+        }
         if (permits == null || shutdown.get()) {
             return;
         }
+        if (count > maxPendingMessages) {
+            throw new IllegalArgumentException("backpressure: " + count
+                + " messages exceed the maxPendingMessages bound of " + maxPendingMessages);
+        }
         try {
-            if (sendTimeout > 0) {
-                if (!permits.tryAcquire(sendTimeout, TimeUnit.MILLISECONDS)) {
-                    if (shutdown.get()) {
-                        return;
+            /**
+             * Only a sender that has to wait is recorded. The timed variant with a zero
+             * timeout honors the fairness, unlike the untimed tryAcquire().
+             */
+            if (permits.tryAcquire(count, 0, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            final long waitStart = System.nanoTime();
+            final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Backpressure);
+            try {
+                if (sendTimeout > 0) {
+                    if (!permits.tryAcquire(count, sendTimeout, TimeUnit.MILLISECONDS)) {
+                        if (shutdown.get()) {
+                            return;
+                        }
+                        throw new IllegalStateException("backpressure: " + maxPendingMessages
+                            + " messages are pending unacknowledged and no capacity"
+                            + (count == 1 ? "" : " for " + count + " messages")
+                            + " was freed within " + sendTimeout + " ms");
                     }
-                    throw new IllegalStateException("backpressure: " + maxPendingMessages
-                        + " messages are pending unacknowledged and no capacity was freed within "
-                        + sendTimeout + " ms");
+                } else {
+                    permits.acquire(count);
                 }
-            } else {
-                permits.acquire();
+            } finally {
+                metrics.backpressureWaited(System.nanoTime() - waitStart);
+                EVENTS.commit(event, -1, count, 0);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
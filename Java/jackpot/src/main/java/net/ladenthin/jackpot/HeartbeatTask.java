@@ -5,21 +5,64 @@
 
 package net.ladenthin.jackpot;
 
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import net.ladenthin.jackpot.util.ConcurrentMethod;
+import net.ladenthin.jackpot.util.HashedWheelTimer;
 
 /**
- * Created by bernard on 25.04.14.
+ * Ticks a {@link WriteLayer} every {@link net.ladenthin.jackpot.configuration.Heartbeat#heartbeatCheckInterval}
+ * on the shared {@link HashedWheelTimer}: each run schedules the next one, until
+ * {@link #cancel()}.
  */
-public class HeartbeatTask extends TimerTask {
+public class HeartbeatTask implements Runnable {
 
     private final WriteLayer writeLayer;
 
-    public HeartbeatTask(WriteLayer writeLayer) {
+    private final HashedWheelTimer timer;
+
+    /**
+     * Unit: [ms].
+     */
+    private final long interval;
+
+    private volatile boolean cancelled;
+
+    private volatile HashedWheelTimer.Timeout next;
+
+    public HeartbeatTask(WriteLayer writeLayer, HashedWheelTimer timer, long interval) {
         this.writeLayer = writeLayer;
+        this.timer = timer;
+        this.interval = interval;
+    }
+
+    /**
+     * Schedules the first tick.
+     *
+     * @param delay Unit: [ms]
+     */
+    public void start(final long delay) {
+        next = timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void run() {
+        if (cancelled) {
+            return;
+        }
         writeLayer.heartbeatSignal();
+        next = timer.newTimeout(this, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the ticks; a run in progress schedules no further tick.
+     */
+    @ConcurrentMethod
+    public void cancel() {
+        cancelled = true;
+        final HashedWheelTimer.Timeout scheduled = next;
+        if (scheduled != null) {
+            scheduled.cancel();
+        }
     }
 }
@@ -7,6 +7,7 @@ package net.ladenthin.jackpot;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
 
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
 import net.ladenthin.jackpot.interfaces.MessageIdGenerator;
@@ -16,6 +17,7 @@ import net.ladenthin.jackpot.messageprocessing.*;
 import net.ladenthin.jackpot.messageprocessing.ParallelMessageTransmitter;
 import net.ladenthin.jackpot.util.BinaryMessage;
 import net.ladenthin.jackpot.util.ConcurrentMethod;
+import net.ladenthin.jackpot.util.NamedJackpotThreadFactory;
 import net.ladenthin.jackpot.util.ParentEnsureFairProcessingSequence;
 import net.ladenthin.jackpot.util.ParentEnsureSynchronized;
 
@@ -71,6 +73,11 @@ public class MessageLayer<T> implements ParallelMessageTransmitter<T>, Runnable,
      */
     private final SendCompletionTracker sendCompletionTracker = new SendCompletionTracker();
 
+    /**
+     * Recorded by every layer, see {@link Transceiver#getMetrics()}.
+     */
+    private final TransceiverMetrics metrics = new TransceiverMetrics();
+
     public MessageLayer(final CTransceiverSession cTransceiverSession,
         final Transceiver<T> transceiver) {
         this.cTransceiverSession = cTransceiverSession;
@@ -79,16 +86,29 @@ public class MessageLayer<T> implements ParallelMessageTransmitter<T>, Runnable,
 
         this.flowControl = new FlowControl(
             cTransceiverSession.transceiverConfiguration.maxPendingMessages,
-            cTransceiverSession.transceiverConfiguration.sendTimeout);
+            cTransceiverSession.transceiverConfiguration.sendTimeout, metrics);
 
         // provide error logging facilities for lower layers
         ErrorLayer errorLayer = new ErrorLayer(transceiver);
+
+        if (cTransceiverSession.transceiverConfiguration.jmxMetrics) {
+            try {
+                metrics.registerMBean(cTransceiverSession.transceiverId);
+            } catch (JMException e) {
+                /**
+                 * Monitoring is optional: a taken name must not prevent the transceiver.
+                 */
+                errorLayer.notifyException(e);
+            }
+        }
+
         connectionLayer = new ConnectionLayer<>(cTransceiverSession, transceiver, errorLayer,
-            this, flowControl, sendCompletionTracker);
+            this, flowControl, sendCompletionTracker, metrics);
         serializeLayer  = new SerializeLayer<>(cTransceiverSession, this, errorLayer, this,
-            flowControl, sendCompletionTracker);
+            flowControl, sendCompletionTracker, metrics);
 
-        thread = new Thread(this,
+        thread = NamedJackpotThreadFactory.newThread(
+            cTransceiverSession.transceiverConfiguration.threadType, this,
             "jackpot-MessageLayer-" + cTransceiverSession.transceiverId);
         thread.start();
     }
@@ -131,16 +151,55 @@ public class MessageLayer<T> implements ParallelMessageTransmitter<T>, Runnable,
         flowControl.acquire();
     }
 
+    /**
+     * Acquire send capacity for {@code count} application messages at once, see
+     * {@link #acquireSendPermit()}.
+     */
+    void acquireSendPermits(final int count) {
+        flowControl.acquire(count);
+    }
+
     /**
      * Transmit an application message whose acknowledgement completes the given future
      * (the {@link Transceiver#send} path). <b>This method should only be called from the
      * {@link Transceiver}.</b>
      *
+     * @param channel the logical channel, see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#channelWeights}
      * @param message the message to send
      * @param acknowledged completed when the peer acknowledges the message
      */
-    void transmitMessage(final T message, final java.util.concurrent.CompletableFuture<Void> acknowledged) {
-        serializeLayer.transmitMessage(message, acknowledged);
+    void transmitMessage(final int channel, final T message,
+        final java.util.concurrent.CompletableFuture<Void> acknowledged) {
+        serializeLayer.transmitMessage(channel, message, acknowledged);
+    }
+
+    /**
+     * Transmit application messages under one consecutive id range whose acknowledgement
+     * completes the given future (the {@link Transceiver#sendAll} path). <b>This method
+     * should only be called from the {@link Transceiver}.</b>
+     *
+     * @param channel the logical channel of the messages
+     * @param messages the messages to send, in order; not empty
+     * @param acknowledged completed when the peer acknowledged every message
+     */
+    void transmitMessages(final int channel, final java.util.List<T> messages,
+        final java.util.concurrent.CompletableFuture<Void> acknowledged) {
+        serializeLayer.transmitMessages(channel, messages, acknowledged);
+    }
+
+    /**
+     * Transmit a chunk of a {@link TransceiverOutputStream} whose acknowledgement completes
+     * the given future. <b>This method should only be called from the {@link Transceiver}.</b>
+     *
+     * @param channel the logical channel of the stream
+     * @param chunk the header and the bytes of the chunk; handed over
+     * @param length the length of the chunk. Unit: [bytes].
+     * @param acknowledged completed when the peer read the chunk
+     */
+    void transmitStreamChunk(final int channel, final byte[] chunk, final int length,
+        final java.util.concurrent.CompletableFuture<Void> acknowledged) {
+        serializeLayer.transmitStreamChunk(channel, chunk, length, acknowledged);
     }
 
     @Override
@@ -165,6 +224,7 @@ public class MessageLayer<T> implements ParallelMessageTransmitter<T>, Runnable,
              */
             serializeLayer.shutdownRunnable();
             connectionLayer.shutdownRunnable();
+            metrics.unregisterMBean();
         }
     }
 
@@ -191,6 +251,13 @@ public class MessageLayer<T> implements ParallelMessageTransmitter<T>, Runnable,
         return connectionLayer.getUnacknowledgedMessageCount();
     }
 
+    /**
+     * @return the metrics of this transceiver
+     */
+    public TransceiverMetrics getMetrics() {
+        return metrics;
+    }
+
     // TODO: This method should not be there
     @Override
     public long getNextId() {
@@ -201,4 +268,13 @@ public class MessageLayer<T> implements ParallelMessageTransmitter<T>, Runnable,
         return nextId;
     }
 
+    @Override
+    public long getNextIds(final int count) {
+        final long lastId = nextMessageId.addAndGet(count);
+        if (lastId >= cTransceiverSession.lastMessageId) {
+            throw new RuntimeException("getLastMessageId reached.");
+        }
+        return lastId - count + 1;
+    }
+
 }
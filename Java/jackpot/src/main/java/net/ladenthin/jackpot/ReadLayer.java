@@ -6,18 +6,17 @@
 package net.ladenthin.jackpot;
 
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ReceiveMode;
 import net.ladenthin.jackpot.interfaces.ShutdownRunnable;
 import net.ladenthin.jackpot.util.*;
+import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.Objects;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class ReadLayer<T> implements ShutdownRunnable, Runnable {
     
@@ -31,7 +30,18 @@ public final class ReadLayer<T> implements ShutdownRunnable, Runnable {
      */
     private final CTransceiverSession cTransceiverSession;
     
+    /**
+     * The {@link #run()} loop; {@code null} with {@link ReceiveMode#Pipelined}.
+     */
     private final Thread thread;
+
+    /**
+     * With {@link ReceiveMode#Pipelined} the reader sequences in place (see
+     * {@link #receiveMessage(BinaryMessage)}); {@code null} with {@link ReceiveMode#Staged}.
+     * Uncontended unless a replaced connection still delivers a frame. A lock rather than a
+     * monitor, so a virtual reader does not pin its carrier thread.
+     */
+    private final ReentrantLock sequencingLock;
     
     private final ErrorLayer errorLayer;
     
@@ -45,41 +55,157 @@ public final class ReadLayer<T> implements ShutdownRunnable, Runnable {
     private final DeserializeLayer<T> deserializeLayer;
 
     /**
-     * The {@link Semaphore} to run the loop.
+     * The {@link BinaryMessage}s handed in by the reader; the {@link #run()} loop sorts them
+     * into {@link #receivedMessages}.
      */
-    private final Semaphore doRun = new Semaphore(0, true);
-    
+    private final MpscQueue<BinaryMessage> received;
+
+    /**
+     * The initial ring size of {@link #receivedMessages}; it grows to the span of ids
+     * received ahead of the expected one.
+     */
+    private static final int INITIAL_WINDOW_CAPACITY = 1024;
+
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
+    /**
+     * The receive window while the other side's messages in flight are unbounded
+     * ({@link net.ladenthin.jackpot.configuration.CTransceiver#maxPendingMessages} {@code 0}),
+     * and the most it grows to otherwise.
+     */
+    private static final long MAX_RECEIVE_WINDOW = 1 << 20;
+
+    /**
+     * How far a received id may lie ahead of the expected id: twice
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#maxPendingMessages} — the other
+     * side has no more messages in flight, its heartbeats and acknowledgements take ids in
+     * between — but at least {@link #INITIAL_WINDOW_CAPACITY}. A frame beyond is dropped
+     * unacknowledged (the other side resends it) instead of growing
+     * {@link #receivedMessages}, so a misbehaving peer cannot force a huge window.
+     */
+    private final long maxReceiveWindow;
+
+    /**
+     * The {@link BinaryMessage}s received from the other side, keyed by id. The order is
+     * ascending. Owned by the {@link #run()} loop (or guarded by the {@link #sequencingLock}),
+     * so not synchronized.
+     */
+    private final MessageIdWindow<BinaryMessage> receivedMessages = new MessageIdWindow<>(INITIAL_WINDOW_CAPACITY);
+
+    /**
+     * The most runs of held ids one gap report carries; the runs beyond are acknowledged
+     * regularly once the gap is closed.
+     */
+    private static final int MAX_GAP_REPORT_RANGES = 64;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#selectiveAcknowledgement}.
+     */
+    private final boolean selectiveAcknowledgement;
+
+    /**
+     * The expected id of the last gap report and when it was sent. Unit: [ms since epoch].
+     * Sequencing thread only.
+     */
+    private long lastGapReportNextId;
+    private long lastGapReportTimestamp;
+
+    /**
+     * The begun {@link FlightRecorderEvents.Kind#ReorderWait} while a gap holds back the
+     * window, {@code null} otherwise. Sequencing thread only.
+     */
+    private Object reorderWaitEvent;
+
     /**
-     * A {@link SortedSet} of {@link BinaryMessage}s, which are received from the other side.
-     * The order is ascending.
+     * Restores the other side's streamed deflate payloads; created with the first one.
+     * Sequencing thread only.
      */
-    private final SortedSet<BinaryMessage> receivedMessages = new TreeSet<>();
+    private StreamingInflater streamingInflater;
+
+    /**
+     * Reassembles the other side's fragmented messages (see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#fragmentLength}). Sequencing
+     * thread only.
+     */
+    private final FragmentAssembler fragmentAssembler;
+
+    /**
+     * Hands the other side's stream chunks to their {@link TransceiverInputStream}s, which
+     * acknowledge them once read.
+     */
+    private final StreamReceiver streamReceiver;
+
+    /**
+     * The order of the other side's logical channels (see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#channelWeights}): a channel
+     * message is delivered as soon as its channel predecessors are, ahead of the lower ids
+     * of the other channels. Sequencing thread only.
+     */
+    private final ChannelSequencer channelSequencer = new ChannelSequencer();
+
+    /**
+     * Takes the place of a message delivered ahead of the expected id in
+     * {@link #receivedMessages}: the id is received (and acknowledged or left to its
+     * stream), the sequence only has to pass it.
+     */
+    private static final BinaryMessage DELIVERED = BinaryMessage.createHeartbeat(-1L);
     
     private final AtomicLong nextMessageId;
-    private final AtomicInteger rejectedPermit = new AtomicInteger();
 
     private final AtomicLong heartbeatReceivedLastTimestamp = new AtomicLong();
     private final AtomicLong heartbeatReceivedCount = new AtomicLong();
+
+    private final TransceiverMetrics metrics;
     
     public ReadLayer(
         final CTransceiverSession cTransceiverSession,
         final ConnectionLayer<T> connectionLayer,
         final ErrorLayer errorLayer,
-        final Transceiver<T> transceiver
+        final Transceiver<T> transceiver,
+        final TransceiverMetrics metrics
     ) {
         this.cTransceiverSession = cTransceiverSession;
         this.connectionLayer = connectionLayer;
         this.errorLayer = errorLayer;
         this.transceiver = transceiver;
+        this.metrics = metrics;
+        selectiveAcknowledgement = cTransceiverSession.transceiverConfiguration.selectiveAcknowledgement;
+        final int maxPendingMessages = cTransceiverSession.transceiverConfiguration.maxPendingMessages;
+        maxReceiveWindow = maxPendingMessages > 0
+            ? Math.min(MAX_RECEIVE_WINDOW, Math.max(INITIAL_WINDOW_CAPACITY, 2L * maxPendingMessages))
+            : MAX_RECEIVE_WINDOW;
+        fragmentAssembler = new FragmentAssembler(
+            cTransceiverSession.transceiverConfiguration.settingsCompression);
+        streamReceiver = new StreamReceiver(
+            cTransceiverSession.transceiverConfiguration.settingsCompression,
+            cTransceiverSession.transceiverConfiguration.maxPayloadLength,
+            connectionLayer::enqueueReadAcknowledgement, transceiver::getStreamListener, errorLayer,
+            cTransceiverSession.transceiverConfiguration.threadType,
+            "jackpot-Stream-" + cTransceiverSession.transceiverId + "-");
         nextMessageId = new AtomicLong(cTransceiverSession.initialMessageId+1);
+        received = new MpscQueue<>(
+            WaitStrategy.of(cTransceiverSession.transceiverConfiguration.waitStrategy));
+        /**
+         * The window belongs to the loop thread; the gauge reads its size without
+         * synchronization, which is good enough for monitoring.
+         */
+        metrics.receiveQueueDepth(() -> received.size() + receivedMessages.size());
 
         deserializeLayer = new DeserializeLayer<>(
             cTransceiverSession,
             errorLayer,
-            transceiver
+            transceiver,
+            metrics
         );
 
-        this.thread = new Thread(this,
+        if (cTransceiverSession.transceiverConfiguration.receiveMode == ReceiveMode.Pipelined) {
+            this.sequencingLock = new ReentrantLock();
+            this.thread = null;
+            return;
+        }
+        this.sequencingLock = null;
+        this.thread = NamedJackpotThreadFactory.newThread(
+            cTransceiverSession.transceiverConfiguration.threadType, this,
             "jackpot-ReadLayer-" + cTransceiverSession.transceiverId);
         thread.start();
     }
@@ -89,88 +215,17 @@ public final class ReadLayer<T> implements ShutdownRunnable, Runnable {
         for (;;) {
             try {
                 /**
-                 * A permit exist?
-                 */
-                doRun.acquire();
-                
-                /**
-                 * A shutdown permit. Terminate the thread.
+                 * Shutdown requested. Terminate the thread.
                  */
                 if (shutdown.get()) {
                     return;
                 }
-                
-                final BinaryMessage bm;
-                synchronized (receivedMessages) {
-                    /**
-                     * A permit without a pending message (e.g. after a discarded duplicate)
-                     * must not crash the loop with a NoSuchElementException — a dead loop
-                     * thread would silently wedge the whole receive pipeline.
-                     */
-                    if (receivedMessages.isEmpty()) {
-                        continue;
-                    }
-                    bm = receivedMessages.first();
-                }
 
-                // security check
-                Objects.requireNonNull(bm);
+                received.drain(this::buffer, Integer.MAX_VALUE);
 
-                /**
-                 * A message older than the next expected id is an already-processed duplicate
-                 * (e.g. delivered again by a resend after a reconnect). It must be discarded:
-                 * as the lowest element of the sorted set it would otherwise be returned by
-                 * first() forever, no later message could ever match the expected id and the
-                 * receive pipeline would hang permanently.
-                 */
-                if (bm.getId() < nextMessageId.get()) {
-                    synchronized (receivedMessages) {
-                        receivedMessages.remove(bm);
-                    }
-                    /**
-                     * Acknowledge the duplicate AGAIN: the other side resent it because our
-                     * first acknowledgement never arrived (e.g. lost during a reconnect) —
-                     * without the re-acknowledgement it would retain and resend the message
-                     * forever.
-                     */
-                    connectionLayer.enqueueAcknowledgement(bm.getId());
-                    continue;
+                if (!processNext()) {
+                    received.await();
                 }
-
-                // compare the first (lowest) element to the expected messageId
-                if (bm.getId() != nextMessageId.get()) {
-                    // do not lose this permit, add the value to the counter
-                    rejectedPermit.incrementAndGet();
-                    // the message is not the expected message, wait for the next message (next permit)
-                    continue;
-                }
-                
-                // remove the message from the set
-                synchronized (receivedMessages) {
-                    receivedMessages.remove(bm);
-                }
-                // set to the next expected message id
-                nextMessageId.incrementAndGet();
-                // it is the expected message, release all (maybe previously) rejected permits
-                doRun.release(rejectedPermit.getAndSet(0));
-                
-                if (bm.isStateHeartbeat()) {
-                    heartbeatReceivedLastTimestamp.set(System.currentTimeMillis());
-                    heartbeatReceivedCount.incrementAndGet();
-                } else if (bm.isStateAcknowledged()) {
-                    connectionLayer.applyAcknowledgements(bm.getAcknowledged());
-                } else if (bm.isStateMessage()) {
-                    deserializeLayer.dataAvailable(bm);
-                } else {
-                    throw new IllegalStateException();
-                }
-
-                /**
-                 * Acknowledge every processed message (payloads, heartbeats and
-                 * acknowledgement messages alike — each occupies a sequence id): the other
-                 * side retains and eventually resends everything unacknowledged.
-                 */
-                connectionLayer.enqueueAcknowledgement(bm.getId());
             } catch (InterruptedException e) {
                 errorLayer.notifyException(e);
             } catch (RuntimeException e) {
@@ -185,19 +240,286 @@ public final class ReadLayer<T> implements ShutdownRunnable, Runnable {
             }
         }
     }
-    
-    public final void receiveMessage(BinaryMessage bm) {
-        final boolean added;
-        synchronized (receivedMessages) {
-            added = receivedMessages.add(bm);
+
+    /**
+     * Processes the lowest buffered message if it is the expected one. Sequencing thread
+     * only.
+     *
+     * @return whether a message was processed; {@code false}: nothing buffered or a gap
+     * before the lowest buffered id, wait for the next message
+     */
+    private boolean processNext() {
+        final BinaryMessage bm = receivedMessages.first();
+        if (bm == null || receivedMessages.firstId() != nextMessageId.get()) {
+            if (bm != null) {
+                if (reorderWaitEvent == null) {
+                    reorderWaitEvent = EVENTS.begin(FlightRecorderEvents.Kind.ReorderWait);
+                }
+                /**
+                 * An expected id in reassembly is not missing: its fragments are on their
+                 * way, behind them the messages written between them.
+                 */
+                if (selectiveAcknowledgement && !fragmentAssembler.isAssembling(nextMessageId.get())) {
+                    reportGap();
+                }
+            }
+            return false;
+        }
+        if (reorderWaitEvent != null) {
+            EVENTS.commit(reorderWaitEvent, nextMessageId.get(), receivedMessages.size(), 0);
+            reorderWaitEvent = null;
+        }
+        // remove the message from the window
+        receivedMessages.pollFirst();
+        if (bm == DELIVERED) {
+            nextMessageId.incrementAndGet();
+            return true;
+        }
+        process(bm);
+        return true;
+    }
+
+    /**
+     * Processes the expected message. Sequencing thread only.
+     */
+    private void process(final BinaryMessage bm) {
+        // set to the next expected message id
+        nextMessageId.incrementAndGet();
+
+        boolean deferred = false;
+        if (bm.isStateHeartbeat()) {
+            heartbeatReceivedLastTimestamp.set(System.currentTimeMillis());
+            heartbeatReceivedCount.incrementAndGet();
+            metrics.heartbeatReceived();
+        } else if (bm.isStateAcknowledged()) {
+            connectionLayer.applyAcknowledgements(bm.getAcknowledged());
+        } else if (bm.isStateAcknowledgedRanges()) {
+            connectionLayer.applyAcknowledgedRanges(bm.getAcknowledgedRanges());
+        } else if (bm.isStateMessage() && bm.isDeflateStreamed()) {
+            /**
+             * Inflated here, in id order and once per id, like the other side deflated.
+             */
+            if (streamingInflater == null) {
+                streamingInflater = new StreamingInflater();
+            }
+            try {
+                deferred = dataAvailable(streamingInflater.inflate(bm));
+            } catch (IOException e) {
+                errorLayer.notifyException(e);
+            }
+        } else if (bm.isStateMessage()) {
+            deferred = dataAvailable(bm);
+        } else {
+            throw new IllegalStateException();
+        }
+        /**
+         * Acknowledge every processed message (payloads, heartbeats and acknowledgement
+         * messages alike — each occupies a sequence id): the other side retains and
+         * eventually resends everything unacknowledged. A stream chunk is acknowledged by
+         * its stream once read.
+         */
+        if (!deferred) {
+            connectionLayer.enqueueAcknowledgement(bm.getId());
+        }
+
+        if (bm.isStateMessage() && bm.hasChannel()) {
+            /**
+             * Every lower id is processed, so the message is the next of its channel; the
+             * ones held behind it follow ahead of the expected id.
+             */
+            channelSequencer.delivered(bm);
+            final BinaryMessage held = channelSequencer.pollNext(bm.getChannel());
+            if (held != null) {
+                deliverAhead(held);
+            }
+        }
+    }
+
+    /**
+     * Delivers a channel message that is the next of its channel, though not the expected
+     * id, and then the messages of the channel held behind it. Each takes the
+     * {@link #DELIVERED} place in the window. Sequencing thread only.
+     */
+    private void deliverAhead(BinaryMessage bm) {
+        while (bm != null) {
+            channelSequencer.delivered(bm);
+            receivedMessages.remove(bm.getId());
+            receivedMessages.put(bm.getId(), DELIVERED);
+            if (!dataAvailable(bm)) {
+                connectionLayer.enqueueAcknowledgement(bm.getId());
+            }
+            bm = channelSequencer.pollNext(bm.getChannel());
+        }
+    }
+
+    /**
+     * Hands a processed payload on: a stream chunk to its stream, a message to the
+     * {@link DeserializeLayer}. Sequencing thread only.
+     *
+     * @return whether the acknowledgement is left to the stream
+     */
+    private boolean dataAvailable(final BinaryMessage bm) {
+        if (bm.isStreamChunk()) {
+            return streamReceiver.receive(bm);
+        }
+        deserializeLayer.dataAvailable(bm);
+        return false;
+    }
+
+    /**
+     * Sorts a handed-in message into {@link #receivedMessages}. Sequencing thread only.
+     */
+    private void buffer(BinaryMessage bm) {
+        if (bm.isStateGapReport()) {
+            /**
+             * Outside the id sequence: its id is the other side's expected id of OUR
+             * direction, so it is applied at once and neither buffered nor acknowledged.
+             */
+            connectionLayer.applyGapReport(bm);
+            return;
+        }
+        final long expectedId = nextMessageId.get();
+        if (bm.getId() < expectedId) {
+            /**
+             * A message older than the next expected id is an already-processed duplicate
+             * (e.g. delivered again by a resend after a reconnect). It is discarded, but
+             * acknowledged AGAIN: the other side resent it because our first acknowledgement
+             * never arrived (e.g. lost during a reconnect) — without the re-acknowledgement
+             * it would retain and resend the message forever.
+             */
+            acknowledgeDuplicate(bm);
+            return;
+        }
+        if (bm.getId() - expectedId >= maxReceiveWindow) {
+            Transceiver.debugLog("ReadLayer.buffer: id beyond the receive window dropped: " + bm.getId());
+            return;
+        }
+        if (receivedMessages.get(bm.getId()) == DELIVERED) {
+            /**
+             * A duplicate of a channel message delivered ahead of the expected id: processed
+             * already, so acknowledged again like a duplicate of a lower id.
+             */
+            acknowledgeDuplicate(bm);
+            return;
+        }
+        if (bm.isFragment()) {
+            /**
+             * Decompressed on arrival into the reassembled message, which takes the place
+             * of its fragments in the window; a fragment of an id already reassembled is a
+             * duplicate of a resend.
+             */
+            if (receivedMessages.contains(bm.getId())) {
+                return;
+            }
+            try {
+                bm = fragmentAssembler.add(bm);
+            } catch (IOException e) {
+                errorLayer.notifyException(e);
+                return;
+            }
+            if (bm == null) {
+                return;
+            }
+        } else if (bm.getId() != expectedId
+            && (bm.isStateAcknowledged() || bm.isStateAcknowledgedRanges())) {
+            /**
+             * Acknowledgements held behind a gap — typically the ones the other side wrote
+             * between the fragments of a large message — are applied on arrival, so the
+             * messages they release do not wait for the gap to close. An empty
+             * acknowledgement keeps the id in the sequence.
+             */
+            if (receivedMessages.contains(bm.getId())) {
+                return;
+            }
+            if (bm.isStateAcknowledged()) {
+                connectionLayer.applyAcknowledgements(bm.getAcknowledged());
+            } else {
+                connectionLayer.applyAcknowledgedRanges(bm.getAcknowledgedRanges());
+            }
+            bm = BinaryMessage.createAcknowledged(bm.getId(), Collections.<Long>emptyList());
+        }
+        if (bm.hasChannel() && bm.getId() != expectedId && !receivedMessages.contains(bm.getId())) {
+            /**
+             * A channel message waits for its channel predecessors only, not for the lower
+             * ids of the other channels.
+             */
+            if (channelSequencer.isNext(bm)) {
+                deliverAhead(bm);
+                return;
+            }
+            channelSequencer.hold(bm);
         }
         /**
-         * A duplicate id is not added to the sorted set (compareTo is id-based). Releasing a
-         * permit for it anyway would leave the loop with more permits than messages, so the
-         * permit is released only for an actually-added message.
+         * A duplicate of a still buffered id is not added to the window (it is keyed by id).
          */
-        if (added) {
-            doRun.release();
+        receivedMessages.put(bm.getId(), bm);
+    }
+
+    /**
+     * Acknowledges a discarded duplicate of a processed id again. A resent fragmented message
+     * is acknowledged once, with its last fragment; a resent stream chunk not read yet is
+     * acknowledged by its stream. Sequencing thread only.
+     */
+    private void acknowledgeDuplicate(final BinaryMessage bm) {
+        if ((!bm.isFragment() || bm.isLastFragment())
+            && !(bm.isStreamChunk() && streamReceiver.isUnread(bm.getId()))) {
+            connectionLayer.enqueueAcknowledgement(bm.getId());
+        }
+    }
+
+    /**
+     * Tells the other side which ids are held beyond the expected one, so it retransmits the
+     * missing ids at once. Sent when the expected id changed since the last report, otherwise
+     * at most once per {@link net.ladenthin.jackpot.configuration.Heartbeat#heartbeatCheckInterval}
+     * — the retransmission of the previous report is still on its way. Sequencing thread
+     * only.
+     */
+    private void reportGap() {
+        final long expectedId = nextMessageId.get();
+        final long now = System.currentTimeMillis();
+        if (expectedId == lastGapReportNextId && now - lastGapReportTimestamp
+            < cTransceiverSession.transceiverConfiguration.heartbeat.heartbeatCheckInterval) {
+            return;
+        }
+        lastGapReportNextId = expectedId;
+        lastGapReportTimestamp = now;
+        connectionLayer.reportGap(BinaryMessage.createGapReport(expectedId,
+            receivedMessages.idRanges(MAX_GAP_REPORT_RANGES)));
+    }
+
+    /**
+     * Hands a message read from the connection to the sequencing loop, or sequences it in
+     * place with {@link ReceiveMode#Pipelined}.
+     *
+     * @param bm the received message
+     */
+    @ConcurrentMethod
+    public final void receiveMessage(BinaryMessage bm) {
+        metrics.frameRead(bm);
+        EVENTS.instant(FlightRecorderEvents.Kind.Read, bm.getId(), 1, bm.getFrameLength());
+        if (sequencingLock == null) {
+            received.offer(bm);
+            return;
+        }
+        sequencingLock.lock();
+        try {
+            if (shutdown.get()) {
+                return;
+            }
+            if (!bm.isStateGapReport() && !bm.isFragment() && bm.getId() == nextMessageId.get()
+                && receivedMessages.isEmpty()) {
+                /**
+                 * Fast path: the expected message with nothing buffered skips the window.
+                 */
+                process(bm);
+            } else {
+                buffer(bm);
+            }
+            while (processNext()) {
+                // every buffered message the arrival unblocked
+            }
+        } finally {
+            sequencingLock.unlock();
         }
     }
 
@@ -213,8 +535,9 @@ public final class ReadLayer<T> implements ShutdownRunnable, Runnable {
     @ConcurrentMethod
     public void shutdownRunnable() {
         deserializeLayer.shutdownRunnable();
+        streamReceiver.shutdown();
         shutdown.set(true);
-        doRun.release();
+        received.signal();
     }
 
 }
@@ -4,16 +4,22 @@
 
 package net.ladenthin.jackpot;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Maps in-flight wire message ids to the {@link CompletableFuture} handed out by
  * {@link Transceiver#send(Object)}: a future completes normally when the peer's
  * acknowledgement for its id arrives, exceptionally when the message failed before reaching
  * the wire or the transceiver shuts down with the message still unacknowledged.
+ * <p>
+ * A {@link Transceiver#sendAll} range is one entry for all of its ids: its future completes
+ * when the last id of the range is acknowledged, and fails with the first failed id.
  */
 public final class SendCompletionTracker {
 
@@ -30,6 +36,31 @@ public final class SendCompletionTracker {
     private final ConcurrentMap<Long, CompletableFuture<Void>> pending =
         new ConcurrentHashMap<>();
 
+    /**
+     * A registered id range: the ids {@code [firstId, lastId]} share one future.
+     */
+    private static final class Range {
+
+        private final long lastId;
+        private final CompletableFuture<Void> future;
+
+        /**
+         * The ids of the range not acknowledged yet.
+         */
+        private final AtomicInteger remaining;
+
+        private Range(final long lastId, final int count, final CompletableFuture<Void> future) {
+            this.lastId = lastId;
+            this.future = future;
+            this.remaining = new AtomicInteger(count);
+        }
+    }
+
+    /**
+     * The pending ranges by their first id.
+     */
+    private final ConcurrentSkipListMap<Long, Range> pendingRanges = new ConcurrentSkipListMap<>();
+
     /**
      * After shutdown every new registration fails immediately.
      */
@@ -60,6 +91,43 @@ public final class SendCompletionTracker {
         }
     }
 
+    /**
+     * Associate a consecutive id range with one completion future, completed when every id
+     * of the range is acknowledged. A registration after {@link #shutdown()} fails the
+     * future immediately.
+     *
+     * @param firstId the first allocated wire message id of the range
+     * @param count the number of ids, at least {@code 1}
+     * @param future the future to complete
+     */
+    public void registerRange(final long firstId, final int count, final CompletableFuture<Void> future) {
+        if (shutdown.get()) {
+            future.completeExceptionally(new IllegalStateException(SHUT_DOWN_MESSAGE));
+            return;
+        }
+        pendingRanges.put(firstId, new Range(firstId + count - 1, count, future));
+        /**
+         * The same race with a concurrent {@link #shutdown()} as in {@link #register}.
+         */
+        if (shutdown.get()) {
+            fail(firstId, new IllegalStateException(SHUT_DOWN_MESSAGE));
+        }
+    }
+
+    /**
+     * @return the entry of the pending range containing the id, {@code null} if none
+     */
+    private Map.Entry<Long, Range> rangeOf(final long id) {
+        if (pendingRanges.isEmpty()) {
+            return null;
+        }
+        final Map.Entry<Long, Range> entry = pendingRanges.floorEntry(id);
+        if (entry == null || entry.getValue().lastId < id) {
+            return null;
+        }
+        return entry;
+    }
+
     /**
      * The acknowledgement for the id arrived: complete its future normally. Unregistered
      * ids (fire-and-forget messages, heartbeats, duplicate acknowledgements) are a no-op.
@@ -70,6 +138,16 @@ public final class SendCompletionTracker {
         final CompletableFuture<Void> future = pending.remove(id);
         if (future != null) {
             future.complete(null);
+            return;
+        }
+        /**
+         * Every id of a range is acknowledged once: the written message is removed with its
+         * first acknowledgement, duplicates never get here.
+         */
+        final Map.Entry<Long, Range> entry = rangeOf(id);
+        if (entry != null && entry.getValue().remaining.decrementAndGet() == 0
+            && pendingRanges.remove(entry.getKey(), entry.getValue())) {
+            entry.getValue().future.complete(null);
         }
     }
 
@@ -84,6 +162,11 @@ public final class SendCompletionTracker {
         final CompletableFuture<Void> future = pending.remove(id);
         if (future != null) {
             future.completeExceptionally(cause);
+            return;
+        }
+        final Map.Entry<Long, Range> entry = rangeOf(id);
+        if (entry != null && pendingRanges.remove(entry.getKey(), entry.getValue())) {
+            entry.getValue().future.completeExceptionally(cause);
         }
     }
 
@@ -96,5 +179,8 @@ public final class SendCompletionTracker {
         for (final Long id : pending.keySet()) {
             fail(id, new IllegalStateException(SHUT_DOWN_MESSAGE));
         }
+        for (final Long firstId : pendingRanges.keySet()) {
+            fail(firstId, new IllegalStateException(SHUT_DOWN_MESSAGE));
+        }
     }
 }
@@ -5,27 +5,31 @@
 
 package net.ladenthin.jackpot;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
 import net.ladenthin.jackpot.interfaces.ShutdownRunnable;
 import net.ladenthin.jackpot.interfaces.MessageIdGenerator;
 import net.ladenthin.jackpot.messageprocessing.ParallelMessageTransmitter;
 import net.ladenthin.jackpot.serializer.SerializeRunnable;
 import net.ladenthin.jackpot.serializer.SerializerFactory;
+import net.ladenthin.jackpot.util.AdaptiveCompression;
 import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.CodecExecutor;
 import net.ladenthin.jackpot.util.ConcurrentMethod;
+import net.ladenthin.jackpot.util.MpscQueue;
 import net.ladenthin.jackpot.util.NamedJackpotThreadFactory;
 import net.ladenthin.jackpot.util.ParentEnsureFairProcessingSequence;
 import net.ladenthin.jackpot.util.ParentEnsureSynchronized;
+import net.ladenthin.jackpot.util.StreamingDeflater;
+import net.ladenthin.jackpot.util.WaitStrategy;
 import java.util.ConcurrentModificationException;
 
 public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, ShutdownRunnable, Runnable {
@@ -46,42 +50,41 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
     private final SerializerFactory<T> serializerFactory;
 
     /**
-     * The {@link ExecutorService}.
+     * Runs the serializations; bounded, shared or virtual per
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#codecExecutor}.
      */
-    private final ExecutorService serializeExecutor = Executors.newCachedThreadPool(
-        new NamedJackpotThreadFactory("jackpot-SerializeLayer-pool"));
+    private final CodecExecutor serializeExecutor;
 
     /**
-     * A submitted serialization: the pre-allocated wire message id together with its
-     * {@link Future} result. The id is needed to repair the wire sequence when the
-     * serialization fails (see {@link SerializeLayer#run()}).
+     * A submitted serialization: the pre-allocated wire message id and the logical channel
+     * together with its {@link Future} result. The id is needed to repair the wire sequence
+     * when the serialization fails (see {@link SerializeLayer#run()}).
      */
     private static final class PendingSerialization {
 
         private final long id;
+        private final int channel;
         private final Future<BinaryMessage> future;
 
-        private PendingSerialization(final long id, final Future<BinaryMessage> future) {
+        private PendingSerialization(final long id, final int channel,
+            final Future<BinaryMessage> future) {
             this.id = id;
+            this.channel = channel;
             this.future = future;
         }
     }
 
     /**
-     * The {@link Future} serializations with their pre-allocated wire message ids.
+     * The {@link Future} serializations with their pre-allocated wire message ids, in
+     * submission order; consumed by {@link #run()}.
      */
-    private final Deque<PendingSerialization> serializeFutures = new ArrayDeque<>();
+    private final MpscQueue<PendingSerialization> serializeFutures;
 
     /**
      * The boolean flag to shutdown the {@link #run()} method.
      */
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
-    /**
-     * The {@link Semaphore} to run the loop.
-     */
-    private final Semaphore doRun = new Semaphore(0, true);
-
     /**
      * The {@link net.ladenthin.jackpot.messageprocessing.SequentialBinaryMessageTransmitter} to notify finished serializations in their
      * natural order.
@@ -105,10 +108,38 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
      */
     private final SendCompletionTracker sendCompletionTracker;
 
+    /**
+     * The streamed deflate context, {@code null} unless
+     * {@link net.ladenthin.jackpot.configuration.SettingsCompression#enableDeflateStream}.
+     * Used by {@link #run()} only, which hands the messages on in id order.
+     */
+    private final StreamingDeflater streamingDeflater;
+
+    /**
+     * The measurements of the adaptive compression, {@code null} unless
+     * {@link net.ladenthin.jackpot.configuration.SettingsCompression#enableAdaptive}; shared
+     * by the serializations.
+     */
+    private final AdaptiveCompression adaptiveCompression;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#fragmentLength}; {@code 0}
+     * with the streamed deflate, which compresses the messages as one stream. Unit: [bytes].
+     */
+    private final int fragmentLength;
+
+    /**
+     * The sequence number of the next message of every logical channel, see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#channelWeights}; {@code null}
+     * while the channels are disabled. Used by {@link #run()} only, which numbers the
+     * messages in id order.
+     */
+    private final long[] nextChannelSequences;
+
     public SerializeLayer(final CTransceiverSession cTransceiverSession,
         final MessageIdGenerator messageIdGenerator, final ErrorLayer errorLayer,
         final MessageLayer<T> messageLayer, final FlowControl flowControl,
-        final SendCompletionTracker sendCompletionTracker
+        final SendCompletionTracker sendCompletionTracker, final TransceiverMetrics metrics
     ) {
         this.cTransceiverSession = cTransceiverSession;
         this.messageIdGenerator = messageIdGenerator;
@@ -116,9 +147,27 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
         this.messageLayer = messageLayer;
         this.flowControl = flowControl;
         this.sendCompletionTracker = sendCompletionTracker;
+        serializeFutures = new MpscQueue<>(
+            WaitStrategy.of(cTransceiverSession.transceiverConfiguration.waitStrategy));
+        metrics.serializeQueueDepth(serializeFutures::size);
+        final SettingsCompression settingsCompression =
+            cTransceiverSession.transceiverConfiguration.settingsCompression;
+        streamingDeflater = settingsCompression.enableDeflateStream
+            ? new StreamingDeflater(settingsCompression.deflateStreamLevel) : null;
+        adaptiveCompression = settingsCompression.enableAdaptive
+            ? new AdaptiveCompression(settingsCompression.adaptiveBandwidth) : null;
+        fragmentLength = settingsCompression.enableDeflateStream
+            ? 0 : Math.max(0, cTransceiverSession.transceiverConfiguration.fragmentLength);
+        final int[] channelWeights =
+            CTransceiver.effectiveChannelWeights(cTransceiverSession.transceiverConfiguration);
+        nextChannelSequences = channelWeights != null ? new long[channelWeights.length] : null;
 
         serializerFactory = new SerializerFactoryImpl<>(cTransceiverSession);
-        thread = new Thread(this,
+        serializeExecutor = CodecExecutor.create(cTransceiverSession.transceiverConfiguration.codecExecutor,
+            cTransceiverSession.transceiverConfiguration.codecThreads,
+            "jackpot-SerializeLayer-pool-" + cTransceiverSession.transceiverId);
+        thread = NamedJackpotThreadFactory.newThread(
+            cTransceiverSession.transceiverConfiguration.threadType, this,
             "jackpot-SerializeLayer-" + cTransceiverSession.transceiverId);
         thread.start();
     }
@@ -128,7 +177,7 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
     @ParentEnsureSynchronized //OK
     @ParentEnsureFairProcessingSequence //OK
     public void transmitMessage(final T message) {
-        transmitMessage(message, null);
+        transmitMessage(0, message, null);
     }
 
     /**
@@ -143,6 +192,24 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
     @ParentEnsureSynchronized
     @ParentEnsureFairProcessingSequence
     public void transmitMessage(final T message, final CompletableFuture<Void> acknowledged) {
+        transmitMessage(0, message, acknowledged);
+    }
+
+    /**
+     * Transmit a message on a logical channel, optionally tracking its acknowledgement.
+     *
+     * @param channel the channel, see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#channelWeights}; ignored while
+     * the channels are disabled
+     * @param message the message to send
+     * @param acknowledged completed when the peer acknowledges the message; {@code null}
+     * for the fire-and-forget {@link Transceiver#update} path
+     */
+    @ConcurrentMethod
+    @ParentEnsureSynchronized
+    @ParentEnsureFairProcessingSequence
+    public void transmitMessage(final int channel, final T message,
+        final CompletableFuture<Void> acknowledged) {
         /**
          * The wire message id is allocated here, before the serialization runs, to preserve
          * the submission order on the wire.
@@ -156,47 +223,106 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
          */
         final SerializeRunnable<T> task =
             new SerializeRunnable<>(serializerFactory, messageId, message,
-                cTransceiverSession.transceiverConfiguration.settingsCompression);
+                cTransceiverSession.transceiverConfiguration.settingsCompression, adaptiveCompression,
+                fragmentLength, serializeExecutor);
 
         /**
-         * Submit the task to the executor service and add the future to the queue.
+         * Submit the task to the executor and hand the future to the loop. The calling method
+         * {@link #net.ladenthin.jackpot.Transceiver.update} is encapsulated, so the queue
+         * order is the id order — however many threads the executor runs the tasks on.
          */
-        synchronized (serializeFutures) {
-            serializeFutures.add(new PendingSerialization(messageId, serializeExecutor.submit(task)));
+        serializeFutures.offer(new PendingSerialization(messageId, channel,
+            serializeExecutor.submit(task)));
+    }
+
+    /**
+     * Transmit messages under one consecutive id range, tracked by one future (the
+     * {@link Transceiver#sendAll} path). The range is allocated and registered once; the
+     * serializations run in parallel like single messages and reach the wire in order.
+     *
+     * @param channel the logical channel of the messages, see
+     * {@link #transmitMessage(int, Object, CompletableFuture)}
+     * @param messages the messages to send, in order; not empty
+     * @param acknowledged completed when the peer acknowledged every message of the range
+     */
+    @ConcurrentMethod
+    @ParentEnsureSynchronized
+    @ParentEnsureFairProcessingSequence
+    public void transmitMessages(final int channel, final List<T> messages,
+        final CompletableFuture<Void> acknowledged) {
+        final int count = messages.size();
+        final long firstId = messageIdGenerator.getNextIds(count);
+
+        sendCompletionTracker.registerRange(firstId, count, acknowledged);
+
+        for (int i = 0; i < count; ++i) {
+            final long messageId = firstId + i;
+            final SerializeRunnable<T> task =
+                new SerializeRunnable<>(serializerFactory, messageId, messages.get(i),
+                    cTransceiverSession.transceiverConfiguration.settingsCompression, adaptiveCompression,
+                    fragmentLength, serializeExecutor);
+            serializeFutures.offer(new PendingSerialization(messageId, channel,
+                serializeExecutor.submit(task)));
         }
+    }
 
-        /**
-         * Release a permit. In future a serialization should be finished.
-         * The calling method {@link #net.ladenthin.jackpot.Transceiver.update} is encapsulated now.
-         */
-        doRun.release();
+    /**
+     * Transmit a chunk of a {@link TransceiverOutputStream} like a message of its own: the
+     * next wire id, boxed on the codec threads, never fragmented.
+     *
+     * @param channel the logical channel of the stream, see
+     * {@link #transmitMessage(int, Object, CompletableFuture)}
+     * @param chunk the header and the bytes of the chunk; handed over
+     * @param length the length of the chunk. Unit: [bytes].
+     * @param acknowledged completed when the peer acknowledges the chunk
+     */
+    @ConcurrentMethod
+    @ParentEnsureSynchronized
+    @ParentEnsureFairProcessingSequence
+    public void transmitStreamChunk(final int channel, final byte[] chunk, final int length,
+        final CompletableFuture<Void> acknowledged) {
+        final long messageId = messageIdGenerator.getNextId();
+
+        sendCompletionTracker.register(messageId, acknowledged);
+
+        final SettingsCompression settingsCompression =
+            cTransceiverSession.transceiverConfiguration.settingsCompression;
+        final Callable<BinaryMessage> task = () -> adaptiveCompression != null
+            ? adaptiveCompression.boxStreamChunk(messageId, chunk, length)
+            : BinaryMessage.boxStreamChunk(messageId, chunk, length, settingsCompression);
+        serializeFutures.offer(new PendingSerialization(messageId, channel,
+            serializeExecutor.submit(task)));
     }
 
     @Override
     public void run() {
+        try {
+            runLoop();
+        } finally {
+            if (streamingDeflater != null) {
+                streamingDeflater.end();
+            }
+        }
+    }
+
+    private void runLoop() {
         for (;;) {
             try {
                 /**
-                 * A permit exist?
-                 */
-                doRun.acquire();
-
-                /**
-                 * A shutdown permit. Terminate the thread.
+                 * Shutdown requested. Terminate the thread.
                  */
                 if (shutdown.get()) {
                     return;
                 }
 
                 /**
-                 * A task should be finished in future.
+                 * Get the first task from the queue. This task serialized always the first
+                 * message (FIFO). Nothing queued: wait for the next hand-off.
                  */
-                final PendingSerialization task;
-                synchronized (serializeFutures) {
-                    /**
-                     * Get the first task from the queue. This task serialized always the first message (FIFO).
-                     */
-                    task = serializeFutures.pollFirst();
+                final PendingSerialization task = serializeFutures.poll();
+                if (task == null) {
+                    serializeFutures.await();
+                    continue;
                 }
 
                 try {
@@ -212,15 +338,22 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
                      * the receiver's frame guard, and the resend mechanism would then retry
                      * it forever. Reject it here instead — like a failed serialization, the
                      * already-allocated wire id is filled with a heartbeat so the sequence
-                     * stays consecutive, and the failure is surfaced.
+                     * stays consecutive, and the failure is surfaced. A streamed payload is
+                     * deflated after the check, so its worst case is checked. The receiver
+                     * bounds a fragmented message by its uncompressed size.
                      */
                     final int maxPayloadLength =
                         cTransceiverSession.transceiverConfiguration.maxPayloadLength;
-                    if (boxed.getPayloadLength() > maxPayloadLength) {
+                    final long payloadLength = streamingDeflater != null
+                        ? StreamingDeflater.maxDeflatedLength(boxed.getPayloadLength())
+                        : boxed.isFragmented()
+                            ? Math.max(boxed.getUncompressedSize(), boxed.getPayloadLength())
+                            : boxed.getPayloadLength();
+                    if (payloadLength > maxPayloadLength) {
                         messageLayer.transmitMessage(BinaryMessage.createHeartbeat(task.id));
                         final IllegalArgumentException oversized = new IllegalArgumentException(
                             "serialized message exceeds maxPayloadLength " + maxPayloadLength
-                                + ": " + boxed.getPayloadLength() + " bytes");
+                                + ": " + payloadLength + " bytes");
                         errorLayer.notifyException(oversized);
                         // the message will never be acknowledged — free its send permit
                         // and fail its send future
@@ -229,7 +362,18 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
                         continue;
                     }
 
-                    messageLayer.transmitMessage(boxed);
+                    if (streamingDeflater != null) {
+                        messageLayer.transmitMessage(streamingDeflater.deflate(boxed));
+                    } else if (nextChannelSequences != null) {
+                        /**
+                         * Numbered here, in id order and only once on the wire: a message
+                         * that never reaches it leaves no hole in its channel.
+                         */
+                        messageLayer.transmitMessage(boxed.withChannel(task.channel,
+                            nextChannelSequences[task.channel]++));
+                    } else {
+                        messageLayer.transmitMessage(boxed);
+                    }
                 } catch (ExecutionException e) {
                     /**
                      * The wire message id was allocated before the serialization ran, so a
@@ -278,10 +422,10 @@ public class SerializeLayer<T> implements ParallelMessageTransmitter<T>, Shutdow
     @ConcurrentMethod
     public void shutdownRunnable() {
         shutdown.set(true);
-        doRun.release();
+        serializeFutures.signal();
         /**
-         * Stop the pool threads as well — idle cached threads would otherwise keep the JVM
-         * alive for their keep-alive time (non-daemon threads).
+         * Stop the pool threads as well (or release the shared pool) — idle threads would
+         * otherwise keep the JVM alive for their keep-alive time (non-daemon threads).
          */
         serializeExecutor.shutdown();
     }
@@ -15,22 +15,33 @@ import net.ladenthin.jackpot.util.ConcurrentMethod;
 
 public class SerializerFactoryImpl<T> extends SerializationFactory implements SerializerFactory<T> {
 
+    /**
+     * Built once: the serializers are thread-safe, and building one (a {@code Gson}, a
+     * schema lookup) costs more than serializing a small message.
+     */
+    private final Serializer<T> serializer;
+
     public SerializerFactoryImpl(final CTransceiverSession cTransceiverSession) {
         super(cTransceiverSession);
+        serializer = createSerializer();
     }
 
-    @Override
-    @ConcurrentMethod
-    public Serializer<T> getSerializer(final T msg) {
+    private Serializer<T> createSerializer() {
         switch (getTransmissionType()) {
         case ProtostuffSerialization:
-            return new ProtostuffSerializer<T>(getMessageType(), getMessageClass(), msg);
+            return new ProtostuffSerializer<T>(getMessageType(), getMessageClass());
         case GsonSerialization:
-            return new GsonSerializer<T>(getMessageType(), getMessageClass(), msg);
+            return new GsonSerializer<T>(getMessageType(), getMessageClass());
         default:
         case ObjectOutputStreamSerialization:
-            return new ObjectOutputStreamSerializer<T>(getMessageType(), getMessageClass(), msg);
+            return new ObjectOutputStreamSerializer<T>(getMessageType(), getMessageClass());
         }
     }
 
+    @Override
+    @ConcurrentMethod
+    public Serializer<T> getSerializer() {
+        return serializer;
+    }
+
 }
@@ -0,0 +1,182 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.configuration.ThreadType;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.NamedJackpotThreadFactory;
+
+/**
+ * Routes the received stream chunks (see {@link BinaryMessage#isStreamChunk()}) to their
+ * {@link TransceiverInputStream}s and hands every new stream to the
+ * {@link TransceiverStreamListener} on a thread of its own.
+ * <p>
+ * A chunk is acknowledged once its stream read it, not once it is sequenced: the other side
+ * keeps at most its {@link net.ladenthin.jackpot.configuration.CTransceiver#streamWindow}
+ * chunks of a stream unacknowledged, so an unread stream holds back its sender instead of
+ * filling this side — and never the sequencing thread, which goes on with the messages and
+ * the other streams.
+ */
+public final class StreamReceiver {
+
+    private final SettingsCompression settingsCompression;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#maxPayloadLength}. Unit:
+     * [bytes].
+     */
+    private final int maxPayloadLength;
+
+    /**
+     * Acknowledges the id of a chunk, see
+     * {@link ConnectionLayer#enqueueReadAcknowledgement(long)}.
+     */
+    private final LongConsumer acknowledge;
+
+    /**
+     * The listener at the time a stream arrives; {@code null} discards it.
+     */
+    private final Supplier<TransceiverStreamListener> listener;
+
+    private final ErrorLayer errorLayer;
+
+    private final ThreadType threadType;
+
+    private final String threadNamePrefix;
+
+    /**
+     * The streams whose last chunk did not arrive yet, by stream id. Added and removed by the
+     * sequencing thread, failed by {@link #shutdown()}.
+     */
+    private final Map<Long, TransceiverInputStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of the chunks received but not read yet: a resend of one is not acknowledged
+     * again, see {@link #isUnread(long)}.
+     */
+    private final Set<Long> unread = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    /**
+     * @param acknowledge acknowledges the id of a read chunk
+     * @param listener supplies the listener for a new stream
+     * @param threadNamePrefix followed by the stream id, the name of the thread a stream is
+     * handed over on
+     */
+    public StreamReceiver(final SettingsCompression settingsCompression,
+        final int maxPayloadLength, final LongConsumer acknowledge,
+        final Supplier<TransceiverStreamListener> listener, final ErrorLayer errorLayer,
+        final ThreadType threadType, final String threadNamePrefix) {
+        this.settingsCompression = settingsCompression;
+        this.maxPayloadLength = maxPayloadLength;
+        this.acknowledge = acknowledge;
+        this.listener = listener;
+        this.errorLayer = errorLayer;
+        this.threadType = threadType;
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * Decompresses a chunk and offers it to its stream. Sequencing thread only, in id order.
+     *
+     * @param chunk a stream chunk, decompressed unless deflate streamed
+     * @return whether the acknowledgement is left to the stream; {@code false} for a corrupt
+     * chunk, which is surfaced and acknowledged like a message that fails to deserialize
+     */
+    public boolean receive(final BinaryMessage chunk) {
+        final byte[] bytes;
+        try {
+            bytes = chunk.unbox(settingsCompression, maxPayloadLength);
+            if (bytes.length < TransceiverOutputStream.CHUNK_HEADER_LENGTH) {
+                throw new IOException("corrupt stream chunk " + chunk.getId() + ": "
+                    + bytes.length + " bytes");
+            }
+        } catch (IOException e) {
+            errorLayer.notifyException(e);
+            return false;
+        }
+        long streamId = 0;
+        for (int i = 0; i < Long.BYTES; ++i) {
+            streamId = streamId << Byte.SIZE | (bytes[i] & 0xFF);
+        }
+        final boolean last = (bytes[Long.BYTES] & TransceiverOutputStream.CHUNK_LAST) != 0;
+
+        TransceiverInputStream stream = streams.get(streamId);
+        if (stream == null) {
+            stream = open(streamId);
+        }
+        if (last) {
+            streams.remove(streamId);
+        }
+        unread.add(chunk.getId());
+        stream.offer(chunk.getId(), bytes, TransceiverOutputStream.CHUNK_HEADER_LENGTH, last);
+        return true;
+    }
+
+    /**
+     * @return whether the id is a chunk received but not read yet: a resend of it means the
+     * other side waits for the reader, not that an acknowledgement was lost
+     */
+    public boolean isUnread(final long id) {
+        return unread.contains(id);
+    }
+
+    private TransceiverInputStream open(final long streamId) {
+        final TransceiverInputStream stream = new TransceiverInputStream(streamId, this::read);
+        final TransceiverStreamListener current = listener.get();
+        if (current == null || shutdown.get()) {
+            stream.close();
+            return stream;
+        }
+        streams.put(streamId, stream);
+        NamedJackpotThreadFactory.newThread(threadType, () -> deliver(current, stream),
+            threadNamePrefix + streamId).start();
+        return stream;
+    }
+
+    private void deliver(final TransceiverStreamListener current,
+        final TransceiverInputStream stream) {
+        try {
+            current.onStream(stream);
+        } catch (IOException e) {
+            if (!shutdown.get()) {
+                errorLayer.notifyException(e);
+            }
+        } catch (RuntimeException e) {
+            /**
+             * Listener isolation, see Transceiver#notifyMessage.
+             */
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void read(final long id) {
+        if (unread.remove(id)) {
+            acknowledge.accept(id);
+        }
+    }
+
+    /**
+     * Breaks the streams still receiving, so no reader waits on a shut down transceiver.
+     */
+    public void shutdown() {
+        shutdown.set(true);
+        for (final TransceiverInputStream stream : streams.values()) {
+            stream.fail(new IOException("transceiver shut down"));
+        }
+        streams.clear();
+    }
+}
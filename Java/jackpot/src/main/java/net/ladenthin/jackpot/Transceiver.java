@@ -5,6 +5,7 @@
 
 package net.ladenthin.jackpot;
 
+import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
 import net.ladenthin.jackpot.message.TCommand;
 import net.ladenthin.jackpot.message.TError;
@@ -12,11 +13,15 @@ import net.ladenthin.jackpot.messageprocessing.ParallelErrorInformant;
 import net.ladenthin.jackpot.messageprocessing.SequentialMessageReceiver;
 import net.ladenthin.jackpot.util.ConcurrentMethod;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -59,6 +64,28 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
      */
     private final List<TransceiverListener<T>> listeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * The registered {@link TransceiverBatchListener}s; copy-on-write like
+     * {@link #listeners}.
+     */
+    private final List<TransceiverBatchListener<T>> batchListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The registered {@link TransceiverStreamListener}; {@code null} discards the received
+     * streams.
+     */
+    private volatile TransceiverStreamListener streamListener;
+
+    /**
+     * The id of the next stream opened by {@link #openStream()}.
+     */
+    private final AtomicLong nextStreamId = new AtomicLong();
+
+    /**
+     * The number of logical channels, see {@link CTransceiver#channelWeights}; {@code 1}
+     * while the channels are disabled.
+     */
+    private final int channelCount;
 
     /**
      * Standard constructor.
@@ -68,6 +95,9 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
      */
     public Transceiver(final CTransceiverSession cTransceiverSession) {
         this.cTransceiverSession = cTransceiverSession;
+        final int[] channelWeights =
+            CTransceiver.effectiveChannelWeights(cTransceiverSession.transceiverConfiguration);
+        this.channelCount = channelWeights != null ? channelWeights.length : 1;
         this.messageLayer = new MessageLayer<>(this.cTransceiverSession, this);
     }
 
@@ -125,6 +155,31 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
      */
     @Override
     public void receiveMessage(final T tm) {
+        notifyMessage(tm);
+        if (!batchListeners.isEmpty()) {
+            notifyBatchListeners(Collections.singletonList(tm));
+        }
+    }
+
+    /**
+     * {@inheritDoc} <b>This method should only be called from {@link MessageLayer}.</b>
+     * Informs the {@link Observer}s and {@link TransceiverListener}s per message and every
+     * {@link TransceiverBatchListener} once.
+     */
+    @Override
+    public void receiveMessages(final List<T> messages) {
+        for (int i = 0; i < messages.size(); ++i) {
+            notifyMessage(messages.get(i));
+        }
+        if (!batchListeners.isEmpty() && !messages.isEmpty()) {
+            /**
+             * The caller reuses its list; the batch listeners may keep theirs.
+             */
+            notifyBatchListeners(Collections.unmodifiableList(new ArrayList<>(messages)));
+        }
+    }
+
+    private void notifyMessage(final T tm) {
         setChanged();
         notifyObservers(tm);
         for (final TransceiverListener<T> listener : listeners) {
@@ -140,6 +195,16 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
         }
     }
 
+    private void notifyBatchListeners(final List<T> batch) {
+        for (final TransceiverBatchListener<T> listener : batchListeners) {
+            try {
+                listener.onMessages(batch);
+            } catch (RuntimeException e) {
+                // see notifyMessage: listener isolation
+            }
+        }
+    }
+
     @Override
     @ConcurrentMethod
     public void informError(final TError error) {
@@ -152,6 +217,13 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
                 // see receiveMessage: listener isolation
             }
         }
+        for (final TransceiverBatchListener<T> listener : batchListeners) {
+            try {
+                listener.onError(error);
+            } catch (RuntimeException e) {
+                // see receiveMessage: listener isolation
+            }
+        }
     }
 
     /**
@@ -178,6 +250,30 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
         return listeners.remove(listener);
     }
 
+    /**
+     * Register a listener that receives the messages in batches (see
+     * {@link TransceiverBatchListener}) and the errors. Invoked on library threads after the
+     * per-message listeners of the same messages, in registration order.
+     *
+     * @param listener the listener to add; must not be {@code null}
+     */
+    public void addBatchListener(final TransceiverBatchListener<T> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("the listener must not be null");
+        }
+        batchListeners.add(listener);
+    }
+
+    /**
+     * Remove a previously registered batch listener.
+     *
+     * @param listener the listener to remove
+     * @return {@code true} when the listener was registered
+     */
+    public boolean removeBatchListener(final TransceiverBatchListener<T> listener) {
+        return batchListeners.remove(listener);
+    }
+
     /**
      * Send a message — the modern alternative to {@link #update(Observable, Object)}. The
      * returned future completes normally once the other side acknowledged the message
@@ -191,6 +287,21 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
      * @return a future completed on acknowledgement
      */
     public CompletableFuture<Void> send(final T message) {
+        return send(0, message);
+    }
+
+    /**
+     * Send a message on a logical channel (see {@link CTransceiver#channelWeights}) — like
+     * {@link #send(Object)}, which sends on channel {@code 0}. The other side delivers the
+     * message once the messages sent before on the same channel are delivered, whatever
+     * the other channels still miss; the channels share the connection by their weights.
+     *
+     * @param channel the channel, below {@link #getChannelCount()}
+     * @param message the message to send; must not be {@code null}
+     * @return a future completed on acknowledgement
+     */
+    public CompletableFuture<Void> send(final int channel, final T message) {
+        checkChannel(channel);
         if (message == null) {
             throw new IllegalArgumentException("the message to send must not be null");
         }
@@ -202,7 +313,155 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
         messageLayer.acquireSendPermit();
         updateLock.lock();
         try {
-            messageLayer.transmitMessage(message, acknowledged);
+            messageLayer.transmitMessage(channel, message, acknowledged);
+        } finally {
+            updateLock.unlock();
+        }
+        return acknowledged;
+    }
+
+    /**
+     * Send several messages as one unit — the bulk alternative to {@link #send(Object)}. The
+     * messages get one consecutive wire id range in collection order, their send permits are
+     * acquired in one step and they are serialized in parallel; the single returned future
+     * completes normally once the other side acknowledged every message, and exceptionally
+     * as soon as one of them can never be acknowledged. Subject to the same backpressure as
+     * {@code send}, with all permits acquired at once: a collection larger than
+     * {@code maxPendingMessages} is rejected with an {@link IllegalArgumentException}.
+     *
+     * @param messages the messages to send; neither the collection nor an element may be
+     * {@code null}
+     * @return a future completed when every message is acknowledged; already completed for
+     * an empty collection
+     */
+    public CompletableFuture<Void> sendAll(final Collection<? extends T> messages) {
+        return sendAll(0, messages);
+    }
+
+    /**
+     * Send several messages as one unit on a logical channel — like
+     * {@link #sendAll(Collection)}, which sends on channel {@code 0}; see
+     * {@link #send(int, Object)}.
+     *
+     * @param channel the channel, below {@link #getChannelCount()}
+     * @param messages the messages to send; neither the collection nor an element may be
+     * {@code null}
+     * @return a future completed when every message is acknowledged; already completed for
+     * an empty collection
+     */
+    public CompletableFuture<Void> sendAll(final int channel,
+        final Collection<? extends T> messages) {
+        checkChannel(channel);
+        if (messages == null) {
+            throw new IllegalArgumentException("the messages to send must not be null");
+        }
+        final List<T> copy = new ArrayList<>(messages);
+        for (int i = 0; i < copy.size(); ++i) {
+            if (copy.get(i) == null) {
+                throw new IllegalArgumentException("the message to send must not be null");
+            }
+        }
+        if (copy.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        /**
+         * Same discipline as {@link #send}: the permits BEFORE the update lock.
+         */
+        messageLayer.acquireSendPermits(copy.size());
+        updateLock.lock();
+        try {
+            messageLayer.transmitMessages(channel, copy, acknowledged);
+        } finally {
+            updateLock.unlock();
+        }
+        return acknowledged;
+    }
+
+    /**
+     * Register the listener that receives the byte streams the other side opens with
+     * {@link #openStream()}, replacing the previous one. Streams arriving without a listener
+     * are discarded.
+     *
+     * @param listener the listener; {@code null} removes it
+     */
+    public void setStreamListener(final TransceiverStreamListener listener) {
+        streamListener = listener;
+    }
+
+    /**
+     * @return the registered stream listener, {@code null} if none
+     */
+    TransceiverStreamListener getStreamListener() {
+        return streamListener;
+    }
+
+    /**
+     * Open a byte stream to the other side, for payloads too large to send as one message.
+     * The written bytes travel in chunks of {@code streamChunkLength} between the other
+     * messages, each acknowledged and resent like a message; the other side reads them from
+     * a {@link TransceiverInputStream} handed to its {@link TransceiverStreamListener}. At
+     * most {@code streamWindow} chunks are unread by the other side, so a transfer of any
+     * size takes constant memory on both sides. A write blocks while the window is full and
+     * throws an {@link java.io.IOException} after {@code sendTimeout}, on shutdown or when a
+     * chunk can never be acknowledged.
+     *
+     * @return the stream; {@link TransceiverOutputStream#close()} ends it on the other side
+     */
+    public TransceiverOutputStream openStream() {
+        return openStream(0);
+    }
+
+    /**
+     * Open a byte stream on a logical channel — like {@link #openStream()}, which opens it
+     * on channel {@code 0}. A bulk transfer on a channel of its own does not hold back the
+     * messages of the other channels, neither on the wire nor in the delivery.
+     *
+     * @param channel the channel, below {@link #getChannelCount()}
+     * @return the stream; {@link TransceiverOutputStream#close()} ends it on the other side
+     */
+    public TransceiverOutputStream openStream(final int channel) {
+        checkChannel(channel);
+        final CTransceiver configuration = cTransceiverSession.transceiverConfiguration;
+        final int chunkLength = Math.max(1, Math.min(configuration.streamChunkLength,
+            configuration.maxPayloadLength - TransceiverOutputStream.CHUNK_HEADER_LENGTH));
+        return new TransceiverOutputStream(
+            (chunk, length) -> sendStreamChunk(channel, chunk, length),
+            nextStreamId.getAndIncrement(), chunkLength, Math.max(1, configuration.streamWindow),
+            configuration.sendTimeout);
+    }
+
+    /**
+     * @return the number of logical channels, see {@link CTransceiver#channelWeights};
+     * {@code 1} while the channels are disabled
+     */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    private void checkChannel(final int channel) {
+        if (channel < 0 || channel >= channelCount) {
+            throw new IllegalArgumentException("channel " + channel + " outside of the "
+                + channelCount + " channels");
+        }
+    }
+
+    /**
+     * Send a chunk of a {@link TransceiverOutputStream}; subject to the backpressure of
+     * {@link #send}.
+     *
+     * @param channel the logical channel of the stream
+     * @param chunk the header and the bytes of the chunk; handed over
+     * @param length the length of the chunk. Unit: [bytes].
+     * @return a future completed when the other side read the chunk
+     */
+    CompletableFuture<Void> sendStreamChunk(final int channel, final byte[] chunk,
+        final int length) {
+        final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        messageLayer.acquireSendPermit();
+        updateLock.lock();
+        try {
+            messageLayer.transmitStreamChunk(channel, chunk, length, acknowledged);
         } finally {
             updateLock.unlock();
         }
@@ -232,4 +491,15 @@ public class Transceiver<T> extends Observable implements Observer, SequentialMe
         return messageLayer.getUnacknowledgedMessageCount();
     }
 
+    /**
+     * The counters, gauges and latency histograms of this transceiver: messages and bytes in
+     * both directions, compression, resends, reconnects, queue depths, backpressure waits and
+     * the send-to-acknowledgement latency.
+     *
+     * @return the live metrics; the same instance for the lifetime of the transceiver
+     */
+    public TransceiverMetrics getMetrics() {
+        return messageLayer.getMetrics();
+    }
+
 }
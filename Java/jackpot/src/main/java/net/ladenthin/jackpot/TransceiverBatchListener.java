@@ -0,0 +1,42 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import java.util.List;
+
+import net.ladenthin.jackpot.message.TError;
+
+/**
+ * Receives the messages of a {@link Transceiver} in batches: everything deserialized in one
+ * drain of the receive pipeline, in id order, at most
+ * {@link net.ladenthin.jackpot.configuration.CTransceiver#maxDeliveryBatchMessages} at once.
+ * A consumer that writes to a database or takes a lock per call amortizes it over the batch.
+ *
+ * <p>Register with {@link Transceiver#addBatchListener(TransceiverBatchListener)}; the
+ * {@link TransceiverListener}s and {@link java.util.Observer}s keep receiving the same
+ * messages one by one. The same threading and isolation rules as for
+ * {@link TransceiverListener} apply.
+ *
+ * @param <T> the message type of the {@link Transceiver}
+ */
+public interface TransceiverBatchListener<T> {
+
+    /**
+     * Messages arrived from the other side.
+     *
+     * @param messages the received messages in id order, never empty; an unmodifiable list
+     * the listener may keep
+     */
+    void onMessages(List<T> messages);
+
+    /**
+     * See {@link TransceiverListener#onError(TError)}. Default: ignored.
+     *
+     * @param error the reported error
+     */
+    default void onError(TError error) {
+        // intentionally ignored by default
+    }
+}
@@ -0,0 +1,224 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * The receiving end of a byte stream the other side opened with
+ * {@link Transceiver#openStream()}, handed to the {@link TransceiverStreamListener}. Holds
+ * the received chunks until they are read; a chunk is acknowledged once it is read (or
+ * discarded by {@link #close()}), which lets the other side send the next one.
+ * <p>
+ * Not thread-safe for readers: one reading thread per stream. The chunks are offered by the
+ * sequencing thread.
+ */
+public final class TransceiverInputStream extends InputStream {
+
+    /**
+     * A received chunk and how far it is read.
+     */
+    private static final class Chunk {
+
+        private final long id;
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Chunk(final long id, final byte[] bytes, final int position) {
+            this.id = id;
+            this.bytes = bytes;
+            this.position = position;
+        }
+    }
+
+    private final long streamId;
+
+    /**
+     * Acknowledges the id of a read or discarded chunk.
+     */
+    private final LongConsumer read;
+
+    /**
+     * A lock rather than a monitor, so a virtual reader does not pin its carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition offered = lock.newCondition();
+
+    /**
+     * The chunks not read to their end, in write order. Guarded by the {@link #lock}.
+     */
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+
+    /**
+     * The last chunk was offered. Guarded by the {@link #lock}.
+     */
+    private boolean ended;
+
+    /**
+     * Closed by the reader. Guarded by the {@link #lock}.
+     */
+    private boolean closed;
+
+    /**
+     * Thrown once the offered bytes are read. Guarded by the {@link #lock}.
+     */
+    private IOException failure;
+
+    /**
+     * The buffer of {@link #read()}; reader only.
+     */
+    private final byte[] single = new byte[1];
+
+    /**
+     * @param read acknowledges the id of a read or discarded chunk
+     */
+    TransceiverInputStream(final long streamId, final LongConsumer read) {
+        this.streamId = streamId;
+        this.read = read;
+    }
+
+    /**
+     * @return the id the other side gave this stream, see
+     * {@link TransceiverOutputStream#getStreamId()}
+     */
+    public long getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * Offers the bytes of a chunk from {@code offset} on; discarded (and acknowledged) once
+     * the stream is closed. Sequencing thread only.
+     *
+     * @param last whether the chunk ends the stream
+     */
+    void offer(final long id, final byte[] bytes, final int offset, final boolean last) {
+        lock.lock();
+        try {
+            if (closed || offset == bytes.length) {
+                read.accept(id);
+            } else {
+                chunks.addLast(new Chunk(id, bytes, offset));
+            }
+            if (last) {
+                ended = true;
+            }
+            offered.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Breaks the stream: a reader gets the failure once it read the offered bytes.
+     */
+    void fail(final IOException e) {
+        lock.lock();
+        try {
+            if (failure == null && !ended) {
+                failure = e;
+            }
+            offered.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    /**
+     * Waits for the next chunk unless bytes are offered.
+     */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            for (;;) {
+                if (closed) {
+                    throw new IOException("stream " + streamId + " closed");
+                }
+                final Chunk chunk = chunks.peekFirst();
+                if (chunk != null) {
+                    final int n = Math.min(len, chunk.bytes.length - chunk.position);
+                    System.arraycopy(chunk.bytes, chunk.position, b, off, n);
+                    chunk.position += n;
+                    if (chunk.position == chunk.bytes.length) {
+                        chunks.pollFirst();
+                        read.accept(chunk.id);
+                    }
+                    return n;
+                }
+                if (failure != null) {
+                    throw new IOException("stream " + streamId + " broken", failure);
+                }
+                if (ended) {
+                    return -1;
+                }
+                offered.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for stream " + streamId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the bytes received but not read yet; at most the other side's
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#streamWindow} chunks
+     */
+    @Override
+    public int available() {
+        lock.lock();
+        try {
+            long available = 0;
+            for (final Chunk chunk : chunks) {
+                available += chunk.bytes.length - chunk.position;
+            }
+            return (int) Math.min(available, Integer.MAX_VALUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the bytes not read; the chunks still to come are discarded on arrival.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Chunk chunk;
+            while ((chunk = chunks.pollFirst()) != null) {
+                read.accept(chunk.id);
+            }
+            offered.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
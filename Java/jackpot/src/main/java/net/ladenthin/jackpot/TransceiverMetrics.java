@@ -0,0 +1,335 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.ConcurrentMethod;
+import net.ladenthin.jackpot.util.LatencyHistogram;
+import net.ladenthin.jackpot.util.LatencySnapshot;
+
+/**
+ * The counters, gauges and latency histograms of one {@link Transceiver}, see
+ * {@link Transceiver#getMetrics()}. The layers record into it without locks; every getter is
+ * callable from any thread and returns the current value.
+ * <p>
+ * Byte counts: "bytes" are whole frames as they go over the wire (every frame type),
+ * "payload bytes" the possibly compressed payloads of application messages, "uncompressed
+ * bytes" the same payloads before compression. Durations are in nanoseconds.
+ */
+public final class TransceiverMetrics implements TransceiverMetricsMXBean {
+
+    private static final String JMX_DOMAIN = "net.ladenthin.jackpot";
+
+    private static final LongSupplier NO_GAUGE = () -> 0;
+
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder uncompressedBytesSent = new LongAdder();
+    private final LongAdder payloadBytesSent = new LongAdder();
+    private final LongAdder uncompressedBytesReceived = new LongAdder();
+    private final LongAdder payloadBytesReceived = new LongAdder();
+    private final LongAdder messagesResent = new LongAdder();
+    private final LongAdder fastRetransmits = new LongAdder();
+    private final LongAdder heartbeatsReceived = new LongAdder();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+
+    /**
+     * From {@link Transceiver#send}/{@code update} (the boxing of the message) to the
+     * acknowledgement of the other side, resends included.
+     */
+    private final LatencyHistogram acknowledgementLatency = new LatencyHistogram();
+
+    /**
+     * The time to re-establish a lost connection; the first connect is not a reconnect.
+     */
+    private final LatencyHistogram reconnectDuration = new LatencyHistogram();
+
+    /**
+     * How long senders blocked for capacity in {@link FlowControl#acquire()}; a sender that
+     * got a permit at once is not recorded.
+     */
+    private final LatencyHistogram backpressureWait = new LatencyHistogram();
+
+    private volatile LongSupplier serializeQueueDepth = NO_GAUGE;
+    private volatile LongSupplier writeQueueDepth = NO_GAUGE;
+    private volatile LongSupplier unacknowledgedCount = NO_GAUGE;
+    private volatile LongSupplier receiveQueueDepth = NO_GAUGE;
+    private volatile LongSupplier deserializeQueueDepth = NO_GAUGE;
+    private volatile LongSupplier pendingSendCount = NO_GAUGE;
+
+    /**
+     * The registered JMX name; {@code null} while not registered.
+     */
+    private ObjectName objectName;
+
+    // <editor-fold defaultstate="collapsed" desc="recording (layers only)">
+    @ConcurrentMethod
+    void frameWritten(final BinaryMessage bm) {
+        bytesSent.add(bm.getFrameLength());
+        if (bm.isStateMessage()) {
+            // a fragmented message counts once, with its last fragment
+            if (!bm.isFragment() || bm.isLastFragment()) {
+                messagesSent.increment();
+            }
+            payloadBytesSent.add(bm.getPayloadLength());
+            uncompressedBytesSent.add(bm.getUncompressedSize());
+        }
+    }
+
+    @ConcurrentMethod
+    void frameRead(final BinaryMessage bm) {
+        bytesReceived.add(bm.getFrameLength());
+        if (bm.isStateMessage()) {
+            // a fragmented message counts once, with its last fragment
+            if (!bm.isFragment() || bm.isLastFragment()) {
+                messagesReceived.increment();
+            }
+            payloadBytesReceived.add(bm.getPayloadLength());
+            uncompressedBytesReceived.add(bm.getUncompressedSize());
+        }
+    }
+
+    @ConcurrentMethod
+    void messageResent() {
+        messagesResent.increment();
+    }
+
+    /**
+     * A resend triggered by a gap report; also counted by {@link #messageResent()}.
+     */
+    @ConcurrentMethod
+    void fastRetransmitted() {
+        fastRetransmits.increment();
+    }
+
+    @ConcurrentMethod
+    void heartbeatReceived() {
+        heartbeatsReceived.increment();
+    }
+
+    /**
+     * @param bm the acknowledged application message
+     */
+    @ConcurrentMethod
+    void acknowledged(final BinaryMessage bm) {
+        if (bm.getBoxedNanos() != 0) {
+            acknowledgementLatency.record(System.nanoTime() - bm.getBoxedNanos());
+        }
+    }
+
+    /**
+     * @param durationNanos how long the connect took. Unit: [ns].
+     */
+    @ConcurrentMethod
+    void connected(final long durationNanos) {
+        connects.increment();
+        if (connects.sum() > 1) {
+            reconnectDuration.record(durationNanos);
+        }
+    }
+
+    @ConcurrentMethod
+    void connectFailed() {
+        connectFailures.increment();
+    }
+
+    /**
+     * @param waitNanos how long a sender blocked for capacity. Unit: [ns].
+     */
+    @ConcurrentMethod
+    void backpressureWaited(final long waitNanos) {
+        backpressureWait.record(waitNanos);
+    }
+
+    void serializeQueueDepth(final LongSupplier gauge) {
+        serializeQueueDepth = gauge;
+    }
+
+    void writeQueueDepth(final LongSupplier gauge) {
+        writeQueueDepth = gauge;
+    }
+
+    void unacknowledgedCount(final LongSupplier gauge) {
+        unacknowledgedCount = gauge;
+    }
+
+    void receiveQueueDepth(final LongSupplier gauge) {
+        receiveQueueDepth = gauge;
+    }
+
+    void deserializeQueueDepth(final LongSupplier gauge) {
+        deserializeQueueDepth = gauge;
+    }
+
+    void pendingSendCount(final LongSupplier gauge) {
+        pendingSendCount = gauge;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="JMX">
+    /**
+     * Registers this instance with the platform MBean server.
+     *
+     * @param transceiverId the {@code name} key of the object name
+     * @throws JMException if the name is taken (e.g. two transceivers with the same id)
+     */
+    synchronized void registerMBean(final String transceiverId) throws JMException {
+        final ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Transceiver,name="
+            + ObjectName.quote(transceiverId));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        objectName = name;
+    }
+
+    /**
+     * Removes the registration of {@link #registerMBean(String)}; a no-op if not registered.
+     */
+    synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            // unregistered by someone else meanwhile
+        }
+        objectName = null;
+    }
+    // </editor-fold>
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    @Override
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getUncompressedBytesSent() {
+        return uncompressedBytesSent.sum();
+    }
+
+    @Override
+    public long getPayloadBytesSent() {
+        return payloadBytesSent.sum();
+    }
+
+    @Override
+    public long getUncompressedBytesReceived() {
+        return uncompressedBytesReceived.sum();
+    }
+
+    @Override
+    public long getPayloadBytesReceived() {
+        return payloadBytesReceived.sum();
+    }
+
+    @Override
+    public long getMessagesResent() {
+        return messagesResent.sum();
+    }
+
+    @Override
+    public long getFastRetransmits() {
+        return fastRetransmits.sum();
+    }
+
+    @Override
+    public long getHeartbeatsReceived() {
+        return heartbeatsReceived.sum();
+    }
+
+    @Override
+    public long getConnects() {
+        return connects.sum();
+    }
+
+    @Override
+    public long getReconnects() {
+        return Math.max(0, connects.sum() - 1);
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    @Override
+    public long getSerializeQueueDepth() {
+        return serializeQueueDepth.getAsLong();
+    }
+
+    @Override
+    public long getWriteQueueDepth() {
+        return writeQueueDepth.getAsLong();
+    }
+
+    @Override
+    public long getUnacknowledgedCount() {
+        return unacknowledgedCount.getAsLong();
+    }
+
+    @Override
+    public long getReceiveQueueDepth() {
+        return receiveQueueDepth.getAsLong();
+    }
+
+    @Override
+    public long getDeserializeQueueDepth() {
+        return deserializeQueueDepth.getAsLong();
+    }
+
+    @Override
+    public long getPendingSendCount() {
+        return pendingSendCount.getAsLong();
+    }
+
+    @Override
+    public LatencySnapshot getAcknowledgementLatency() {
+        return acknowledgementLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getReconnectDuration() {
+        return reconnectDuration.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getBackpressureWait() {
+        return backpressureWait.snapshot();
+    }
+
+    /**
+     * @return the histogram behind {@link #getAcknowledgementLatency()}, for arbitrary
+     * percentiles
+     */
+    public LatencyHistogram getAcknowledgementLatencyHistogram() {
+        return acknowledgementLatency;
+    }
+}
@@ -0,0 +1,61 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import net.ladenthin.jackpot.util.LatencySnapshot;
+
+/**
+ * The JMX view of {@link TransceiverMetrics}, registered as
+ * {@code net.ladenthin.jackpot:type=Transceiver,name=<transceiverId>} when
+ * {@link net.ladenthin.jackpot.configuration.CTransceiver#jmxMetrics} is enabled.
+ */
+public interface TransceiverMetricsMXBean {
+
+    long getMessagesSent();
+
+    long getMessagesReceived();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    long getUncompressedBytesSent();
+
+    long getPayloadBytesSent();
+
+    long getUncompressedBytesReceived();
+
+    long getPayloadBytesReceived();
+
+    long getMessagesResent();
+
+    long getFastRetransmits();
+
+    long getHeartbeatsReceived();
+
+    long getConnects();
+
+    long getReconnects();
+
+    long getConnectFailures();
+
+    long getSerializeQueueDepth();
+
+    long getWriteQueueDepth();
+
+    long getUnacknowledgedCount();
+
+    long getReceiveQueueDepth();
+
+    long getDeserializeQueueDepth();
+
+    long getPendingSendCount();
+
+    LatencySnapshot getAcknowledgementLatency();
+
+    LatencySnapshot getReconnectDuration();
+
+    LatencySnapshot getBackpressureWait();
+}
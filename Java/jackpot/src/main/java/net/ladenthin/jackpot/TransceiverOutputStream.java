@@ -0,0 +1,236 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sending end of a byte stream to the other side, see {@link Transceiver#openStream()}.
+ * The written bytes go out in chunks of
+ * {@link net.ladenthin.jackpot.configuration.CTransceiver#streamChunkLength}, each a message
+ * of its own between the other messages: it gets the next wire id, is compressed on the
+ * codec threads, retained until acknowledged and resent if lost. At most
+ * {@link net.ladenthin.jackpot.configuration.CTransceiver#streamWindow} chunks are unread
+ * by the other side; a write beyond waits, so a stream of any length takes constant memory
+ * on both sides.
+ * <p>
+ * Chunk payload (before compression): {@code long streamId}, {@code byte flags} (bit 1: the
+ * last chunk), then the bytes.
+ * <p>
+ * Not thread-safe: one writing thread per stream.
+ */
+public final class TransceiverOutputStream extends OutputStream {
+
+    /**
+     * The stream id and the flags ahead of the bytes of a chunk. Unit: [bytes].
+     */
+    static final int CHUNK_HEADER_LENGTH = Long.BYTES + 1;
+
+    /**
+     * The flag of the chunk that ends the stream.
+     */
+    static final byte CHUNK_LAST = 1;
+
+    /**
+     * Hands a chunk to the transceiver.
+     */
+    interface ChunkSender {
+
+        /**
+         * @param chunk the header and the bytes; handed over
+         * @param length the length of the chunk. Unit: [bytes].
+         * @return completed when the other side read the chunk
+         */
+        CompletableFuture<Void> send(byte[] chunk, int length);
+    }
+
+    private final ChunkSender sender;
+
+    private final long streamId;
+
+    /**
+     * The chunks sent but not read by the other side yet.
+     */
+    private final Semaphore window;
+
+    /**
+     * How long a write waits for the window; {@code <= 0} waits indefinitely. Unit: [ms].
+     */
+    private final long sendTimeout;
+
+    /**
+     * See {@link #acknowledged()}.
+     */
+    private final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+
+    /**
+     * The failure of a sent chunk; the stream is broken then.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * The chunk being filled: the header, then up to the chunk length of bytes.
+     */
+    private byte[] chunk;
+
+    private int position = CHUNK_HEADER_LENGTH;
+
+    private boolean closed;
+
+    /**
+     * @param chunkLength the bytes per chunk, at least {@code 1}. Unit: [bytes].
+     * @param window the most chunks unread by the other side, at least {@code 1}
+     * @param sendTimeout see {@link #sendTimeout}. Unit: [ms].
+     */
+    TransceiverOutputStream(final ChunkSender sender, final long streamId, final int chunkLength,
+        final int window, final long sendTimeout) {
+        this.sender = sender;
+        this.streamId = streamId;
+        this.window = new Semaphore(window);
+        this.sendTimeout = sendTimeout;
+        chunk = new byte[CHUNK_HEADER_LENGTH + chunkLength];
+    }
+
+    /**
+     * @return the id of this stream, see
+     * {@link TransceiverInputStream#getStreamId()}
+     */
+    public long getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * @return completed once the other side read the stream to its end after
+     * {@link #close()} (or closed its end), exceptionally when a chunk can never be
+     * acknowledged
+     */
+    public CompletableFuture<Void> acknowledged() {
+        return acknowledged;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        chunk[position++] = (byte) b;
+        if (position == chunk.length) {
+            sendChunk(false);
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        while (len > 0) {
+            final int n = Math.min(len, chunk.length - position);
+            System.arraycopy(b, off, chunk, position, n);
+            position += n;
+            off += n;
+            len -= n;
+            if (position == chunk.length) {
+                sendChunk(false);
+            }
+        }
+    }
+
+    /**
+     * Sends the bytes written so far as a chunk of its own.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (position > CHUNK_HEADER_LENGTH) {
+            sendChunk(false);
+        }
+    }
+
+    /**
+     * Sends the rest as the last chunk; the other side's stream ends behind it. Does not wait
+     * for the other side, see {@link #acknowledged()}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        checkFailure();
+        closed = true;
+        sendChunk(true);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream " + streamId + " closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        final Throwable cause = failure;
+        if (cause != null) {
+            throw new IOException("stream " + streamId + " broken", cause);
+        }
+    }
+
+    private void sendChunk(final boolean last) throws IOException {
+        acquireWindow();
+        final byte[] sent = chunk;
+        final int length = position;
+        for (int i = 0; i < Long.BYTES; ++i) {
+            sent[i] = (byte) (streamId >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+        }
+        sent[Long.BYTES] = last ? CHUNK_LAST : 0;
+
+        final CompletableFuture<Void> future;
+        try {
+            future = sender.send(sent, length);
+        } catch (RuntimeException e) {
+            /**
+             * Backpressure timeout or a shut down transceiver.
+             */
+            window.release();
+            throw new IOException("stream " + streamId + ": chunk not sent", e);
+        }
+        chunk = last ? null : new byte[sent.length];
+        position = CHUNK_HEADER_LENGTH;
+        future.whenComplete((v, e) -> {
+            window.release();
+            if (e != null) {
+                failure = e;
+                acknowledged.completeExceptionally(e);
+            } else if (last) {
+                acknowledged.complete(null);
+            }
+        });
+    }
+
+    private void acquireWindow() throws IOException {
+        try {
+            if (sendTimeout > 0) {
+                if (!window.tryAcquire(sendTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("stream " + streamId + ": the other side did not read"
+                        + " within " + sendTimeout + " ms");
+                }
+            } else {
+                window.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the stream window");
+        }
+        final Throwable cause = failure;
+        if (cause != null) {
+            window.release();
+            throw new IOException("stream " + streamId + " broken", cause);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Receives the byte streams the other side opened with {@link Transceiver#openStream()}.
+ *
+ * <p>Register with {@link Transceiver#setStreamListener(TransceiverStreamListener)}. Every
+ * stream is handed over on a thread of its own, so the callback may read it to its end
+ * without holding back the messages or the other streams. Without a listener the streams
+ * are discarded.
+ */
+public interface TransceiverStreamListener {
+
+    /**
+     * A stream arrived from the other side. It is closed when the callback returns: read it
+     * here, the bytes not read are discarded.
+     *
+     * @param stream the bytes in write order; {@link InputStream#read()} waits for the next
+     * chunk and returns {@code -1} once the other side closed its stream
+     * @throws IOException surfaced as a {@link net.ladenthin.jackpot.message.TError}, unless
+     * the transceiver shut down
+     */
+    void onStream(TransceiverInputStream stream) throws IOException;
+}
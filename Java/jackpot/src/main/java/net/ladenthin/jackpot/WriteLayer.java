@@ -5,46 +5,107 @@
 
 package net.ladenthin.jackpot;
 
+import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.Heartbeat;
 import net.ladenthin.jackpot.interfaces.ShutdownRunnable;
 import net.ladenthin.jackpot.interfaces.WriteManagement;
 import net.ladenthin.jackpot.util.*;
 
 import java.util.*;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunnable {
 
     private final ErrorLayer errorLayer;
 
     /**
-     * One written but not yet acknowledged message together with its last write time, so the
-     * resend sweep can find overdue messages.
+     * The initial ring size of {@link #toWrite} and {@link #written}. The rings grow to the
+     * span of ids in flight, which {@link FlowControl} bounds.
      */
-    private static final class UnacknowledgedMessage {
+    private static final int INITIAL_WINDOW_CAPACITY = 1024;
 
-        private final BinaryMessage message;
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
 
-        /**
-         * When the message was (last) written to the stream. Unit: [ms since epoch].
-         */
-        private final long writtenAt;
+    /**
+     * Messages handed over for writing by any thread; the {@link #run()} loop moves them into
+     * {@link #toWrite}.
+     */
+    private final MpscQueue<BinaryMessage> transmitted;
 
-        private UnacknowledgedMessage(final BinaryMessage message, final long writtenAt) {
-            this.message = message;
-            this.writtenAt = writtenAt;
-        }
-    }
+    /**
+     * Messages waiting to be written, by logical channel (see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#channelWeights}; one channel
+     * while they are disabled): every channel is polled in ascending id order (a resent
+     * message goes before newer ones), the channels by weighted fair queueing of the frame
+     * lengths, so a bulk channel cannot starve an interactive one. A frame without a
+     * channel queues on channel {@code 0}. Owned by the {@link #run()} loop, so not
+     * synchronized.
+     */
+    private final WeightedFairQueue<BinaryMessage> toWrite;
+
+    /**
+     * Fragmented messages taken from {@link #toWrite}, written one fragment per batch so the
+     * acknowledgements and the messages queued meanwhile go out between the fragments (see
+     * {@link BinaryMessage#isFragmented()}). Loop thread only.
+     */
+    private final ArrayDeque<BinaryMessage> fragmented = new ArrayDeque<>();
+
+    /**
+     * The index of the next fragment of the first {@link #fragmented} message. Loop thread
+     * only.
+     */
+    private int nextFragment;
+
+    /**
+     * The fragmented message whose last fragment is in the batch being written: retained as
+     * a whole with it. Loop thread only.
+     */
+    private BinaryMessage completedFragmented;
 
-    private final NavigableSet<BinaryMessage> toWrite = new TreeSet<>();
+    /**
+     * A full batch had no room for the next fragment; it leads the next batch. Loop thread
+     * only.
+     */
+    private boolean fragmentFirst;
 
     /**
      * Every written message is retained here until the other side acknowledges it (see
-     * {@link #deleteId(long)}); messages unacknowledged for longer than
-     * {@link Heartbeat#resendInterval} are resent (see {@link #resendOverdueMessages()}).
+     * {@link #deleteId(long)}); messages unacknowledged past their resend deadline are resent
+     * (see {@link #resendOverdueMessages()}). The stamp of an entry is its last write time.
+     * Unit: [ms since epoch].
+     */
+    private final MessageIdWindow<BinaryMessage> written = new MessageIdWindow<>(INITIAL_WINDOW_CAPACITY);
+
+    /**
+     * The resend deadlines of {@link #written} in write-time order, so a sweep visits the
+     * overdue messages only instead of every retained one.
+     */
+    private final ResendQueues resendQueues;
+
+    /**
+     * Whether an entry of {@link #resendQueues} still describes the last write of a
+     * retained message. Called with the {@link #writtenLock} held.
+     */
+    private final ResendQueues.Retained retained = new ResendQueues.Retained() {
+        @Override
+        public boolean isRetained(final long id, final long stamp) {
+            return written.contains(id) && written.getStamp(id) == stamp;
+        }
+    };
+
+    /**
+     * The overdue ids collected by a sweep, reused across sweeps. Loop thread only.
+     */
+    private final LongArrayList overdueIds = new LongArrayList();
+
+    /**
+     * Guards {@link #written} and {@link #resendQueues}. A lock rather than a monitor: a virtual thread waiting for a
+     * contended monitor pins its carrier thread (Java 21), one waiting for a lock does not.
      */
-    private final NavigableMap<Long, UnacknowledgedMessage> written = new TreeMap<>();
+    private final ReentrantLock writtenLock = new ReentrantLock();
 
     /**
      * The boolean flag to shutdown the {@link #run()} method.
@@ -52,9 +113,47 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     /**
-     * Semaphore to run the loop.
+     * Set by {@link #heartbeatSignal()}: the next loop pass runs the periodic work (resend
+     * sweep, heartbeat, pending acknowledgements).
      */
-    protected final Semaphore doRun = new Semaphore(0, true);
+    private final AtomicBoolean tick = new AtomicBoolean(false);
+
+    /**
+     * The latest gap report handed in by {@link #transmitGapReport(BinaryMessage)}, not
+     * written yet; a newer report supersedes it.
+     */
+    private final AtomicReference<BinaryMessage> pendingGapReport = new AtomicReference<>();
+
+    /**
+     * When the last message was written. Unit: [ms since epoch]. Loop thread only.
+     */
+    private long lastMessageSent;
+
+    /**
+     * The messages of the batch being written, reused across batches. Loop thread only.
+     */
+    private final List<BinaryMessage> batch = new ArrayList<>();
+
+    /**
+     * The pending acknowledgements drained for the next acknowledgement message; reused
+     * across passes. Loop thread only.
+     */
+    private final LongArrayList acknowledgements = new LongArrayList();
+
+    /**
+     * The size of the previous batch; more than one means load, which makes a linger worth
+     * it. Loop thread only.
+     */
+    private int previousBatchSize;
+
+    private final int maxWriteBatchMessages;
+
+    private final int maxWriteBatchBytes;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#writeBatchLinger}. Unit: [ns].
+     */
+    private final long writeBatchLingerNanos;
 
     private final Thread thread;
 
@@ -68,11 +167,40 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
      * A continuous signal to wake up the loop.
      */
     public final void heartbeatSignal() {
-        doRun.release();
+        tick.set(true);
+        transmitted.signal();
     }
     
-    private final Timer timer;
-    private final HeartbeatTask heartbeatTask = new HeartbeatTask(this);
+    /**
+     * The JVM-wide timer: heartbeat ticks and the resend deadline cost no thread of this
+     * transceiver. Released once by the loop on shutdown.
+     */
+    private final HashedWheelTimer timer;
+
+    /**
+     * Ticks the loop every {@link Heartbeat#heartbeatCheckInterval}.
+     */
+    private final HeartbeatTask heartbeatTask;
+
+    /**
+     * Set by the resend deadline: the next loop pass sweeps {@link #written} for overdue
+     * messages.
+     */
+    private final AtomicBoolean resendDue = new AtomicBoolean(false);
+
+    /**
+     * The scheduled resend deadline, {@code null} while none is scheduled. Only scheduled
+     * while messages are retained, so an idle transceiver never sweeps. Loop thread only.
+     */
+    private HashedWheelTimer.Timeout resendDeadline;
+
+    private final Runnable resendDeadlineTask = new Runnable() {
+        @Override
+        public void run() {
+            resendDue.set(true);
+            transmitted.signal();
+        }
+    };
 
     /**
      * Sender-side backpressure: the send permit of an application message is released here
@@ -86,145 +214,181 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
      */
     private final SendCompletionTracker sendCompletionTracker;
 
+    /**
+     * Records written frames, resends and acknowledgement latencies.
+     */
+    private final TransceiverMetrics metrics;
+
     public WriteLayer(final ErrorLayer errorLayer, final ConnectionLayer<?> connectionLayer,
-        final FlowControl flowControl, final SendCompletionTracker sendCompletionTracker) {
+        final FlowControl flowControl, final SendCompletionTracker sendCompletionTracker,
+        final TransceiverMetrics metrics) {
         this.errorLayer = errorLayer;
         this.connectionLayer = connectionLayer;
         this.flowControl = flowControl;
         this.sendCompletionTracker = sendCompletionTracker;
+        this.metrics = metrics;
         heartbeat = connectionLayer.getTransceiverSession().transceiverConfiguration.heartbeat;
+        final CTransceiver transceiverConfiguration =
+            connectionLayer.getTransceiverSession().transceiverConfiguration;
+        transmitted = new MpscQueue<>(WaitStrategy.of(transceiverConfiguration.waitStrategy));
+        final int[] channelWeights = CTransceiver.effectiveChannelWeights(transceiverConfiguration);
+        toWrite = new WeightedFairQueue<>(channelWeights != null ? channelWeights : new int[] {1},
+            INITIAL_WINDOW_CAPACITY, BinaryMessage::getFrameLength);
+        /**
+         * The toWrite window belongs to the loop thread; the gauge reads its size without
+         * synchronization, which is good enough for monitoring.
+         */
+        metrics.writeQueueDepth(() -> transmitted.size() + toWrite.size() + fragmented.size());
+        metrics.unacknowledgedCount(this::getUnacknowledgedMessageCount);
+        maxWriteBatchMessages = Math.max(1, transceiverConfiguration.maxWriteBatchMessages);
+        maxWriteBatchBytes = transceiverConfiguration.maxWriteBatchBytes;
+        writeBatchLingerNanos = TimeUnit.MILLISECONDS.toNanos(transceiverConfiguration.writeBatchLinger);
+        resendQueues = new ResendQueues(heartbeat.resendInterval,
+            Math.max(1, transceiverConfiguration.resendBackoffLimit));
         currentWritingLock = new CurrentWritingLock(errorLayer);
-        this.timer = new Timer(
-            "jackpot-WriteLayer-Timer-" + connectionLayer.getTransceiverSession().transceiverId);
-        this.thread = new Thread(this,
+        this.timer = HashedWheelTimer.acquire();
+        this.heartbeatTask = new HeartbeatTask(this, timer, heartbeat.heartbeatCheckInterval);
+        this.thread = NamedJackpotThreadFactory.newThread(transceiverConfiguration.threadType, this,
             "jackpot-WriteLayer-" + connectionLayer.getTransceiverSession().transceiverId);
         thread.start();
 
-        //TODO: fix the times
-        //Creating timer which executes once after five seconds
-        timer.scheduleAtFixedRate(
-                heartbeatTask,
-                heartbeat.heartbeatStartDelay,
-                heartbeat.heartbeatCheckInterval);
+        heartbeatTask.start(heartbeat.heartbeatStartDelay);
     }
 
     @Override
     public void run() {
-        long lastMessageSent = 0;
         for (;;) {
             try {
                 /**
-                 * A permit exist?
-                 */
-                doRun.acquire();
-
-                Transceiver.debugLog("WriteLayer.run(): acquired");
-
-                /**
-                 * A shutdown permit. Terminate the thread.
+                 * Shutdown requested. Terminate the thread.
                  */
                 if (shutdown.get()) {
                     Transceiver.debugLog("WriteLayer.run(): shutdown, bye...");
-                    timer.cancel();
+                    heartbeatTask.cancel();
+                    if (resendDeadline != null) {
+                        resendDeadline.cancel();
+                    }
+                    HashedWheelTimer.release(timer);
                     return;
                 }
 
+                /**
+                 * Take over everything handed in since the last pass; nothing handed in and
+                 * no tick: wait.
+                 */
+                transmitted.drain(this::enqueue, Integer.MAX_VALUE);
+                final boolean ticked = tick.getAndSet(false);
+                final boolean resendSweep = resendDue.getAndSet(false);
+                final BinaryMessage gapReport = pendingGapReport.getAndSet(null);
+                if (!ticked && !resendSweep && gapReport == null && toWrite.isEmpty()
+                    && fragmented.isEmpty()) {
+                    transmitted.await();
+                    continue;
+                }
+
+                Transceiver.debugLog("WriteLayer.run(): woken");
+
                 /**
                  * Dead-connection detection, driven by the heartbeat timer ticks that keep
                  * this loop running even when idle.
                  */
                 connectionLayer.checkConnectionExpired();
 
-                final BinaryMessage message;
-
                 /**
-                 * Pending acknowledgements are sent with priority: the other side retains
-                 * every written message until it is acknowledged, so a delayed
-                 * acknowledgement means retained memory and, eventually, an unnecessary
-                 * resend over there. Draining returns the whole batch as one message.
+                 * A channel connection has no reader thread that reconnects it; this loop
+                 * does (a no-op for stream connections).
                  */
-                final List<Long> acknowledgements = connectionLayer.drainPendingAcknowledgements();
-                if (!acknowledgements.isEmpty()) {
-                    message = BinaryMessage.createAcknowledged(
-                        connectionLayer.getMessageIdGenerator().getNextId(), acknowledgements);
-                } else {
-                    final BinaryMessage pending;
-                    synchronized (toWrite) {
-                        /**
-                         * Get the first message ordered by the message id from the set.
-                         */
-                        pending = toWrite.pollFirst();
+                connectionLayer.maintainConnection();
+                if (connectionLayer.isConnecting()) {
+                    /**
+                     * A channel connection is being established on the selector loop, which
+                     * signals this loop once it is. Until then the due work stays due.
+                     */
+                    if (resendSweep) {
+                        resendDue.set(true);
                     }
-                    if (pending != null) {
-                        message = pending;
-                    } else {
-                        /**
-                         * Idle tick (timerTask): first give overdue unacknowledged messages
-                         * another chance — a message lost on the wire wedges the receiver
-                         * (it processes ids strictly in order), and only this resend can
-                         * unwedge it. The resent messages re-enter {@link #toWrite} and are
-                         * written on the next permits.
-                         */
-                        resendOverdueMessages();
-                        if (lastMessageSent + heartbeat.heartbeatInterval > System.currentTimeMillis()) {
-                            // no need to create a heartbeat
-                            continue;
-                        }
-                        message = BinaryMessage.createHeartbeat(connectionLayer.getMessageIdGenerator().getNextId());
+                    if (gapReport != null) {
+                        pendingGapReport.compareAndSet(null, gapReport);
                     }
+                    transmitted.await();
+                    continue;
                 }
 
                 /**
-                 * Set the current message id to the {@link currentWritingLock} to remember this thread is writing the specific message
-                 * to the stream now.
+                 * A gap report goes out first and on its own: it carries no id of this
+                 * direction, so it is neither retained nor part of a batch's id range. A
+                 * failed write loses it, the next report replaces it.
                  */
-                currentWritingLock.setLock(message.getId());
+                if (gapReport != null) {
+                    connectionLayer.writeBoxedSendableByteMessage(gapReport);
+                    metrics.frameWritten(gapReport);
+                }
 
                 /**
-                 * The {@link currentWritingLock} must be released even when the write throws
-                 * (e.g. {@link NoConnectionPossible}). A leaked lock would let a later
-                 * {@link #resendId(long)}/{@link #deleteId(long)} for the same id spin in
-                 * {@link CurrentWritingLock#blockUntilCurrentWriting(long)} forever.
+                 * Pending acknowledgements are sent with priority: the other side retains
+                 * every written message until it is acknowledged, so a delayed
+                 * acknowledgement means retained memory and, eventually, an unnecessary
+                 * resend over there. Draining returns the whole batch as one message, which
+                 * leads the first write batch.
                  */
-                try {
-                    Transceiver.debugLog("WriteLayer.run().now going to streamWriter");
+                connectionLayer.drainPendingAcknowledgements(acknowledgements);
+                if (!acknowledgements.isEmpty()) {
+                    batch.add(createAcknowledgement(connectionLayer.getMessageIdGenerator().getNextId()));
+                    acknowledgements.clear();
+                }
 
-                    /**
-                     * Retain the message BEFORE writing: if the write fails (e.g. the
-                     * connection is gone), the message stays in the retain buffer and the
-                     * resend sweep delivers it after the reconnect — otherwise it would be
-                     * lost and the receiver would wait for its id forever.
-                     */
-                    synchronized (written) {
-                        written.put(message.getId(),
-                            new UnacknowledgedMessage(message, System.currentTimeMillis()));
+                /**
+                 * Write the queued messages ordered by the message id within their channel
+                 * and by the fair share across the channels, as many per flush as
+                 * the batch bounds allow. A failing write leaves the rest queued for the
+                 * next pass. While a fragmented message is written, every pass writes one
+                 * batch: the next pass picks up the acknowledgements and the gap report due
+                 * meanwhile.
+                 */
+                do {
+                    fillBatch();
+                    if (!batch.isEmpty()) {
+                        writeBatch();
                     }
+                } while (!toWrite.isEmpty() && fragmented.isEmpty());
 
+                if (resendSweep) {
                     /**
-                     * Write the message to the stream now. At this point only one critical error should occur, the
-                     * streamWriter is not be able to create a stable stream to write the message successfully.
-                     * If the message could not be written a NoConnectionPossible will be fired.
-                     */
-                    connectionLayer.writeBoxedSendableByteMessage(message);
-
-                    lastMessageSent = System.currentTimeMillis();
-                } finally {
-                    /**
-                     * Release the {@link currentWritingLock}.
+                     * Resend deadline: give overdue unacknowledged messages another chance
+                     * — a message lost on the wire wedges the receiver (it processes ids
+                     * strictly in order), and only this resend can unwedge it. The resent
+                     * messages are handed in again and written on the next pass.
                      */
-                    currentWritingLock.releaseLock();
+                    resendDeadline = null;
+                    scheduleResendDeadline(resendOverdueMessages(System.currentTimeMillis()));
                 }
-
+                if (ticked && lastMessageSent + heartbeat.heartbeatInterval <= System.currentTimeMillis()) {
+                    write(BinaryMessage.createHeartbeat(connectionLayer.getMessageIdGenerator().getNextId()));
+                }
+            } catch (NoConnectionPossibleOtherThread e) {
+                /**
+                 * The channel connection broke; it is being re-established on the selector
+                 * loop. The retained messages are resent, nothing to report.
+                 */
+                batch.clear();
+                retainCompletedFragmented();
+                restartFragmented();
             } catch (InterruptedException | NoConnectionPossible e) {
+                batch.clear();
+                retainCompletedFragmented();
+                restartFragmented();
                 /**
                  * During shutdown a failed write is expected (the streams were closed on
                  * purpose) and must not be reported; the loop continues and terminates on
-                 * the shutdown permit.
+                 * the shutdown flag.
                  */
                 if (!shutdown.get()) {
                     errorLayer.notifyException(e);
                 }
             } catch (RuntimeException e) {
+                batch.clear();
+                retainCompletedFragmented();
+                restartFragmented();
                 /**
                  * An unexpected RuntimeException (e.g. message id range exhaustion in the id
                  * generator) must never kill the loop thread — a dead writer hangs the whole
@@ -234,14 +398,251 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
                     errorLayer.notifyException(e);
                 }
             }
+
+            if (resendDeadline == null && getUnacknowledgedMessageCount() > 0) {
+                /**
+                 * The first message retained since the last sweep was written during this
+                 * pass (or its write failed).
+                 */
+                scheduleResendDeadline(nextResendDeadline());
+            }
         }
     }
 
+    /**
+     * Moves a handed-in message into the {@link #toWrite} window of its channel. Loop thread
+     * only.
+     */
+    private void enqueue(final BinaryMessage bm) {
+        final int channel = bm.hasChannel() ? bm.getChannel() : 0;
+        /**
+         * Not possible. Only to debug.
+         */
+        assert (!toWrite.contains(channel, bm.getId())) : "toWrite already contains the message";
+        toWrite.put(channel, bm.getId(), bm);
+    }
+
+    /**
+     * Moves messages from {@link #toWrite} into the {@link #batch} until a bound is reached,
+     * followed by the next fragment of a fragmented message. Under load (the previous batch
+     * held more than one message), a batch that is not full lingers up to
+     * {@link #writeBatchLingerNanos} for more hand-offs — unless a fragment is waiting. Loop
+     * thread only.
+     */
+    private void fillBatch() {
+        final boolean fragmentAdded = fragmentFirst;
+        if (fragmentFirst) {
+            fragmentFirst = false;
+            addNextFragment();
+        }
+        long batchBytes = 0;
+        for (int i = 0; i < batch.size(); ++i) {
+            batchBytes += batch.get(i).getFrameLength();
+        }
+        final long lingerUntil = System.nanoTime() + writeBatchLingerNanos;
+        final boolean linger = writeBatchLingerNanos > 0 && previousBatchSize > 1;
+        for (;;) {
+            BinaryMessage next;
+            while (batch.size() < maxWriteBatchMessages && batchBytes < maxWriteBatchBytes
+                && (next = toWrite.pollFirst()) != null) {
+                if (next.isFragmented()) {
+                    fragmented.add(next);
+                    continue;
+                }
+                batch.add(next);
+                batchBytes += next.getFrameLength();
+            }
+            if (!linger || !fragmented.isEmpty() || batch.size() >= maxWriteBatchMessages
+                || batchBytes >= maxWriteBatchBytes || shutdown.get()) {
+                break;
+            }
+            final long remaining = lingerUntil - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            transmitted.awaitNanos(remaining);
+            transmitted.drain(this::enqueue, Integer.MAX_VALUE);
+        }
+        if (!fragmentAdded && !fragmented.isEmpty()) {
+            if (batch.size() < maxWriteBatchMessages) {
+                addNextFragment();
+            } else {
+                fragmentFirst = true;
+            }
+        }
+    }
+
+    /**
+     * Adds the next fragment of the first {@link #fragmented} message to the {@link #batch};
+     * with its last fragment the message is done and becomes the
+     * {@link #completedFragmented}. Loop thread only.
+     */
+    private void addNextFragment() {
+        final BinaryMessage message = fragmented.peek();
+        if (message == null || completedFragmented != null) {
+            return;
+        }
+        batch.add(message.getFragment(nextFragment++));
+        if (nextFragment == message.getFragmentCount()) {
+            fragmented.poll();
+            nextFragment = 0;
+            completedFragmented = message;
+        }
+    }
+
+    /**
+     * Writes the {@link #batch} with a single flush and clears it. Loop thread only.
+     */
+    private void writeBatch() throws NoConnectionPossible {
+        previousBatchSize = batch.size();
+        if (batch.size() == 1) {
+            final BinaryMessage single = batch.get(0);
+            batch.clear();
+            write(single);
+            return;
+        }
+        long lowestId = Long.MAX_VALUE;
+        long highestId = Long.MIN_VALUE;
+        for (int i = 0; i < batch.size(); ++i) {
+            final long id = batch.get(i).getId();
+            lowestId = Math.min(lowestId, id);
+            highestId = Math.max(highestId, id);
+        }
+        /**
+         * Lock the id range of the batch while it is retained; see
+         * {@link #write(BinaryMessage)}.
+         */
+        currentWritingLock.setLock(lowestId, highestId);
+        try {
+            final long now = System.currentTimeMillis();
+            writtenLock.lock();
+            try {
+                for (int i = 0; i < batch.size(); ++i) {
+                    retain(batch.get(i), now);
+                }
+            } finally {
+                writtenLock.unlock();
+            }
+        } finally {
+            currentWritingLock.releaseLock();
+        }
+        try {
+            final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Write);
+            connectionLayer.writeBoxedSendableByteMessages(batch);
+            long bytes = 0;
+            for (int i = 0; i < batch.size(); ++i) {
+                metrics.frameWritten(batch.get(i));
+                bytes += batch.get(i).getFrameLength();
+            }
+            EVENTS.commit(event, lowestId, batch.size(), bytes);
+        } finally {
+            /**
+             * Written or not: every message is retained and the resend sweep delivers it
+             * after a failure.
+             */
+            batch.clear();
+        }
+        lastMessageSent = System.currentTimeMillis();
+    }
+
+    /**
+     * Retains the message and writes it to the stream. Loop thread only.
+     */
+    private void write(final BinaryMessage message) throws NoConnectionPossible {
+        /**
+         * Set the current message id to the {@link currentWritingLock} while the message is
+         * retained: a {@link #resendId(long)}/{@link #deleteId(long)} of the id waits until
+         * it is. Released before the write itself, which may wait for a slow peer to drain
+         * a bounded outbound queue (see {@link net.ladenthin.jackpot.nio.ChannelTransport}):
+         * the selector loop that drains it applies the acknowledgements with
+         * {@link net.ladenthin.jackpot.configuration.ReceiveMode#Pipelined}, and an
+         * acknowledgement waiting for the writer would stall the loop for good.
+         */
+        currentWritingLock.setLock(message.getId());
+        try {
+            Transceiver.debugLog("WriteLayer.write().now going to streamWriter");
+
+            /**
+             * Retain the message BEFORE writing: if the write fails (e.g. the
+             * connection is gone), the message stays in the retain buffer and the
+             * resend sweep delivers it after the reconnect — otherwise it would be
+             * lost and the receiver would wait for its id forever.
+             */
+            writtenLock.lock();
+            try {
+                retain(message, System.currentTimeMillis());
+            } finally {
+                writtenLock.unlock();
+            }
+        } finally {
+            currentWritingLock.releaseLock();
+        }
+
+        /**
+         * Write the message to the stream now. At this point only one critical error should occur, the
+         * streamWriter is not be able to create a stable stream to write the message successfully.
+         * If the message could not be written a NoConnectionPossible will be fired.
+         */
+        final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Write);
+        connectionLayer.writeBoxedSendableByteMessage(message);
+        metrics.frameWritten(message);
+        EVENTS.commit(event, message.getId(), 1, message.getFrameLength());
+
+        lastMessageSent = System.currentTimeMillis();
+    }
+
+    /**
+     * A batch lost before it was retained: its completed fragmented message is retained
+     * nevertheless, the resend sweep delivers it. Loop thread only.
+     */
+    private void retainCompletedFragmented() {
+        if (completedFragmented == null) {
+            return;
+        }
+        writtenLock.lock();
+        try {
+            final BinaryMessage message = completedFragmented;
+            completedFragmented = null;
+            retain(message, System.currentTimeMillis());
+        } finally {
+            writtenLock.unlock();
+        }
+    }
+
+    /**
+     * A failed write may have lost a fragment of the fragmented message in progress, which is
+     * not retained before its last fragment is written: the message starts over with its
+     * first fragment, the other side skips the fragments it holds already. Loop thread only.
+     */
+    private void restartFragmented() {
+        nextFragment = 0;
+    }
+
+    /**
+     * Retains a message being written and records its resend deadline. A fragmented message
+     * is retained as a whole with its last fragment: until then a gap report or a resend
+     * deadline would restart it in the middle. Loop thread only, with the
+     * {@link #writtenLock} held.
+     *
+     * @param now the write time. Unit: [ms since epoch].
+     */
+    private void retain(BinaryMessage message, final long now) {
+        if (message.isFragment()) {
+            if (!message.isLastFragment() || completedFragmented == null) {
+                return;
+            }
+            message = completedFragmented;
+            completedFragmented = null;
+        }
+        written.put(message.getId(), message, now);
+        resendQueues.add(message.getId(), now, retained);
+    }
+
     @ConcurrentMethod
     @Override
     public void shutdownRunnable() {
         shutdown.set(true);
-        doRun.release();
+        transmitted.signal();
     }
 
     @Override
@@ -249,58 +650,223 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
     @ParentEnsureSynchronized
     @ParentEnsureFairProcessingSequence
     public void transmitMessage(final BinaryMessage bm) {
-        synchronized (toWrite) {
-            /**
-             * Not possible. Only to debug.
-             */
-            assert (!toWrite.contains(bm)) : "toWrite already contains the message";
-
-            Transceiver.debugLog("WriteLayer.transmitMessage(final BinaryMessage bm): message now in list");
-
-            toWrite.add(bm);
-        }
+        Transceiver.debugLog("WriteLayer.transmitMessage(final BinaryMessage bm): message handed in");
 
         /**
-         * Release a permit. In future a transmit (write) should be finished.
-         * The calling method {@link #net.ladenthin.jackpot.SerializeLayer.run} is encapsulated now.
+         * Hand the message to the loop. The calling method
+         * {@link #net.ladenthin.jackpot.SerializeLayer.run} is encapsulated now.
          */
-        doRun.release();
+        transmitted.offer(bm);
     }
 
     /**
-     * Move every message that stayed unacknowledged for longer than
-     * {@link Heartbeat#resendInterval} back into the write queue. Called from the run loop on
-     * idle ticks; the ids are collected first so {@link #resendId(long)} is never invoked
-     * while holding the {@code written} monitor (it takes {@code toWrite} before
-     * {@code written}, and that lock order must stay consistent).
+     * Move every message past its resend deadline back into the write queue, counting the
+     * resend for its backoff. Called from the run loop when the resend deadline expires; the
+     * ids are collected first so {@link #resend(long)} is never invoked while holding the
+     * {@link #writtenLock}. The sweep stops at the first message not due, see
+     * {@link ResendQueues}.
+     *
+     * @param now Unit: [ms since epoch].
+     * @return the next resend deadline of the messages that stay retained,
+     * {@link Long#MAX_VALUE} if none. Unit: [ms since epoch].
      */
-    private void resendOverdueMessages() {
-        final long overdueBefore = System.currentTimeMillis() - heartbeat.resendInterval;
-        final List<Long> overdueIds = new ArrayList<>();
-        synchronized (written) {
-            for (final Map.Entry<Long, UnacknowledgedMessage> entry : written.entrySet()) {
-                if (entry.getValue().writtenAt <= overdueBefore) {
-                    overdueIds.add(entry.getKey());
-                }
-            }
+    private long resendOverdueMessages(final long now) {
+        final long nextDeadline;
+        writtenLock.lock();
+        try {
+            nextDeadline = resendQueues.pollOverdue(now, retained, overdueIds::add);
+        } finally {
+            writtenLock.unlock();
+        }
+        for (int i = 0; i < overdueIds.size(); ++i) {
+            resend(overdueIds.get(i));
+        }
+        overdueIds.clear();
+        return nextDeadline;
+    }
+
+    /**
+     * @return the earliest resend deadline of the retained messages, {@link Long#MAX_VALUE}
+     * if none. Unit: [ms since epoch].
+     */
+    private long nextResendDeadline() {
+        writtenLock.lock();
+        try {
+            return resendQueues.nextDeadline(retained);
+        } finally {
+            writtenLock.unlock();
         }
-        for (final long id : overdueIds) {
-            resendId(id);
+    }
+
+    /**
+     * Schedules the resend deadline. Loop thread only.
+     *
+     * @param deadline the earliest resend deadline of the retained messages,
+     * {@link Long#MAX_VALUE} schedules nothing. Unit: [ms since epoch].
+     */
+    private void scheduleResendDeadline(final long deadline) {
+        if (deadline == Long.MAX_VALUE) {
+            return;
         }
+        final long delay = deadline - System.currentTimeMillis();
+        resendDeadline = timer.newTimeout(resendDeadlineTask, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands a gap report about the received messages in; written with priority by the loop.
+     *
+     * @param gapReport see {@link BinaryMessage#createGapReport(long, long[])}
+     */
+    @ConcurrentMethod
+    public void transmitGapReport(final BinaryMessage gapReport) {
+        pendingGapReport.set(gapReport);
+        transmitted.signal();
     }
 
     @Override
     @ConcurrentMethod
     public void resendId(long id) {
+        resend(id);
+    }
+
+    /**
+     * @return whether the id was still retained and is resent now
+     */
+    private boolean resend(final long id) {
         currentWritingLock.blockUntilCurrentWriting(id);
-        synchronized (toWrite) {
-            synchronized (written) {
-                // swap; tolerant: the id may have been acknowledged (deleted) meanwhile
-                final UnacknowledgedMessage unacknowledged = written.remove(id);
-                if (unacknowledged == null) {
-                    return;
+        final BinaryMessage unacknowledged;
+        writtenLock.lock();
+        try {
+            // swap; tolerant: the id may have been acknowledged (deleted) meanwhile
+            unacknowledged = written.remove(id);
+        } finally {
+            writtenLock.unlock();
+        }
+        if (unacknowledged != null) {
+            metrics.messageResent();
+            EVENTS.instant(FlightRecorderEvents.Kind.Resend, id, 1, unacknowledged.getFrameLength());
+            transmitMessage(unacknowledged);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies a gap report of the other side. Every id below its expected id was processed
+     * over there and every id in a received range is held there: both are released as if
+     * acknowledged — except stream chunks, which the other side acknowledges once its stream
+     * read them; a processed or held chunk may be unread still, and releasing it would open
+     * the stream window early. The ids missing before the last range are resent at once (fast
+     * retransmit) instead of after {@link Heartbeat#resendInterval}. An id that is already
+     * queued for its resend is not retained and therefore not resent twice.
+     *
+     * @param nextExpectedId the lowest id the other side has not received
+     * @param receivedRanges the ids held over there as inclusive {@code first, last} pairs in
+     * ascending order
+     */
+    @ConcurrentMethod
+    public void applyGapReport(final long nextExpectedId, final long[] receivedRanges) {
+        /**
+         * Only retained ids can be released or resent: the loops below never leave the
+         * retained id span, however wide the reported ranges are.
+         */
+        final long lowestId;
+        final long highestId;
+        writtenLock.lock();
+        try {
+            if (written.isEmpty()) {
+                return;
+            }
+            lowestId = written.firstId();
+            highestId = written.lastId();
+        } finally {
+            writtenLock.unlock();
+        }
+        for (long id = lowestId; id < nextExpectedId && id <= highestId; ++id) {
+            releaseReported(id);
+        }
+        long missingFrom = Math.max(nextExpectedId, lowestId);
+        for (int i = 0; i + 1 < receivedRanges.length; i += 2) {
+            final long first = receivedRanges[i];
+            final long last = receivedRanges[i + 1];
+            if (last < first || (i > 0 && first <= receivedRanges[i - 1])) {
+                // not ascending: a corrupt report, apply nothing more of it
+                return;
+            }
+            for (long id = missingFrom; id < first && id <= highestId; ++id) {
+                if (resend(id)) {
+                    metrics.fastRetransmitted();
                 }
-                transmitMessage(unacknowledged.message);
+            }
+            for (long id = Math.max(first, lowestId); id <= Math.min(last, highestId); ++id) {
+                releaseReported(id);
+            }
+            if (last >= highestId) {
+                return;
+            }
+            missingFrom = Math.max(last + 1, lowestId);
+        }
+    }
+
+    /**
+     * Releases an id a gap report names as processed or held, unless it is retained as a
+     * stream chunk (see {@link #applyGapReport}).
+     */
+    private void releaseReported(final long id) {
+        writtenLock.lock();
+        try {
+            final BinaryMessage retainedMessage = written.get(id);
+            if (retainedMessage != null && retainedMessage.isStreamChunk()) {
+                return;
+            }
+        } finally {
+            writtenLock.unlock();
+        }
+        deleteId(id);
+    }
+
+    /**
+     * @param id the id of the acknowledgement message
+     * @return an acknowledgement message for the drained {@link #acknowledgements}, range
+     * encoded if negotiated
+     */
+    private BinaryMessage createAcknowledgement(final long id) {
+        if (connectionLayer.isRangeEncodedAcknowledgement()) {
+            return BinaryMessage.createAcknowledgedRanges(id, acknowledgements.sortToRanges());
+        }
+        final List<Long> ids = new ArrayList<>(acknowledgements.size());
+        for (int i = 0; i < acknowledgements.size(); ++i) {
+            ids.add(acknowledgements.get(i));
+        }
+        return BinaryMessage.createAcknowledged(id, ids);
+    }
+
+    /**
+     * Releases every retained id in the acknowledged ranges, see {@link #deleteId(long)}.
+     *
+     * @param ranges the acknowledged ids as inclusive {@code first, last} pairs
+     */
+    @ConcurrentMethod
+    public void acknowledgeRanges(final long[] ranges) {
+        /**
+         * Only retained ids can be released: the loop never leaves the retained id span,
+         * however wide the acknowledged ranges are.
+         */
+        final long lowestId;
+        final long highestId;
+        writtenLock.lock();
+        try {
+            if (written.isEmpty()) {
+                return;
+            }
+            lowestId = written.firstId();
+            highestId = written.lastId();
+        } finally {
+            writtenLock.unlock();
+        }
+        for (int i = 0; i + 1 < ranges.length; i += 2) {
+            for (long id = Math.max(ranges[i], lowestId); id <= Math.min(ranges[i + 1], highestId); ++id) {
+                deleteId(id);
             }
         }
     }
@@ -308,14 +874,18 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
     @Override
     public void deleteId(long id) {
         currentWritingLock.blockUntilCurrentWriting(id);
-        final UnacknowledgedMessage removed;
-        synchronized (written) {
+        final BinaryMessage removed;
+        writtenLock.lock();
+        try {
             /**
              * Tolerant remove: an acknowledgement may arrive more than once for the same id
              * (the receiver re-acknowledges discarded duplicates in case the first
              * acknowledgement was lost), so an absent id is a valid no-op.
              */
             removed = written.remove(id);
+            resendQueues.release(id);
+        } finally {
+            writtenLock.unlock();
         }
         /**
          * Sender-side backpressure: the acknowledgement completes the life cycle of an
@@ -323,7 +893,8 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
          * acknowledgement messages never acquired a permit and must not release one; the
          * tolerant no-op above (duplicate acknowledgement) must not release either.
          */
-        if (removed != null && removed.message.isStateMessage()) {
+        if (removed != null && removed.isStateMessage()) {
+            metrics.acknowledged(removed);
             flowControl.release();
             /**
              * Complete the message's {@link Transceiver#send} future (no-op for the
@@ -339,8 +910,11 @@ public final class WriteLayer implements Runnable, WriteManagement, ShutdownRunn
      * @return the count of retained (unacknowledged) messages
      */
     public long getUnacknowledgedMessageCount() {
-        synchronized (written) {
+        writtenLock.lock();
+        try {
             return written.size();
+        } finally {
+            writtenLock.unlock();
         }
     }
 
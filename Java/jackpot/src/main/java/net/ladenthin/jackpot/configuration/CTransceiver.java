@@ -83,7 +83,9 @@ public class CTransceiver implements Serializable {
      * {@link net.ladenthin.jackpot.Transceiver#update} blocks until capacity frees (a pending
      * message is acknowledged) or {@link #sendTimeout} elapses. {@code 0} disables the bound
      * (the historical unbounded behaviour). Shutdown commands are never subject to
-     * backpressure.
+     * backpressure. The receiver buffers ids up to twice this bound ahead of the expected
+     * one and drops the ones beyond until they are resent, so both sides of a connection
+     * should configure the same value.
      */
     public int maxPendingMessages = DEFAULT_MAX_PENDING_MESSAGES;
 
@@ -93,6 +95,239 @@ public class CTransceiver implements Serializable {
      */
     public long sendTimeout = DEFAULT_SEND_TIMEOUT;
 
+    /**
+     * How the layer threads wait for the hand-off from the layer before them (see
+     * {@link WaitStrategyType}). The spinning strategies trade CPU for latency.
+     */
+    public WaitStrategyType waitStrategy = WaitStrategyType.Park;
+
+    /**
+     * The default {@link #maxWriteBatchMessages}.
+     */
+    public static final int DEFAULT_MAX_WRITE_BATCH_MESSAGES = 256;
+
+    /**
+     * The default {@link #maxWriteBatchBytes}. Unit: [bytes].
+     */
+    public static final int DEFAULT_MAX_WRITE_BATCH_BYTES = 64 * 1024;
+
+    /**
+     * Write batching: the writer drains every queued message (and the pending
+     * acknowledgements) into one batch that is flushed once, so small messages share a
+     * system call and a TCP segment. At most this many messages form one batch; {@code 1}
+     * disables batching.
+     */
+    public int maxWriteBatchMessages = DEFAULT_MAX_WRITE_BATCH_MESSAGES;
+
+    /**
+     * Write batching: a batch is closed once its frames reach this size; a single larger
+     * message still forms a batch of its own. Unit: [bytes].
+     */
+    public int maxWriteBatchBytes = DEFAULT_MAX_WRITE_BATCH_BYTES;
+
+    /**
+     * Write batching: how long a batch that is not full waits for more messages before it is
+     * flushed. Applied only while the previous batch held more than one message, i.e. under
+     * load — an isolated message is never delayed. {@code 0} never waits. Unit: [ms].
+     */
+    public long writeBatchLinger = 0;
+
+    /**
+     * Publish the {@link net.ladenthin.jackpot.TransceiverMetrics} as a JMX MXBean named
+     * {@code net.ladenthin.jackpot:type=Transceiver,name=<transceiverId>} for the lifetime of
+     * the transceiver. The metrics are recorded either way.
+     */
+    public boolean jmxMetrics = false;
+
+    /**
+     * Selective acknowledgement: when the receiver holds messages beyond a missing id, it
+     * reports the gap at once — the ids it holds (which the sender releases without waiting
+     * for their regular acknowledgement) and thereby the ids missing before them, which the
+     * sender retransmits immediately instead of after {@link Heartbeat#resendInterval}.
+     * Recovery from a lost message takes one round trip instead of seconds. Both sides of a
+     * connection must enable it: a peer without it cannot decode the gap report frame.
+     */
+    public boolean selectiveAcknowledgement = false;
+
+    /**
+     * Send acknowledgements range-encoded: runs of consecutive ids with varint deltas instead
+     * of eight bytes per id, so a batch of any size costs a few bytes. Every peer of this
+     * version decodes both encodings and answers range-encoded once it has received such a
+     * frame, so enabling one side suffices; a peer of an older version cannot decode the
+     * frame, hence the default.
+     */
+    public boolean rangeEncodedAcknowledgement = false;
+
+    /**
+     * Where the serialize and deserialize layers run their work (see
+     * {@link CodecExecutorType}). The message order is kept with every kind.
+     */
+    public CodecExecutorType codecExecutor = CodecExecutorType.Bounded;
+
+    /**
+     * The thread bound of each {@link CodecExecutorType#Bounded} pool (one for serialization,
+     * one for deserialization); {@code <= 0} selects the number of available processors.
+     * Ignored by the other kinds.
+     */
+    public int codecThreads = 0;
+
+    /**
+     * The kind of thread the layer loops and the reader run on (see
+     * {@link ThreadType}). With {@link ThreadType#Virtual}, combine it with
+     * {@link CodecExecutorType#Virtual} or {@link CodecExecutorType#Shared} to keep many
+     * transceivers from holding a pool each.
+     */
+    public ThreadType threadType = ThreadType.Platform;
+
+    /**
+     * How a received message travels from the reader to the listeners (see
+     * {@link ReceiveMode}).
+     */
+    public ReceiveMode receiveMode = ReceiveMode.Staged;
+
+    /**
+     * The default {@link #maxDeliveryBatchMessages}.
+     */
+    public static final int DEFAULT_MAX_DELIVERY_BATCH_MESSAGES = 256;
+
+    /**
+     * The most messages handed to a {@link net.ladenthin.jackpot.TransceiverBatchListener}
+     * at once: everything deserialized when the delivery wakes, up to this bound
+     * ({@code 1} = one message per batch).
+     */
+    public int maxDeliveryBatchMessages = DEFAULT_MAX_DELIVERY_BATCH_MESSAGES;
+
+    /**
+     * How long a delivery batch that is not full waits for more deserialized messages;
+     * {@link ReceiveMode#Staged} only (the pipelined delivery has no thread to wait on).
+     * Delays every message of the batch by up to this time. Unit: [ms].
+     */
+    public long deliveryBatchLinger = 0;
+
+    /**
+     * The default {@link #maxOutboundBytes}. Unit: [bytes].
+     */
+    public static final int DEFAULT_MAX_OUTBOUND_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Channel connectors only: the most bytes queued for the socket that it did not take
+     * yet. A write beyond waits until half of them are written, like a blocking stream
+     * write waits for the socket buffer — a peer that does not read holds the writer instead
+     * of growing the queue without limit. A single larger frame is still queued as a whole.
+     * Unit: [bytes].
+     */
+    public int maxOutboundBytes = DEFAULT_MAX_OUTBOUND_BYTES;
+
+    /**
+     * The default {@link #reconnectInterval}. Unit: [ms].
+     */
+    public static final int DEFAULT_RECONNECT_INTERVAL = 5000;
+
+    /**
+     * The pause after a failed connect attempt before the next one. Unit: [ms].
+     */
+    public int reconnectInterval = DEFAULT_RECONNECT_INTERVAL;
+
+    /**
+     * The default {@link #reconnectTimeout}. Unit: [ms].
+     */
+    public static final int DEFAULT_RECONNECT_TIMEOUT = 30000;
+
+    /**
+     * How long a connection is attempted (every {@link #reconnectInterval}) before the
+     * attempts give up with a {@link net.ladenthin.jackpot.message.TError} flagged
+     * {@code noConnectionPossible}; the next write or heartbeat starts over. Unit: [ms].
+     */
+    public int reconnectTimeout = DEFAULT_RECONNECT_TIMEOUT;
+
+    /**
+     * The default {@link #resendBackoffLimit}.
+     */
+    public static final int DEFAULT_RESEND_BACKOFF_LIMIT = 8;
+
+    /**
+     * Exponential resend backoff: every resend of a message after its deadline doubles its
+     * next delay, starting at {@link Heartbeat#resendInterval}, up to this multiple of it. A
+     * slow peer is not flooded with the same window again and again; {@code 1} resends at a
+     * fixed interval. A fast retransmit after a gap report does not back off.
+     */
+    public int resendBackoffLimit = DEFAULT_RESEND_BACKOFF_LIMIT;
+
+    /**
+     * Fragmentation of large messages: a serialized message longer than this is split into
+     * fragments of this length, compressed in parallel on the serialize executor and written
+     * one per write batch, so acknowledgements and smaller messages go out between them
+     * instead of waiting behind the whole message. The receiver decompresses every fragment
+     * on arrival into the reassembled message. The whole message is still bounded by
+     * {@link #maxPayloadLength} and retained and resent as a whole. {@code 0} disables it;
+     * ignored with {@link SettingsCompression#enableDeflateStream}. Both sides of a
+     * connection must run a version that decodes fragments. Unit: [bytes].
+     */
+    public int fragmentLength = 0;
+
+    /**
+     * The default {@link #streamChunkLength}. Unit: [bytes].
+     */
+    public static final int DEFAULT_STREAM_CHUNK_LENGTH = 64 * 1024;
+
+    /**
+     * The default {@link #streamWindow}.
+     */
+    public static final int DEFAULT_STREAM_WINDOW = 16;
+
+    /**
+     * The bytes written to a {@link net.ladenthin.jackpot.Transceiver#openStream()} stream
+     * go out in chunks of this length, each a message of its own: compressed, retained,
+     * acknowledged and resent like one. Bounded by {@link #maxPayloadLength}. Sender side
+     * only. Unit: [bytes].
+     */
+    public int streamChunkLength = DEFAULT_STREAM_CHUNK_LENGTH;
+
+    /**
+     * The most chunks of one stream written but not yet read by the other side; a write
+     * beyond waits (up to {@link #sendTimeout}). The receiver acknowledges a chunk once its
+     * stream read it, so both sides hold at most this many chunks of a stream whatever its
+     * length. Sender side only.
+     */
+    public int streamWindow = DEFAULT_STREAM_WINDOW;
+
+    /**
+     * The most logical channels of a connection, see {@link #channelWeights}.
+     */
+    public static final int MAX_CHANNELS = 256;
+
+    /**
+     * Logical channels multiplexed over the connection, one weight per channel (at most
+     * {@link #MAX_CHANNELS}; a weight below {@code 1} counts as {@code 1}). Every channel has
+     * a sequence of its own: the other side delivers a message as soon as its channel
+     * predecessors are delivered, whatever the other channels still miss. The writer
+     * shares the connection by weighted fair queueing, so a channel with twice the weight
+     * gets twice the bytes while both have messages waiting and a bulk channel cannot
+     * starve an interactive one. Channel {@code 0} carries the messages sent without a
+     * channel. {@code null} disables the channels (one global order, the wire format
+     * unchanged); ignored with {@link SettingsCompression#enableDeflateStream}, which needs
+     * the global order. Both sides of a connection must run a version that decodes
+     * channels.
+     */
+    public int[] channelWeights = null;
+
+    /**
+     * @return the {@link #channelWeights} in effect: at most {@link #MAX_CHANNELS}, each at
+     * least {@code 1}; {@code null} when the channels are disabled
+     */
+    public final static int[] effectiveChannelWeights(final CTransceiver configuration) {
+        final int[] weights = configuration.channelWeights;
+        if (weights == null || weights.length == 0
+            || configuration.settingsCompression.enableDeflateStream) {
+            return null;
+        }
+        final int[] effective = new int[Math.min(weights.length, MAX_CHANNELS)];
+        for (int i = 0; i < effective.length; ++i) {
+            effective[i] = Math.max(1, weights[i]);
+        }
+        return effective;
+    }
+
     /**
      * Complete constructor, this contains all possible configuration options.
      * @param serialization
@@ -0,0 +1,29 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.configuration;
+
+/**
+ * Where the serialize and deserialize layers run their (de)serializations. The layers take
+ * the results in submission order whichever executor computed them, so the choice affects
+ * only threads and throughput, never the message order.
+ */
+public enum CodecExecutorType {
+    /**
+     * Two pools per transceiver, one per layer, each bounded to
+     * {@link CTransceiver#codecThreads} threads. Idle threads time out.
+     */
+    Bounded,
+    /**
+     * One pool for every transceiver of the JVM that selects it, bounded to
+     * {@link net.ladenthin.jackpot.util.CodecExecutor#setSharedThreads(int)} threads. Started
+     * by the first such transceiver, stopped with the last.
+     */
+    Shared,
+    /**
+     * A virtual thread per (de)serialization (Java 21+). On an older runtime the layers fall
+     * back to {@link #Bounded}.
+     */
+    Virtual;
+}
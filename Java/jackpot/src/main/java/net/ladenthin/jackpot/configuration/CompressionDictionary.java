@@ -0,0 +1,90 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.configuration;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A preset deflate dictionary: bytes typical for the messages (field names, enum values,
+ * recurring prefixes), so even a small message finds back references. Trained from sample
+ * messages with {@link net.ladenthin.jackpot.util.DictionaryTrainer}; both sides must hold
+ * the same bytes under the same id — the id is on the wire, the bytes are not. Immutable.
+ */
+public final class CompressionDictionary implements Serializable {
+
+    private static final long serialVersionUID = 6212484521357312042L;
+
+    /**
+     * The highest id; the id occupies two bytes on the wire.
+     */
+    public final static int MAX_ID = 0xFFFF;
+
+    /**
+     * The deflate window: only the last this many bytes of a dictionary are referenced.
+     * Unit: [bytes].
+     */
+    public final static int MAX_LENGTH = 32 * 1024;
+
+    /**
+     * Identifies the dictionary on the wire: 0 to {@link #MAX_ID}. A retrained dictionary
+     * needs a new id, so messages in flight still decompress.
+     */
+    public final int id;
+
+    private final byte[] dictionary;
+
+    /**
+     * @param id see {@link #id}
+     * @param dictionary the bytes, copied; 1 to {@link #MAX_LENGTH} bytes
+     */
+    public CompressionDictionary(final int id, final byte[] dictionary) {
+        if (id < 0 || id > MAX_ID) {
+            throw new InvalidParameterException(
+                "illegal parameter: id must be 0 to " + MAX_ID + " but was " + id);
+        }
+        if (dictionary == null || dictionary.length < 1 || dictionary.length > MAX_LENGTH) {
+            throw new InvalidParameterException(
+                "illegal parameter: a dictionary must hold 1 to " + MAX_LENGTH + " bytes");
+        }
+        this.id = id;
+        this.dictionary = Arrays.copyOf(dictionary, dictionary.length);
+    }
+
+    /**
+     * Reads a dictionary written by {@link net.ladenthin.jackpot.util.DictionaryTrainer}.
+     */
+    public static CompressionDictionary fromFile(final int id, final Path file) throws IOException {
+        return new CompressionDictionary(id, Files.readAllBytes(file));
+    }
+
+    /**
+     * The length of the dictionary. Unit: [bytes].
+     */
+    public int length() {
+        return dictionary.length;
+    }
+
+    /**
+     * Presets the dictionary; before the first {@link Deflater#deflate} call.
+     */
+    public void applyTo(final Deflater deflater) {
+        deflater.setDictionary(dictionary);
+    }
+
+    /**
+     * Presets the dictionary of a raw ({@code nowrap}) inflater; before the first
+     * {@link Inflater#inflate} call.
+     */
+    public void applyTo(final Inflater inflater) {
+        inflater.setDictionary(dictionary);
+    }
+}
@@ -0,0 +1,42 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.configuration;
+
+import java.io.Serializable;
+import java.util.zip.Deflater;
+
+/**
+ * Condition for the dictionary compression usage.
+ */
+public final class ConditionDictionary extends CompressCondition implements Serializable {
+
+    private static final long serialVersionUID = -3466128317591542213L;
+
+    /**
+     * The {@link CompressionDictionary#id} to deflate with.
+     */
+    public final int dictionaryId;
+
+    /**
+     * Level for the deflating.
+     */
+    public final int deflaterLevel;
+
+    public ConditionDictionary(final int dictionaryId, final int deflaterLevel,
+        final CompressCondition compressCondition) {
+        super(compressCondition);
+        this.dictionaryId = dictionaryId;
+        this.deflaterLevel = deflaterLevel;
+    }
+
+    /**
+     * Every non-empty payload, kept only if the compressed form is smaller: unlike
+     * {@link CompressCondition#minimalLength}, a dictionary pays off for small payloads.
+     */
+    public ConditionDictionary(final int dictionaryId) {
+        this(dictionaryId, Deflater.DEFAULT_COMPRESSION,
+            new CompressCondition(BooleanCondition.greater, 0, true));
+    }
+}
@@ -14,5 +14,11 @@ package net.ladenthin.jackpot.configuration;
 public enum ConnectionType {
     ServerSocketConnection, ClientSocketConnection,
     UnixNamedPipeServer, UnixNamedPipeClient,
-    WindowsNamedPipeServer, WindowsNamedPipeClient;
+    WindowsNamedPipeServer, WindowsNamedPipeClient,
+    /**
+     * TCP like {@link #ServerSocketConnection}/{@link #ClientSocketConnection} (same
+     * {@link CServerSocketConnector}/{@link CClientSocketConnector} configuration), but served
+     * by the shared selector loops instead of a reader thread per transceiver.
+     */
+    ServerSocketChannelConnection, ClientSocketChannelConnection;
 }
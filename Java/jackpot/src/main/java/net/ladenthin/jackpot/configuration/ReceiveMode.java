@@ -0,0 +1,27 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.configuration;
+
+/**
+ * How a received message travels from the reader to the listeners. Both modes deliver the
+ * messages in id order, one at a time.
+ */
+public enum ReceiveMode {
+    /**
+     * Three hand-offs: the reader queues the frame for the read layer thread, which
+     * sequences it and queues the deserialization for the deserialize layer thread, which
+     * waits for the results in order and delivers them.
+     */
+    Staged,
+    /**
+     * No read or deserialize layer thread: the reader sequences the frame in place, the
+     * deserialization runs on the codec executor, and whichever codec thread completes the
+     * next message in order delivers it (and every completed one behind it). Fewer context
+     * switches and a lower receive latency; the listeners run on the codec threads. At most
+     * {@link net.ladenthin.jackpot.DeserializeLayer#PIPELINE_CAPACITY} deserializations are
+     * in flight, a reader beyond waits.
+     */
+    Pipelined;
+}
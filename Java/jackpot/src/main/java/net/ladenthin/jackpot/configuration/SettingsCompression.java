@@ -8,8 +8,10 @@ package net.ladenthin.jackpot.configuration;
 import java.io.Serializable;
 import java.security.InvalidParameterException;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 //TODO: SPLIT in 2 classes
 
@@ -45,6 +47,10 @@ public final class SettingsCompression implements Serializable {
 
     /**
      * GZIP buffer size to uncompress. Unit: [bytes].
+     * <p>
+     * Unused since the GZIP payloads inflate straight into their announced uncompressed size
+     * (see {@link net.ladenthin.jackpot.util.GzipCompression}); still validated for existing
+     * configurations.
      */
     public final int gzipBufferSize;
 
@@ -53,9 +59,97 @@ public final class SettingsCompression implements Serializable {
      */
     public final CLZ4Decompressor decompressor;
 
+    /**
+     * Global flag to enable the streamed deflate: every payload is compressed with one
+     * deflate context kept across the messages of the connection (sync flushed per message),
+     * so a message can reference the bytes of the messages before it. Pays off for streams of
+     * small, similar messages which compress poorly one by one. Excludes GZIP and LZ4.
+     * <p>
+     * The receiver inflates a streamed payload whatever its own setting.
+     */
+    public final boolean enableDeflateStream;
+
+    /**
+     * The {@link java.util.zip.Deflater} level of the streamed deflate: 0-9, or -1 for the
+     * default level.
+     */
+    public final int deflateStreamLevel;
+
+    /**
+     * Global flag to enable the dictionary compression: a payload matching one of the
+     * {@link #dictionaryConditions} is deflated with the preset dictionary of the condition.
+     * Stateless per message like GZIP, but small messages shrink as well. Excludes GZIP, LZ4
+     * and the streamed deflate.
+     */
+    public final boolean enableDictionary;
+
+    /**
+     * List of {@link ConditionDictionary} to compress a byte array.
+     */
+    public final ImmutableList<ConditionDictionary> dictionaryConditions;
+
+    /**
+     * The known dictionaries by {@link CompressionDictionary#id}: the ones to compress with
+     * and the ones the other side compresses with (required to receive).
+     */
+    public final ImmutableMap<Integer, CompressionDictionary> dictionaries;
+
+    /**
+     * The default {@link #adaptiveBandwidth}: 100 Mbit/s. Unit: [bytes/s].
+     */
+    public final static long DEFAULT_ADAPTIVE_BANDWIDTH = 100_000_000L / 8;
+
+    /**
+     * Global flag to enable the adaptive compression: per payload size, the measured ratio
+     * and time of no compression, LZ4 (fast, high) and GZIP (fast, default level) select the
+     * codec that sends a payload fastest over a link of {@link #adaptiveBandwidth}, see
+     * {@link net.ladenthin.jackpot.util.AdaptiveCompression}. Excludes the other compressions;
+     * the receiver needs the {@link #decompressor} for LZ4.
+     */
+    public final boolean enableAdaptive;
+
+    /**
+     * The link bandwidth the adaptive compression trades compression time against: the
+     * slower the link, the more compression time pays off. Unit: [bytes/s].
+     */
+    public final long adaptiveBandwidth;
+
     public SettingsCompression(final List<ConditionGZIP> gzipConditions,
         final List<ConditionLZ4> lz4Conditions, final boolean enableGZIP, final boolean enableLZ4,
         final int gzipBufferSize, final CLZ4Decompressor decompressor
+    ) {
+        this(gzipConditions, lz4Conditions, enableGZIP, enableLZ4, gzipBufferSize, decompressor,
+            false, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public SettingsCompression(final List<ConditionGZIP> gzipConditions,
+        final List<ConditionLZ4> lz4Conditions, final boolean enableGZIP, final boolean enableLZ4,
+        final int gzipBufferSize, final CLZ4Decompressor decompressor,
+        final boolean enableDeflateStream, final int deflateStreamLevel
+    ) {
+        this(gzipConditions, lz4Conditions, enableGZIP, enableLZ4, gzipBufferSize, decompressor,
+            enableDeflateStream, deflateStreamLevel, false, null, null);
+    }
+
+    public SettingsCompression(final List<ConditionGZIP> gzipConditions,
+        final List<ConditionLZ4> lz4Conditions, final boolean enableGZIP, final boolean enableLZ4,
+        final int gzipBufferSize, final CLZ4Decompressor decompressor,
+        final boolean enableDeflateStream, final int deflateStreamLevel,
+        final boolean enableDictionary, final List<ConditionDictionary> dictionaryConditions,
+        final List<CompressionDictionary> dictionaries
+    ) {
+        this(gzipConditions, lz4Conditions, enableGZIP, enableLZ4, gzipBufferSize, decompressor,
+            enableDeflateStream, deflateStreamLevel, enableDictionary, dictionaryConditions,
+            dictionaries, false, DEFAULT_ADAPTIVE_BANDWIDTH);
+    }
+
+    public SettingsCompression(final List<ConditionGZIP> gzipConditions,
+        final List<ConditionLZ4> lz4Conditions, final boolean enableGZIP, final boolean enableLZ4,
+        final int gzipBufferSize, final CLZ4Decompressor decompressor,
+        final boolean enableDeflateStream, final int deflateStreamLevel,
+        final boolean enableDictionary, final List<ConditionDictionary> dictionaryConditions,
+        final List<CompressionDictionary> dictionaries, final boolean enableAdaptive,
+        final long adaptiveBandwidth
     ) {
         if (gzipConditions == null) {
             this.gzipConditions = null;
@@ -73,12 +167,75 @@ public final class SettingsCompression implements Serializable {
         this.enableLZ4 = enableLZ4;
         this.gzipBufferSize = gzipBufferSize;
         this.decompressor = decompressor;
+        this.enableDeflateStream = enableDeflateStream;
+        this.deflateStreamLevel = deflateStreamLevel;
+        this.enableDictionary = enableDictionary;
+        this.enableAdaptive = enableAdaptive;
+        this.adaptiveBandwidth = adaptiveBandwidth;
+
+        if (dictionaryConditions == null) {
+            this.dictionaryConditions = null;
+        } else {
+            this.dictionaryConditions = ImmutableList.copyOf(dictionaryConditions);
+        }
+
+        final ImmutableMap.Builder<Integer, CompressionDictionary> dictionariesById = ImmutableMap.builder();
+        if (dictionaries != null) {
+            for (final CompressionDictionary dictionary : dictionaries) {
+                dictionariesById.put(dictionary.id, dictionary);
+            }
+        }
+        try {
+            this.dictionaries = dictionariesById.build();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("illegal parameter: duplicate dictionary id, " + e.getMessage());
+        }
 
         if (enableGZIP == true && enableLZ4 == true) {
             throw new InvalidParameterException(
                 "illegal flag combination: enableGZIP and enableLZ4 booth true");
         }
 
+        if (enableDeflateStream == true && (enableGZIP == true || enableLZ4 == true)) {
+            throw new InvalidParameterException(
+                "illegal flag combination: enableDeflateStream and enableGZIP or enableLZ4 true");
+        }
+
+        if (deflateStreamLevel < Deflater.DEFAULT_COMPRESSION || deflateStreamLevel > Deflater.BEST_COMPRESSION) {
+            throw new InvalidParameterException(
+                "illegal parameter: deflateStreamLevel must be -1 to 9 but was " + deflateStreamLevel);
+        }
+
+        if (enableDictionary == true && (enableGZIP == true || enableLZ4 == true || enableDeflateStream == true)) {
+            throw new InvalidParameterException(
+                "illegal flag combination: enableDictionary and another compression true");
+        }
+
+        if (enableAdaptive == true
+            && (enableGZIP == true || enableLZ4 == true || enableDeflateStream == true || enableDictionary == true)) {
+            throw new InvalidParameterException(
+                "illegal flag combination: enableAdaptive and another compression true");
+        }
+
+        if (adaptiveBandwidth < 1) {
+            throw new InvalidParameterException(
+                "illegal parameter: adaptiveBandwidth must be positive but was " + adaptiveBandwidth);
+        }
+
+        if (enableDictionary == true && dictionaryConditions == null) {
+            throw new InvalidParameterException(
+                "illegal parameter combination: enableDictionary and null pointer for dictionaryConditions");
+        }
+
+        if (dictionaryConditions != null) {
+            for (final ConditionDictionary condition : dictionaryConditions) {
+                if (!this.dictionaries.containsKey(condition.dictionaryId)) {
+                    throw new InvalidParameterException(
+                        "illegal parameter: no dictionary with the id " + condition.dictionaryId);
+                }
+            }
+        }
+
         if (enableGZIP == true && gzipConditions == null) {
             throw new InvalidParameterException(
                 "illegal parameter combination: enableGZIP and null pointer for gzipConditions");
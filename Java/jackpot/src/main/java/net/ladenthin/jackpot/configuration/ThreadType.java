@@ -0,0 +1,24 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.configuration;
+
+/**
+ * The kind of thread a transceiver runs its layer loops and its reader on. The heartbeat
+ * ticks run on the JVM-wide {@link net.ladenthin.jackpot.util.HashedWheelTimer}.
+ */
+public enum ThreadType {
+    /**
+     * One platform thread per loop: six per transceiver.
+     */
+    Platform,
+    /**
+     * Virtual threads (Java 21+): a parked loop holds no carrier thread, so a JVM can host
+     * tens of thousands of mostly idle transceivers. On an older runtime the loops fall back
+     * to {@link #Platform}. A blocking native call (the Windows named pipes) still occupies
+     * a carrier while it blocks, and so does a spinning {@link WaitStrategyType}: use
+     * {@link WaitStrategyType#Park}.
+     */
+    Virtual;
+}
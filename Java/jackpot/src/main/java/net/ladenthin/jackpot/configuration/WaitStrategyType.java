@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.configuration;
+
+/**
+ * How an idle layer thread waits for the next hand-off from the layer before it.
+ */
+public enum WaitStrategyType {
+    /**
+     * Park immediately. No CPU is burnt while idle; every wake-up costs an unpark.
+     */
+    Park,
+    /**
+     * Spin briefly, then park. Catches messages that follow each other closely without a
+     * park/unpark pair, at the cost of some CPU per idle period.
+     */
+    SpinThenPark,
+    /**
+     * Never park. The lowest hand-off latency, but every layer thread of the transceiver
+     * occupies a core permanently — only for dedicated hosts.
+     */
+    BusySpin;
+}
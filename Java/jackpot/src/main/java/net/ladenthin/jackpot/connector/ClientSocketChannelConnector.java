@@ -0,0 +1,123 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
+
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+
+/**
+ * Outgoing TCP connection as a non-blocking {@link SocketChannel}; shares the
+ * {@link CClientSocketConnector} configuration with the blocking {@link ClientSocketConnector}.
+ */
+public class ClientSocketChannelConnector implements SelectableConnector {
+
+    private final CClientSocketConnector configuration;
+    private volatile SocketChannel socketChannel;
+
+    /**
+     * The channel of a connect started by {@link #beginConnect()} and not finished yet.
+     */
+    private volatile SocketChannel connectingChannel;
+
+    public ClientSocketChannelConnector(CClientSocketConnector configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public SocketChannel getSocketChannel() {
+        return socketChannel;
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return configuration.soTimeout;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new UnsupportedOperationException("A channel connector is served by a selector loop.");
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        throw new UnsupportedOperationException("A channel connector is served by a selector loop.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        final SocketChannel connecting = connectingChannel;
+        connectingChannel = null;
+        if (connecting != null) {
+            connecting.close();
+        }
+        final SocketChannel connected = socketChannel;
+        socketChannel = null;
+        if (connected != null) {
+            connected.close();
+        }
+    }
+
+    @Override
+    public SelectableChannel beginConnect() throws IOException {
+        close();
+        final SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.connect(new InetSocketAddress(configuration.host, configuration.port));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        connectingChannel = channel;
+        return channel;
+    }
+
+    @Override
+    public boolean finishConnect() throws IOException {
+        final SocketChannel channel = connectingChannel;
+        if (channel == null) {
+            throw new IOException("No connect in progress.");
+        }
+        if (!channel.finishConnect()) {
+            return false;
+        }
+        connectingChannel = null;
+        socketChannel = channel;
+        return true;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        close();
+        final SocketChannel channel = SocketChannel.open();
+        try {
+            /**
+             * Connect in blocking mode (bounded by the SO_TIMEOUT) and switch to non-blocking
+             * only afterwards — the selector loop never waits for a connect.
+             */
+            channel.socket().connect(
+                new InetSocketAddress(configuration.host, configuration.port),
+                configuration.soTimeout);
+            /**
+             * Every frame is flushed on its own; Nagle's algorithm would hold small frames
+             * (acknowledgements, heartbeats) back until the peer's delayed ACK.
+             */
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        socketChannel = channel;
+    }
+
+}
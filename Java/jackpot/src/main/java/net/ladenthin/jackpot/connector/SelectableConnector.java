@@ -0,0 +1,51 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.connector;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A {@link Connector} that hands out a non-blocking {@link SocketChannel} instead of blocking
+ * streams. The {@link net.ladenthin.jackpot.ConnectionLayer} serves such a connection through
+ * a shared {@link net.ladenthin.jackpot.nio.SelectorLoop} rather than a dedicated reader
+ * thread; {@link #getInputStream()} and {@link #getOutputStream()} are not supported.
+ */
+public interface SelectableConnector extends Connector {
+
+    /**
+     * @return the connected channel, already switched to non-blocking mode, or {@code null}
+     * when not connected
+     */
+    public SocketChannel getSocketChannel();
+
+    /**
+     * The longest silence on the channel before the connection counts as broken and is
+     * reconnected — the equivalent of the SO_TIMEOUT of a blocking socket read.
+     *
+     * @return the read timeout, {@code 0} disables it. Unit: [ms].
+     */
+    public int getReadTimeout();
+
+    /**
+     * Starts a connect (or listens for the peer) without blocking; the
+     * {@link net.ladenthin.jackpot.nio.SelectorLoop} reports the returned channel ready for
+     * {@link #finishConnect()}. Closes a previous connection first.
+     *
+     * @return the non-blocking channel to select for its connect or accept
+     * @throws IOException if the connect cannot be started
+     */
+    public SelectableChannel beginConnect() throws IOException;
+
+    /**
+     * Completes the connect started by {@link #beginConnect()} once its channel was
+     * selected; never blocks.
+     *
+     * @return whether the connection is established, see {@link #getSocketChannel()}
+     * @throws IOException if the connect failed
+     */
+    public boolean finishConnect() throws IOException;
+}
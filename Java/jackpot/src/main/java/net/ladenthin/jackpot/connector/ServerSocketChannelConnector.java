@@ -0,0 +1,141 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+
+/**
+ * Listening TCP socket that accepts one peer as a non-blocking {@link SocketChannel}; shares
+ * the {@link CServerSocketConnector} configuration with the blocking
+ * {@link ServerSocketConnector}.
+ */
+public class ServerSocketChannelConnector implements SelectableConnector {
+
+    private final CServerSocketConnector configuration;
+
+    private volatile ServerSocketChannel serverSocketChannel;
+    private volatile SocketChannel socketChannel;
+
+    public ServerSocketChannelConnector(CServerSocketConnector configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public SocketChannel getSocketChannel() {
+        return socketChannel;
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return configuration.soTimeout;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new UnsupportedOperationException("A channel connector is served by a selector loop.");
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        throw new UnsupportedOperationException("A channel connector is served by a selector loop.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        final SocketChannel accepted = socketChannel;
+        socketChannel = null;
+        if (accepted != null) {
+            accepted.close();
+        }
+        /**
+         * The listening channel must be closed as well: a shutdown would otherwise leave the
+         * port bound forever, and it unblocks a thread waiting in accept().
+         */
+        final ServerSocketChannel listening = serverSocketChannel;
+        serverSocketChannel = null;
+        if (listening != null) {
+            listening.close();
+        }
+    }
+
+    @Override
+    public SelectableChannel beginConnect() throws IOException {
+        close();
+        final ServerSocketChannel listening = ServerSocketChannel.open();
+        try {
+            /**
+             * See {@link #connect()}.
+             */
+            listening.socket().setReuseAddress(true);
+            listening.socket().bind(new InetSocketAddress(configuration.port));
+            listening.configureBlocking(false);
+        } catch (IOException e) {
+            listening.close();
+            throw e;
+        }
+        serverSocketChannel = listening;
+        return listening;
+    }
+
+    @Override
+    public boolean finishConnect() throws IOException {
+        final ServerSocketChannel listening = serverSocketChannel;
+        if (listening == null) {
+            throw new IOException("Not listening.");
+        }
+        final SocketChannel channel = listening.accept();
+        if (channel == null) {
+            return false;
+        }
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        socketChannel = channel;
+        return true;
+    }
+
+    @Override
+    public void connect() throws IOException {
+        close();
+        serverSocketChannel = ServerSocketChannel.open();
+        /**
+         * Without reuseAddress a reconnect right after a close can fail with
+         * "Address already in use" while the previous socket lingers in TIME_WAIT.
+         */
+        serverSocketChannel.socket().setReuseAddress(true);
+        serverSocketChannel.socket().bind(new InetSocketAddress(configuration.port));
+        /**
+         * The socket adaptor honors the SO_TIMEOUT for accept(), the channel itself does not.
+         */
+        serverSocketChannel.socket().setSoTimeout(configuration.soTimeout);
+        final Socket socket = serverSocketChannel.socket().accept();
+        final SocketChannel channel = socket.getChannel();
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        socketChannel = channel;
+    }
+
+    public int getAssignedPort() {
+        return serverSocketChannel.socket().getLocalPort();
+    }
+}
@@ -8,7 +8,8 @@ package net.ladenthin.jackpot.deserializer;
 import java.lang.reflect.Type;
 
 /**
- * Abstract Deserializer.
+ * Abstract Deserializer. Stateless towards the messages: one instance per transceiver serves
+ * every deserializing thread.
  *
  * @author VSimRTI developer team <vsimrti@fokus.fraunhofer.de>
  * @author Bernard Ladenthin <bernard.ladenthin@fokus.fraunhofer.de>
@@ -18,16 +19,23 @@ public abstract class Deserializer<T> {
 
     protected final Type messageType;
     protected final Class<?> messageClass;
-    protected final byte[] bytes;
 
-    // protected final T typeObject = new T();
-
-    Deserializer(final Type messageType, Class<?> messageClass, final byte[] bytes) {
+    Deserializer(final Type messageType, Class<?> messageClass) {
         this.messageType = messageType;
         this.messageClass = messageClass;
-        this.bytes = bytes;
     }
 
-    public abstract T deserialize() throws Exception;
+    /**
+     * Reads a message from a range of an array. Thread-safe.
+     *
+     * @param bytes holds the serialized message
+     * @param offset the first byte of the message
+     * @param length the length of the message. Unit: [bytes].
+     */
+    public abstract T deserialize(byte[] bytes, int offset, int length) throws Exception;
+
+    public T deserialize(final byte[] bytes) throws Exception {
+        return deserialize(bytes, 0, bytes.length);
+    }
 
 }
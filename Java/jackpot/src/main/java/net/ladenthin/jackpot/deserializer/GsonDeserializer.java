@@ -5,7 +5,10 @@
 
 package net.ladenthin.jackpot.deserializer;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 
 import com.google.gson.Gson;
 
@@ -18,18 +21,19 @@ import com.google.gson.Gson;
  */
 public class GsonDeserializer<T> extends Deserializer<T> {
 
+    /**
+     * Thread-safe, see {@link net.ladenthin.jackpot.serializer.GsonSerializer}.
+     */
     private final Gson gson = new Gson();
-    private final static String CHARSET = "UTF-8";
 
-    public GsonDeserializer(final Type messageType, Class<?> messageClass, final byte[] bytes) {
-        super(messageType, messageClass, bytes);
+    public GsonDeserializer(final Type messageType, Class<?> messageClass) {
+        super(messageType, messageClass);
     }
 
     @Override
-    public T deserialize() throws Exception {
-        final String s = new String(bytes, CHARSET);
-
-        final T object = gson.fromJson(s, messageType);
+    public T deserialize(final byte[] bytes, final int offset, final int length) throws Exception {
+        final T object = gson.fromJson(new InputStreamReader(
+            new ByteArrayInputStream(bytes, offset, length), StandardCharsets.UTF_8), messageType);
         if (object == null) {
             throw new NullPointerException();
         }
@@ -20,16 +20,16 @@ import java.util.Objects;
  */
 public class ObjectOutputStreamDeserializer<T> extends Deserializer<T> {
 
-    public ObjectOutputStreamDeserializer(final Type messageType, Class<?> messageClass, final byte[] bytes) {
-        super(messageType, messageClass, bytes);
+    public ObjectOutputStreamDeserializer(final Type messageType, Class<?> messageClass) {
+        super(messageType, messageClass);
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public T deserialize() throws Exception {
+    public T deserialize(final byte[] bytes, final int offset, final int length) throws Exception {
         final Object readObject;
 
-        try (ObjectInput in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+        try (ObjectInput in = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
             readObject = Objects.requireNonNull(in.readObject());
         }
         
@@ -23,17 +23,15 @@ public class ProtostuffDeserializer<T> extends Deserializer<T> {
     private final Schema<T> schema;
 
     @SuppressWarnings("unchecked")
-    public ProtostuffDeserializer(final Type messageType, Class<?> messageClass, final byte[] bytes) {
-        super(messageType, messageClass, bytes);
+    public ProtostuffDeserializer(final Type messageType, Class<?> messageClass) {
+        super(messageType, messageClass);
         schema = (Schema<T>) RuntimeSchema.getSchema(messageClass);
     }
 
     @Override
-    public T deserialize() throws Exception {
-        @SuppressWarnings("unchecked")
-        
+    public T deserialize(final byte[] bytes, final int offset, final int length) throws Exception {
         T object = schema.newMessage();
-        ProtostuffIOUtil.mergeFrom(bytes, object, schema);
+        ProtostuffIOUtil.mergeFrom(bytes, offset, length, object, schema);
         return object;
     }
 
@@ -9,4 +9,19 @@ public interface MessageIdGenerator {
 
     public long getNextId();
 
+    /**
+     * Allocates {@code count} consecutive ids at once. The default is only consecutive for a
+     * generator that is not shared between threads; a shared generator must override it.
+     *
+     * @param count the number of ids, at least {@code 1}
+     * @return the first id of the range; the last one is {@code first + count - 1}
+     */
+    public default long getNextIds(final int count) {
+        final long first = getNextId();
+        for (int i = 1; i < count; ++i) {
+            getNextId();
+        }
+        return first;
+    }
+
 }
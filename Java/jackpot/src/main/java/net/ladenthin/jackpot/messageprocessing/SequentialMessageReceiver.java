@@ -5,6 +5,8 @@
 
 package net.ladenthin.jackpot.messageprocessing;
 
+import java.util.List;
+
 /**
  * Interface for a message informant.
  *
@@ -21,4 +23,18 @@ public interface SequentialMessageReceiver<T> {
      * The message to inform.
      */
     public void receiveMessage(T tm);
+
+    /**
+     * Informed about consecutive messages at once, same contract as
+     * {@link #receiveMessage(Object)}. Default: one {@link #receiveMessage(Object)} per
+     * message.
+     *
+     * @param messages
+     * The messages in order; valid during the call only, the caller reuses the list.
+     */
+    public default void receiveMessages(List<T> messages) {
+        for (int i = 0; i < messages.size(); ++i) {
+            receiveMessage(messages.get(i));
+        }
+    }
 }
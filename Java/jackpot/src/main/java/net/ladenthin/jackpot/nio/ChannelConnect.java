@@ -0,0 +1,132 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One non-blocking connect or accept, served by a {@link SelectorLoop}: the loop thread
+ * waits for {@link SelectionKey#OP_CONNECT} or {@link SelectionKey#OP_ACCEPT} and lets the
+ * {@link ChannelConnectListener} finish it — no thread blocks while a connection is being
+ * established. Not reusable: a retry starts a new attempt.
+ */
+public final class ChannelConnect extends SelectionHandler {
+
+    private final SelectableChannel channel;
+
+    private final SelectorLoop loop;
+
+    private final ChannelConnectListener listener;
+
+    /**
+     * Whether the attempt completed, failed or was cancelled.
+     */
+    private final AtomicBoolean done = new AtomicBoolean(false);
+
+    /**
+     * The selection key, set once the loop registered the channel.
+     */
+    private volatile SelectionKey key;
+
+    /**
+     * @param channel the non-blocking channel with a connect in progress, or the listening
+     * channel
+     * @param loop the loop serving the attempt; the established connection should be served
+     * by it too, see {@link #getLoop()}
+     * @param listener the owner
+     */
+    public ChannelConnect(final SelectableChannel channel, final SelectorLoop loop,
+        final ChannelConnectListener listener) {
+        this.channel = channel;
+        this.loop = loop;
+        this.listener = listener;
+    }
+
+    /**
+     * Hands the channel to the loop, which informs the listener once it can proceed.
+     */
+    public void start() {
+        loop.register(channel,
+            channel.validOps() & (SelectionKey.OP_CONNECT | SelectionKey.OP_ACCEPT), this);
+    }
+
+    /**
+     * @return the loop serving the attempt: a connected channel is registered with it
+     * already, so its {@link ChannelTransport} must use the same loop
+     */
+    public SelectorLoop getLoop() {
+        return loop;
+    }
+
+    /**
+     * Ends the attempt after the connection was established: the channel is no longer
+     * selected for the connect or accept. Loop thread only.
+     *
+     * @return {@code false} if the attempt was cancelled or failed meanwhile
+     */
+    public boolean complete() {
+        if (!done.compareAndSet(false, true)) {
+            return false;
+        }
+        /**
+         * Keep the registration of a connected channel: its transport takes it over with a
+         * new interest set and attachment.
+         */
+        key.interestOps(0);
+        return true;
+    }
+
+    /**
+     * Ends the attempt without informing the listener (the owner initiated it, e.g. on
+     * shutdown or when its connect time is up); the owner closes the channel.
+     */
+    public void cancel() {
+        if (done.compareAndSet(false, true)) {
+            cancelKey();
+        }
+    }
+
+    /**
+     * Ends the attempt and informs the listener, once.
+     *
+     * @param cause the failure
+     */
+    @Override
+    public void fail(final Exception cause) {
+        if (done.compareAndSet(false, true)) {
+            cancelKey();
+            listener.connectFailed(this, cause);
+        }
+    }
+
+    private void cancelKey() {
+        final SelectionKey registered = key;
+        if (registered != null) {
+            registered.cancel();
+        }
+    }
+
+    @Override
+    void registered(final SelectionKey key) {
+        this.key = key;
+        if (done.get()) {
+            key.cancel();
+        }
+    }
+
+    @Override
+    void ready(final SelectionKey key) {
+        if (done.get()) {
+            return;
+        }
+        try {
+            listener.connectReady(this);
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+/**
+ * The owner of a {@link ChannelConnect} — in practice the
+ * {@link net.ladenthin.jackpot.ConnectionLayer} — informed when the connect or accept can
+ * proceed and when it failed.
+ */
+public interface ChannelConnectListener {
+
+    /**
+     * The channel of the attempt is ready to finish its connect or to accept. Called on the
+     * selector thread; must not block. Once the connection is established the listener ends
+     * the attempt with {@link ChannelConnect#complete()}.
+     *
+     * @param connect the attempt
+     * @throws Exception if the connect failed; the attempt fails with it
+     */
+    public void connectReady(ChannelConnect connect) throws Exception;
+
+    /**
+     * The attempt failed. Called once per attempt, on the selector thread or on the thread
+     * that failed it; must not block.
+     *
+     * @param connect the failed attempt
+     * @param cause the failure
+     */
+    public void connectFailed(ChannelConnect connect, Exception cause);
+}
@@ -0,0 +1,490 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.BinaryMessageDecoder;
+
+/**
+ * One live channel connection, served by a {@link SelectorLoop}: the loop thread reads and
+ * frames inbound {@link BinaryMessage}s, writers write outbound frames directly and leave
+ * whatever the socket buffer cannot take to the loop thread. Not reusable: a reconnect
+ * creates a new transport for the new channel.
+ * <p>
+ * Frames are encoded into and decoded from pooled direct buffers: consecutive outbound
+ * frames are packed into the same buffer and everything pending goes out with one gathering
+ * write; a large payload is not copied at all but written from its own array.
+ * <p>
+ * The bytes the socket buffer did not take are bounded like the buffer of a blocking
+ * stream: a writer that queues beyond {@code maxOutboundBytes} waits until the loop thread
+ * drained them to half of it, so a peer that does not read holds the writer instead of
+ * growing the queue without limit.
+ */
+public final class ChannelTransport extends SelectionHandler {
+
+    /**
+     * The capacity of the pooled read and write buffers. Unit: [bytes].
+     */
+    private static final int BUFFER_CAPACITY = 64 * 1024;
+
+    /**
+     * The most idle buffers kept by {@link #BUFFER_POOL}; bounds the retained direct memory
+     * to {@code MAX_POOLED_BUFFERS * BUFFER_CAPACITY}.
+     */
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    /**
+     * The most buffers passed to one gathering write.
+     */
+    private static final int MAX_GATHER_BUFFERS = 16;
+
+    /**
+     * Shared by all transports: a connection only holds buffers while it has unsent or
+     * partially framed bytes.
+     */
+    private static final DirectBufferPool BUFFER_POOL =
+        new DirectBufferPool(BUFFER_CAPACITY, MAX_POOLED_BUFFERS);
+
+    private final SocketChannel channel;
+
+    private final SelectorLoop loop;
+
+    private final int maxPayloadLength;
+
+    /**
+     * The high-water mark of {@link #outboundBytes}: a write beyond waits. Unit: [bytes].
+     */
+    private final long maxOutboundBytes;
+
+    private final ChannelTransportListener listener;
+
+    /**
+     * Bytes read but not yet framed, from {@link #BUFFER_POOL}. Accessed only by the loop
+     * thread, which also hands it back after the transport was closed.
+     */
+    private final ByteBuffer readBuffer = BUFFER_POOL.acquire();
+
+    /**
+     * Frames partially received (a frame may span several reads). Accessed only by the loop
+     * thread.
+     */
+    private final BinaryMessageDecoder decoder;
+
+    /**
+     * Bytes the socket buffer did not take yet, in write order, each buffer readable from
+     * its position to its limit: pooled direct buffers holding one or more encoded frames,
+     * and read-only views of large payloads. Guarded by {@link #outboundLock}.
+     */
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+
+    /**
+     * The bytes remaining in {@link #outbound}. Guarded by {@link #outboundLock}. Unit:
+     * [bytes].
+     */
+    private long outboundBytes;
+
+    /**
+     * Guards {@link #outbound}, {@link #outboundBytes}, {@link #gather} and {@link #key}. A
+     * lock rather than a monitor, so a writer on a virtual thread does not pin its carrier
+     * while it waits.
+     */
+    private final ReentrantLock outboundLock = new ReentrantLock();
+
+    /**
+     * Signalled when {@link #outboundBytes} fell to the low-water mark (half of
+     * {@link #maxOutboundBytes}) or the transport closed.
+     */
+    private final Condition outboundDrained = outboundLock.newCondition();
+
+    /**
+     * Reused by {@link #flushOutbound()}. Guarded by {@link #outboundLock}.
+     */
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER_BUFFERS];
+
+    /**
+     * The selection key, set once the loop registered the channel. Guarded by
+     * {@link #outboundLock}.
+     */
+    private SelectionKey key;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * When the last bytes arrived. Unit: [ms since epoch].
+     */
+    private volatile long lastReadActivity = System.currentTimeMillis();
+
+    private final Runnable releaseReadBuffer = new Runnable() {
+        @Override
+        public void run() {
+            BUFFER_POOL.release(readBuffer);
+        }
+    };
+
+    private final Runnable enableWriteInterest = new Runnable() {
+        @Override
+        public void run() {
+            outboundLock.lock();
+            try {
+                if (key != null && key.isValid() && !outbound.isEmpty()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } finally {
+                outboundLock.unlock();
+            }
+        }
+    };
+
+    /**
+     * @param channel the connected, non-blocking channel
+     * @param loop the loop serving the channel
+     * @param maxPayloadLength the bound for wire-provided lengths. Unit: [bytes].
+     * @param maxOutboundBytes the most bytes queued for the socket before a write waits.
+     * Unit: [bytes].
+     * @param listener the owner
+     */
+    public ChannelTransport(final SocketChannel channel, final SelectorLoop loop,
+        final int maxPayloadLength, final long maxOutboundBytes,
+        final ChannelTransportListener listener) {
+        this.channel = channel;
+        this.loop = loop;
+        this.maxPayloadLength = maxPayloadLength;
+        this.maxOutboundBytes = maxOutboundBytes;
+        this.listener = listener;
+        decoder = new BinaryMessageDecoder(maxPayloadLength);
+    }
+
+    /**
+     * Hands the channel to the loop; inbound frames are delivered from now on.
+     */
+    public void start() {
+        loop.register(channel, SelectionKey.OP_READ, this);
+    }
+
+    @Override
+    void registered(final SelectionKey key) {
+        outboundLock.lock();
+        try {
+            this.key = key;
+            if (!outbound.isEmpty()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } finally {
+            outboundLock.unlock();
+        }
+        if (closed.get()) {
+            key.cancel();
+        }
+    }
+
+    /**
+     * Writes the frame; callable from any thread but the loop thread. The bytes the socket
+     * buffer cannot take immediately are written by the loop thread later, in order; while
+     * more than {@code maxOutboundBytes} wait for it, this blocks until half of them are
+     * written.
+     *
+     * @param bm the frame to write
+     * @return {@code false} if the transport is (or just became) broken — the frame was not
+     * written and the caller has to reconnect
+     */
+    public boolean write(final BinaryMessage bm) {
+        outboundLock.lock();
+        try {
+            if (closed.get()) {
+                return false;
+            }
+            /**
+             * With bytes already pending the socket buffer is full and the loop thread waits
+             * for it to drain; only append. Otherwise try to write right away.
+             */
+            final boolean pending = !outbound.isEmpty();
+            encode(bm);
+            return flushEncoded(pending) && awaitDrained();
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the frames in order with one gathering write for all of them; callable from
+     * any thread. See {@link #write(BinaryMessage)}.
+     *
+     * @param batch the frames to write
+     * @return {@code false} if the transport is (or just became) broken — the frames were
+     * not written and the caller has to reconnect
+     */
+    public boolean write(final List<BinaryMessage> batch) {
+        outboundLock.lock();
+        try {
+            if (closed.get()) {
+                return false;
+            }
+            final boolean pending = !outbound.isEmpty();
+            for (int i = 0; i < batch.size(); ++i) {
+                encode(batch.get(i));
+            }
+            return flushEncoded(pending) && awaitDrained();
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the just encoded bytes right away, unless bytes were pending before (the loop
+     * thread flushes those). Caller holds the {@link #outboundLock}.
+     */
+    private boolean flushEncoded(final boolean pending) {
+        if (!pending) {
+            try {
+                if (flushOutbound()) {
+                    return true;
+                }
+            } catch (IOException e) {
+                fail(e);
+                return false;
+            }
+            loop.execute(enableWriteInterest);
+        }
+        return true;
+    }
+
+    /**
+     * Waits while more than {@link #maxOutboundBytes} are queued, until the loop thread
+     * drained them to half of it: the backpressure of a blocking stream write, with some
+     * hysteresis so the writer does not wake for every written buffer. The caller holds
+     * {@link #outboundLock}.
+     *
+     * @return {@code false} if the transport closed meanwhile — the caller has to reconnect
+     */
+    private boolean awaitDrained() {
+        if (outboundBytes <= maxOutboundBytes || loop.inLoop()) {
+            return true;
+        }
+        final long lowWaterMark = maxOutboundBytes / 2;
+        try {
+            while (!closed.get() && outboundBytes > lowWaterMark) {
+                outboundDrained.await();
+            }
+        } catch (InterruptedException e) {
+            // stop waiting; the write itself is queued
+            Thread.currentThread().interrupt();
+        }
+        return !closed.get();
+    }
+
+    /**
+     * @return the bytes queued for the socket, not written yet. Unit: [bytes].
+     */
+    public long getOutboundBytes() {
+        outboundLock.lock();
+        try {
+            return outboundBytes;
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * @return when the last bytes arrived. Unit: [ms since epoch].
+     */
+    public long getLastReadActivity() {
+        return lastReadActivity;
+    }
+
+    /**
+     * @return whether the transport was closed or failed
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Closes the channel without informing the listener (the owner initiated it).
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Closes the channel and informs the listener, once.
+     *
+     * @param cause the failure
+     */
+    @Override
+    public void fail(final Exception cause) {
+        if (closed.compareAndSet(false, true)) {
+            closeChannel();
+            listener.transportFailed(this, cause);
+        }
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+        }
+        outboundLock.lock();
+        try {
+            ByteBuffer buffer;
+            while ((buffer = outbound.poll()) != null) {
+                BUFFER_POOL.release(buffer);
+            }
+            outboundBytes = 0;
+            outboundDrained.signalAll();
+        } finally {
+            outboundLock.unlock();
+        }
+        /**
+         * The loop thread may still be reading into the read buffer; it hands the buffer back
+         * once that is over. If the loop is gone meanwhile, the garbage collector frees it.
+         */
+        loop.execute(releaseReadBuffer);
+    }
+
+    @Override
+    void ready(final SelectionKey key) {
+        try {
+            if (key.isValid() && key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void read() throws IOException {
+        final int read = channel.read(readBuffer);
+        if (read < 0) {
+            throw new EOFException("The peer closed the connection.");
+        }
+        if (read == 0) {
+            return;
+        }
+        lastReadActivity = System.currentTimeMillis();
+        readBuffer.flip();
+        try {
+            BinaryMessage bm;
+            while ((bm = decoder.decode(readBuffer)) != null) {
+                listener.frameReceived(this, bm);
+                if (closed.get()) {
+                    return;
+                }
+            }
+        } finally {
+            /**
+             * Only an incomplete header is left (a payload is consumed as it arrives), so
+             * this moves a few bytes at most.
+             */
+            readBuffer.compact();
+        }
+    }
+
+    private void flush() throws IOException {
+        outboundLock.lock();
+        try {
+            if (flushOutbound()) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+            if (outboundBytes <= maxOutboundBytes / 2) {
+                outboundDrained.signalAll();
+            }
+        } finally {
+            outboundLock.unlock();
+        }
+    }
+
+    /**
+     * Writes pending bytes until the socket buffer is full. The caller holds
+     * {@link #outboundLock}.
+     *
+     * @return whether everything was written
+     */
+    private boolean flushOutbound() throws IOException {
+        while (!outbound.isEmpty()) {
+            int count = 0;
+            long length = 0;
+            for (final ByteBuffer buffer : outbound) {
+                if (count == gather.length) {
+                    break;
+                }
+                gather[count++] = buffer;
+                length += buffer.remaining();
+            }
+            final long written = channel.write(gather, 0, count);
+            outboundBytes -= written;
+            Arrays.fill(gather, 0, count, null);
+            while (!outbound.isEmpty() && !outbound.peek().hasRemaining()) {
+                BUFFER_POOL.release(outbound.poll());
+            }
+            if (written < length) {
+                // the socket buffer is full
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the frame to {@link #outbound}: packed behind the frames of the last pooled
+     * buffer if it fits, else into a new pooled buffer. A payload too large for a pooled
+     * buffer is queued as a view of its array, behind its header. The caller holds
+     * {@link #outboundLock}.
+     */
+    private void encode(final BinaryMessage bm) {
+        final int frameLength = bm.getFrameLength();
+        outboundBytes += frameLength;
+        if (frameLength <= BUFFER_CAPACITY) {
+            appendPooled(bm, frameLength, true);
+        } else if (bm.isStateMessage() && bm.getHeaderLength() <= BUFFER_CAPACITY) {
+            appendPooled(bm, bm.getHeaderLength(), false);
+            outbound.add(bm.getPayloadBuffer());
+        } else {
+            // an acknowledgement batch beyond the buffer capacity
+            final ByteBuffer frame = ByteBuffer.allocate(frameLength);
+            bm.toByteBuffer(frame);
+            frame.flip();
+            outbound.add(frame);
+        }
+    }
+
+    private void appendPooled(final BinaryMessage bm, final int length, final boolean withPayload) {
+        ByteBuffer tail = outbound.peekLast();
+        if (tail == null || !BUFFER_POOL.isPooled(tail) || tail.capacity() - tail.limit() < length) {
+            tail = BUFFER_POOL.acquire();
+            tail.limit(0);
+            outbound.add(tail);
+        }
+        /**
+         * Switch the readable tail to append behind its limit, then back.
+         */
+        final int position = tail.position();
+        tail.position(tail.limit());
+        tail.limit(tail.capacity());
+        if (withPayload) {
+            bm.toByteBuffer(tail);
+        } else {
+            bm.writeHeader(tail);
+        }
+        tail.limit(tail.position());
+        tail.position(position);
+    }
+}
@@ -0,0 +1,32 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * The owner of a {@link ChannelTransport} — in practice the
+ * {@link net.ladenthin.jackpot.ConnectionLayer} — informed about inbound frames and about the
+ * end of the connection.
+ */
+public interface ChannelTransportListener {
+
+    /**
+     * A complete frame was received. Called on the selector thread; must not block.
+     *
+     * @param transport the transport that read the frame
+     * @param bm the decoded frame
+     */
+    public void frameReceived(ChannelTransport transport, BinaryMessage bm);
+
+    /**
+     * The connection broke (read or write failure, end of stream). Called once per transport,
+     * on the selector thread or on the thread whose write failed; must not block.
+     *
+     * @param transport the failed transport, already closed
+     * @param cause the failure
+     */
+    public void transportFailed(ChannelTransport transport, Exception cause);
+}
@@ -0,0 +1,96 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recycles direct {@link ByteBuffer}s of one fixed capacity. Allocating a direct buffer is
+ * expensive and it is only freed by the garbage collector, so the transports take their
+ * read and write buffers from here instead of allocating per frame — a channel write of a
+ * direct buffer also saves the JDK's copy into a temporary direct buffer.
+ * <p>
+ * Thread-safe. A buffer must not be used anymore after it was released.
+ */
+public final class DirectBufferPool {
+
+    private final int bufferCapacity;
+
+    /**
+     * The most buffers kept for reuse; more released buffers are left to the garbage
+     * collector.
+     */
+    private final int maxPooledBuffers;
+
+    private final Queue<ByteBuffer> pooled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    /**
+     * @param bufferCapacity the capacity of every buffer. Unit: [bytes].
+     * @param maxPooledBuffers the most idle buffers kept
+     */
+    public DirectBufferPool(final int bufferCapacity, final int maxPooledBuffers) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("bufferCapacity must be at least 1: " + bufferCapacity);
+        }
+        this.bufferCapacity = bufferCapacity;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * @return a cleared direct buffer of {@link #getBufferCapacity()}
+     */
+    public ByteBuffer acquire() {
+        final ByteBuffer buffer = pooled.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferCapacity);
+        }
+        pooledCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Hands a buffer back for reuse. Buffers not taken from this pool are ignored.
+     *
+     * @param buffer the buffer
+     */
+    public void release(final ByteBuffer buffer) {
+        if (!isPooled(buffer)) {
+            return;
+        }
+        if (pooledCount.incrementAndGet() > maxPooledBuffers) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        pooled.add(buffer);
+    }
+
+    /**
+     * @param buffer any buffer
+     * @return whether the buffer can stem from this pool
+     */
+    public boolean isPooled(final ByteBuffer buffer) {
+        return buffer.isDirect() && !buffer.isReadOnly() && buffer.capacity() == bufferCapacity;
+    }
+
+    /**
+     * @return the capacity of every buffer. Unit: [bytes].
+     */
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    /**
+     * @return the number of idle buffers currently kept
+     */
+    public int getPooledCount() {
+        return pooledCount.get();
+    }
+}
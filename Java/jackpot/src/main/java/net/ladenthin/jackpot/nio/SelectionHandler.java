@@ -0,0 +1,31 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * The attachment of a key of a {@link SelectorLoop}: a live connection
+ * ({@link ChannelTransport}) or a connection being established ({@link ChannelConnect}).
+ */
+abstract class SelectionHandler {
+
+    /**
+     * Called by the loop once the channel is registered.
+     */
+    abstract void registered(SelectionKey key);
+
+    /**
+     * Called by the loop when the channel is ready for an operation of its interest set.
+     */
+    abstract void ready(SelectionKey key);
+
+    /**
+     * Ends the handler with a failure, e.g. of the selector; informs its owner once.
+     *
+     * @param cause the failure
+     */
+    public abstract void fail(Exception cause);
+}
@@ -0,0 +1,193 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One I/O thread with its {@link Selector}: reads every registered {@link ChannelTransport}
+ * when data arrives and flushes the ones whose writes could not complete immediately, and
+ * completes the connects and accepts of the {@link ChannelConnect}s. Registration and
+ * interest changes are handed in as tasks, so the selector is only ever touched by its own
+ * thread.
+ */
+public final class SelectorLoop implements Runnable {
+
+    /**
+     * The pause before the loop tries again to open a selector after
+     * {@link Selector#open()} failed. Unit: [ms].
+     */
+    private static final long REOPEN_PAUSE_MILLIS = 100;
+
+    /**
+     * Replaced by the loop thread when it breaks (see {@link #run()}); volatile for the
+     * {@link Selector#wakeup()} of other threads.
+     */
+    private volatile Selector selector;
+
+    /**
+     * Work handed in by other threads, run by the loop thread before it selects again.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The boolean flag to shutdown the {@link #run()} method.
+     */
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    private final Thread thread;
+
+    SelectorLoop(final String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+        /**
+         * The loop belongs to the whole JVM, not to one transceiver; it must never keep an
+         * application alive that forgot to shut a transceiver down.
+         */
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the task on the loop thread: before it selects again, also if it queues the task
+     * itself (e.g. from a key handler).
+     *
+     * @param task the task; must not block
+     */
+    public void execute(final Runnable task) {
+        tasks.add(task);
+        if (!inLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * @return whether the calling thread is the loop thread
+     */
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Registers the channel for the operations; the handler is informed through
+     * {@link SelectionHandler#registered(SelectionKey)} or, if the channel was closed
+     * meanwhile, {@link SelectionHandler#fail(Exception)}. A channel registered already (a
+     * connected channel of a {@link ChannelConnect}) keeps its key with the new interest
+     * set and handler.
+     */
+    void register(final SelectableChannel channel, final int ops, final SelectionHandler handler) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handler.registered(channel.register(selector, ops, handler));
+                } catch (ClosedChannelException e) {
+                    handler.fail(e);
+                }
+            }
+        });
+    }
+
+    void shutdown() {
+        shutdown.set(true);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!shutdown.get()) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    replaceSelector(e);
+                    continue;
+                }
+
+                runTasks();
+
+                final Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    final SelectionKey key = selected.next();
+                    selected.remove();
+                    ((SelectionHandler) key.attachment()).ready(key);
+                }
+
+                /**
+                 * The key handlers queue tasks without a wakeup (see {@link #execute}): a
+                 * buffer release or a write interest must not wait for unrelated I/O.
+                 */
+                runTasks();
+            }
+        } finally {
+            if (selector.isOpen()) {
+                for (final SelectionKey key : selector.keys()) {
+                    ((SelectionHandler) key.attachment()).fail(new ClosedChannelException());
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                /**
+                 * E.g. a {@link java.nio.channels.CancelledKeyException} of a connection closed
+                 * concurrently; it must not stop the loop serving the others.
+                 */
+            }
+        }
+    }
+
+    /**
+     * A broken selector cannot be repaired, and selecting on it again would spin: fail every
+     * connection it serves, so each one reconnects, and continue with a new selector, on
+     * which the reconnected channels register.
+     *
+     * @param cause the failure of the selector
+     */
+    private void replaceSelector(final IOException cause) {
+        final Selector broken = selector;
+        for (final SelectionKey key : broken.keys()) {
+            ((SelectionHandler) key.attachment()).fail(cause);
+        }
+        try {
+            broken.close();
+        } catch (IOException e) {
+        }
+        while (!shutdown.get()) {
+            try {
+                selector = Selector.open();
+                /**
+                 * Tasks queued meanwhile woke the broken selector; the next select must not
+                 * block before it runs them.
+                 */
+                selector.wakeup();
+                return;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(REOPEN_PAUSE_MILLIS);
+                } catch (InterruptedException ie) {
+                    // only a shutdown ends the loop
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.nio;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The JVM-wide set of {@link SelectorLoop}s serving every transceiver with a channel
+ * connector ({@link net.ladenthin.jackpot.configuration.ConnectionType#ServerSocketChannelConnection},
+ * {@link net.ladenthin.jackpot.configuration.ConnectionType#ClientSocketChannelConnection}).
+ * Instead of one blocking reader thread per transceiver, a few I/O threads multiplex all
+ * channels; connections are spread over the loops round-robin.
+ * <p>
+ * Reference counted: the first {@link #acquire()} starts the loops, the last
+ * {@link #release(SelectorLoopGroup)} stops them — an application without channel
+ * transceivers never pays for them, and a shutdown leaves no library thread behind.
+ */
+public final class SelectorLoopGroup {
+
+    /**
+     * The default {@link #setIoThreads(int) I/O thread count}: half the available processors,
+     * at least one and at most four. A selector thread only moves bytes and frames them —
+     * serialization and delivery run elsewhere — so a handful saturates the network.
+     */
+    public static final int DEFAULT_IO_THREADS =
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static int ioThreads = DEFAULT_IO_THREADS;
+
+    private static SelectorLoopGroup shared;
+
+    private static int references;
+
+    /**
+     * Configures the number of selector threads. Takes effect the next time the group is
+     * started, i.e. call it before the first channel transceiver is created.
+     *
+     * @param ioThreads the number of selector threads, at least one
+     */
+    public static synchronized void setIoThreads(final int ioThreads) {
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("ioThreads must be at least 1: " + ioThreads);
+        }
+        SelectorLoopGroup.ioThreads = ioThreads;
+    }
+
+    public static synchronized int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * Takes a reference on the shared group, starting it if necessary.
+     *
+     * @return the shared group; hand it back with {@link #release(SelectorLoopGroup)}
+     * @throws IOException if a selector cannot be opened
+     */
+    public static synchronized SelectorLoopGroup acquire() throws IOException {
+        if (shared == null) {
+            shared = new SelectorLoopGroup(ioThreads);
+        }
+        ++references;
+        return shared;
+    }
+
+    /**
+     * Returns a reference taken by {@link #acquire()}; the last one stops the loops.
+     *
+     * @param group the group returned by {@link #acquire()}
+     */
+    public static synchronized void release(final SelectorLoopGroup group) {
+        if (group != shared) {
+            return;
+        }
+        if (--references == 0) {
+            shared.shutdown();
+            shared = null;
+        }
+    }
+
+    private final SelectorLoop[] loops;
+
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    private SelectorLoopGroup(final int ioThreads) throws IOException {
+        loops = new SelectorLoop[ioThreads];
+        try {
+            for (int i = 0; i < ioThreads; ++i) {
+                loops[i] = new SelectorLoop("jackpot-SelectorLoop-" + (i + 1));
+            }
+        } catch (IOException e) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the loop for the next connection (round-robin)
+     */
+    public SelectorLoop next() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    /**
+     * @return the number of selector threads of this group
+     */
+    public int size() {
+        return loops.length;
+    }
+
+    private void shutdown() {
+        for (final SelectorLoop loop : loops) {
+            if (loop != null) {
+                loop.shutdown();
+            }
+        }
+    }
+}
@@ -9,5 +9,8 @@ import net.ladenthin.jackpot.deserializer.Deserializer;
 
 public interface DeserializerFactory<T> {
 
-    Deserializer<T> getDeserializer(byte[] bytes);
+    /**
+     * @return the deserializer of the transceiver; the same thread-safe instance on every call
+     */
+    Deserializer<T> getDeserializer();
 }
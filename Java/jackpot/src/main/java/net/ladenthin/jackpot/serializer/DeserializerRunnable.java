@@ -10,9 +10,12 @@ import java.util.concurrent.Callable;
 import net.ladenthin.jackpot.configuration.SettingsCompression;
 import net.ladenthin.jackpot.deserializer.Deserializer;
 import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.FlightRecorderEvents;
 
 public class DeserializerRunnable<T> implements Callable<T> {
 
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
     /**
      * The {@link DeserializerFactory}-
      */
@@ -47,8 +50,11 @@ public class DeserializerRunnable<T> implements Callable<T> {
     @Override
     public T call() throws Exception {
         byte[] bytes = bm.unbox(settingsCompression, maxUncompressedLength);
-        Deserializer<T> deserializer = deserializerFactory.getDeserializer(bytes);
-        return deserializer.deserialize();
+        Deserializer<T> deserializer = deserializerFactory.getDeserializer();
+        final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Deserialize);
+        final T message = deserializer.deserialize(bytes);
+        EVENTS.commit(event, bm.getId(), 1, bytes.length);
+        return message;
     }
 
 }
@@ -5,7 +5,11 @@
 
 package net.ladenthin.jackpot.serializer;
 
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 
 import com.google.gson.Gson;
 
@@ -18,17 +22,21 @@ import com.google.gson.Gson;
  */
 public class GsonSerializer<T> extends Serializer<T> {
 
+    /**
+     * Thread-safe and expensive to build (it caches a type adapter per type): one per
+     * serializer.
+     */
     private final Gson gson = new Gson();
-    private final static String CHARSET = "UTF-8";
 
-    public GsonSerializer(final Type messageType, Class<?> messageClass, final T msg) {
-        super(messageType, messageClass, msg);
+    public GsonSerializer(final Type messageType, Class<?> messageClass) {
+        super(messageType, messageClass);
     }
 
     @Override
-    public byte[] serialize() throws Exception {
-        final String s = gson.toJson(msg, messageType);
-        return s.getBytes(CHARSET);
+    public void serialize(final T msg, final OutputStream out) throws Exception {
+        final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        gson.toJson(msg, messageType, writer);
+        writer.flush();
     }
 
 }
@@ -5,9 +5,8 @@
 
 package net.ladenthin.jackpot.serializer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 
 /**
@@ -19,17 +18,18 @@ import java.lang.reflect.Type;
  */
 public class ObjectOutputStreamSerializer<T> extends Serializer<T> {
 
-    public ObjectOutputStreamSerializer(final Type messageType, Class<?> messageClass, final T msg) {
-        super(messageType, messageClass, msg);
+    public ObjectOutputStreamSerializer(final Type messageType, Class<?> messageClass) {
+        super(messageType, messageClass);
     }
 
     @Override
-    public byte[] serialize() throws Exception {
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutput out = new ObjectOutputStream(bos) ) {
-            out.writeObject(msg);
-            return bos.toByteArray();
-        }
+    public void serialize(final T msg, final OutputStream out) throws Exception {
+        /**
+         * A stream per message: every payload carries its own stream header and handle table.
+         */
+        final ObjectOutputStream objectOut = new ObjectOutputStream(out);
+        objectOut.writeObject(msg);
+        objectOut.flush();
     }
 
 }
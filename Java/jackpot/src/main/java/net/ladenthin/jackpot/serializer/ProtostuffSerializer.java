@@ -5,6 +5,7 @@
 
 package net.ladenthin.jackpot.serializer;
 
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 
 import io.protostuff.LinkedBuffer;
@@ -24,24 +25,28 @@ public class ProtostuffSerializer<T> extends Serializer<T> {
 
     private final Schema<T> schema;
     private final static int bufferSize = 4096;//2^12
-    private final LinkedBuffer buffer = LinkedBuffer.allocate(bufferSize);
+
+    /**
+     * A {@link LinkedBuffer} is not thread-safe: one per serializing thread, reused for every
+     * message it serializes.
+     */
+    private final ThreadLocal<LinkedBuffer> buffer =
+        ThreadLocal.withInitial(() -> LinkedBuffer.allocate(bufferSize));
 
     @SuppressWarnings("unchecked")
-    public ProtostuffSerializer(final Type messageType, Class<?> messageClass, final T msg) {
-        super(messageType, messageClass, msg);
+    public ProtostuffSerializer(final Type messageType, Class<?> messageClass) {
+        super(messageType, messageClass);
         schema = (Schema<T>) RuntimeSchema.getSchema(messageClass);
     }
 
     @Override
-    public byte[] serialize() throws Exception {
-        final byte[] b;
+    public void serialize(final T msg, final OutputStream out) throws Exception {
+        final LinkedBuffer linkedBuffer = buffer.get();
         try {
-            b = ProtostuffIOUtil.toByteArray(msg, schema, buffer);
+            ProtostuffIOUtil.writeTo(out, msg, schema, linkedBuffer);
         } finally {
-            buffer.clear();
+            linkedBuffer.clear();
         }
-
-        return b;
     }
 
 }
@@ -6,23 +6,75 @@
 package net.ladenthin.jackpot.serializer;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.util.AdaptiveCompression;
 import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.CodecExecutor;
+import net.ladenthin.jackpot.util.FlightRecorderEvents;
+import net.ladenthin.jackpot.util.ReusableByteArrayOutputStream;
 
 public class SerializeRunnable<T> implements Callable<BinaryMessage> {
 
+    /**
+     * The serialization target of each serializing thread, reused for every message: boxing
+     * copies (or compresses) the serialized bytes out of it.
+     */
+    private static final ThreadLocal<ReusableByteArrayOutputStream> OUTPUT =
+        ThreadLocal.withInitial(ReusableByteArrayOutputStream::new);
+
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
     private final SerializerFactory<T> serializerFactory;
     private final long id;
     private final T msg;
     private final SettingsCompression settingsCompression;
 
+    /**
+     * Boxes instead of the {@link #settingsCompression} when not {@code null}.
+     */
+    private final AdaptiveCompression adaptiveCompression;
+
+    /**
+     * See {@link net.ladenthin.jackpot.configuration.CTransceiver#fragmentLength}; {@code 0}
+     * boxes every message whole. Unit: [bytes].
+     */
+    private final int fragmentLength;
+
+    /**
+     * Boxes the fragments in parallel; {@code null} boxes them on the serializing thread.
+     */
+    private final CodecExecutor fragmentExecutor;
+
     public SerializeRunnable(final SerializerFactory<T> serializerFactory, final long id,
         final T msg, final SettingsCompression settingsCompression) {
+        this(serializerFactory, id, msg, settingsCompression, null);
+    }
+
+    public SerializeRunnable(final SerializerFactory<T> serializerFactory, final long id,
+        final T msg, final SettingsCompression settingsCompression,
+        final AdaptiveCompression adaptiveCompression) {
+        this(serializerFactory, id, msg, settingsCompression, adaptiveCompression, 0, null);
+    }
+
+    /**
+     * @param fragmentLength see {@link #fragmentLength}
+     * @param fragmentExecutor see {@link #fragmentExecutor}
+     */
+    public SerializeRunnable(final SerializerFactory<T> serializerFactory, final long id,
+        final T msg, final SettingsCompression settingsCompression,
+        final AdaptiveCompression adaptiveCompression, final int fragmentLength,
+        final CodecExecutor fragmentExecutor) {
         this.serializerFactory = serializerFactory;
         this.id = id;
         this.msg = msg;
         this.settingsCompression = settingsCompression;
+        this.adaptiveCompression = adaptiveCompression;
+        this.fragmentLength = fragmentLength;
+        this.fragmentExecutor = fragmentExecutor;
     }
 
     /**
@@ -31,7 +83,91 @@ public class SerializeRunnable<T> implements Callable<BinaryMessage> {
      */
     @Override
     public BinaryMessage call() throws Exception {
-        return BinaryMessage.box(id, serializerFactory.getSerializer(msg).serialize(), settingsCompression);
+        final ReusableByteArrayOutputStream out = OUTPUT.get();
+        try {
+            final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Serialize);
+            serializerFactory.getSerializer().serialize(msg, out);
+            EVENTS.commit(event, id, 1, out.size());
+            if (fragmentLength > 0 && out.size() > fragmentLength) {
+                return boxFragmented(out.array(), out.size());
+            }
+            if (adaptiveCompression != null) {
+                return adaptiveCompression.box(id, out.array(), out.size());
+            }
+            return BinaryMessage.box(id, out.array(), out.size(), settingsCompression);
+        } finally {
+            out.recycle();
+        }
+    }
+
+    /**
+     * Boxes a large message as fragments of {@link #fragmentLength}: the first on this
+     * thread, the others on the {@link #fragmentExecutor}. A fragment no pool thread started
+     * yet is boxed here too, so a pool busy with other serializations never waits on
+     * itself; every fragment is finished before the buffer is recycled.
+     *
+     * @param length the serialized length. Unit: [bytes].
+     */
+    private BinaryMessage boxFragmented(final byte[] buffer, final int length) throws Exception {
+        final int count = (int) ((length + (long) fragmentLength - 1) / fragmentLength);
+        @SuppressWarnings("unchecked")
+        final FutureTask<BinaryMessage>[] tasks = new FutureTask[count];
+        for (int i = 1; i < count; ++i) {
+            final int offset = i * fragmentLength;
+            tasks[i] = new FutureTask<>(() -> boxFragment(buffer, offset, length));
+            if (fragmentExecutor != null) {
+                try {
+                    fragmentExecutor.execute(tasks[i]);
+                } catch (RejectedExecutionException e) {
+                    // shut down: boxed on this thread below
+                }
+            }
+        }
+
+        final BinaryMessage[] fragments = new BinaryMessage[count];
+        Exception failure = null;
+        try {
+            fragments[0] = boxFragment(buffer, 0, length);
+        } catch (Exception e) {
+            failure = e;
+        }
+        boolean interrupted = false;
+        for (int i = 1; i < count; ++i) {
+            tasks[i].run();
+            for (;;) {
+                try {
+                    fragments[i] = tasks[i].get();
+                    break;
+                } catch (InterruptedException e) {
+                    /**
+                     * The task reads the buffer until it finishes; it is CPU-bound and
+                     * finishes soon.
+                     */
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return BinaryMessage.createFragmented(fragments);
+    }
+
+    private BinaryMessage boxFragment(final byte[] buffer, final int offset, final int totalSize)
+        throws Exception {
+        final int length = Math.min(fragmentLength, totalSize - offset);
+        if (adaptiveCompression != null) {
+            return adaptiveCompression.boxFragment(id, buffer, offset, length, totalSize);
+        }
+        return BinaryMessage.boxFragment(id, buffer, offset, length, totalSize, settingsCompression);
     }
 
 }
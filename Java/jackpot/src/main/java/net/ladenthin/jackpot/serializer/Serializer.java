@@ -5,10 +5,15 @@
 
 package net.ladenthin.jackpot.serializer;
 
+import java.io.OutputStream;
 import java.lang.reflect.Type;
 
+import net.ladenthin.jackpot.util.ReusableByteArrayOutputStream;
+
 /**
- * Abstract Serializer.
+ * Abstract Serializer. Stateless towards the messages: one instance per transceiver serves
+ * every serializing thread, so an implementation keeps nothing per message and nothing
+ * mutable that is shared between threads.
  *
  * @author VSimRTI developer team <vsimrti@fokus.fraunhofer.de>
  * @author Bernard Ladenthin <bernard.ladenthin@fokus.fraunhofer.de>
@@ -18,14 +23,28 @@ public abstract class Serializer<T> {
 
     protected final Type messageType;
     protected final Class<?> messageClass;
-    protected final T msg;
 
-    Serializer(final Type messageType, Class<?> messageClass, final T msg) {
+    Serializer(final Type messageType, Class<?> messageClass) {
         this.messageType = messageType;
         this.messageClass = messageClass;
-        this.msg = msg;
     }
 
-    public abstract byte[] serialize() throws Exception;
+    /**
+     * Writes the serialized message. Thread-safe.
+     *
+     * @param msg the message
+     * @param out receives the bytes; flushed, but not closed
+     */
+    public abstract void serialize(T msg, OutputStream out) throws Exception;
+
+    /**
+     * @param msg the message
+     * @return the serialized message in a fresh array
+     */
+    public byte[] serialize(final T msg) throws Exception {
+        final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream();
+        serialize(msg, out);
+        return out.toByteArray();
+    }
 
 }
@@ -7,5 +7,8 @@ package net.ladenthin.jackpot.serializer;
 
 public interface SerializerFactory<T> {
 
-    Serializer<T> getSerializer(T msg);
+    /**
+     * @return the serializer of the transceiver; the same thread-safe instance on every call
+     */
+    Serializer<T> getSerializer();
 }
@@ -0,0 +1,315 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+import net.ladenthin.jackpot.configuration.BooleanCondition;
+import net.ladenthin.jackpot.configuration.CLZ4Compressor;
+import net.ladenthin.jackpot.configuration.CLZ4Decompressor;
+import net.ladenthin.jackpot.configuration.CompressCondition;
+import net.ladenthin.jackpot.configuration.ConditionGZIP;
+import net.ladenthin.jackpot.configuration.ConditionLZ4;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+
+/**
+ * The adaptive compression (see {@link SettingsCompression#enableAdaptive}): per payload size
+ * bucket (powers of two) it measures the ratio and the time of every {@link Codec} and boxes
+ * with the one that gets a payload byte across the link fastest — the compression time per
+ * byte plus the wire time of the compressed bytes at the configured bandwidth. The receiver
+ * needs nothing new: the codecs are the GZIP and LZ4 of the wire format.
+ * <p>
+ * Every codec is sampled a few times per bucket first; afterwards one message in an interval
+ * tries another codec to follow changing payloads. While such a try confirms the choice the
+ * interval doubles, so incompressible payloads (choice {@link Codec#None}) cost almost no
+ * wasted compression; a changed choice resets it. One instance per transceiver, shared by the
+ * serializing threads.
+ */
+public final class AdaptiveCompression {
+
+    /**
+     * The candidates. A codec that does not shrink a payload leaves it uncompressed, its time
+     * is counted nevertheless.
+     */
+    public enum Codec {
+        None(new SettingsCompression()),
+        LZ4Fast(lz4(CLZ4Compressor.unsafeFastCompressor)),
+        LZ4High(lz4(CLZ4Compressor.unsafeHighCompressor)),
+        GZIPFast(gzip(Deflater.BEST_SPEED)),
+        GZIPDefault(gzip(Deflater.DEFAULT_COMPRESSION));
+
+        private final SettingsCompression settingsCompression;
+
+        Codec(final SettingsCompression settingsCompression) {
+            this.settingsCompression = settingsCompression;
+        }
+
+        private static CompressCondition smaller() {
+            return new CompressCondition(BooleanCondition.greaterEqual, 0, true);
+        }
+
+        private static SettingsCompression lz4(final CLZ4Compressor compressor) {
+            return new SettingsCompression(null, Arrays.asList(new ConditionLZ4(compressor, smaller())),
+                false, true, 2048, CLZ4Decompressor.safeFastDecompressor);
+        }
+
+        private static SettingsCompression gzip(final int level) {
+            return new SettingsCompression(Arrays.asList(new ConditionGZIP(level, smaller())),
+                null, true, false, 2048, null);
+        }
+    }
+
+    private static final Codec[] CODECS = Codec.values();
+
+    /**
+     * Bucket {@code b} holds the payload lengths below {@code 2^b}.
+     */
+    private static final int BUCKETS = Integer.SIZE + 1;
+
+    /**
+     * The measurements of every codec before the choice is trusted.
+     */
+    static final int WARMUP_SAMPLES = 4;
+
+    /**
+     * The weight of a new measurement in the moving averages.
+     */
+    private static final double WEIGHT = 0.125;
+
+    /**
+     * A measured time counts at most this multiple of the average: a GC pause during one
+     * message must not overturn the choice, a lasting change still does within a few messages.
+     */
+    private static final double MAX_OUTLIER = 4;
+
+    /**
+     * The first and the largest interval of messages between two tries of another codec.
+     */
+    static final int MIN_TRY_INTERVAL = 16;
+    static final int MAX_TRY_INTERVAL = 4096;
+
+    /**
+     * The wire time of a byte. Unit: [ns].
+     */
+    private final double wireNanosPerByte;
+
+    private final Bucket[] buckets = new Bucket[BUCKETS];
+
+    /**
+     * @param bandwidth the link bandwidth. Unit: [bytes/s].
+     */
+    public AdaptiveCompression(final long bandwidth) {
+        if (bandwidth < 1) {
+            throw new IllegalArgumentException("bandwidth must be positive but was " + bandwidth);
+        }
+        wireNanosPerByte = 1e9 / bandwidth;
+        for (int i = 0; i < BUCKETS; ++i) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    private static int bucket(final int length) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Boxes the first {@code length} bytes of a reusable buffer with the codec of its bucket,
+     * see {@link BinaryMessage#box(long, byte[], int, SettingsCompression)}.
+     */
+    @ConcurrentMethod
+    public BinaryMessage box(final long id, final byte[] buffer, final int length)
+        throws IOException {
+        final Bucket bucket = buckets[bucket(length)];
+        final Codec codec = bucket.next();
+        final long start = System.nanoTime();
+        final BinaryMessage bm = BinaryMessage.box(id, buffer, length, codec.settingsCompression);
+        bucket.record(codec, length, bm.getPayloadLength(), System.nanoTime() - start);
+        return bm;
+    }
+
+    /**
+     * Boxes one fragment of a large message with the codec of the fragment length, see
+     * {@link BinaryMessage#boxFragment(long, byte[], int, int, int, SettingsCompression)}.
+     */
+    @ConcurrentMethod
+    public BinaryMessage boxFragment(final long id, final byte[] buffer, final int offset,
+        final int length, final int totalSize) throws IOException {
+        final Bucket bucket = buckets[bucket(length)];
+        final Codec codec = bucket.next();
+        final long start = System.nanoTime();
+        final BinaryMessage bm = BinaryMessage.boxFragment(id, buffer, offset, length, totalSize,
+            codec.settingsCompression);
+        bucket.record(codec, length, bm.getPayloadLength(), System.nanoTime() - start);
+        return bm;
+    }
+
+    /**
+     * Boxes one chunk of a stream with the codec of its length, see
+     * {@link BinaryMessage#boxStreamChunk(long, byte[], int, SettingsCompression)}.
+     */
+    @ConcurrentMethod
+    public BinaryMessage boxStreamChunk(final long id, final byte[] buffer, final int length)
+        throws IOException {
+        final Bucket bucket = buckets[bucket(length)];
+        final Codec codec = bucket.next();
+        final long start = System.nanoTime();
+        final BinaryMessage bm = BinaryMessage.boxStreamChunk(id, buffer, length,
+            codec.settingsCompression);
+        bucket.record(codec, length, bm.getPayloadLength(), System.nanoTime() - start);
+        return bm;
+    }
+
+    /**
+     * @return the current choice for payloads of the given length; {@code null} while the
+     * codecs are sampled
+     */
+    @ConcurrentMethod
+    public Codec getChoice(final int length) {
+        return buckets[bucket(length)].getChoice();
+    }
+
+    /**
+     * @return the current number of messages between two tries of another codec for payloads
+     * of the given length
+     */
+    @ConcurrentMethod
+    public int getTryInterval(final int length) {
+        return buckets[bucket(length)].getTryInterval();
+    }
+
+    /**
+     * The measurements of one size bucket.
+     */
+    private final class Bucket {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Moving averages per codec: the compressed to uncompressed length, and the time per
+         * uncompressed byte. Unit: [ns].
+         */
+        private final double[] ratio = new double[CODECS.length];
+        private final double[] nanosPerByte = new double[CODECS.length];
+        private final int[] samples = new int[CODECS.length];
+
+        private Codec choice;
+        private int tryInterval = MIN_TRY_INTERVAL;
+        private int sinceTry;
+        private int nextTry;
+
+        private Codec next() {
+            lock.lock();
+            try {
+                if (choice == null) {
+                    /**
+                     * Sampling: the least measured codec.
+                     */
+                    Codec least = CODECS[0];
+                    for (final Codec codec : CODECS) {
+                        if (samples[codec.ordinal()] < samples[least.ordinal()]) {
+                            least = codec;
+                        }
+                    }
+                    return least;
+                }
+                if (++sinceTry < tryInterval) {
+                    return choice;
+                }
+                sinceTry = 0;
+                nextTry = (nextTry + 1) % CODECS.length;
+                if (CODECS[nextTry] == choice) {
+                    nextTry = (nextTry + 1) % CODECS.length;
+                }
+                return CODECS[nextTry];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void record(final Codec codec, final int length, final int payloadLength,
+            final long nanos) {
+            final int i = codec.ordinal();
+            final double measuredRatio = length == 0 ? 1 : (double) payloadLength / length;
+            final double measuredNanosPerByte = (double) nanos / Math.max(1, length);
+            lock.lock();
+            try {
+                if (samples[i] == 0) {
+                    ratio[i] = measuredRatio;
+                    nanosPerByte[i] = measuredNanosPerByte;
+                } else if (samples[i] < WARMUP_SAMPLES) {
+                    /**
+                     * Noise only adds time (class loading, the interpreter before the JIT, a
+                     * GC): the warm-up keeps the fastest measurement.
+                     */
+                    ratio[i] += WEIGHT * (measuredRatio - ratio[i]);
+                    nanosPerByte[i] = Math.min(nanosPerByte[i], measuredNanosPerByte);
+                } else {
+                    ratio[i] += WEIGHT * (measuredRatio - ratio[i]);
+                    final double damped = nanosPerByte[i] > 0
+                        ? Math.min(measuredNanosPerByte, nanosPerByte[i] * MAX_OUTLIER)
+                        : measuredNanosPerByte;
+                    nanosPerByte[i] += WEIGHT * (damped - nanosPerByte[i]);
+                }
+                if (samples[i] < Integer.MAX_VALUE) {
+                    ++samples[i];
+                }
+                for (final int count : samples) {
+                    if (count < WARMUP_SAMPLES) {
+                        return;
+                    }
+                }
+                final Codec previous = choice;
+                choice = cheapest();
+                if (previous != null && codec != previous) {
+                    /**
+                     * A try of another codec: back off while it confirms the choice.
+                     */
+                    tryInterval = choice == previous
+                        ? Math.min(tryInterval * 2, MAX_TRY_INTERVAL) : MIN_TRY_INTERVAL;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * The codec with the least time per payload byte: compressing plus sending.
+         */
+        private Codec cheapest() {
+            Codec cheapest = Codec.None;
+            double least = Double.MAX_VALUE;
+            for (final Codec codec : CODECS) {
+                final int i = codec.ordinal();
+                final double cost = nanosPerByte[i] + ratio[i] * wireNanosPerByte;
+                if (cost < least) {
+                    least = cost;
+                    cheapest = codec;
+                }
+            }
+            return cheapest;
+        }
+
+        private Codec getChoice() {
+            lock.lock();
+            try {
+                return choice;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int getTryInterval() {
+            lock.lock();
+            try {
+                return tryInterval;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -5,24 +5,24 @@
 
 package net.ladenthin.jackpot.util;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import net.jpountz.lz4.LZ4FastDecompressor;
 import net.jpountz.lz4.LZ4SafeDecompressor;
 import net.ladenthin.jackpot.Transceiver;
 import net.ladenthin.jackpot.configuration.CLZ4Decompressor;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.ConditionDictionary;
 import net.ladenthin.jackpot.configuration.ConditionGZIP;
 import net.ladenthin.jackpot.configuration.ConditionLZ4;
 import net.ladenthin.jackpot.configuration.SettingsCompression;
@@ -37,7 +37,7 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
 
     private enum State {
 
-        MESSAGE, HEARTBEAT, ACKNOWLEDGED;
+        MESSAGE, HEARTBEAT, ACKNOWLEDGED, GAP_REPORT, ACKNOWLEDGED_RANGES;
         @SuppressWarnings("unused")
         public Set<State> possibleNext() {
             return EnumSet.noneOf(State.class);
@@ -45,6 +45,8 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
 
     }
 
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
     private final State state;
 
     public final long id;
@@ -55,24 +57,182 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
 
     private final List<Long> acknowledged;
 
+    /**
+     * For a gap report the ids the receiver holds beyond its gap, for range-encoded
+     * acknowledgements the acknowledged ids: inclusive {@code first, last} pairs in ascending
+     * order.
+     */
+    private final long[] ranges;
+
+    /**
+     * The wire body of range-encoded acknowledgements, see {@link #encodeRanges(long[])}.
+     */
+    private final byte[] encodedRanges;
+
+    /**
+     * When {@link #box} created this message, the start of its send-to-acknowledgement
+     * latency; {@code 0} for every other frame. Unit: [ns], see {@link System#nanoTime()}.
+     */
+    private final long boxedNanos;
+
+    /**
+     * For a fragment the position of its bytes in the message and the length of the whole
+     * message, both uncompressed; {@code 0} for every other frame. Unit: [bytes].
+     */
+    private final int fragmentOffset;
+    private final int totalSize;
+
+    /**
+     * For a fragmented message its fragments in offset order, {@code null} for every other
+     * frame. Sender-side only: the fragments are written, never the fragmented message.
+     */
+    private final BinaryMessage[] fragments;
+
+    /**
+     * For a message of a logical channel (see {@link #hasChannel()}) the channel and the
+     * position of the message in it; {@code 0} for every other frame.
+     */
+    private final int channel;
+    private final long channelSequence;
+
     /**
      * In Any case one Integer and one Long. Unit: [bytes].
      */
     @SuppressWarnings("unused")
     private final static int headerSize = (Integer.SIZE / Byte.SIZE) + (Long.SIZE / Byte.SIZE);
 
-    private BinaryMessage(final long id, final byte[] msg, final int uncompressedSize,
-        final boolean lz4Used, final boolean gzipUsed, final List<Long> acknowledged,
-        final State state) {
-        this.id = id;
-        this.msg = msg;
-        this.uncompressedSize = uncompressedSize;
-        this.acknowledged = acknowledged;
-        this.state = state;
+    private static final BinaryMessageFlags MESSAGE_FLAGS =
+        new BinaryMessageFlags(false, false, false, false);
+    private static final BinaryMessageFlags HEARTBEAT_FLAGS =
+        new BinaryMessageFlags(false, false, true, false);
+    private static final BinaryMessageFlags ACKNOWLEDGED_FLAGS =
+        new BinaryMessageFlags(false, false, false, true);
+    private static final BinaryMessageFlags GAP_REPORT_FLAGS =
+        new BinaryMessageFlags(false, false, false, false, true);
+    private static final BinaryMessageFlags ACKNOWLEDGED_RANGES_FLAGS =
+        new BinaryMessageFlags(false, false, false, false, false, true);
+
+    /**
+     * The fields of a frame under construction: the flags decide the state, every other
+     * field is left at its default unless the frame carries it.
+     */
+    private static final class Builder {
+
+        private final long id;
+        private BinaryMessageFlags flags;
+        private byte[] msg;
+        private int uncompressedSize;
+        private List<Long> acknowledged;
+        private long[] ranges;
+        private byte[] encodedRanges;
+        private long boxedNanos;
+        private int fragmentOffset;
+        private int totalSize;
+        private BinaryMessage[] fragments;
+        private int channel;
+        private long channelSequence;
+
+        private Builder(final long id, final BinaryMessageFlags flags) {
+            this.id = id;
+            this.flags = flags;
+        }
+
+        /**
+         * Starts with every field of the message.
+         */
+        private Builder(final BinaryMessage bm) {
+            id = bm.id;
+            flags = bm.flags;
+            msg = bm.msg;
+            uncompressedSize = bm.uncompressedSize;
+            acknowledged = bm.acknowledged;
+            ranges = bm.ranges;
+            encodedRanges = bm.encodedRanges;
+            boxedNanos = bm.boxedNanos;
+            fragmentOffset = bm.fragmentOffset;
+            totalSize = bm.totalSize;
+            fragments = bm.fragments;
+            channel = bm.channel;
+            channelSequence = bm.channelSequence;
+        }
 
-        this.flags =
-            new BinaryMessageFlags(lz4Used, gzipUsed, isStateHeartbeat(),
-                isStateAcknowledged());
+        private Builder flags(final BinaryMessageFlags flags) {
+            this.flags = flags;
+            return this;
+        }
+
+        private Builder payload(final byte[] msg, final int uncompressedSize) {
+            this.msg = msg;
+            this.uncompressedSize = uncompressedSize;
+            return this;
+        }
+
+        private Builder acknowledged(final List<Long> acknowledged) {
+            this.acknowledged = acknowledged;
+            return this;
+        }
+
+        private Builder ranges(final long[] ranges, final byte[] encodedRanges) {
+            this.ranges = ranges;
+            this.encodedRanges = encodedRanges;
+            return this;
+        }
+
+        private Builder boxedNanos(final long boxedNanos) {
+            this.boxedNanos = boxedNanos;
+            return this;
+        }
+
+        private Builder fragment(final int fragmentOffset, final int totalSize) {
+            this.fragmentOffset = fragmentOffset;
+            this.totalSize = totalSize;
+            return this;
+        }
+
+        private Builder fragments(final BinaryMessage[] fragments) {
+            this.fragments = fragments;
+            return this;
+        }
+
+        private Builder channel(final int channel, final long channelSequence) {
+            this.channel = channel;
+            this.channelSequence = channelSequence;
+            return this;
+        }
+
+        private BinaryMessage build() {
+            return new BinaryMessage(this);
+        }
+    }
+
+    private BinaryMessage(final Builder builder) {
+        this.id = builder.id;
+        this.flags = builder.flags;
+        this.state = stateOf(builder.flags);
+        this.boxedNanos = builder.boxedNanos;
+        this.msg = builder.msg;
+        this.uncompressedSize = builder.uncompressedSize;
+        this.acknowledged = builder.acknowledged;
+        this.ranges = builder.ranges;
+        this.encodedRanges = builder.encodedRanges;
+        this.fragmentOffset = builder.fragmentOffset;
+        this.totalSize = builder.totalSize;
+        this.fragments = builder.fragments;
+        this.channel = builder.channel;
+        this.channelSequence = builder.channelSequence;
+    }
+
+    private static State stateOf(final BinaryMessageFlags flags) {
+        if (flags.isHeartbeat()) {
+            return State.HEARTBEAT;
+        } else if (flags.isAcknowledged()) {
+            return State.ACKNOWLEDGED;
+        } else if (flags.isGapReport()) {
+            return State.GAP_REPORT;
+        } else if (flags.isAcknowledgedRanges()) {
+            return State.ACKNOWLEDGED_RANGES;
+        }
+        return State.MESSAGE;
     }
 
     public boolean isStateHeartbeat() {
@@ -87,6 +247,23 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
         return EnumSet.of(state).contains(State.ACKNOWLEDGED);
     }
 
+    /**
+     * A gap report is a control frame outside the id sequence: its {@link #getId() id} is the
+     * next id the reporting side expects, not an id of its own. It is neither retained nor
+     * acknowledged; a lost report is superseded by the next one.
+     */
+    public boolean isStateGapReport() {
+        return EnumSet.of(state).contains(State.GAP_REPORT);
+    }
+
+    /**
+     * The compact counterpart of {@link #isStateAcknowledged()}: the acknowledged ids as
+     * runs of consecutive ids, varint-delta encoded on the wire.
+     */
+    public boolean isStateAcknowledgedRanges() {
+        return EnumSet.of(state).contains(State.ACKNOWLEDGED_RANGES);
+    }
+
     public long getId() {
         return id;
     }
@@ -101,9 +278,37 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
         if (!isStateMessage()) {
             throw new IllegalStateException();
         }
+        if (fragments != null) {
+            int payloadLength = 0;
+            for (final BinaryMessage fragment : fragments) {
+                payloadLength += fragment.msg.length;
+            }
+            return payloadLength;
+        }
         return msg.length;
     }
 
+    /**
+     * The length of the payload before compression.
+     *
+     * @return the uncompressed payload length in bytes
+     * @throws IllegalStateException when this is not a message-state frame
+     */
+    public int getUncompressedSize() {
+        if (!isStateMessage()) {
+            throw new IllegalStateException();
+        }
+        return uncompressedSize;
+    }
+
+    /**
+     * @return when {@link #box} created this message, {@code 0} for a decoded or control
+     * frame. Unit: [ns], see {@link System#nanoTime()}.
+     */
+    public long getBoxedNanos() {
+        return boxedNanos;
+    }
+
     public boolean isLz4Used() {
         if (EnumSet.of(State.MESSAGE).contains(state)) {
             return flags.isLz4Used();
@@ -120,6 +325,189 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
         }
     }
 
+    /**
+     * The payload is deflated with a preset dictionary of the
+     * {@link SettingsCompression#dictionaries}; the dictionary id leads the payload.
+     */
+    public boolean isDictionaryUsed() {
+        if (EnumSet.of(State.MESSAGE).contains(state)) {
+            return flags.isDictionaryUsed();
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * The payload is a part of the sender's deflate stream: only the receiver's
+     * {@link StreamingInflater}, fed in id order, can restore it; {@link #unbox} cannot.
+     */
+    public boolean isDeflateStreamed() {
+        if (EnumSet.of(State.MESSAGE).contains(state)) {
+            return flags.isDeflateStreamed();
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * A fragment carries the bytes of a large message from {@link #getFragmentOffset()} on,
+     * compressed on their own; it shares the id of the message, and the receiver reassembles
+     * the message from the fragments of the id (see {@link FragmentAssembler}). {@code false}
+     * for every frame that is not a message.
+     */
+    public boolean isFragment() {
+        return flags.isFragment();
+    }
+
+    /**
+     * The fragment that ends the message.
+     */
+    public boolean isLastFragment() {
+        return isFragment() && fragmentOffset + uncompressedSize == totalSize;
+    }
+
+    /**
+     * @return the position of the bytes of this fragment in the message. Unit: [bytes].
+     * @throws IllegalStateException when this is not a fragment
+     */
+    public int getFragmentOffset() {
+        if (!isFragment()) {
+            throw new IllegalStateException();
+        }
+        return fragmentOffset;
+    }
+
+    /**
+     * @return the uncompressed length of the message this fragment is a part of. Unit:
+     * [bytes].
+     * @throws IllegalStateException when this is not a fragment
+     */
+    public int getFragmentTotalSize() {
+        if (!isFragment()) {
+            throw new IllegalStateException();
+        }
+        return totalSize;
+    }
+
+    /**
+     * A fragmented message is the sender's whole of the fragments of a large message (see
+     * {@link #createFragmented(BinaryMessage[])}): written fragment by fragment, retained and
+     * resent as a whole.
+     */
+    public boolean isFragmented() {
+        return fragments != null;
+    }
+
+    /**
+     * @throws IllegalStateException when this is not a fragmented message
+     */
+    public int getFragmentCount() {
+        if (fragments == null) {
+            throw new IllegalStateException();
+        }
+        return fragments.length;
+    }
+
+    /**
+     * @param index the index of the fragment in offset order
+     * @throws IllegalStateException when this is not a fragmented message
+     */
+    public BinaryMessage getFragment(final int index) {
+        if (fragments == null) {
+            throw new IllegalStateException();
+        }
+        return fragments[index];
+    }
+
+    /**
+     * A stream chunk carries bytes written to a
+     * {@link net.ladenthin.jackpot.TransceiverOutputStream} instead of a serialized message;
+     * the receiver hands them to the stream instead of the deserialization. {@code false}
+     * for every frame that is not a message.
+     */
+    public boolean isStreamChunk() {
+        return flags.isStreamChunk();
+    }
+
+    /**
+     * A message of a logical channel (see
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#channelWeights}) carries its
+     * channel and its position in the channel after the header: the receiver delivers it
+     * once its channel predecessors are delivered, not once every lower id is. The fragments
+     * of a message carry the channel of the message. {@code false} for every frame that is
+     * not a message.
+     */
+    public boolean hasChannel() {
+        return flags.hasChannel();
+    }
+
+    /**
+     * @return the logical channel of this message
+     * @throws IllegalStateException when this message has no channel
+     */
+    public int getChannel() {
+        if (!hasChannel()) {
+            throw new IllegalStateException();
+        }
+        return channel;
+    }
+
+    /**
+     * @return the position of this message in its channel, from {@code 0} on
+     * @throws IllegalStateException when this message has no channel
+     */
+    public long getChannelSequence() {
+        if (!hasChannel()) {
+            throw new IllegalStateException();
+        }
+        return channelSequence;
+    }
+
+    /**
+     * This message in a logical channel; a fragmented message with every fragment in it.
+     *
+     * @param channel the channel, see {@link #getChannel()}
+     * @param channelSequence the position in the channel, see {@link #getChannelSequence()}
+     * @throws IllegalStateException when this is not a message
+     */
+    public BinaryMessage withChannel(final int channel, final long channelSequence) {
+        if (!isStateMessage()) {
+            throw new IllegalStateException();
+        }
+        BinaryMessage[] channelFragments = null;
+        if (fragments != null) {
+            channelFragments = new BinaryMessage[fragments.length];
+            for (int i = 0; i < fragments.length; ++i) {
+                channelFragments[i] = fragments[i].withChannel(channel, channelSequence);
+            }
+        }
+        return new Builder(this).flags(flags.withChannel()).fragments(channelFragments)
+            .channel(channel, channelSequence).build();
+    }
+
+    /**
+     * The payload as is, not copied; for {@link StreamingDeflater} and
+     * {@link StreamingInflater}.
+     */
+    byte[] payload() {
+        return msg;
+    }
+
+    /**
+     * This message with another payload, e.g. the streamed deflate of the payload or the
+     * restored payload; the boxing time is kept for the latency metrics.
+     *
+     * @param payload the new payload, not copied
+     * @param deflateStreamed whether the new payload is a part of a deflate stream
+     */
+    BinaryMessage withPayload(final byte[] payload, final boolean deflateStreamed) {
+        if (!isStateMessage()) {
+            throw new IllegalStateException();
+        }
+        return new Builder(this).flags(flags.withDeflateStreamed(deflateStreamed))
+            .payload(payload, uncompressedSize).build();
+    }
+
     public List<Long> getAcknowledged() {
         if (EnumSet.of(State.ACKNOWLEDGED).contains(state)) {
             return Collections.unmodifiableList(acknowledged);
@@ -128,33 +516,298 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
         }
     }
 
+    /**
+     * @return for a gap report, the ids held beyond the gap as inclusive {@code first, last}
+     * pairs in ascending order
+     * @throws IllegalStateException when this is not a gap report
+     */
+    public long[] getReceivedRanges() {
+        if (EnumSet.of(State.GAP_REPORT).contains(state)) {
+            return ranges.clone();
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * @return for range-encoded acknowledgements, the acknowledged ids as inclusive
+     * {@code first, last} pairs in ascending order
+     * @throws IllegalStateException when this is not a range-encoded acknowledgement
+     */
+    public long[] getAcknowledgedRanges() {
+        if (EnumSet.of(State.ACKNOWLEDGED_RANGES).contains(state)) {
+            return ranges.clone();
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
     public final static BinaryMessage createHeartbeat(long id) {
-        return new BinaryMessage(id, null, 0, false, false, null, State.HEARTBEAT);
+        return new Builder(id, HEARTBEAT_FLAGS).build();
     }
 
     public final static BinaryMessage createAcknowledged(long id,
         List<Long> acknowledged) {
-        return new BinaryMessage(id, null, 0, false, false, acknowledged,
-            State.ACKNOWLEDGED);
+        return new Builder(id, ACKNOWLEDGED_FLAGS).acknowledged(acknowledged).build();
+    }
+
+    /**
+     * @param nextExpectedId the lowest id the reporting side has not received; every id
+     * below was processed
+     * @param receivedRanges the ids received beyond the gap as inclusive
+     * {@code first, last} pairs in ascending order; not copied
+     */
+    public final static BinaryMessage createGapReport(final long nextExpectedId,
+        final long[] receivedRanges) {
+        if ((receivedRanges.length & 1) != 0) {
+            throw new IllegalArgumentException("receivedRanges must hold pairs");
+        }
+        return new Builder(nextExpectedId, GAP_REPORT_FLAGS).ranges(receivedRanges, null).build();
+    }
+
+    /**
+     * @param id the id of this acknowledgement message
+     * @param acknowledgedRanges the acknowledged ids as inclusive {@code first, last} pairs,
+     * ascending and disjoint (see {@link LongArrayList#sortToRanges()}); not copied
+     */
+    public final static BinaryMessage createAcknowledgedRanges(final long id,
+        final long[] acknowledgedRanges) {
+        if ((acknowledgedRanges.length & 1) != 0) {
+            throw new IllegalArgumentException("acknowledgedRanges must hold pairs");
+        }
+        for (int i = 0; i < acknowledgedRanges.length; i += 2) {
+            if (acknowledgedRanges[i + 1] < acknowledgedRanges[i]
+                || (i > 0 && acknowledgedRanges[i] <= acknowledgedRanges[i - 1])) {
+                throw new IllegalArgumentException("acknowledgedRanges must be ascending and disjoint");
+            }
+        }
+        return new Builder(id, ACKNOWLEDGED_RANGES_FLAGS)
+            .ranges(acknowledgedRanges, encodeRanges(acknowledgedRanges)).build();
+    }
+
+    /**
+     * The wire body of range-encoded acknowledgements: {@code varint count}, then for the
+     * first range {@code long first, varint (last - first)} and for every further range
+     * {@code varint (first - previous last), varint (last - first)}. Under load the
+     * acknowledged ids form one or a few runs, so a batch of any size costs a few bytes
+     * instead of eight per id.
+     */
+    private static byte[] encodeRanges(final long[] ranges) {
+        final int count = ranges.length / 2;
+        int length = varintLength(count);
+        for (int i = 0; i < ranges.length; i += 2) {
+            length += (i == 0 ? Long.BYTES : varintLength(ranges[i] - ranges[i - 1]))
+                + varintLength(ranges[i + 1] - ranges[i]);
+        }
+        final ByteBuffer body = ByteBuffer.allocate(length);
+        putVarint(body, count);
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (i == 0) {
+                body.putLong(ranges[i]);
+            } else {
+                putVarint(body, ranges[i] - ranges[i - 1]);
+            }
+            putVarint(body, ranges[i + 1] - ranges[i]);
+        }
+        return body.array();
+    }
+
+    /**
+     * Reverses {@link #encodeRanges(long[])}.
+     *
+     * @throws IOException if the body is corrupt: truncated, trailing bytes, a varint beyond
+     * 63 bits, a range count beyond the body length or ranges that are not ascending
+     */
+    private static long[] decodeRanges(final byte[] encoded) throws IOException {
+        final ByteBuffer body = ByteBuffer.wrap(encoded);
+        try {
+            final long count = getVarint(body);
+            /**
+             * Every range occupies at least two bytes: the count is bounded by the body
+             * length (itself bounded by maxPayloadLength) before anything is allocated.
+             */
+            if (count > encoded.length / 2) {
+                throw new IOException("corrupt frame: acknowledged range count " + count);
+            }
+            final long[] ranges = new long[2 * (int) count];
+            for (int i = 0; i < ranges.length; i += 2) {
+                ranges[i] = i == 0 ? body.getLong() : Math.addExact(ranges[i - 1], getVarint(body));
+                ranges[i + 1] = Math.addExact(ranges[i], getVarint(body));
+                if (i > 0 && ranges[i] <= ranges[i - 1]) {
+                    throw new IOException("corrupt frame: acknowledged ranges not ascending");
+                }
+            }
+            if (body.hasRemaining()) {
+                throw new IOException("corrupt frame: " + body.remaining()
+                    + " trailing bytes after the acknowledged ranges");
+            }
+            return ranges;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("corrupt frame: acknowledged ranges truncated", e);
+        } catch (ArithmeticException e) {
+            throw new IOException("corrupt frame: acknowledged range beyond the id space", e);
+        }
+    }
+
+    private static int varintLength(long value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            ++length;
+        }
+        return length;
+    }
+
+    /**
+     * Unsigned LEB128: seven bits per byte, least significant group first, the high bit set
+     * on every byte but the last.
+     */
+    private static void putVarint(final ByteBuffer dst, long value) {
+        while ((value & ~0x7FL) != 0) {
+            dst.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        dst.put((byte) value);
+    }
+
+    /**
+     * @throws IOException if the varint does not fit into a non-negative {@code long}
+     */
+    private static long getVarint(final ByteBuffer src) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE - 1; shift += 7) {
+            final byte b = src.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("corrupt frame: varint exceeds 63 bits");
+    }
+
+    /**
+     * Creates range-encoded acknowledgements from their wire body; for
+     * {@link BinaryMessageDecoder}.
+     *
+     * @throws IOException if the body is corrupt
+     */
+    static BinaryMessage decodeAcknowledgedRanges(final long id, final byte[] encoded)
+        throws IOException {
+        return new Builder(id, ACKNOWLEDGED_RANGES_FLAGS).ranges(decodeRanges(encoded), encoded)
+            .build();
     }
 
     public final static BinaryMessage box(final long id, final byte[] msg,
         final SettingsCompression settingsCompression) throws IOException {
+        return box(id, msg, 0, msg.length, false, false, 0, false, settingsCompression);
+    }
+
+    /**
+     * Boxes the first {@code length} bytes of a reusable buffer: compressed straight out of
+     * it, or copied once. The message keeps no reference to the buffer.
+     *
+     * @param length the serialized length. Unit: [bytes].
+     */
+    public final static BinaryMessage box(final long id, final byte[] buffer, final int length,
+        final SettingsCompression settingsCompression) throws IOException {
+        return box(id, buffer, 0, length, true, false, 0, false, settingsCompression);
+    }
+
+    /**
+     * Boxes one fragment of a large message: {@code length} bytes of a reusable buffer from
+     * {@code offset} on, compressed on their own like a message of that length. The fragment
+     * keeps no reference to the buffer.
+     *
+     * @param offset the position of the fragment in the message. Unit: [bytes].
+     * @param length the length of the fragment. Unit: [bytes].
+     * @param totalSize the length of the whole message. Unit: [bytes].
+     * @throws IllegalArgumentException if the fragment lies outside the message
+     */
+    public final static BinaryMessage boxFragment(final long id, final byte[] buffer,
+        final int offset, final int length, final int totalSize,
+        final SettingsCompression settingsCompression) throws IOException {
+        if (offset < 0 || length < 0 || offset > totalSize || length > totalSize - offset
+            || totalSize > buffer.length) {
+            throw new IllegalArgumentException("fragment " + offset + "+" + length
+                + " outside the message of " + totalSize + " bytes");
+        }
+        return box(id, buffer, offset, length, true, true, totalSize, false, settingsCompression);
+    }
+
+    /**
+     * Boxes a chunk of a byte stream (see {@link #isStreamChunk()}): the first {@code length}
+     * bytes of the buffer, compressed like a message of that length. The buffer is handed
+     * over: an uncompressed chunk of the whole buffer keeps it without a copy.
+     *
+     * @param length the length of the chunk. Unit: [bytes].
+     */
+    public final static BinaryMessage boxStreamChunk(final long id, final byte[] buffer,
+        final int length, final SettingsCompression settingsCompression) throws IOException {
+        return box(id, buffer, 0, length, length != buffer.length, false, 0, true,
+            settingsCompression);
+    }
+
+    /**
+     * @param fragments the fragments of one message in offset order (see
+     * {@link #boxFragment}); not copied
+     * @return the fragmented message, see {@link #isFragmented()}
+     * @throws IllegalArgumentException unless the fragments share the id and cover the
+     * message without gap or overlap
+     */
+    public final static BinaryMessage createFragmented(final BinaryMessage[] fragments) {
+        if (fragments.length == 0) {
+            throw new IllegalArgumentException("no fragments");
+        }
+        final long id = fragments[0].id;
+        final int totalSize = fragments[0].getFragmentTotalSize();
+        int offset = 0;
+        for (final BinaryMessage fragment : fragments) {
+            if (fragment.id != id || fragment.getFragmentTotalSize() != totalSize
+                || fragment.getFragmentOffset() != offset) {
+                throw new IllegalArgumentException("fragments of id " + id
+                    + " not consecutive at offset " + offset);
+            }
+            offset += fragment.uncompressedSize;
+        }
+        if (offset != totalSize) {
+            throw new IllegalArgumentException("fragments of id " + id + " cover " + offset
+                + " of " + totalSize + " bytes");
+        }
+        return new Builder(id, MESSAGE_FLAGS).payload(null, totalSize)
+            .boxedNanos(fragments[0].boxedNanos).fragments(fragments).build();
+    }
+
+    /**
+     * @param offset the first byte of {@code msg} to box
+     * @param copy whether an uncompressed payload is copied out of {@code msg} or kept as is
+     * (then {@code offset} is {@code 0} and {@code length} is {@code msg.length})
+     * @param fragment whether the bytes are a fragment of a message of {@code totalSize}
+     * bytes
+     * @param streamChunk whether the bytes are a chunk of a byte stream
+     */
+    private static BinaryMessage box(final long id, final byte[] msg, final int offset,
+        final int length, final boolean copy, final boolean fragment, final int totalSize,
+        final boolean streamChunk, final SettingsCompression settingsCompression)
+        throws IOException {
 
         boolean lz4Used = false;
         boolean gzipUsed = false;
+        boolean dictionaryUsed = false;
 
         final byte[] finalBytes;
         byte[] compressedBytes = null;
 
+        final Object event = settingsCompression.enableLZ4 || settingsCompression.enableGZIP
+            || settingsCompression.enableDictionary
+            ? EVENTS.begin(FlightRecorderEvents.Kind.Compress) : null;
+
         // 1.: Check to compress the byte array
         if (settingsCompression.enableLZ4) {
             for (final ConditionLZ4 condition : settingsCompression.lz4Conditions) {
-                if (condition.conditionMatch(msg.length)) {
-                    compressedBytes = condition.compressor.compress(msg);
+                if (condition.conditionMatch(length)) {
+                    compressedBytes = condition.compressor.compress(msg, offset, length);
 
                     if (condition.useOnlyIfCompressedLower) {
-                        if (compressedBytes.length < msg.length) {
+                        if (compressedBytes.length < length) {
                             lz4Used = true;
                             break;
                         }
@@ -166,21 +819,11 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
             }
         } else if (settingsCompression.enableGZIP) {
             for (final ConditionGZIP condition : settingsCompression.gzipConditions) {
-                if (condition.conditionMatch(msg.length)) {
-                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-                    final GZIPOutputStream outGZIP = new GZIPOutputStream(out) {
-                        {
-                            def.setLevel(condition.deflaterLevel);
-                        }
-                    };
-
-                    outGZIP.write(msg);
-                    outGZIP.close();
-                    compressedBytes = out.toByteArray();
+                if (condition.conditionMatch(length)) {
+                    compressedBytes = GzipCompression.compress(msg, offset, length, condition.deflaterLevel);
 
                     if (condition.useOnlyIfCompressedLower) {
-                        if (compressedBytes.length < msg.length) {
+                        if (compressedBytes.length < length) {
                             gzipUsed = true;
                             break;
                         }
@@ -190,16 +833,43 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
                     }
                 }
             }
+        } else if (settingsCompression.enableDictionary) {
+            for (final ConditionDictionary condition : settingsCompression.dictionaryConditions) {
+                if (condition.conditionMatch(length)) {
+                    compressedBytes = DictionaryCompression.compress(msg, offset, length,
+                        condition.deflaterLevel,
+                        settingsCompression.dictionaries.get(condition.dictionaryId));
+
+                    if (condition.useOnlyIfCompressedLower) {
+                        if (compressedBytes.length < length) {
+                            dictionaryUsed = true;
+                            break;
+                        }
+                    } else {
+                        dictionaryUsed = true;
+                        break;
+                    }
+                }
+            }
         }
 
         // 2.: Assign the compressed byte array
-        if (lz4Used || gzipUsed) {
+        if (lz4Used || gzipUsed || dictionaryUsed) {
             finalBytes = compressedBytes;
+        } else if (copy) {
+            finalBytes = Arrays.copyOfRange(msg, offset, offset + length);
         } else {
             finalBytes = msg;
         }
+        EVENTS.commit(event, id, 1, length);
 
-        return new BinaryMessage(id, finalBytes, msg.length, lz4Used, gzipUsed, null, State.MESSAGE);
+        final Builder builder = new Builder(id, new BinaryMessageFlags(lz4Used, gzipUsed, false,
+            false, false, false, false, dictionaryUsed, fragment, streamChunk))
+            .payload(finalBytes, length).boxedNanos(System.nanoTime());
+        if (fragment) {
+            builder.fragment(offset, totalSize);
+        }
+        return builder.build();
     }
 
     public final byte[] unbox(final SettingsCompression settingsCompression) throws IOException {
@@ -217,9 +887,18 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
         if (!isStateMessage()) {
             throw new IllegalStateException();
         }
+        if (flags.isDeflateStreamed()) {
+            throw new IllegalStateException("a streamed deflate payload needs the StreamingInflater");
+        }
+        if (fragments != null) {
+            throw new IllegalStateException("a fragmented message is unboxed fragment by fragment");
+        }
 
         final byte[] finalBytes;
 
+        final Object event = flags.isLz4Used() || flags.isGzipUsed() || flags.isDictionaryUsed()
+            ? EVENTS.begin(FlightRecorderEvents.Kind.Decompress) : null;
+
         // if compression used, uncompress
         if (flags.isLz4Used()) {
             if (CLZ4Decompressor.isFastDecompressor(settingsCompression.decompressor)) {
@@ -236,35 +915,43 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
                 throw new IllegalArgumentException("unknown CLZ4Decompressor.");
             }
         } else if (flags.isGzipUsed()) {
-            final byte[] gzipBuffer = new byte[settingsCompression.gzipBufferSize];
-
-            try (GZIPInputStream inGZIP = new GZIPInputStream(new ByteArrayInputStream(msg))) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream(uncompressedSize);
-                int n;
-                while ((n = inGZIP.read(gzipBuffer)) >= 0) {
-                    baos.write(gzipBuffer, 0, n);
-                    /**
-                     * The frame header's uncompressed size is only a claim — the ACTUAL
-                     * inflated byte count is what grows without bound in a decompression
-                     * bomb, so the loop itself must enforce the limit.
-                     */
-                    if (baos.size() > maxUncompressedLength) {
-                        throw new IOException("decompressed payload exceeds maxUncompressedLength "
-                            + maxUncompressedLength);
-                    }
-                }
-                finalBytes = baos.toByteArray();
-
+            /**
+             * The decoder bounds the announced size, the decompression allocates exactly it
+             * and fails on any excess — a decompression bomb inflates no further.
+             */
+            if (uncompressedSize > maxUncompressedLength) {
+                throw new IOException("decompressed payload exceeds maxUncompressedLength "
+                    + maxUncompressedLength);
+            }
+            finalBytes = GzipCompression.decompress(msg, uncompressedSize);
+        } else if (flags.isDictionaryUsed()) {
+            /**
+             * The decoder bounds the announced size, the decompression allocates exactly it
+             * and fails on any excess.
+             */
+            if (uncompressedSize > maxUncompressedLength) {
+                throw new IOException("decompressed payload exceeds maxUncompressedLength "
+                    + maxUncompressedLength);
             }
+            finalBytes = DictionaryCompression.decompress(msg, uncompressedSize,
+                settingsCompression.dictionaries);
         } else {
             finalBytes = msg;
         }
+        EVENTS.commit(event, id, 1, finalBytes.length);
 
         return finalBytes;
     }
 
     @Override
     public void toDataOutput(DataOutput dOut) throws IOException {
+        if (fragments != null) {
+            // the fragments follow each other as frames of their own
+            for (final BinaryMessage fragment : fragments) {
+                fragment.toDataOutput(dOut);
+            }
+            return;
+        }
         // write the flags
         flags.toDataOutput(dOut);
         dOut.writeLong(id);
@@ -283,17 +970,234 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
             // write the msg
             dOut.writeInt(uncompressedSize);
             dOut.writeInt(msg.length);
+            if (isFragment()) {
+                dOut.writeInt(totalSize);
+                dOut.writeInt(fragmentOffset);
+            }
+            if (hasChannel()) {
+                dOut.writeInt(channel);
+                dOut.writeLong(channelSequence);
+            }
             dOut.write(msg);
         } else if (isStateAcknowledged()) {
             dOut.writeInt(acknowledged.size());
             for (long l : acknowledged) {
                 dOut.writeLong(l);
             }
+        } else if (isStateGapReport()) {
+            dOut.writeInt(ranges.length / 2);
+            for (long l : ranges) {
+                dOut.writeLong(l);
+            }
+        } else if (isStateAcknowledgedRanges()) {
+            dOut.writeInt(encodedRanges.length);
+            dOut.write(encodedRanges);
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * The length of everything before the payload: for heartbeat and acknowledged frames
+     * this is the whole frame. Unit: [bytes].
+     */
+    public int getHeaderLength() {
+        if (fragments != null) {
+            throw new IllegalStateException("a fragmented message is written fragment by fragment");
+        }
+        final int headerLength = Integer.BYTES + Long.BYTES;
+        if (isStateHeartbeat()) {
+            return headerLength;
+        } else if (isStateMessage()) {
+            return headerLength + messageFieldsLength(flags);
+        } else if (isStateAcknowledged()) {
+            return headerLength + Integer.BYTES + acknowledged.size() * Long.BYTES;
+        } else if (isStateGapReport()) {
+            return headerLength + Integer.BYTES + ranges.length * Long.BYTES;
+        } else if (isStateAcknowledgedRanges()) {
+            return headerLength + Integer.BYTES + encodedRanges.length;
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * The length of the frame as {@link #toDataOutput(DataOutput)} and
+     * {@link #toByteBuffer(ByteBuffer)} write it; of a fragmented message the length of all
+     * its fragment frames. Unit: [bytes].
+     */
+    public int getFrameLength() {
+        if (fragments != null) {
+            int frameLength = 0;
+            for (final BinaryMessage fragment : fragments) {
+                frameLength += fragment.getFrameLength();
+            }
+            return frameLength;
+        }
+        return getHeaderLength() + (isStateMessage() ? msg.length : 0);
+    }
+
+    /**
+     * Writes the header (see {@link #getHeaderLength()}) in the wire format of
+     * {@link #toDataOutput(DataOutput)}; the payload can follow with
+     * {@link #getPayloadBuffer()} as a separate buffer of a gathering write.
+     *
+     * @param dst receives the header; at least {@link #getHeaderLength()} bytes must remain
+     */
+    public void writeHeader(final ByteBuffer dst) {
+        if (fragments != null) {
+            throw new IllegalStateException("a fragmented message is written fragment by fragment");
+        }
+        dst.putInt(flags.toInt());
+        dst.putLong(id);
+        if (isStateHeartbeat()) {
+            // nothing to do
+        } else if (isStateMessage()) {
+            dst.putInt(uncompressedSize);
+            dst.putInt(msg.length);
+            if (isFragment()) {
+                dst.putInt(totalSize);
+                dst.putInt(fragmentOffset);
+            }
+            if (hasChannel()) {
+                dst.putInt(channel);
+                dst.putLong(channelSequence);
+            }
+        } else if (isStateAcknowledged()) {
+            dst.putInt(acknowledged.size());
+            for (long l : acknowledged) {
+                dst.putLong(l);
+            }
+        } else if (isStateGapReport()) {
+            dst.putInt(ranges.length / 2);
+            for (long l : ranges) {
+                dst.putLong(l);
+            }
+        } else if (isStateAcknowledgedRanges()) {
+            dst.putInt(encodedRanges.length);
+            dst.put(encodedRanges);
         } else {
             throw new IllegalStateException();
         }
     }
 
+    /**
+     * Writes the whole frame in the wire format of {@link #toDataOutput(DataOutput)}.
+     *
+     * @param dst receives the frame; at least {@link #getFrameLength()} bytes must remain
+     */
+    public void toByteBuffer(final ByteBuffer dst) {
+        if (fragments != null) {
+            for (final BinaryMessage fragment : fragments) {
+                fragment.toByteBuffer(dst);
+            }
+            return;
+        }
+        writeHeader(dst);
+        if (isStateMessage()) {
+            dst.put(msg);
+        }
+    }
+
+    /**
+     * @return a read-only view of the (possibly compressed) payload, without copying it
+     * @throws IllegalStateException when this is not a message-state frame
+     */
+    public ByteBuffer getPayloadBuffer() {
+        if (!isStateMessage() || fragments != null) {
+            throw new IllegalStateException();
+        }
+        return ByteBuffer.wrap(msg).asReadOnlyBuffer();
+    }
+
+    /**
+     * Creates a message-state frame from decoded wire fields; for
+     * {@link BinaryMessageDecoder}.
+     */
+    static BinaryMessage createMessage(final long id, final byte[] msg,
+        final int uncompressedSize, final BinaryMessageFlags flags) {
+        return createMessage(id, msg, uncompressedSize, flags, 0, 0);
+    }
+
+    /**
+     * Creates a message-state frame from decoded wire fields; for
+     * {@link BinaryMessageDecoder} and {@link FragmentAssembler}.
+     *
+     * @param fragmentOffset see {@link #getFragmentOffset()}, ignored unless the flags mark
+     * a fragment
+     * @param totalSize see {@link #getFragmentTotalSize()}, ignored unless the flags mark a
+     * fragment
+     */
+    static BinaryMessage createMessage(final long id, final byte[] msg,
+        final int uncompressedSize, final BinaryMessageFlags flags, final int fragmentOffset,
+        final int totalSize) {
+        return createMessage(id, msg, uncompressedSize, flags, fragmentOffset, totalSize, 0, 0);
+    }
+
+    /**
+     * Creates a message-state frame from decoded wire fields; for
+     * {@link BinaryMessageDecoder} and {@link FragmentAssembler}.
+     *
+     * @param fragmentOffset see {@link #getFragmentOffset()}, ignored unless the flags mark
+     * a fragment
+     * @param totalSize see {@link #getFragmentTotalSize()}, ignored unless the flags mark a
+     * fragment
+     * @param channel see {@link #getChannel()}, ignored unless the flags mark a channel
+     * @param channelSequence see {@link #getChannelSequence()}, ignored unless the flags mark
+     * a channel
+     */
+    static BinaryMessage createMessage(final long id, final byte[] msg,
+        final int uncompressedSize, final BinaryMessageFlags flags, final int fragmentOffset,
+        final int totalSize, final int channel, final long channelSequence) {
+        final Builder builder = new Builder(id, flags).payload(msg, uncompressedSize);
+        if (flags.isFragment()) {
+            builder.fragment(fragmentOffset, totalSize);
+        }
+        if (flags.hasChannel()) {
+            builder.channel(channel, channelSequence);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Validates the wire fields of a fragment: the message it belongs to is bounded like a
+     * payload, and the fragment lies within it.
+     *
+     * @throws IOException if the fields are corrupt or out of bound
+     */
+    static void checkFragment(final int uncompressedSize, final int totalSize,
+        final int fragmentOffset, final int maxPayloadLength) throws IOException {
+        if (totalSize < 0 || totalSize > maxPayloadLength || fragmentOffset < 0
+            || fragmentOffset > totalSize || uncompressedSize > totalSize - fragmentOffset) {
+            throw new IOException("corrupt frame: fragment " + fragmentOffset + "+"
+                + uncompressedSize + " of " + totalSize + " bytes (maxPayloadLength "
+                + maxPayloadLength + ")");
+        }
+    }
+
+    /**
+     * Validates the wire fields of a channel message.
+     *
+     * @throws IOException unless the channel is below
+     * {@link net.ladenthin.jackpot.configuration.CTransceiver#MAX_CHANNELS} and the sequence
+     * not negative
+     */
+    static void checkChannel(final int channel, final long channelSequence) throws IOException {
+        if (channel < 0 || channel >= CTransceiver.MAX_CHANNELS || channelSequence < 0) {
+            throw new IOException("corrupt frame: channel " + channel + " sequence "
+                + channelSequence);
+        }
+    }
+
+    /**
+     * The length of the fields between the message header and the payload: the sizes, the
+     * fragment position of a fragment and the channel of a channel message. Unit: [bytes].
+     */
+    private static int messageFieldsLength(final BinaryMessageFlags flags) {
+        return (flags.isFragment() ? 4 : 2) * Integer.BYTES
+            + (flags.hasChannel() ? Integer.BYTES + Long.BYTES : 0);
+    }
+
     @Override
     public BinaryMessage fromDataInput(DataInput dIn) throws IOException {
         throw new RuntimeException("Use the Java8 method");
@@ -346,6 +1250,31 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
                 acknowledged.add(dIn.readLong());
             }
             return createAcknowledged(id, acknowledged);
+        } else if (bmf.isGapReport()) {
+            final int count = dIn.readInt();
+            /**
+             * See above: a corrupt or oversized range count fails with an IOException before
+             * anything is allocated. Each range occupies sixteen bytes on the wire.
+             */
+            if (count < 0 || count > maxGapReportRanges(maxPayloadLength)) {
+                throw new IOException("corrupt frame: gap report range count " + count);
+            }
+            final long[] receivedRanges = new long[2 * count];
+            for (int i = 0; i < receivedRanges.length; ++i) {
+                receivedRanges[i] = dIn.readLong();
+            }
+            return createGapReport(id, receivedRanges);
+        } else if (bmf.isAcknowledgedRanges()) {
+            final int bodyLength = dIn.readInt();
+            /**
+             * See above: the body length is bounded before the body is allocated.
+             */
+            if (bodyLength < 0 || bodyLength > maxPayloadLength) {
+                throw new IOException("corrupt frame: acknowledged ranges length " + bodyLength);
+            }
+            final byte[] encoded = new byte[bodyLength];
+            dIn.readFully(encoded);
+            return decodeAcknowledgedRanges(id, encoded);
         } else {
             Transceiver.debugLog("readFromDataInput");
             // read the msg
@@ -372,16 +1301,105 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
                 throw new IOException("frame exceeds maxPayloadLength " + maxPayloadLength
                     + " (uncompressedSize=" + uncompressedSize + ", msgLength=" + msgLength + ")");
             }
+            int totalSize = 0;
+            int fragmentOffset = 0;
+            if (bmf.isFragment()) {
+                totalSize = dIn.readInt();
+                fragmentOffset = dIn.readInt();
+                checkFragment(uncompressedSize, totalSize, fragmentOffset, maxPayloadLength);
+            }
+            int channel = 0;
+            long channelSequence = 0;
+            if (bmf.hasChannel()) {
+                channel = dIn.readInt();
+                channelSequence = dIn.readLong();
+                checkChannel(channel, channelSequence);
+            }
             final byte[] msg = new byte[msgLength];
             dIn.readFully(msg);
             Transceiver.debugLog("din.readFully(msg); finished");
 
             // construct a new BoxedByteMessage
-            return new BinaryMessage(id, msg, uncompressedSize, bmf.isLz4Used(), bmf.isGzipUsed(),
-                null, State.MESSAGE);
+            return createMessage(id, msg, uncompressedSize, bmf, fragmentOffset, totalSize, channel,
+                channelSequence);
+        }
+    }
+
+    /**
+     * The total length of the frame starting at the position of the buffer, determined from
+     * its header without consuming anything. A non-blocking reader has to know whether a
+     * frame is complete before it can hand it to {@link #fromDataInputJava8(DataInput, int)}.
+     *
+     * @param buffer the received bytes, readable from its position to its limit
+     * @param maxPayloadLength the same bound as for {@link #fromDataInputJava8(DataInput, int)}.
+     * Unit: [bytes].
+     * @return the frame length (possibly more than currently buffered), or {@code -1} if not
+     * even the length-determining header is buffered yet. Unit: [bytes].
+     * @throws IOException if the header claims a negative or an out-of-bound length
+     */
+    public static int frameLength(final ByteBuffer buffer, final int maxPayloadLength)
+        throws IOException {
+        final int position = buffer.position();
+        final int headerLength = Integer.BYTES + Long.BYTES;
+        if (buffer.remaining() < headerLength) {
+            return -1;
+        }
+        final BinaryMessageFlags bmf = BinaryMessageFlags.fromInt(buffer.getInt(position));
+        if (bmf.isHeartbeat()) {
+            return headerLength;
+        } else if (bmf.isAcknowledged()) {
+            if (buffer.remaining() < headerLength + Integer.BYTES) {
+                return -1;
+            }
+            final int size = buffer.getInt(position + headerLength);
+            if (size < 0 || size > maxPayloadLength / Long.BYTES) {
+                throw new IOException("corrupt frame: acknowledged count " + size);
+            }
+            return headerLength + Integer.BYTES + size * Long.BYTES;
+        } else if (bmf.isGapReport()) {
+            if (buffer.remaining() < headerLength + Integer.BYTES) {
+                return -1;
+            }
+            final int count = buffer.getInt(position + headerLength);
+            if (count < 0 || count > maxGapReportRanges(maxPayloadLength)) {
+                throw new IOException("corrupt frame: gap report range count " + count);
+            }
+            return headerLength + Integer.BYTES + count * 2 * Long.BYTES;
+        } else if (bmf.isAcknowledgedRanges()) {
+            if (buffer.remaining() < headerLength + Integer.BYTES) {
+                return -1;
+            }
+            final int bodyLength = buffer.getInt(position + headerLength);
+            if (bodyLength < 0 || bodyLength > maxPayloadLength
+                || bodyLength > Integer.MAX_VALUE - headerLength - Integer.BYTES) {
+                throw new IOException("corrupt frame: acknowledged ranges length " + bodyLength);
+            }
+            return headerLength + Integer.BYTES + bodyLength;
+        } else {
+            /**
+             * A fragment carries the total size and its offset after the payload length, a
+             * channel message its channel and sequence after those.
+             */
+            final int fieldsLength = messageFieldsLength(bmf);
+            if (buffer.remaining() < headerLength + fieldsLength) {
+                return -1;
+            }
+            final int msgLength = buffer.getInt(position + headerLength + Integer.BYTES);
+            if (msgLength < 0 || msgLength > maxPayloadLength
+                || msgLength > Integer.MAX_VALUE - headerLength - fieldsLength) {
+                throw new IOException("corrupt frame: payload length " + msgLength);
+            }
+            return headerLength + fieldsLength + msgLength;
         }
     }
 
+    /**
+     * The most ranges a gap report may carry under the given payload bound.
+     */
+    static int maxGapReportRanges(final int maxPayloadLength) {
+        return maxPayloadLength / (2 * Long.BYTES);
+    }
+
     @Override
     public int compareTo(BinaryMessage o) {
         return Long.compare(id, o.id);
@@ -395,8 +1413,14 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
         result = prime * result + (int) (id ^ (id >>> 32));
         result = prime * result + Arrays.hashCode(msg);
         result = prime * result + ((acknowledged == null) ? 0 : acknowledged.hashCode());
+        result = prime * result + Arrays.hashCode(ranges);
         result = prime * result + ((state == null) ? 0 : state.hashCode());
         result = prime * result + uncompressedSize;
+        result = prime * result + fragmentOffset;
+        result = prime * result + totalSize;
+        result = prime * result + Arrays.hashCode(fragments);
+        result = prime * result + channel;
+        result = prime * result + (int) (channelSequence ^ (channelSequence >>> 32));
         return result;
     }
 
@@ -423,10 +1447,22 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
                 return false;
         } else if (!acknowledged.equals(other.acknowledged))
             return false;
+        if (!Arrays.equals(ranges, other.ranges))
+            return false;
         if (state != other.state)
             return false;
         if (uncompressedSize != other.uncompressedSize)
             return false;
+        if (fragmentOffset != other.fragmentOffset)
+            return false;
+        if (totalSize != other.totalSize)
+            return false;
+        if (!Arrays.equals(fragments, other.fragments))
+            return false;
+        if (channel != other.channel)
+            return false;
+        if (channelSequence != other.channelSequence)
+            return false;
         return true;
     }
 
@@ -438,7 +1474,10 @@ public final class BinaryMessage implements Comparable<BinaryMessage>,
     public String toString() {
         return "BinaryMessage [state=" + state + ", id=" + id + ", msg=" + Arrays.hashCode(msg)
             + ", uncompressedSize=" + uncompressedSize + ", flags=" + flags + ", acknowledged="
-            + acknowledged + "]";
+            + acknowledged + ", ranges=" + Arrays.toString(ranges) + ", fragmentOffset="
+            + fragmentOffset + ", totalSize=" + totalSize + ", fragments="
+            + (fragments == null ? null : fragments.length) + ", channel=" + channel
+            + ", channelSequence=" + channelSequence + "]";
     }
 
 }
@@ -0,0 +1,195 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes {@link BinaryMessage} frames from {@link ByteBuffer}s as they arrive, the
+ * counterpart of {@link BinaryMessage#toByteBuffer(ByteBuffer)}. The payload is copied once,
+ * straight from the (typically direct) receive buffer into the array the message keeps — no
+ * stream wrappers, no intermediate copies. A frame larger than the receive buffer is filled
+ * across several calls, so the receive buffer never has to grow.
+ * <p>
+ * Not thread-safe: one decoder per connection, used by the thread reading it.
+ */
+public final class BinaryMessageDecoder {
+
+    private final int maxPayloadLength;
+
+    /**
+     * The flags of the frame in progress; {@code null} between frames.
+     */
+    private BinaryMessageFlags flags;
+
+    private long id;
+
+    private int uncompressedSize;
+
+    /**
+     * The total size and the offset of the fragment in progress, see
+     * {@link BinaryMessage#isFragment()}.
+     */
+    private int totalSize;
+    private int fragmentOffset;
+
+    /**
+     * The channel and the channel sequence of the message in progress, see
+     * {@link BinaryMessage#hasChannel()}.
+     */
+    private int channel;
+    private long channelSequence;
+
+    /**
+     * The payload of the message frame (or the body of the range-encoded acknowledgements)
+     * in progress and how much of it was received.
+     */
+    private byte[] payload;
+    private int payloadFilled;
+
+    /**
+     * The ids of the acknowledged frame in progress and how many are still missing.
+     */
+    private List<Long> acknowledged;
+    private int acknowledgedMissing;
+
+    /**
+     * The range bounds of the gap report frame in progress and how many were received.
+     */
+    private long[] receivedRanges;
+    private int receivedRangesFilled;
+
+    /**
+     * @param maxPayloadLength the bound for wire-provided lengths, see
+     * {@link BinaryMessage#fromDataInputJava8(java.io.DataInput, int)}. Unit: [bytes].
+     */
+    public BinaryMessageDecoder(final int maxPayloadLength) {
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    /**
+     * Consumes bytes of the next frame from the buffer.
+     *
+     * @param src the received bytes, readable from its position to its limit; a header that
+     * is not complete yet is left unconsumed (compact the buffer and call again with more)
+     * @return the completed frame, or {@code null} if more bytes are needed
+     * @throws IOException if the frame is corrupt or out of bound — the connection cannot be
+     * resynchronized and has to be dropped
+     */
+    public BinaryMessage decode(final ByteBuffer src) throws IOException {
+        if (flags == null) {
+            if (BinaryMessage.frameLength(src, maxPayloadLength) < 0) {
+                return null;
+            }
+            flags = BinaryMessageFlags.fromInt(src.getInt());
+            id = src.getLong();
+            if (flags.isHeartbeat()) {
+                flags = null;
+                return BinaryMessage.createHeartbeat(id);
+            } else if (flags.isAcknowledged()) {
+                acknowledgedMissing = src.getInt();
+                acknowledged = new ArrayList<>(acknowledgedMissing);
+            } else if (flags.isGapReport()) {
+                /**
+                 * The range count was validated by frameLength.
+                 */
+                receivedRanges = new long[2 * src.getInt()];
+                receivedRangesFilled = 0;
+            } else if (flags.isAcknowledgedRanges()) {
+                /**
+                 * The body length was validated by frameLength; the body is filled like a
+                 * payload and decoded once complete.
+                 */
+                payload = new byte[src.getInt()];
+                payloadFilled = 0;
+            } else {
+                uncompressedSize = src.getInt();
+                final int msgLength = src.getInt();
+                /**
+                 * The payload length was validated by frameLength; the uncompressed size is
+                 * the allocation target of the decompression and bounded the same way.
+                 */
+                if (uncompressedSize < 0 || uncompressedSize > maxPayloadLength) {
+                    flags = null;
+                    throw new IOException("frame exceeds maxPayloadLength " + maxPayloadLength
+                        + " (uncompressedSize=" + uncompressedSize + ")");
+                }
+                totalSize = 0;
+                fragmentOffset = 0;
+                if (flags.isFragment()) {
+                    totalSize = src.getInt();
+                    fragmentOffset = src.getInt();
+                    try {
+                        BinaryMessage.checkFragment(uncompressedSize, totalSize, fragmentOffset,
+                            maxPayloadLength);
+                    } catch (IOException e) {
+                        flags = null;
+                        throw e;
+                    }
+                }
+                channel = 0;
+                channelSequence = 0;
+                if (flags.hasChannel()) {
+                    channel = src.getInt();
+                    channelSequence = src.getLong();
+                    try {
+                        BinaryMessage.checkChannel(channel, channelSequence);
+                    } catch (IOException e) {
+                        flags = null;
+                        throw e;
+                    }
+                }
+                payload = new byte[msgLength];
+                payloadFilled = 0;
+            }
+        }
+
+        if (acknowledged != null) {
+            while (acknowledgedMissing > 0 && src.remaining() >= Long.BYTES) {
+                acknowledged.add(src.getLong());
+                --acknowledgedMissing;
+            }
+            if (acknowledgedMissing > 0) {
+                return null;
+            }
+            final BinaryMessage bm = BinaryMessage.createAcknowledged(id, acknowledged);
+            acknowledged = null;
+            flags = null;
+            return bm;
+        }
+
+        if (receivedRanges != null) {
+            while (receivedRangesFilled < receivedRanges.length && src.remaining() >= Long.BYTES) {
+                receivedRanges[receivedRangesFilled++] = src.getLong();
+            }
+            if (receivedRangesFilled < receivedRanges.length) {
+                return null;
+            }
+            final BinaryMessage bm = BinaryMessage.createGapReport(id, receivedRanges);
+            receivedRanges = null;
+            flags = null;
+            return bm;
+        }
+
+        final int n = Math.min(src.remaining(), payload.length - payloadFilled);
+        src.get(payload, payloadFilled, n);
+        payloadFilled += n;
+        if (payloadFilled < payload.length) {
+            return null;
+        }
+        final byte[] completed = payload;
+        final BinaryMessageFlags completedFlags = flags;
+        payload = null;
+        flags = null;
+        if (completedFlags.isAcknowledgedRanges()) {
+            return BinaryMessage.decodeAcknowledgedRanges(id, completed);
+        }
+        return BinaryMessage.createMessage(id, completed, uncompressedSize, completedFlags,
+            fragmentOffset, totalSize, channel, channelSequence);
+    }
+}
@@ -18,19 +18,43 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
     private static final byte BIT_GZIPUSED = 2;
     private static final byte BIT_HEARTBEAT = 4;
     private static final byte BIT_ACKNOWLEDGED = 8;
+    private static final byte BIT_GAP_REPORT = 16;
+    private static final byte BIT_ACKNOWLEDGED_RANGES = 32;
+    private static final byte BIT_DEFLATE_STREAMED = 64;
+    /**
+     * Beyond the byte range, the flags are an int on the wire.
+     */
+    private static final int BIT_DICTIONARY_USED = 128;
+    private static final int BIT_FRAGMENT = 256;
+    private static final int BIT_STREAM_CHUNK = 512;
+    private static final int BIT_CHANNEL = 1024;
 
     private final boolean lz4Used;
     private final boolean gzipUsed;
     private final boolean heartbeat;
     private final boolean acknowledged;
+    private final boolean gapReport;
+    private final boolean acknowledgedRanges;
+    private final boolean deflateStreamed;
+    private final boolean dictionaryUsed;
+    private final boolean fragment;
+    private final boolean streamChunk;
+    private final boolean channel;
 
-    private final static BinaryMessageFlags fromInt(int flags) {
+    final static BinaryMessageFlags fromInt(int flags) {
         return new BinaryMessageFlags((flags & BIT_LZ4USED) == BIT_LZ4USED,
             (flags & BIT_GZIPUSED) == BIT_GZIPUSED, (flags & BIT_HEARTBEAT) == BIT_HEARTBEAT,
-            (flags & BIT_ACKNOWLEDGED) == BIT_ACKNOWLEDGED);
+            (flags & BIT_ACKNOWLEDGED) == BIT_ACKNOWLEDGED,
+            (flags & BIT_GAP_REPORT) == BIT_GAP_REPORT,
+            (flags & BIT_ACKNOWLEDGED_RANGES) == BIT_ACKNOWLEDGED_RANGES,
+            (flags & BIT_DEFLATE_STREAMED) == BIT_DEFLATE_STREAMED,
+            (flags & BIT_DICTIONARY_USED) == BIT_DICTIONARY_USED,
+            (flags & BIT_FRAGMENT) == BIT_FRAGMENT,
+            (flags & BIT_STREAM_CHUNK) == BIT_STREAM_CHUNK,
+            (flags & BIT_CHANNEL) == BIT_CHANNEL);
     }
 
-    private final int toInt() {
+    final int toInt() {
         int flags = 0;
 
         if (lz4Used) {
@@ -48,6 +72,34 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
         if (acknowledged) {
             flags = (flags | BIT_ACKNOWLEDGED);
         }
+
+        if (gapReport) {
+            flags = (flags | BIT_GAP_REPORT);
+        }
+
+        if (acknowledgedRanges) {
+            flags = (flags | BIT_ACKNOWLEDGED_RANGES);
+        }
+
+        if (deflateStreamed) {
+            flags = (flags | BIT_DEFLATE_STREAMED);
+        }
+
+        if (dictionaryUsed) {
+            flags = (flags | BIT_DICTIONARY_USED);
+        }
+
+        if (fragment) {
+            flags = (flags | BIT_FRAGMENT);
+        }
+
+        if (streamChunk) {
+            flags = (flags | BIT_STREAM_CHUNK);
+        }
+
+        if (channel) {
+            flags = (flags | BIT_CHANNEL);
+        }
         return flags;
     }
 
@@ -59,6 +111,131 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
      */
     public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
         final boolean heartbeat, final boolean acknowledged) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, gapReport, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     * @param acknowledgedRanges
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport,
+        final boolean acknowledgedRanges) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, gapReport, acknowledgedRanges, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     * @param acknowledgedRanges
+     * @param deflateStreamed the payload is a part of the sender's deflate stream, see
+     * {@link StreamingDeflater}
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport,
+        final boolean acknowledgedRanges, final boolean deflateStreamed) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, gapReport, acknowledgedRanges,
+            deflateStreamed, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     * @param acknowledgedRanges
+     * @param deflateStreamed
+     * @param dictionaryUsed the payload is deflated with a preset dictionary, see
+     * {@link DictionaryCompression}
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport,
+        final boolean acknowledgedRanges, final boolean deflateStreamed,
+        final boolean dictionaryUsed) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, gapReport, acknowledgedRanges,
+            deflateStreamed, dictionaryUsed, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     * @param acknowledgedRanges
+     * @param deflateStreamed
+     * @param dictionaryUsed
+     * @param fragment the payload is one fragment of a large message, compressed on its own;
+     * the total size and the offset follow the header, see {@link BinaryMessage#isFragment()}
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport,
+        final boolean acknowledgedRanges, final boolean deflateStreamed,
+        final boolean dictionaryUsed, final boolean fragment) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, gapReport, acknowledgedRanges,
+            deflateStreamed, dictionaryUsed, fragment, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     * @param acknowledgedRanges
+     * @param deflateStreamed
+     * @param dictionaryUsed
+     * @param fragment
+     * @param streamChunk the payload is a chunk of a byte stream, not a serialized message;
+     * see {@link BinaryMessage#isStreamChunk()}
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport,
+        final boolean acknowledgedRanges, final boolean deflateStreamed,
+        final boolean dictionaryUsed, final boolean fragment, final boolean streamChunk) {
+        this(lz4Used, gzipUsed, heartbeat, acknowledged, gapReport, acknowledgedRanges,
+            deflateStreamed, dictionaryUsed, fragment, streamChunk, false);
+    }
+
+    /**
+     * @param lz4Used
+     * @param gzipUsed
+     * @param heartbeat
+     * @param acknowledged
+     * @param gapReport
+     * @param acknowledgedRanges
+     * @param deflateStreamed
+     * @param dictionaryUsed
+     * @param fragment
+     * @param streamChunk
+     * @param channel the message belongs to a logical channel; the channel and its sequence
+     * number follow the header, see {@link BinaryMessage#hasChannel()}
+     */
+    public BinaryMessageFlags(final boolean lz4Used, final boolean gzipUsed,
+        final boolean heartbeat, final boolean acknowledged, final boolean gapReport,
+        final boolean acknowledgedRanges, final boolean deflateStreamed,
+        final boolean dictionaryUsed, final boolean fragment, final boolean streamChunk,
+        final boolean channel) {
         /*
          * allow only one compression
          * logical NAND:
@@ -94,10 +271,56 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
         // signalMessagesReceived is also exclusive
         assert (!(acknowledged && (heartbeat || lz4Used || gzipUsed))) : "illegal flag combination: heartbeat used and compression set";
 
+        // the gap report is exclusive too
+        assert (!(gapReport && (acknowledged || heartbeat || lz4Used || gzipUsed))) : "illegal flag combination: gap report and another state or compression set";
+
+        // so are range-encoded acknowledgements
+        assert (!(acknowledgedRanges && (gapReport || acknowledged || heartbeat || lz4Used || gzipUsed))) : "illegal flag combination: acknowledged ranges and another state or compression set";
+
+        // the streamed deflate is a compression of a message: neither another compression nor another state
+        assert (!(deflateStreamed && (acknowledgedRanges || gapReport || acknowledged || heartbeat || lz4Used || gzipUsed))) : "illegal flag combination: deflate streamed and another state or compression set";
+
+        // as is the dictionary compression
+        assert (!(dictionaryUsed && (deflateStreamed || acknowledgedRanges || gapReport || acknowledged || heartbeat || lz4Used || gzipUsed))) : "illegal flag combination: dictionary used and another state or compression set";
+
+        // a fragment is a part of a message, never of a deflate stream
+        assert (!(fragment && (deflateStreamed || acknowledgedRanges || gapReport || acknowledged || heartbeat))) : "illegal flag combination: fragment and deflate streamed or another state set";
+
+        // a stream chunk is a message, bounded by the chunk length and never fragmented
+        assert (!(streamChunk && (fragment || acknowledgedRanges || gapReport || acknowledged || heartbeat))) : "illegal flag combination: stream chunk and fragment or another state set";
+
+        // a channel orders messages on their own, never the parts of a deflate stream
+        assert (!(channel && (deflateStreamed || acknowledgedRanges || gapReport || acknowledged || heartbeat))) : "illegal flag combination: channel and deflate streamed or another state set";
+
         this.lz4Used = lz4Used;
         this.gzipUsed = gzipUsed;
         this.heartbeat = heartbeat;
         this.acknowledged = acknowledged;
+        this.gapReport = gapReport;
+        this.acknowledgedRanges = acknowledgedRanges;
+        this.deflateStreamed = deflateStreamed;
+        this.dictionaryUsed = dictionaryUsed;
+        this.fragment = fragment;
+        this.streamChunk = streamChunk;
+        this.channel = channel;
+    }
+
+    /**
+     * @return these flags in a logical channel
+     */
+    final BinaryMessageFlags withChannel() {
+        return fromInt(toInt() | BIT_CHANNEL);
+    }
+
+    /**
+     * @return these flags for another payload: without a compression, or part of the
+     * deflate stream if {@code deflateStreamed}
+     */
+    final BinaryMessageFlags withDeflateStreamed(final boolean deflateStreamed) {
+        final int withoutCompression = toInt()
+            & ~(BIT_LZ4USED | BIT_GZIPUSED | BIT_DEFLATE_STREAMED | BIT_DICTIONARY_USED);
+        return fromInt(deflateStreamed
+            ? withoutCompression | BIT_DEFLATE_STREAMED : withoutCompression);
     }
 
     public final boolean isLz4Used() {
@@ -116,6 +339,34 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
         return acknowledged;
     }
 
+    public final boolean isGapReport() {
+        return gapReport;
+    }
+
+    public final boolean isAcknowledgedRanges() {
+        return acknowledgedRanges;
+    }
+
+    public final boolean isDeflateStreamed() {
+        return deflateStreamed;
+    }
+
+    public final boolean isDictionaryUsed() {
+        return dictionaryUsed;
+    }
+
+    public final boolean isFragment() {
+        return fragment;
+    }
+
+    public final boolean isStreamChunk() {
+        return streamChunk;
+    }
+
+    public final boolean hasChannel() {
+        return channel;
+    }
+
     @Override
     public void toDataOutput(DataOutput dOut) throws IOException {
         dOut.writeInt(toInt());
@@ -138,6 +389,13 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
         result = prime * result + (heartbeat ? 1231 : 1237);
         result = prime * result + (lz4Used ? 1231 : 1237);
         result = prime * result + (acknowledged ? 1231 : 1237);
+        result = prime * result + (gapReport ? 1231 : 1237);
+        result = prime * result + (acknowledgedRanges ? 1231 : 1237);
+        result = prime * result + (deflateStreamed ? 1231 : 1237);
+        result = prime * result + (dictionaryUsed ? 1231 : 1237);
+        result = prime * result + (fragment ? 1231 : 1237);
+        result = prime * result + (streamChunk ? 1231 : 1237);
+        result = prime * result + (channel ? 1231 : 1237);
         return result;
     }
 
@@ -158,13 +416,30 @@ public class BinaryMessageFlags implements FromDataInput<BinaryMessageFlags>, To
             return false;
         if (acknowledged != other.acknowledged)
             return false;
+        if (gapReport != other.gapReport)
+            return false;
+        if (acknowledgedRanges != other.acknowledgedRanges)
+            return false;
+        if (deflateStreamed != other.deflateStreamed)
+            return false;
+        if (dictionaryUsed != other.dictionaryUsed)
+            return false;
+        if (fragment != other.fragment)
+            return false;
+        if (streamChunk != other.streamChunk)
+            return false;
+        if (channel != other.channel)
+            return false;
         return true;
     }
 
     @Override
     public String toString() {
         return "BinaryMessageFlags [lz4Used=" + lz4Used + ", gzipUsed=" + gzipUsed + ", heartbeat="
-            + heartbeat + ", acknowledged=" + acknowledged + "]";
+            + heartbeat + ", acknowledged=" + acknowledged + ", gapReport=" + gapReport
+            + ", acknowledgedRanges=" + acknowledgedRanges + ", deflateStreamed=" + deflateStreamed
+            + ", dictionaryUsed=" + dictionaryUsed + ", fragment=" + fragment
+            + ", streamChunk=" + streamChunk + ", channel=" + channel + "]";
     }
 
 }
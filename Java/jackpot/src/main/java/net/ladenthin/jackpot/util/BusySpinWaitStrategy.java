@@ -0,0 +1,22 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+/**
+ * Never parks: the consumer spins until there is something to do and occupies its core
+ * permanently.
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void await(final Waitable waitable) throws InterruptedException {
+        while (!waitable.isReady()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            SpinWait.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import net.ladenthin.jackpot.configuration.CTransceiver;
+
+/**
+ * Tracks the order of the other side's logical channels (see
+ * {@link BinaryMessage#hasChannel()}) on the receiving side: the next sequence number of
+ * every channel, and the messages received ahead of a predecessor of their channel. A
+ * message that is the next of its channel can be delivered before the lower ids of the
+ * other channels arrive; the ones held behind it follow once it is delivered.
+ * <p>
+ * Not thread-safe; the sequencing thread of the
+ * {@link net.ladenthin.jackpot.ReadLayer} only.
+ */
+public final class ChannelSequencer {
+
+    /**
+     * The sequence number of the next message to deliver, by channel.
+     */
+    private final long[] nextSequences = new long[CTransceiver.MAX_CHANNELS];
+
+    /**
+     * The initial ring size of a channel's {@link #held} window; it grows to the span of the
+     * held sequence numbers.
+     */
+    private static final int INITIAL_HELD_CAPACITY = 16;
+
+    /**
+     * The messages held behind a missing predecessor, by channel and keyed by sequence
+     * number — dense like message ids; created with the first held message of a channel.
+     */
+    private final MessageIdWindow<BinaryMessage>[] held;
+
+    @SuppressWarnings("unchecked")
+    public ChannelSequencer() {
+        held = new MessageIdWindow[CTransceiver.MAX_CHANNELS];
+    }
+
+    /**
+     * @param bm a message of a channel
+     * @return whether every predecessor of the message in its channel was delivered
+     */
+    public boolean isNext(final BinaryMessage bm) {
+        return bm.getChannelSequence() == nextSequences[bm.getChannel()];
+    }
+
+    /**
+     * Holds a message until its predecessors are delivered, see {@link #pollNext(int)}.
+     *
+     * @param bm a message of a channel, not the next one
+     */
+    public void hold(final BinaryMessage bm) {
+        MessageIdWindow<BinaryMessage> channel = held[bm.getChannel()];
+        if (channel == null) {
+            channel = new MessageIdWindow<>(INITIAL_HELD_CAPACITY);
+            held[bm.getChannel()] = channel;
+        }
+        channel.put(bm.getChannelSequence(), bm);
+    }
+
+    /**
+     * Records the delivery of a message: its successor is the next of its channel.
+     *
+     * @param bm a delivered message of a channel, held or not
+     */
+    public void delivered(final BinaryMessage bm) {
+        final int channel = bm.getChannel();
+        final long sequence = bm.getChannelSequence();
+        if (held[channel] != null) {
+            held[channel].remove(sequence);
+        }
+        if (sequence >= nextSequences[channel]) {
+            nextSequences[channel] = sequence + 1;
+        }
+    }
+
+    /**
+     * Removes the held message that is the next of its channel now.
+     *
+     * @param channel the channel
+     * @return the message, or {@code null} if it was not received yet
+     */
+    public BinaryMessage pollNext(final int channel) {
+        final MessageIdWindow<BinaryMessage> channelHeld = held[channel];
+        if (channelHeld == null) {
+            return null;
+        }
+        return channelHeld.remove(nextSequences[channel]);
+    }
+
+    /**
+     * @return the number of held messages of every channel
+     */
+    public int heldCount() {
+        int count = 0;
+        for (final MessageIdWindow<BinaryMessage> channel : held) {
+            if (channel != null) {
+                count += channel.size();
+            }
+        }
+        return count;
+    }
+}
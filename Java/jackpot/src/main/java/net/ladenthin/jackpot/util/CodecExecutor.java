@@ -0,0 +1,172 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.ladenthin.jackpot.configuration.CodecExecutorType;
+import net.ladenthin.jackpot.configuration.ThreadType;
+
+/**
+ * The executor of one serialize or deserialize layer (see {@link CodecExecutorType}). A
+ * {@link CodecExecutorType#Shared} instance is a reference on the JVM-wide pool:
+ * {@link #shutdown()} hands the reference back, and the last one stops the pool — a
+ * shutdown leaves no library thread behind.
+ */
+public final class CodecExecutor {
+
+    /**
+     * The default thread count of the bounded pools: one per available processor.
+     * (De)serialization is CPU-bound, so more threads only add contention.
+     */
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * How long an idle pool thread lives before it terminates. Unit: [s].
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static int sharedThreads = DEFAULT_THREADS;
+
+    private static ThreadPoolExecutor shared;
+
+    private static int references;
+
+    /**
+     * Configures the thread count of the shared pool. Takes effect the next time the pool is
+     * started, i.e. call it before the first transceiver selecting
+     * {@link CodecExecutorType#Shared} is created.
+     *
+     * @param sharedThreads the number of pool threads, at least one
+     */
+    public static synchronized void setSharedThreads(final int sharedThreads) {
+        if (sharedThreads < 1) {
+            throw new IllegalArgumentException("sharedThreads must be at least 1: " + sharedThreads);
+        }
+        CodecExecutor.sharedThreads = sharedThreads;
+    }
+
+    public static synchronized int getSharedThreads() {
+        return sharedThreads;
+    }
+
+    /**
+     * @return whether this runtime offers virtual threads (Java 21+)
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * @param type the executor kind
+     * @param threads the bound of a {@link CodecExecutorType#Bounded} pool; {@code <= 0}
+     * selects {@link #DEFAULT_THREADS}
+     * @param namePrefix the prefix of the thread names of a per-layer executor
+     */
+    public static CodecExecutor create(final CodecExecutorType type, final int threads,
+        final String namePrefix) {
+        switch (type) {
+        case Shared:
+            return new CodecExecutor(acquireShared(), true);
+        case Virtual:
+            if (isVirtualThreadsSupported()) {
+                return new CodecExecutor(VirtualThreads.newThreadPerTaskExecutor(
+                    new NamedJackpotThreadFactory(namePrefix, ThreadType.Virtual)), false);
+            }
+            return new CodecExecutor(newBoundedPool(threads, new NamedJackpotThreadFactory(namePrefix)), false);
+        default:
+        case Bounded:
+            return new CodecExecutor(newBoundedPool(threads, new NamedJackpotThreadFactory(namePrefix)), false);
+        }
+    }
+
+    private static ThreadPoolExecutor newBoundedPool(final int threads, final ThreadFactory threadFactory) {
+        final int poolSize = threads > 0 ? threads : DEFAULT_THREADS;
+        /**
+         * Unbounded queue: the pool bounds the threads, while the backlog is bounded by the
+         * send backpressure on one side and by the connection on the other. A rejecting queue
+         * would drop a message the layer already promised to deliver.
+         */
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static synchronized ExecutorService acquireShared() {
+        if (shared == null) {
+            shared = newBoundedPool(sharedThreads, new NamedJackpotThreadFactory("jackpot-CodecExecutor-shared"));
+        }
+        ++references;
+        return shared;
+    }
+
+    private static synchronized void releaseShared(final ExecutorService executor) {
+        if (executor != shared) {
+            return;
+        }
+        if (--references == 0) {
+            shared.shutdown();
+            shared = null;
+        }
+    }
+
+    private final ExecutorService executor;
+
+    private final boolean sharedReference;
+
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    private CodecExecutor(final ExecutorService executor, final boolean sharedReference) {
+        this.executor = executor;
+        this.sharedReference = sharedReference;
+    }
+
+    /**
+     * @throws RejectedExecutionException after {@link #shutdown()}
+     */
+    @ConcurrentMethod
+    public <V> Future<V> submit(final Callable<V> task) {
+        if (shutdown.get()) {
+            throw new RejectedExecutionException("CodecExecutor is shut down");
+        }
+        return executor.submit(task);
+    }
+
+    /**
+     * @throws RejectedExecutionException after {@link #shutdown()}
+     */
+    @ConcurrentMethod
+    public void execute(final Runnable task) {
+        if (shutdown.get()) {
+            throw new RejectedExecutionException("CodecExecutor is shut down");
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Stops a per-layer executor, or hands back the reference on the shared pool. Tasks
+     * already submitted still run. Idempotent.
+     */
+    @ConcurrentMethod
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+        if (sharedReference) {
+            releaseShared(executor);
+        } else {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.ladenthin.jackpot.configuration.CompressionDictionary;
+
+/**
+ * The payload format of the dictionary compression (see
+ * {@link net.ladenthin.jackpot.configuration.SettingsCompression#enableDictionary}): the
+ * dictionary id as an unsigned two-byte big-endian value, followed by a raw deflate stream
+ * (no zlib header and checksum, they would cost six bytes per message) that was preset with
+ * the dictionary.
+ */
+public final class DictionaryCompression {
+
+    /**
+     * The length of the dictionary id before the deflate stream. Unit: [bytes].
+     */
+    public static final int DICTIONARY_ID_LENGTH = 2;
+
+    /**
+     * The end of the stream and a partly filled last byte. Unit: [bytes].
+     */
+    private static final int FINISH_OVERHEAD = 16;
+
+    private DictionaryCompression() {
+    }
+
+    /**
+     * @param msg the uncompressed bytes
+     * @param length the number of bytes of {@code msg} to compress. Unit: [bytes].
+     * @param deflaterLevel the {@link Deflater} level
+     * @param dictionary the preset dictionary
+     * @return the dictionary id followed by the deflated bytes
+     */
+    public static byte[] compress(final byte[] msg, final int length, final int deflaterLevel,
+        final CompressionDictionary dictionary) {
+        return compress(msg, 0, length, deflaterLevel, dictionary);
+    }
+
+    /**
+     * @param msg the uncompressed bytes
+     * @param offset the first byte of {@code msg} to compress
+     * @param length the number of bytes of {@code msg} to compress. Unit: [bytes].
+     * @param deflaterLevel the {@link Deflater} level
+     * @param dictionary the preset dictionary
+     * @return the dictionary id followed by the deflated bytes
+     */
+    public static byte[] compress(final byte[] msg, final int offset, final int length,
+        final int deflaterLevel, final CompressionDictionary dictionary) {
+        final Deflater deflater = new Deflater(deflaterLevel, true);
+        try {
+            dictionary.applyTo(deflater);
+            deflater.setInput(msg, offset, length);
+            deflater.finish();
+            byte[] compressed = new byte[DICTIONARY_ID_LENGTH + length + FINISH_OVERHEAD];
+            compressed[0] = (byte) (dictionary.id >>> 8);
+            compressed[1] = (byte) dictionary.id;
+            int compressedLength = DICTIONARY_ID_LENGTH;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength,
+                    compressed.length - compressedLength);
+            }
+            return Arrays.copyOf(compressed, compressedLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param payload the dictionary id followed by the deflated bytes
+     * @param uncompressedSize the announced uncompressed size; the restored bytes must match
+     * it exactly. Unit: [bytes].
+     * @param dictionaries the known dictionaries by id
+     * @return the restored bytes
+     * @throws IOException if the dictionary is unknown or the payload is corrupt or does not
+     * restore to {@code uncompressedSize}
+     */
+    public static byte[] decompress(final byte[] payload, final int uncompressedSize,
+        final Map<Integer, CompressionDictionary> dictionaries) throws IOException {
+        if (payload.length < DICTIONARY_ID_LENGTH) {
+            throw new IOException("corrupt dictionary payload: " + payload.length + " bytes");
+        }
+        final int dictionaryId = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+        final CompressionDictionary dictionary = dictionaries.get(dictionaryId);
+        if (dictionary == null) {
+            throw new IOException("unknown dictionary id " + dictionaryId);
+        }
+
+        final byte[] restored = new byte[uncompressedSize];
+        final byte[] excess = new byte[1];
+        final Inflater inflater = new Inflater(true);
+        try {
+            dictionary.applyTo(inflater);
+            inflater.setInput(payload, DICTIONARY_ID_LENGTH, payload.length - DICTIONARY_ID_LENGTH);
+            int length = 0;
+            while (!inflater.finished()) {
+                final int inflated = length < restored.length
+                    ? inflater.inflate(restored, length, restored.length - length)
+                    : inflater.inflate(excess);
+                if (length == restored.length && inflated > 0) {
+                    throw new IOException("dictionary payload exceeds " + uncompressedSize + " bytes");
+                }
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated dictionary payload");
+                }
+                length += inflated;
+            }
+            if (length != restored.length) {
+                throw new IOException("dictionary payload restores to " + length + " instead of "
+                    + uncompressedSize + " bytes");
+            }
+            return restored;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt dictionary payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
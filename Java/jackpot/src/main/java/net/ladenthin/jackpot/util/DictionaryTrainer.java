@@ -0,0 +1,240 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.ladenthin.jackpot.configuration.CompressionDictionary;
+
+/**
+ * Trains a {@link CompressionDictionary} offline from sample messages (their serialized
+ * bytes), after the cover algorithm of zstd's dictionary builder: the samples are split into
+ * one epoch per segment; of each epoch the segment whose 8-byte substrings occur in the most
+ * samples is taken, and substrings taken once no longer count. The most valuable segments end
+ * up last in the dictionary, the closest distance for the back references.
+ * <p>
+ * Command line: {@code java -cp jackpot.jar net.ladenthin.jackpot.util.DictionaryTrainer
+ * <dictionary size> <output file> <sample file or directory>...}; every file is one sample.
+ */
+public final class DictionaryTrainer {
+
+    /**
+     * The substring length scored; the minimum deflate match is 3 bytes, but 8-byte
+     * substrings avoid accidental matches and fit into a {@code long}. Unit: [bytes].
+     */
+    private static final int D = Long.BYTES;
+
+    /**
+     * The length of a dictionary segment. Unit: [bytes].
+     */
+    public static final int DEFAULT_SEGMENT_LENGTH = 64;
+
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * A segment of the samples and its score, the number of samples sharing its substrings.
+     */
+    private static final class Segment {
+
+        private final int sample;
+        private final int offset;
+        private final long score;
+
+        private Segment(final int sample, final int offset, final long score) {
+            this.sample = sample;
+            this.offset = offset;
+            this.score = score;
+        }
+    }
+
+    /**
+     * @param samples the serialized sample messages
+     * @param dictionaryLength the maximum dictionary length, at most
+     * {@link CompressionDictionary#MAX_LENGTH}. Unit: [bytes].
+     * @return the dictionary bytes; shorter than {@code dictionaryLength} if the samples
+     * share not enough substrings
+     */
+    public static byte[] train(final List<byte[]> samples, final int dictionaryLength) {
+        return train(samples, dictionaryLength, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    /**
+     * @param segmentLength the length of a dictionary segment, at least 8. Unit: [bytes].
+     * @see #train(List, int)
+     */
+    public static byte[] train(final List<byte[]> samples, final int dictionaryLength,
+        final int segmentLength) {
+        if (dictionaryLength < 1 || dictionaryLength > CompressionDictionary.MAX_LENGTH) {
+            throw new IllegalArgumentException("dictionaryLength must be 1 to "
+                + CompressionDictionary.MAX_LENGTH + " but was " + dictionaryLength);
+        }
+        if (segmentLength < D) {
+            throw new IllegalArgumentException("segmentLength must be at least " + D);
+        }
+
+        /**
+         * The number of samples containing a substring.
+         */
+        final Map<Long, Integer> frequencies = new HashMap<>();
+        long totalLength = 0;
+        for (final byte[] sample : samples) {
+            final Set<Long> distinct = new HashSet<>();
+            for (int i = 0; i + D <= sample.length; ++i) {
+                distinct.add(substring(sample, i));
+            }
+            for (final Long substring : distinct) {
+                frequencies.merge(substring, 1, Integer::sum);
+            }
+            totalLength += sample.length;
+        }
+
+        final int epochs = Math.max(1, dictionaryLength / segmentLength);
+        final long epochLength = Math.max(segmentLength, totalLength / epochs);
+        final List<Segment> segments = new ArrayList<>();
+        int sample = 0;
+        int offset = 0;
+        for (int epoch = 0; epoch < epochs && sample < samples.size(); ++epoch) {
+            /**
+             * An epoch covers epochLength sample bytes, whole samples or parts of them.
+             */
+            Segment best = null;
+            long remaining = epochLength;
+            while (remaining > 0 && sample < samples.size()) {
+                final byte[] bytes = samples.get(sample);
+                final int end = (int) Math.min(bytes.length, offset + remaining);
+                final Segment candidate = bestSegment(sample, bytes, offset, end, segmentLength,
+                    frequencies);
+                if (candidate != null && (best == null || candidate.score > best.score)) {
+                    best = candidate;
+                }
+                remaining -= end - offset;
+                if (end == bytes.length) {
+                    ++sample;
+                    offset = 0;
+                } else {
+                    offset = end;
+                }
+            }
+            if (best == null || best.score == 0) {
+                continue;
+            }
+            segments.add(best);
+            /**
+             * Taken substrings no longer count for the following epochs.
+             */
+            final byte[] bytes = samples.get(best.sample);
+            final int segmentEnd = Math.min(bytes.length, best.offset + segmentLength);
+            for (int i = best.offset; i + D <= segmentEnd; ++i) {
+                frequencies.put(substring(bytes, i), 0);
+            }
+        }
+
+        /**
+         * The most valuable segments last; the least valuable are cut off the front.
+         */
+        Collections.sort(segments, (a, b) -> Long.compare(a.score, b.score));
+        final byte[] dictionary = new byte[dictionaryLength];
+        int start = dictionaryLength;
+        for (int i = segments.size() - 1; i >= 0 && start > 0; --i) {
+            final Segment segment = segments.get(i);
+            final byte[] bytes = samples.get(segment.sample);
+            final int length = Math.min(Math.min(segmentLength, bytes.length - segment.offset), start);
+            start -= length;
+            System.arraycopy(bytes, segment.offset + (Math.min(segmentLength,
+                bytes.length - segment.offset) - length), dictionary, start, length);
+        }
+        final byte[] trained = new byte[dictionaryLength - start];
+        System.arraycopy(dictionary, start, trained, 0, trained.length);
+        return trained;
+    }
+
+    /**
+     * The best segment starting in {@code [from, to)} of one sample, by the summed
+     * frequency of its distinct substrings; a sliding window over the start positions.
+     */
+    private static Segment bestSegment(final int sample, final byte[] bytes, final int from,
+        final int to, final int segmentLength, final Map<Long, Integer> frequencies) {
+        if (bytes.length - from < D) {
+            return null;
+        }
+        /**
+         * How often each substring occurs in the current window.
+         */
+        final Map<Long, Integer> window = new HashMap<>();
+        long score = 0;
+        long bestScore = -1;
+        int bestOffset = from;
+        int windowEnd = from;
+        for (int start = from; start < to && start + D <= bytes.length; ++start) {
+            final int lastSubstring = Math.min(start + segmentLength, bytes.length) - D;
+            while (windowEnd <= lastSubstring) {
+                final Long substring = substring(bytes, windowEnd);
+                if (window.merge(substring, 1, Integer::sum) == 1) {
+                    score += frequencies.getOrDefault(substring, 0);
+                }
+                ++windowEnd;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestOffset = start;
+            }
+            final Long leaving = substring(bytes, start);
+            if (window.merge(leaving, -1, Integer::sum) == 0) {
+                window.remove(leaving);
+                score -= frequencies.getOrDefault(leaving, 0);
+            }
+        }
+        return bestScore < 0 ? null : new Segment(sample, bestOffset, bestScore);
+    }
+
+    private static long substring(final byte[] bytes, final int offset) {
+        long substring = 0;
+        for (int i = 0; i < D; ++i) {
+            substring = (substring << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return substring;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: DictionaryTrainer <dictionary size> <output file>"
+                + " <sample file or directory>...");
+            System.exit(2);
+            return;
+        }
+        final int dictionaryLength = Integer.parseInt(args[0]);
+        final List<byte[]> samples = new ArrayList<>();
+        for (int i = 2; i < args.length; ++i) {
+            final Path path = Paths.get(args[i]);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+                    for (final Path file : files) {
+                        if (Files.isRegularFile(file)) {
+                            samples.add(Files.readAllBytes(file));
+                        }
+                    }
+                }
+            } else {
+                samples.add(Files.readAllBytes(path));
+            }
+        }
+        final byte[] dictionary = train(samples, dictionaryLength);
+        Files.write(Paths.get(args[1]), dictionary);
+        System.out.println("trained " + dictionary.length + " bytes from " + samples.size()
+            + " samples into " + args[1]);
+    }
+}
@@ -0,0 +1,144 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+/**
+ * Java Flight Recorder events of the transceiver pipeline: where the time of a message goes,
+ * from serializing over writing and reading to delivering. The events are {@code jdk.jfr}
+ * classes compiled for Java 11 and loaded by name, because the library is compiled for Java
+ * 8; without them (older runtime, no JFR) every call is a no-op.
+ * <p>
+ * Cheap while no recording enables an event: {@link #begin(Kind)} reads a volatile mask and
+ * returns {@code null}, {@link #commit(Object, long, int, long)} ignores {@code null}. The
+ * events carry no transceiver id; the recorded thread names ({@code jackpot-…-<id>}) tell the
+ * transceivers apart.
+ */
+public abstract class FlightRecorderEvents {
+
+    /**
+     * The event types; the JFR name is {@code net.ladenthin.jackpot.<Kind>}.
+     */
+    public enum Kind {
+        /**
+         * Serializing one message, per message; disabled by default.
+         */
+        Serialize,
+        /**
+         * Compressing one payload, per message; disabled by default.
+         */
+        Compress,
+        /**
+         * Decompressing one payload, per message; disabled by default.
+         */
+        Decompress,
+        /**
+         * Deserializing one message, per message; disabled by default.
+         */
+        Deserialize,
+        /**
+         * A frame handed to the sequencing, per frame (instant); disabled by default.
+         */
+        Read,
+        /**
+         * Writing and flushing a batch of frames.
+         */
+        Write,
+        /**
+         * Received messages held back by a gap in the id sequence until it is filled.
+         */
+        ReorderWait,
+        /**
+         * Delivering a batch of messages to the listeners and observers.
+         */
+        Deliver,
+        /**
+         * Resending an unacknowledged message (instant).
+         */
+        Resend,
+        /**
+         * Connecting or reconnecting until the connection stands.
+         */
+        Reconnect,
+        /**
+         * A sender blocked by the backpressure bound.
+         */
+        Backpressure
+    }
+
+    private static final String IMPLEMENTATION = "net.ladenthin.jackpot.jfr.JfrFlightRecorderEvents";
+
+    private static final FlightRecorderEvents INSTANCE = load();
+
+    private static FlightRecorderEvents load() {
+        try {
+            return (FlightRecorderEvents) Class.forName(IMPLEMENTATION).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            /**
+             * No JFR on this runtime, or a Java 8 runtime rejecting the Java 11 classes.
+             */
+            return new Unavailable();
+        }
+    }
+
+    /**
+     * @return the events of this JVM
+     */
+    public static FlightRecorderEvents get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return whether the events are recorded on this runtime at all
+     */
+    public abstract boolean isAvailable();
+
+    /**
+     * Starts the timing of an event.
+     *
+     * @return the begun event, {@code null} when no recording enables the kind; hand it to
+     * {@link #commit(Object, long, int, long)}
+     */
+    @ConcurrentMethod
+    public abstract Object begin(Kind kind);
+
+    /**
+     * Ends the timing of an event and records it.
+     *
+     * @param event the result of {@link #begin(Kind)}; {@code null} is a no-op
+     * @param messageId the (first) wire message id; {@code -1} if the event has none
+     * @param messages the number of messages
+     * @param bytes the bytes handled. Unit: [bytes].
+     */
+    @ConcurrentMethod
+    public abstract void commit(Object event, long messageId, int messages, long bytes);
+
+    /**
+     * Records an event without a duration, see {@link #commit(Object, long, int, long)}.
+     */
+    @ConcurrentMethod
+    public final void instant(final Kind kind, final long messageId, final int messages, final long bytes) {
+        final Object event = begin(kind);
+        if (event != null) {
+            commit(event, messageId, messages, bytes);
+        }
+    }
+
+    private static final class Unavailable extends FlightRecorderEvents {
+
+        @Override
+        public boolean isAvailable() {
+            return false;
+        }
+
+        @Override
+        public Object begin(final Kind kind) {
+            return null;
+        }
+
+        @Override
+        public void commit(final Object event, final long messageId, final int messages, final long bytes) {
+        }
+    }
+}
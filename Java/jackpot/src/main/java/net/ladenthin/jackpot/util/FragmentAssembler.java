@@ -0,0 +1,115 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+
+/**
+ * Reassembles fragmented messages (see
+ * {@link net.ladenthin.jackpot.configuration.CTransceiver#fragmentLength}) on the receiving
+ * side: every fragment is decompressed on arrival straight into the array of its message,
+ * so neither the compressed message nor a second copy of it is held. The fragments of a
+ * message may arrive in any order, interleaved with other frames and more than once (a
+ * resend repeats the whole message); the message is complete once its total size is
+ * covered.
+ * <p>
+ * Not thread-safe: one assembler per connection, used by the sequencing thread.
+ */
+public final class FragmentAssembler {
+
+    /**
+     * The fragments of one message received so far.
+     */
+    private static final class Assembly {
+
+        private final byte[] bytes;
+
+        /**
+         * The offsets of the received fragments; a repeated fragment is skipped.
+         */
+        private final Set<Integer> offsets = new HashSet<>();
+
+        private int received;
+
+        private Assembly(final int totalSize) {
+            bytes = new byte[totalSize];
+        }
+    }
+
+    private final SettingsCompression settingsCompression;
+
+    private final Map<Long, Assembly> assemblies = new HashMap<>();
+
+    /**
+     * @param settingsCompression the settings the fragments are unboxed with
+     */
+    public FragmentAssembler(final SettingsCompression settingsCompression) {
+        this.settingsCompression = settingsCompression;
+    }
+
+    /**
+     * @param fragment a received fragment
+     * @return the reassembled, uncompressed message once the fragment completed it;
+     * {@code null} while fragments are missing
+     * @throws IOException if the fragment is corrupt or does not fit the fragments of its id
+     * received before; it is dropped, a resend can deliver it again
+     */
+    public BinaryMessage add(final BinaryMessage fragment) throws IOException {
+        final long id = fragment.getId();
+        final int totalSize = fragment.getFragmentTotalSize();
+        Assembly assembly = assemblies.get(id);
+        if (assembly == null) {
+            assembly = new Assembly(totalSize);
+            assemblies.put(id, assembly);
+        } else if (assembly.bytes.length != totalSize) {
+            throw new IOException("fragment of id " + id + " claims " + totalSize
+                + " bytes instead of " + assembly.bytes.length);
+        }
+        final int offset = fragment.getFragmentOffset();
+        if (assembly.offsets.contains(offset)) {
+            return null;
+        }
+
+        final byte[] chunk = fragment.unbox(settingsCompression, fragment.getUncompressedSize());
+        if (chunk.length != fragment.getUncompressedSize()) {
+            throw new IOException("fragment of id " + id + " restores to " + chunk.length
+                + " instead of " + fragment.getUncompressedSize() + " bytes");
+        }
+        System.arraycopy(chunk, 0, assembly.bytes, offset, chunk.length);
+        assembly.offsets.add(offset);
+        assembly.received += chunk.length;
+        if (assembly.received < totalSize) {
+            return null;
+        }
+        assemblies.remove(id);
+        if (fragment.hasChannel()) {
+            return BinaryMessage.createMessage(id, assembly.bytes, totalSize,
+                new BinaryMessageFlags(false, false, false, false, false, false, false, false,
+                    false, false, true), 0, 0, fragment.getChannel(), fragment.getChannelSequence());
+        }
+        return BinaryMessage.createMessage(id, assembly.bytes, totalSize,
+            new BinaryMessageFlags(false, false, false, false));
+    }
+
+    /**
+     * @return whether fragments of the id arrived but the message is not complete yet
+     */
+    public boolean isAssembling(final long id) {
+        return assemblies.containsKey(id);
+    }
+
+    /**
+     * @return the number of messages in reassembly
+     */
+    public int size() {
+        return assemblies.size();
+    }
+}
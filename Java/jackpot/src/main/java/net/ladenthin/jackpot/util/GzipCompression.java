@@ -0,0 +1,237 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The GZIP payload format (see
+ * {@link net.ladenthin.jackpot.configuration.SettingsCompression#enableGZIP}) without the
+ * streams: a member as {@link java.util.zip.GZIPOutputStream} writes it, byte for byte, from
+ * a raw {@link Deflater} and {@link CRC32} pooled per thread and per level. The decompression
+ * inflates straight into an array of the announced uncompressed size.
+ * <p>
+ * A {@code GZIPOutputStream} per message allocates a native deflate context that is only
+ * released by its close, and the stream copies the output twice; the pooled contexts live as
+ * long as the codec threads.
+ */
+public final class GzipCompression {
+
+    /**
+     * Magic, compression method deflate, no flags, no modification time, no extra flags, OS
+     * unknown — the header of {@link java.util.zip.GZIPOutputStream} (before Java 16 with OS 0).
+     */
+    private static final byte[] HEADER = {
+        (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    /**
+     * The CRC-32 and the uncompressed size modulo 2^32, both little-endian. Unit: [bytes].
+     */
+    private static final int TRAILER_LENGTH = 8;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    /**
+     * One deflater per level, index {@code level + 1}; created on first use.
+     */
+    private static final ThreadLocal<Deflater[]> DEFLATERS =
+        ThreadLocal.withInitial(() -> new Deflater[Deflater.BEST_COMPRESSION + 2]);
+
+    private static final ThreadLocal<Inflater> INFLATER =
+        ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private static final ThreadLocal<CRC32> CRC = ThreadLocal.withInitial(CRC32::new);
+
+    /**
+     * Reused output buffer; grown to the largest compressed message so far.
+     */
+    private static final ThreadLocal<byte[]> OUTPUT = ThreadLocal.withInitial(() -> new byte[0]);
+
+    private GzipCompression() {
+    }
+
+    /**
+     * @param msg the uncompressed bytes
+     * @param length the number of bytes of {@code msg} to compress. Unit: [bytes].
+     * @param deflaterLevel the {@link Deflater} level
+     * @return the GZIP member
+     */
+    public static byte[] compress(final byte[] msg, final int length, final int deflaterLevel) {
+        return compress(msg, 0, length, deflaterLevel);
+    }
+
+    /**
+     * @param msg the uncompressed bytes
+     * @param offset the first byte of {@code msg} to compress
+     * @param length the number of bytes of {@code msg} to compress. Unit: [bytes].
+     * @param deflaterLevel the {@link Deflater} level
+     * @return the GZIP member
+     */
+    public static byte[] compress(final byte[] msg, final int offset, final int length,
+        final int deflaterLevel) {
+        if (deflaterLevel < Deflater.DEFAULT_COMPRESSION || deflaterLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level " + deflaterLevel);
+        }
+        final Deflater[] deflaters = DEFLATERS.get();
+        Deflater deflater = deflaters[deflaterLevel + 1];
+        if (deflater == null) {
+            deflater = new Deflater(deflaterLevel, true);
+            deflaters[deflaterLevel + 1] = deflater;
+        }
+        deflater.reset();
+        deflater.setInput(msg, offset, length);
+        deflater.finish();
+
+        final long bound = HEADER.length + StreamingDeflater.maxDeflatedLength(length) + TRAILER_LENGTH;
+        byte[] output = OUTPUT.get();
+        if (output.length < bound) {
+            output = new byte[(int) Math.min(bound, Integer.MAX_VALUE - 8)];
+            OUTPUT.set(output);
+        }
+        System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+        int compressedLength = HEADER.length;
+        while (!deflater.finished()) {
+            if (compressedLength == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+                OUTPUT.set(output);
+            }
+            compressedLength += deflater.deflate(output, compressedLength,
+                output.length - compressedLength);
+        }
+        if (output.length - compressedLength < TRAILER_LENGTH) {
+            output = Arrays.copyOf(output, compressedLength + TRAILER_LENGTH);
+            OUTPUT.set(output);
+        }
+
+        final CRC32 crc = CRC.get();
+        crc.reset();
+        crc.update(msg, offset, length);
+        writeIntLE(output, compressedLength, (int) crc.getValue());
+        writeIntLE(output, compressedLength + 4, length);
+        return Arrays.copyOf(output, compressedLength + TRAILER_LENGTH);
+    }
+
+    /**
+     * @param payload a GZIP member
+     * @param uncompressedSize the announced uncompressed size; the restored bytes must match
+     * it exactly. Unit: [bytes].
+     * @return the restored bytes
+     * @throws IOException if the payload is corrupt, fails its checksum or does not restore to
+     * {@code uncompressedSize}
+     */
+    public static byte[] decompress(final byte[] payload, final int uncompressedSize)
+        throws IOException {
+        final int offset = headerLength(payload);
+
+        final byte[] restored = new byte[uncompressedSize];
+        final byte[] excess = new byte[1];
+        final Inflater inflater = INFLATER.get();
+        inflater.reset();
+        try {
+            inflater.setInput(payload, offset, payload.length - offset);
+            int length = 0;
+            while (!inflater.finished()) {
+                final int inflated = length < restored.length
+                    ? inflater.inflate(restored, length, restored.length - length)
+                    : inflater.inflate(excess);
+                if (length == restored.length && inflated > 0) {
+                    throw new IOException("GZIP payload exceeds " + uncompressedSize + " bytes");
+                }
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated GZIP payload");
+                }
+                length += inflated;
+            }
+            if (length != restored.length) {
+                throw new IOException("GZIP payload restores to " + length + " instead of "
+                    + uncompressedSize + " bytes");
+            }
+            if (inflater.getRemaining() != TRAILER_LENGTH) {
+                throw new IOException("corrupt GZIP trailer: " + inflater.getRemaining() + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt GZIP payload", e);
+        }
+
+        final int trailer = payload.length - TRAILER_LENGTH;
+        final CRC32 crc = CRC.get();
+        crc.reset();
+        crc.update(restored, 0, restored.length);
+        if (readIntLE(payload, trailer) != (int) crc.getValue()) {
+            throw new IOException("corrupt GZIP payload: CRC-32 mismatch");
+        }
+        if (readIntLE(payload, trailer + 4) != uncompressedSize) {
+            throw new IOException("corrupt GZIP trailer: size mismatch");
+        }
+        return restored;
+    }
+
+    /**
+     * Validates the member header and skips its optional fields, which other GZIP writers
+     * may set.
+     *
+     * @return the offset of the deflate stream
+     */
+    private static int headerLength(final byte[] payload) throws IOException {
+        if (payload.length < HEADER.length + TRAILER_LENGTH) {
+            throw new IOException("corrupt GZIP payload: " + payload.length + " bytes");
+        }
+        if (payload[0] != HEADER[0] || payload[1] != HEADER[1]) {
+            throw new IOException("not in GZIP format");
+        }
+        if (payload[2] != Deflater.DEFLATED) {
+            throw new IOException("unsupported GZIP compression method " + payload[2]);
+        }
+        final int flags = payload[3] & 0xFF;
+        int offset = HEADER.length;
+        if ((flags & FEXTRA) != 0) {
+            offset += 2 + ((payload[offset] & 0xFF) | (payload[offset + 1] & 0xFF) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            offset = skipZeroTerminated(payload, offset);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            offset = skipZeroTerminated(payload, offset);
+        }
+        if ((flags & FHCRC) != 0) {
+            offset += 2;
+        }
+        if (offset > payload.length - TRAILER_LENGTH) {
+            throw new IOException("corrupt GZIP header");
+        }
+        return offset;
+    }
+
+    private static int skipZeroTerminated(final byte[] payload, int offset) throws IOException {
+        while (offset < payload.length && payload[offset] != 0) {
+            ++offset;
+        }
+        if (offset == payload.length) {
+            throw new IOException("corrupt GZIP header");
+        }
+        return offset + 1;
+    }
+
+    private static void writeIntLE(final byte[] bytes, final int offset, final int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static int readIntLE(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8
+            | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,235 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import net.ladenthin.jackpot.Transceiver;
+
+/**
+ * The JVM-wide timer of every transceiver: heartbeat ticks and resend deadlines. A hashed
+ * wheel: a timeout is dropped into the bucket of its deadline tick in O(1), cancelled in O(1),
+ * and one thread expires a bucket per tick — however many transceivers and deadlines there
+ * are. Deadlines are rounded up to the next tick.
+ * <p>
+ * Reference counted like {@link net.ladenthin.jackpot.nio.SelectorLoopGroup}: the first
+ * {@link #acquire()} starts the {@code jackpot-HashedWheelTimer} thread, the last
+ * {@link #release(HashedWheelTimer)} stops it, so a shutdown leaves no library thread behind.
+ * The tasks run on the timer thread and must be short: hand the work to another thread.
+ */
+public final class HashedWheelTimer {
+
+    /**
+     * The resolution of the deadlines. Unit: [ms].
+     */
+    public static final long TICK_MILLIS = 10;
+
+    /**
+     * The number of buckets, a power of two: one rotation covers about five seconds, a
+     * longer deadline waits for its round.
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    private static HashedWheelTimer shared;
+
+    private static int references;
+
+    /**
+     * Takes a reference on the shared timer, starting it if necessary.
+     *
+     * @return the shared timer; hand it back with {@link #release(HashedWheelTimer)}
+     */
+    public static synchronized HashedWheelTimer acquire() {
+        if (shared == null) {
+            shared = new HashedWheelTimer();
+        }
+        ++references;
+        return shared;
+    }
+
+    /**
+     * Returns a reference taken by {@link #acquire()}; the last one stops the timer. Pending
+     * timeouts of a stopped timer never expire.
+     *
+     * @param timer the timer returned by {@link #acquire()}
+     */
+    public static synchronized void release(final HashedWheelTimer timer) {
+        if (timer != shared) {
+            return;
+        }
+        if (--references == 0) {
+            shared.stop();
+            shared = null;
+        }
+    }
+
+    /**
+     * A scheduled task; see {@link #cancel()}.
+     */
+    public static final class Timeout {
+
+        private static final int STATE_PENDING = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final Runnable task;
+
+        /**
+         * Relative to {@link HashedWheelTimer#startNanos}. Unit: [ns].
+         */
+        private final long deadlineNanos;
+
+        private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+
+        /**
+         * Wheel rotations left before the timeout's bucket expires it. Timer thread only.
+         */
+        private long remainingRounds;
+
+        private Timeout(final Runnable task, final long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Prevents the task from running, unless it runs already. The timeout leaves its
+         * bucket the next time the wheel passes it.
+         *
+         * @return whether the task will not run because of this call
+         */
+        @ConcurrentMethod
+        public boolean cancel() {
+            return state.compareAndSet(STATE_PENDING, STATE_CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+    }
+
+    private final long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Buckets of the wheel. Timer thread only.
+     */
+    private final List<List<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+
+    /**
+     * Timeouts scheduled by any thread, moved into their buckets by the timer thread at the
+     * next tick.
+     */
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean stopped;
+
+    private final Thread thread;
+
+    private HashedWheelTimer() {
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            wheel.add(new ArrayList<Timeout>());
+        }
+        thread = new Thread(this::run, "jackpot-HashedWheelTimer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Schedules a one-shot task. On a stopped timer the returned timeout is already
+     * cancelled.
+     *
+     * @param task runs on the timer thread once the delay elapsed
+     * @param delay the delay, rounded up to {@link #TICK_MILLIS}; {@code <= 0} runs at the
+     * next tick
+     */
+    @ConcurrentMethod
+    public Timeout newTimeout(final Runnable task, final long delay, final TimeUnit unit) {
+        final long deadlineNanos = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        final Timeout timeout = new Timeout(task, deadlineNanos);
+        if (stopped) {
+            timeout.cancel();
+            return timeout;
+        }
+        scheduled.offer(timeout);
+        return timeout;
+    }
+
+    private void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            final long tickDeadline = (tick + 1) * tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = tickDeadline - (System.nanoTime() - startNanos)) > 0 && !stopped) {
+                LockSupport.parkNanos(this, sleepNanos);
+            }
+            if (stopped) {
+                return;
+            }
+            transferScheduled(tick);
+            expire(wheel.get((int) (tick & (WHEEL_SIZE - 1))));
+            ++tick;
+        }
+    }
+
+    /**
+     * Drops the newly scheduled timeouts into the buckets of their deadline ticks; a deadline
+     * already passed goes into the current bucket. Timer thread only.
+     */
+    private void transferScheduled(final long currentTick) {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            final long deadlineTick = Math.max(currentTick, (timeout.deadlineNanos + tickNanos - 1) / tickNanos - 1);
+            timeout.remainingRounds = (deadlineTick - currentTick) / WHEEL_SIZE;
+            wheel.get((int) (deadlineTick & (WHEEL_SIZE - 1))).add(timeout);
+        }
+    }
+
+    /**
+     * Runs the due timeouts of the bucket and drops the cancelled ones. Timer thread only.
+     */
+    private void expire(final List<Timeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); ++i) {
+            final Timeout timeout = bucket.get(i);
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                --timeout.remainingRounds;
+                bucket.set(kept++, timeout);
+                continue;
+            }
+            if (timeout.state.compareAndSet(Timeout.STATE_PENDING, Timeout.STATE_EXPIRED)) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    /**
+                     * A failing task must not kill the timer of every transceiver.
+                     */
+                    Transceiver.debugLog("HashedWheelTimer: task failed: " + e);
+                }
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+}
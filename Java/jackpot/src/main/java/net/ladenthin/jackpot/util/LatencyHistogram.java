@@ -0,0 +1,144 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations with log-linear buckets (the HdrHistogram layout):
+ * values below {@code 2 * SUB_BUCKETS} are counted exactly, every power of two above is split
+ * into {@link #SUB_BUCKETS} equal buckets. A value is reported as the highest value of its
+ * bucket, at most {@code 1 / SUB_BUCKETS} (about 3%) above the recorded one.
+ * <p>
+ * Recording is a few atomic increments without allocation and callable from any thread;
+ * readers see a consistent-enough view for monitoring, not a transactional snapshot.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for every non-negative long: the highest bit is bit 62.
+     */
+    private static final int BUCKETS = (62 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value the duration; a negative value (a clock step) counts as zero
+     */
+    @ConcurrentMethod
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        long currentMax;
+        while (v > (currentMax = max.get()) && !max.compareAndSet(currentMax, v)) {
+            // another recorder raised the maximum meanwhile; compare again
+        }
+    }
+
+    static int bucketOf(final long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the highest value that falls into the bucket
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of the recorded values
+     */
+    public long getTotal() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the largest recorded value, {@code 0} if none was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the arithmetic mean, {@code 0} if no value was recorded
+     */
+    public double getMean() {
+        final long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile in {@code [0, 100]}, e.g. {@code 99.9}
+     * @return the value at or below which the given percentage of the recorded values lie,
+     * {@code 0} if no value was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be within [0, 100]: " + percentile);
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                /**
+                 * The bucket bound may exceed the largest value actually recorded.
+                 */
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the current count, total, mean, maximum and common percentiles
+     */
+    public LatencySnapshot snapshot() {
+        return new LatencySnapshot(getCount(), getTotal(), getMean(), getMax(),
+            getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99),
+            getValueAtPercentile(99.9));
+    }
+}
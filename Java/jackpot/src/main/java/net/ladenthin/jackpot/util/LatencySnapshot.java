@@ -0,0 +1,72 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+/**
+ * The summary of a {@link LatencyHistogram} at one point in time. Immutable. The values keep
+ * the unit of the recorded durations. The getters make it an open type for JMX.
+ */
+public final class LatencySnapshot {
+
+    private final long count;
+    private final long total;
+    private final double mean;
+    private final long max;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+
+    public LatencySnapshot(final long count, final long total, final double mean, final long max,
+        final long p50, final long p90, final long p99, final long p999) {
+        this.count = count;
+        this.total = total;
+        this.mean = mean;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{count=" + count + ", total=" + total + ", mean=" + mean
+            + ", max=" + max + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99
+            + ", p999=" + p999 + "}";
+    }
+}
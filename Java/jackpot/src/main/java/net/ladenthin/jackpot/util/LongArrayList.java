@@ -0,0 +1,125 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive {@code long}s: no boxing per element, and a cleared list keeps
+ * its array for the next fill. Not thread-safe; the owners synchronize on it.
+ */
+public final class LongArrayList {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] elements;
+
+    private int size;
+
+    public LongArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the initial array length; the array grows when more is added
+     */
+    public LongArrayList(final int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("initialCapacity out of range: " + initialCapacity);
+        }
+        elements = new long[initialCapacity];
+    }
+
+    public void add(final long element) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+        elements[size++] = element;
+    }
+
+    /**
+     * Appends every element of the other list, in its order.
+     */
+    public void addAll(final LongArrayList other) {
+        if (size + other.size > elements.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.elements, 0, elements, size, other.size);
+        size += other.size;
+    }
+
+    private void grow(final int minCapacity) {
+        if (minCapacity < 0) {
+            throw new IllegalStateException("LongArrayList exceeds the maximum array length");
+        }
+        elements = Arrays.copyOf(elements, Math.max(minCapacity, elements.length << 1));
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if the index is not below {@link #size()}
+     */
+    public long get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return elements[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every element; the array is kept.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the elements in list order
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Sorts the elements ascending, in place, and folds them into runs of consecutive values.
+     * Duplicates are counted once.
+     *
+     * @return the runs as inclusive {@code first, last} pairs in ascending order, empty for an
+     * empty list
+     */
+    public long[] sortToRanges() {
+        Arrays.sort(elements, 0, size);
+        int runs = 0;
+        for (int i = 0; i < size; ++i) {
+            if (i == 0 || startsRun(i)) {
+                ++runs;
+            }
+        }
+        final long[] ranges = new long[2 * runs];
+        int r = -1;
+        for (int i = 0; i < size; ++i) {
+            if (i == 0 || startsRun(i)) {
+                ranges[++r] = elements[i];
+                ++r;
+            }
+            ranges[r] = elements[i];
+        }
+        return ranges;
+    }
+
+    /**
+     * Sorted elements only. Written without a subtraction, which could overflow.
+     */
+    private boolean startsRun(final int i) {
+        return elements[i] > elements[i - 1] && elements[i] - 1 != elements[i - 1];
+    }
+}
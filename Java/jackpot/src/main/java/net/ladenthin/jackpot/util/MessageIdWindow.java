@@ -0,0 +1,327 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A sliding window of elements keyed by message id, stored in a ring indexed by
+ * {@code id & (capacity - 1)}. Message ids are dense and (almost) increasing, so the ids held
+ * at any time span a narrow range: every operation is O(1) and allocation-free, only a
+ * window wider than the ring doubles it. Each element carries a {@code long} stamp (e.g. the
+ * time it was written) so no wrapper object is needed.
+ * <p>
+ * Replaces the {@code TreeSet}/{@code TreeMap} sequencing buffers, which paid O(log n) and a
+ * node allocation per message. Not thread-safe; the owners synchronize on it.
+ *
+ * @param <E> the element type
+ */
+public final class MessageIdWindow<E> {
+
+    /**
+     * The largest capacity a ring can grow to (the largest power of two array length).
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    private Object[] elements;
+
+    private long[] stamps;
+
+    /**
+     * {@code elements.length - 1}; the length is a power of two.
+     */
+    private int mask;
+
+    private int size;
+
+    /**
+     * The lowest and the highest held id; meaningless while {@link #size} is {@code 0}.
+     */
+    private long lowestId;
+    private long highestId;
+
+    /**
+     * @param initialCapacity the initial ring size, rounded up to a power of two; the ring
+     * grows when the held ids span more
+     */
+    public MessageIdWindow(final int initialCapacity) {
+        if (initialCapacity < 1 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("initialCapacity out of range: " + initialCapacity);
+        }
+        final int capacity = Integer.highestOneBit(initialCapacity) == initialCapacity
+            ? initialCapacity : Integer.highestOneBit(initialCapacity) << 1;
+        elements = new Object[capacity];
+        stamps = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the element under its id.
+     *
+     * @param id the message id
+     * @param element the element, not {@code null}
+     * @param stamp an arbitrary value kept with the element, see {@link #getStamp(long)}
+     * @return {@code false} if an element with this id is held already (nothing changed)
+     * @throws IllegalStateException if the held ids would span more than
+     * {@link #MAX_CAPACITY}
+     */
+    public boolean put(final long id, final E element, final long stamp) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        if (size == 0) {
+            lowestId = id;
+            highestId = id;
+        } else {
+            final long lowest = Math.min(lowestId, id);
+            final long highest = Math.max(highestId, id);
+            ensureSpan(lowest, highest);
+            if (elements[index(id)] != null && id >= lowestId && id <= highestId) {
+                return false;
+            }
+            lowestId = lowest;
+            highestId = highest;
+        }
+        elements[index(id)] = element;
+        stamps[index(id)] = stamp;
+        ++size;
+        return true;
+    }
+
+    /**
+     * @see #put(long, Object, long)
+     */
+    public boolean put(final long id, final E element) {
+        return put(id, element, 0L);
+    }
+
+    /**
+     * @param id the message id
+     * @return the element held under the id, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public E get(final long id) {
+        if (!contains(id)) {
+            return null;
+        }
+        return (E) elements[index(id)];
+    }
+
+    /**
+     * @param id the message id
+     * @return whether an element is held under the id
+     */
+    public boolean contains(final long id) {
+        return size != 0 && id >= lowestId && id <= highestId && elements[index(id)] != null;
+    }
+
+    /**
+     * @param id the id of a held element
+     * @return the stamp given to {@link #put(long, Object, long)}
+     * @throws IllegalArgumentException if no element is held under the id
+     */
+    public long getStamp(final long id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("id not held: " + id);
+        }
+        return stamps[index(id)];
+    }
+
+    /**
+     * Removes the element held under the id.
+     *
+     * @param id the message id
+     * @return the removed element, or {@code null} if none was held
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(final long id) {
+        if (!contains(id)) {
+            return null;
+        }
+        final int index = index(id);
+        final E element = (E) elements[index];
+        elements[index] = null;
+        --size;
+        if (size != 0) {
+            /**
+             * Keep the bounds on held ids; the gaps skipped here are at most the span, and
+             * each is skipped once.
+             */
+            while (elements[index(lowestId)] == null) {
+                ++lowestId;
+            }
+            while (elements[index(highestId)] == null) {
+                --highestId;
+            }
+        }
+        return element;
+    }
+
+    /**
+     * @return the element with the lowest id, or {@code null} if the window is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E first() {
+        if (size == 0) {
+            return null;
+        }
+        return (E) elements[index(lowestId)];
+    }
+
+    /**
+     * @return the lowest held id
+     * @throws IllegalStateException if the window is empty
+     */
+    public long firstId() {
+        if (size == 0) {
+            throw new IllegalStateException("empty");
+        }
+        return lowestId;
+    }
+
+    /**
+     * @return the highest held id
+     * @throws IllegalStateException if the window is empty
+     */
+    public long lastId() {
+        if (size == 0) {
+            throw new IllegalStateException("empty");
+        }
+        return highestId;
+    }
+
+    /**
+     * The held ids as runs of consecutive ids, in ascending order.
+     *
+     * @param maxRanges the most runs returned; the runs beyond are left out
+     * @return inclusive {@code first, last} pairs, empty if the window is empty
+     */
+    public long[] idRanges(final int maxRanges) {
+        final long[] ranges = new long[2 * Math.min(maxRanges, size)];
+        int filled = 0;
+        if (size == 0) {
+            return ranges;
+        }
+        final long span = highestId - lowestId;
+        long first = lowestId;
+        for (long offset = 1; offset <= span + 1 && filled < ranges.length; ++offset) {
+            final long id = lowestId + offset;
+            if (offset <= span && elements[index(id)] != null) {
+                if (elements[index(id - 1)] == null) {
+                    first = id;
+                }
+                continue;
+            }
+            if (elements[index(id - 1)] != null) {
+                ranges[filled++] = first;
+                ranges[filled++] = id - 1;
+            }
+        }
+        return Arrays.copyOf(ranges, filled);
+    }
+
+    /**
+     * Removes the element with the lowest id.
+     *
+     * @return the removed element, or {@code null} if the window is empty
+     */
+    public E pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        return remove(lowestId);
+    }
+
+    /**
+     * Collects the ids of the held elements whose stamp is at most the given bound, in
+     * ascending id order.
+     *
+     * @param maxStamp the inclusive bound
+     * @param ids receives the ids
+     * @return the smallest stamp above the bound, {@link Long#MAX_VALUE} if none
+     */
+    public long collectIdsWithStampAtMost(final long maxStamp, final LongConsumer ids) {
+        long smallestAbove = Long.MAX_VALUE;
+        if (size == 0) {
+            return smallestAbove;
+        }
+        final long span = highestId - lowestId;
+        for (long offset = 0; offset <= span; ++offset) {
+            final long id = lowestId + offset;
+            final int index = index(id);
+            if (elements[index] != null) {
+                if (stamps[index] <= maxStamp) {
+                    ids.accept(id);
+                } else if (stamps[index] < smallestAbove) {
+                    smallestAbove = stamps[index];
+                }
+            }
+        }
+        return smallestAbove;
+    }
+
+    /**
+     * @return the number of held elements
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the current ring size
+     */
+    public int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Removes every element; the ring keeps its size.
+     */
+    public void clear() {
+        Arrays.fill(elements, null);
+        size = 0;
+    }
+
+    private int index(final long id) {
+        return (int) id & mask;
+    }
+
+    /**
+     * Grows the ring until the ids {@code lowest..highest} map to distinct slots.
+     */
+    private void ensureSpan(final long lowest, final long highest) {
+        final long span = highest - lowest + 1;
+        if (span <= elements.length && span > 0) {
+            return;
+        }
+        if (span <= 0 || span > MAX_CAPACITY) {
+            throw new IllegalStateException("message ids span too wide: " + lowest + ".." + highest);
+        }
+        int capacity = elements.length;
+        while (capacity < span) {
+            capacity <<= 1;
+        }
+        final Object[] grownElements = new Object[capacity];
+        final long[] grownStamps = new long[capacity];
+        final int grownMask = capacity - 1;
+        final long heldSpan = highestId - lowestId;
+        for (long offset = 0; offset <= heldSpan; ++offset) {
+            final long id = lowestId + offset;
+            final int index = index(id);
+            if (elements[index] != null) {
+                grownElements[(int) id & grownMask] = elements[index];
+                grownStamps[(int) id & grownMask] = stamps[index];
+            }
+        }
+        elements = grownElements;
+        stamps = grownStamps;
+        mask = grownMask;
+    }
+}
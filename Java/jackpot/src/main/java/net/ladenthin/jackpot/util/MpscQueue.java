@@ -0,0 +1,257 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * The hand-off between two layers: a lock-free multi-producer/single-consumer FIFO queue
+ * (Vyukov's linked queue) whose consumer waits with a pluggable {@link WaitStrategy}.
+ * <p>
+ * A producer links its element with one atomic swap and unparks the consumer only if it is
+ * parked; the consumer takes elements without any atomic read-modify-write. This replaces
+ * the {@code synchronized} deque plus fair {@link java.util.concurrent.Semaphore} pairs,
+ * which cost two monitor acquisitions and a park/unpark per message.
+ * <p>
+ * {@link #poll()}, {@link #drain(Consumer, int)}, {@link #isEmpty()} and {@link #await()}
+ * must only be called by the one consumer thread.
+ *
+ * @param <E> the element type
+ */
+public final class MpscQueue<E> implements WaitStrategy.Waitable {
+
+    private static final class Node<E> {
+
+        private E value;
+
+        /**
+         * Not private: the {@link #NEXT} updater in the enclosing class needs access.
+         */
+        volatile Node<E> next;
+
+        private Node(final E value) {
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+        AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<MpscQueue> CONSUMED =
+        AtomicLongFieldUpdater.newUpdater(MpscQueue.class, "consumed");
+
+    /**
+     * The last linked node; producers swap themselves in here.
+     */
+    private final AtomicReference<Node<E>> tail;
+
+    /**
+     * The consumed stub; its successor holds the next element. Consumer only.
+     */
+    private Node<E> head;
+
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * The consumer while it parks, otherwise {@code null}: producers unpark only then.
+     */
+    private volatile Thread parkedConsumer;
+
+    /**
+     * A wake-up without an element (see {@link #signal()}).
+     */
+    private volatile boolean signalled;
+
+    /**
+     * The elements offered and polled so far, for {@link #size()} only. A {@link LongAdder}
+     * keeps the producers from contending on one more cache line.
+     */
+    private final LongAdder offered = new LongAdder();
+
+    /**
+     * Written by the consumer only, with ordered stores through {@link #CONSUMED}.
+     */
+    private volatile long consumed;
+
+    /**
+     * @param waitStrategy how the consumer waits in {@link #await()}
+     */
+    public MpscQueue(final WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        head = new Node<>(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Appends an element and wakes the consumer. Callable from any thread.
+     *
+     * @param element the element, not {@code null}
+     */
+    @ConcurrentMethod
+    @SuppressWarnings("unchecked")
+    public void offer(final E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        final Node<E> node = new Node<>(element);
+        final Node<E> previous = tail.getAndSet(node);
+        /**
+         * Ordered store: the swap above already published the node to other producers, the
+         * consumer only needs to see the link eventually (it waits for it in poll()).
+         */
+        NEXT.lazySet(previous, node);
+        offered.increment();
+        unparkConsumer();
+    }
+
+    /**
+     * Wakes the consumer without an element, e.g. to let it notice a shutdown flag. The
+     * wake-up is not lost if the consumer is not waiting yet: its next {@link #await()}
+     * returns at once. Callable from any thread.
+     */
+    @ConcurrentMethod
+    public void signal() {
+        signalled = true;
+        unparkConsumer();
+    }
+
+    private void unparkConsumer() {
+        final Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Removes the oldest element. Consumer only.
+     *
+     * @return the element, or {@code null} if the queue is empty
+     */
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            if (tail.get() == head) {
+                return null;
+            }
+            /**
+             * A producer swapped the tail but has not linked its node yet; the link follows
+             * within a few instructions.
+             */
+            while ((next = head.next) == null) {
+                SpinWait.onSpinWait();
+            }
+        }
+        final E element = next.value;
+        next.value = null;
+        head = next;
+        CONSUMED.lazySet(this, consumed + 1);
+        return element;
+    }
+
+    /**
+     * Removes up to {@code limit} elements in FIFO order and hands them to the sink. An
+     * element is removed before the sink sees it, so an exception thrown by the sink leaves
+     * the remaining elements queued. Consumer only.
+     *
+     * @param sink receives the elements
+     * @param limit the most elements taken
+     * @return the number of elements taken
+     */
+    public int drain(final Consumer<? super E> sink, final int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            final E element = poll();
+            if (element == null) {
+                break;
+            }
+            ++drained;
+            sink.accept(element);
+        }
+        return drained;
+    }
+
+    /**
+     * The number of queued elements for monitoring: callable from any thread, but only
+     * approximate while elements are offered or polled concurrently.
+     *
+     * @return the number of queued elements, never negative
+     */
+    @ConcurrentMethod
+    public long size() {
+        return Math.max(0, offered.sum() - consumed);
+    }
+
+    /**
+     * @return whether no element is queued. Consumer only.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /**
+     * Waits with the {@link WaitStrategy} until an element is queued or {@link #signal()}
+     * was called since the last return of this method. Consumer only; callers re-check
+     * their own state after it returns.
+     *
+     * @throws InterruptedException if the consumer was interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        try {
+            waitStrategy.await(this);
+        } finally {
+            signalled = false;
+        }
+    }
+
+    /**
+     * Like {@link #await()}, but parks at most the given time, whatever the
+     * {@link WaitStrategy}. Consumer only.
+     *
+     * @param timeoutNanos the longest wait. Unit: [ns].
+     */
+    public void awaitNanos(final long timeoutNanos) {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        parkedConsumer = Thread.currentThread();
+        try {
+            long remaining = timeoutNanos;
+            while (remaining > 0 && !isReady() && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        } finally {
+            parkedConsumer = null;
+            signalled = false;
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return signalled || !isEmpty();
+    }
+
+    @Override
+    public void park() {
+        /**
+         * Publish the parked consumer BEFORE the final check; a producer swaps the tail (or
+         * sets the signal) BEFORE it reads the field. So either the producer sees the
+         * consumer and unparks it, or the check sees the element.
+         */
+        parkedConsumer = Thread.currentThread();
+        try {
+            if (!isReady()) {
+                LockSupport.park(this);
+            }
+        } finally {
+            parkedConsumer = null;
+        }
+    }
+}
@@ -7,26 +7,61 @@ package net.ladenthin.jackpot.util;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 
+import net.ladenthin.jackpot.configuration.ThreadType;
+
 /**
  * A {@link ThreadFactory} that names its threads with a jackpot-specific prefix, so all
  * threads created by this library are identifiable (e.g. in thread dumps and in the
- * shutdown-termination test).
+ * shutdown-termination test). Creates platform or virtual threads per {@link ThreadType}.
  */
 public final class NamedJackpotThreadFactory implements ThreadFactory {
 
     private final String namePrefix;
 
+    private final ThreadType threadType;
+
     private final AtomicLong threadNumber = new AtomicLong();
 
     /**
      * @param namePrefix the prefix for every created thread name; a running number is appended
      */
     public NamedJackpotThreadFactory(final String namePrefix) {
+        this(namePrefix, ThreadType.Platform);
+    }
+
+    /**
+     * @param namePrefix the prefix for every created thread name; a running number is appended
+     * @param threadType platform or virtual threads; virtual falls back to platform threads
+     * before Java 21
+     */
+    public NamedJackpotThreadFactory(final String namePrefix, final ThreadType threadType) {
         this.namePrefix = namePrefix;
+        this.threadType = threadType;
     }
 
     @Override
     public Thread newThread(Runnable r) {
-        return new Thread(r, namePrefix + "-" + threadNumber.incrementAndGet());
+        return newThread(threadType, r, namePrefix + "-" + threadNumber.incrementAndGet());
+    }
+
+    /**
+     * Creates one named thread, e.g. the loop thread of a layer.
+     *
+     * @param threadType platform or virtual thread; virtual falls back to a platform thread
+     * before Java 21
+     * @return the unstarted thread
+     */
+    public static Thread newThread(final ThreadType threadType, final Runnable r, final String name) {
+        if (threadType == ThreadType.Virtual && VirtualThreads.isSupported()) {
+            return VirtualThreads.unstarted(name, r);
+        }
+        return new Thread(r, name);
+    }
+
+    /**
+     * @return whether {@link ThreadType#Virtual} yields virtual threads on this runtime
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.isSupported();
     }
 }
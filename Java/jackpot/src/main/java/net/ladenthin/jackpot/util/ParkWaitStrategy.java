@@ -0,0 +1,21 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+/**
+ * Parks the consumer as soon as there is nothing to do.
+ */
+public final class ParkWaitStrategy implements WaitStrategy {
+
+    @Override
+    public void await(final Waitable waitable) throws InterruptedException {
+        while (!waitable.isReady()) {
+            waitable.park();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
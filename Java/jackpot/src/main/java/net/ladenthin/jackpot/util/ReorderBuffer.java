@@ -0,0 +1,191 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Restores the claim order of work completed in any order, without a thread of its own: the
+ * producer {@link #claim()}s a sequence per work item, any thread completes it, and
+ * the thread that completes the next sequence in order hands it and every completed one
+ * behind it to the consumer, in batches. A lock-free ring of the claimed sequences; a flag
+ * ensures the consumer runs on one thread at a time.
+ * <p>
+ * The ring is bounded: {@link #claim()} waits while {@code capacity} sequences are claimed
+ * but not delivered, which bounds the work in flight too.
+ *
+ * @param <E> the element type
+ */
+public final class ReorderBuffer<E> {
+
+    /**
+     * The longest park of a producer waiting for capacity; the consumer unparks it earlier.
+     * Unit: [ms].
+     */
+    private static final long MAX_PARK_MILLIS = 1;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    private final Consumer<? super List<E>> consumer;
+
+    private final int maxBatch;
+
+    /**
+     * The elements handed to the consumer at once, reused. Draining thread only.
+     */
+    private final List<E> batch = new ArrayList<>();
+
+    /**
+     * The next sequence {@link #claim()} hands out. Written by the producer only.
+     */
+    private volatile long claimed;
+
+    /**
+     * The next sequence to deliver. Written by the draining thread only.
+     */
+    private volatile long delivered;
+
+    /**
+     * Set while a thread delivers.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    /**
+     * The producer while it waits for capacity, otherwise {@code null}.
+     */
+    private volatile Thread waitingProducer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param capacity the most sequences claimed but not delivered, rounded up to a power of
+     * two
+     * @param maxBatch the most elements handed to the consumer at once
+     * @param consumer receives the elements in claim order, in batches of consecutive
+     * completed elements, one thread at a time; must not keep the list and must not throw
+     */
+    public ReorderBuffer(final int capacity, final int maxBatch, final Consumer<? super List<E>> consumer) {
+        if (capacity < 1 || capacity > MessageIdWindow.MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1: " + maxBatch);
+        }
+        this.maxBatch = maxBatch;
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Hands out the next sequence, waiting while the ring is full. Once {@link #close()}d it
+     * returns at once. Single producer only.
+     *
+     * @return the sequence to {@link #complete} the work item with
+     */
+    public long claim() {
+        final long sequence = claimed;
+        while (sequence - delivered > mask && !closed) {
+            waitingProducer = Thread.currentThread();
+            if (sequence - delivered > mask && !closed) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(MAX_PARK_MILLIS));
+            }
+            waitingProducer = null;
+        }
+        claimed = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Completes a claimed sequence; delivers it on this thread if it is the next one in
+     * order. Every claimed sequence must be completed exactly once, otherwise the sequences
+     * behind it are never delivered. Ignored once {@link #close()}d.
+     *
+     * @param sequence the sequence returned by {@link #claim()}
+     * @param element the completed element, not {@code null}
+     */
+    @ConcurrentMethod
+    public void complete(final long sequence, final E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        if (closed) {
+            return;
+        }
+        slots.set((int) sequence & mask, element);
+        drain();
+    }
+
+    /**
+     * Delivers the completed elements in order while no other thread does. A completion
+     * stored after the last check of the delivering thread is not lost: its thread either
+     * wins the flag itself, or sees the element still waiting after the flag was released.
+     */
+    private void drain() {
+        for (;;) {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long next = delivered;
+                E element;
+                while (!closed && (element = slots.get((int) next & mask)) != null) {
+                    slots.set((int) next & mask, null);
+                    batch.add(element);
+                    ++next;
+                    if (batch.size() == maxBatch || slots.get((int) next & mask) == null) {
+                        delivered = next;
+                        unparkProducer();
+                        consumer.accept(batch);
+                        batch.clear();
+                    }
+                }
+            } finally {
+                batch.clear();
+                draining.set(false);
+            }
+            if (closed || slots.get((int) delivered & mask) == null) {
+                return;
+            }
+        }
+    }
+
+    private void unparkProducer() {
+        final Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Stops the delivery: pending and later completions are dropped and a waiting producer
+     * returns.
+     */
+    @ConcurrentMethod
+    public void close() {
+        closed = true;
+        unparkProducer();
+    }
+
+    /**
+     * @return the number of sequences claimed but not delivered, for monitoring
+     */
+    @ConcurrentMethod
+    public long size() {
+        return Math.max(0, claimed - delivered);
+    }
+}
@@ -0,0 +1,234 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * The resend deadlines of the retained messages, in write-time order. A message resent
+ * {@code n} times is due {@code resendInterval * min(2^n, backoffLimit)} after its last write:
+ * exponential backoff, so a slow peer is not flooded with the same window again and again.
+ * <p>
+ * One FIFO per backoff level: the messages of a level share the multiplier and are appended in
+ * write order, so each FIFO is ordered by deadline and a sweep stops at the first entry that
+ * is not due — it never visits a message that is not overdue. An acknowledged or rewritten
+ * message is not removed from its FIFO; its entry is recognized as stale (see
+ * {@link Retained}) and dropped when it reaches the head.
+ * <p>
+ * The resend count of a message is kept here as well, from its first resend until it is
+ * {@link #release(long) released}, so the retained message itself stays immutable.
+ * <p>
+ * Not thread-safe; the owner synchronizes on it together with its retained messages.
+ */
+public final class ResendQueues {
+
+    /**
+     * Tells whether an entry still describes a retained message: the message is retained and
+     * its last write is the one the entry was added for.
+     */
+    public interface Retained {
+
+        /**
+         * @param stamp the write time the entry was added with. Unit: [ms since epoch].
+         */
+        boolean isRetained(long id, long stamp);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Unit: [ms].
+     */
+    private final long resendInterval;
+
+    private final int backoffLimit;
+
+    /**
+     * Per level: {@code id, stamp} pairs in a ring.
+     */
+    private final long[][] rings;
+
+    private final int[] heads;
+
+    private final int[] sizes;
+
+    /**
+     * Placeholder element of {@link #resends}.
+     */
+    private static final Object RESENT = new Object();
+
+    /**
+     * The messages resent after a deadline; the stamp of an entry is the count. A message
+     * never resent has no entry.
+     */
+    private final MessageIdWindow<Object> resends = new MessageIdWindow<>(INITIAL_CAPACITY);
+
+    /**
+     * @param resendInterval the resend delay of a message never resent before. Unit: [ms].
+     * @param backoffLimit the largest multiplier of the resend interval; {@code 1} disables
+     * the backoff
+     */
+    public ResendQueues(final long resendInterval, final int backoffLimit) {
+        if (backoffLimit < 1) {
+            throw new IllegalArgumentException("backoffLimit must be at least 1: " + backoffLimit);
+        }
+        this.resendInterval = resendInterval;
+        this.backoffLimit = backoffLimit;
+        int levels = 1;
+        while (levels < 31 && (1 << (levels - 1)) < backoffLimit) {
+            ++levels;
+        }
+        rings = new long[levels][2 * INITIAL_CAPACITY];
+        heads = new int[levels];
+        sizes = new int[levels];
+    }
+
+    /**
+     * @param resends how often the message was resent after a deadline
+     * @return the delay of its next deadline after a write. Unit: [ms].
+     */
+    public long resendDelay(final int resends) {
+        return resendInterval * multiplier(level(resends));
+    }
+
+    private int level(final int resends) {
+        return Math.min(Math.max(0, resends), rings.length - 1);
+    }
+
+    private long multiplier(final int level) {
+        return Math.min(1L << level, backoffLimit);
+    }
+
+    /**
+     * @return how often the message was resent after a deadline since it was
+     * {@link #release(long) released} last
+     */
+    public int resends(final long id) {
+        return resends.contains(id) ? (int) resends.getStamp(id) : 0;
+    }
+
+    /**
+     * Forgets the resend count of a message that is no longer retained (acknowledged).
+     */
+    public void release(final long id) {
+        resends.remove(id);
+    }
+
+    /**
+     * Records a write; the deadline backs off by the {@link #resends(long)} of the message.
+     * Stale entries at the head of the level are dropped on the way, so an acknowledged
+     * window does not pile up.
+     *
+     * @param stamp the write time. Unit: [ms since epoch].
+     */
+    public void add(final long id, final long stamp, final Retained retained) {
+        final int level = level(resends(id));
+        dropStaleHeads(level, retained);
+        if (sizes[level] == rings[level].length / 2) {
+            grow(level);
+        }
+        final long[] ring = rings[level];
+        final int slot = 2 * ((heads[level] + sizes[level]) & (ring.length / 2 - 1));
+        ring[slot] = id;
+        ring[slot + 1] = stamp;
+        ++sizes[level];
+    }
+
+    private void grow(final int level) {
+        final long[] ring = rings[level];
+        final int capacity = ring.length / 2;
+        final long[] grown = new long[4 * capacity];
+        for (int i = 0; i < sizes[level]; ++i) {
+            final int slot = 2 * ((heads[level] + i) & (capacity - 1));
+            grown[2 * i] = ring[slot];
+            grown[2 * i + 1] = ring[slot + 1];
+        }
+        rings[level] = grown;
+        heads[level] = 0;
+    }
+
+    private void dropStaleHeads(final int level, final Retained retained) {
+        while (sizes[level] > 0 && !retained.isRetained(headId(level), headStamp(level))) {
+            poll(level);
+        }
+    }
+
+    private long headId(final int level) {
+        return rings[level][2 * heads[level]];
+    }
+
+    private long headStamp(final int level) {
+        return rings[level][2 * heads[level] + 1];
+    }
+
+    private void poll(final int level) {
+        heads[level] = (heads[level] + 1) & (rings[level].length / 2 - 1);
+        --sizes[level];
+    }
+
+    /**
+     * Removes the entries due at {@code now} and hands their ids over, level by level, and
+     * counts their resend; stale entries are dropped.
+     *
+     * @param now Unit: [ms since epoch].
+     * @param overdueIds receives the ids of the retained messages due for a resend
+     * @return the next deadline after the removal, see {@link #nextDeadline(Retained)}
+     */
+    public long pollOverdue(final long now, final Retained retained, final LongConsumer overdueIds) {
+        for (int level = 0; level < rings.length; ++level) {
+            final long delay = resendInterval * multiplier(level);
+            for (;;) {
+                dropStaleHeads(level, retained);
+                if (sizes[level] == 0 || headStamp(level) + delay > now) {
+                    break;
+                }
+                final long id = headId(level);
+                poll(level);
+                countResend(id);
+                overdueIds.accept(id);
+            }
+        }
+        return nextDeadline(retained);
+    }
+
+    private void countResend(final long id) {
+        final int count = resends(id);
+        resends.remove(id);
+        resends.put(id, RESENT, count + 1);
+    }
+
+    /**
+     * @return the earliest deadline of a retained message, {@link Long#MAX_VALUE} if none.
+     * Unit: [ms since epoch].
+     */
+    public long nextDeadline(final Retained retained) {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < rings.length; ++level) {
+            dropStaleHeads(level, retained);
+            if (sizes[level] > 0) {
+                next = Math.min(next, headStamp(level) + resendInterval * multiplier(level));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return the number of entries, stale ones included
+     */
+    public int size() {
+        int size = 0;
+        for (int level = 0; level < rings.length; ++level) {
+            size += sizes[level];
+        }
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(heads, 0);
+        Arrays.fill(sizes, 0);
+        resends.clear();
+    }
+}
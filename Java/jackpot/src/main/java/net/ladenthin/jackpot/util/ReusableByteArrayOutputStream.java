@@ -0,0 +1,88 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An unsynchronized {@link java.io.ByteArrayOutputStream} whose array is exposed and kept
+ * across uses: a serializing thread writes every message into the same array instead of
+ * growing a fresh one per message. Not thread-safe; one instance per thread.
+ */
+public final class ReusableByteArrayOutputStream extends OutputStream {
+
+    /**
+     * Unit: [bytes].
+     */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /**
+     * {@link #recycle()} drops an array grown beyond this, so one large message does not pin
+     * its size for the lifetime of the thread. Unit: [bytes].
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    private int size;
+
+    @Override
+    public void write(final int b) {
+        ensureCapacity(size + 1);
+        buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(size + len);
+        System.arraycopy(b, off, buffer, size, len);
+        size += len;
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("ReusableByteArrayOutputStream exceeds the maximum array length");
+        }
+        if (minCapacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length << 1));
+        }
+    }
+
+    /**
+     * @return the backing array; the written bytes are {@code [0, size())}. Valid until the
+     * next write or {@link #recycle()}.
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * Unit: [bytes].
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Discards the written bytes for the next use; an oversized array is dropped.
+     */
+    public void recycle() {
+        size = 0;
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+/**
+ * Spins a bounded number of times before parking, so a hand-off that follows shortly after
+ * the previous one finds the consumer awake.
+ */
+public final class SpinThenParkWaitStrategy implements WaitStrategy {
+
+    /**
+     * The default {@link #spins}; in the order of some ten microseconds.
+     */
+    public static final int DEFAULT_SPINS = 1000;
+
+    private final int spins;
+
+    /**
+     * @param spins how often the condition is checked before parking
+     */
+    public SpinThenParkWaitStrategy(final int spins) {
+        if (spins < 0) {
+            throw new IllegalArgumentException("spins must not be negative: " + spins);
+        }
+        this.spins = spins;
+    }
+
+    @Override
+    public void await(final Waitable waitable) throws InterruptedException {
+        for (int i = 0; i < spins; ++i) {
+            if (waitable.isReady()) {
+                return;
+            }
+            SpinWait.onSpinWait();
+        }
+        while (!waitable.isReady()) {
+            waitable.park();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * {@code Thread.onSpinWait()} (Java 9+) for a library that targets Java 8: resolved once,
+ * a no-op on runtimes without it.
+ */
+final class SpinWait {
+
+    private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+
+    private SpinWait() {
+    }
+
+    private static MethodHandle findOnSpinWait() {
+        try {
+            return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait",
+                MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hints the processor that the caller is spinning.
+     */
+    static void onSpinWait() {
+        if (ON_SPIN_WAIT == null) {
+            return;
+        }
+        try {
+            ON_SPIN_WAIT.invokeExact();
+        } catch (Throwable e) {
+            /**
+             * Thread.onSpinWait() declares nothing and throws nothing.
+             */
+            throw new IllegalStateException(e);
+        }
+    }
+}
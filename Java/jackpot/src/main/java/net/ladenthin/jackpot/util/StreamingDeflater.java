@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * The sender side of the streamed deflate (see
+ * {@link net.ladenthin.jackpot.configuration.SettingsCompression#enableDeflateStream}): one
+ * raw deflate context for all messages, sync flushed after each message so the payload ends
+ * on a byte boundary and inflates completely on its own — given every payload before it.
+ * <p>
+ * The messages must be deflated in id order, exactly once each: the receiver's
+ * {@link StreamingInflater} replays the same sequence. Not thread-safe; the serialize loop
+ * owns it.
+ */
+public final class StreamingDeflater {
+
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
+    /**
+     * The sync flush marker (an empty stored block) and a partly filled last byte, on top of
+     * the stored-block overhead.
+     */
+    private static final int FLUSH_OVERHEAD = 16;
+
+    private final Deflater deflater;
+
+    /**
+     * Reused output buffer; grown to the largest {@link #maxDeflatedLength(int)} so far.
+     */
+    private byte[] buffer = new byte[0];
+
+    /**
+     * @param level the {@link Deflater} level
+     */
+    public StreamingDeflater(final int level) {
+        deflater = new Deflater(level, true);
+    }
+
+    /**
+     * The largest payload {@link #deflate(BinaryMessage)} produces for an uncompressed
+     * payload: incompressible input falls back to stored blocks (5 bytes per block, the
+     * estimate of zlib's {@code deflateBound}) plus the flush marker. The bound is checked
+     * BEFORE a payload enters the context — a rejected message must not, the receiver would
+     * never see it.
+     *
+     * @param length the uncompressed length. Unit: [bytes].
+     * @return the deflated length bound. Unit: [bytes].
+     */
+    public static long maxDeflatedLength(final int length) {
+        return (long) length + (length >>> 12) + (length >>> 14) + (length >>> 25) + FLUSH_OVERHEAD;
+    }
+
+    /**
+     * Deflates the payload of an uncompressed message into the stream.
+     *
+     * @param bm an uncompressed message, the next one in id order
+     * @return the message with the streamed payload
+     */
+    public BinaryMessage deflate(final BinaryMessage bm) {
+        if (bm.isLz4Used() || bm.isGzipUsed() || bm.isDeflateStreamed() || bm.isDictionaryUsed()) {
+            throw new IllegalArgumentException("the message is compressed already: " + bm.getId());
+        }
+        final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Compress);
+        final byte[] payload = bm.payload();
+        final long bound = maxDeflatedLength(payload.length);
+        if (buffer.length < bound) {
+            buffer = new byte[(int) Math.min(bound, Integer.MAX_VALUE - 8)];
+        }
+        deflater.setInput(payload);
+        int length = 0;
+        for (;;) {
+            length += deflater.deflate(buffer, length, buffer.length - length, Deflater.SYNC_FLUSH);
+            /**
+             * A partly filled buffer means the flush is complete; a full one may hold back
+             * output.
+             */
+            if (length < buffer.length) {
+                break;
+            }
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        EVENTS.commit(event, bm.getId(), 1, payload.length);
+        return bm.withPayload(Arrays.copyOf(buffer, length), true);
+    }
+
+    /**
+     * Releases the native context; the deflater is unusable afterwards.
+     */
+    public void end() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,67 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The receiver side of the streamed deflate, see {@link StreamingDeflater}: one raw inflate
+ * context for all streamed payloads of the other side, fed in id order, exactly once per id.
+ * Not thread-safe; the sequencing of the {@link net.ladenthin.jackpot.ReadLayer} owns it.
+ */
+public final class StreamingInflater {
+
+    private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.get();
+
+    private final Inflater inflater = new Inflater(true);
+
+    /**
+     * Detects output beyond the announced uncompressed size.
+     */
+    private final byte[] excess = new byte[1];
+
+    /**
+     * Inflates a streamed payload into exactly its announced uncompressed size; the frame
+     * decoder bounds the size with the maxPayloadLength.
+     *
+     * @param bm a deflate streamed message, the next one in id order
+     * @return the message with the restored, uncompressed payload
+     * @throws IOException if the payload is corrupt or does not restore to its announced
+     * size; the context is lost then, later streamed payloads fail as well
+     */
+    public BinaryMessage inflate(final BinaryMessage bm) throws IOException {
+        if (!bm.isDeflateStreamed()) {
+            throw new IllegalArgumentException("the message is not deflate streamed: " + bm.getId());
+        }
+        final Object event = EVENTS.begin(FlightRecorderEvents.Kind.Decompress);
+        final byte[] restored = new byte[bm.getUncompressedSize()];
+        inflater.setInput(bm.payload());
+        try {
+            int length = 0;
+            while (length < restored.length) {
+                final int inflated = inflater.inflate(restored, length, restored.length - length);
+                if (inflated == 0) {
+                    throw new IOException("streamed payload of message " + bm.getId()
+                        + " restores to " + length + " instead of " + restored.length + " bytes");
+                }
+                length += inflated;
+            }
+            /**
+             * The whole payload must be consumed (e.g. the flush marker after the last byte),
+             * otherwise the next payload would start mid-stream.
+             */
+            if (inflater.inflate(excess) != 0 || inflater.getRemaining() != 0) {
+                throw new IOException("streamed payload of message " + bm.getId()
+                    + " exceeds " + restored.length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt streamed payload of message " + bm.getId(), e);
+        }
+        EVENTS.commit(event, bm.getId(), 1, restored.length);
+        return bm.withPayload(restored, false);
+    }
+}
@@ -0,0 +1,78 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The virtual thread API of Java 21, reached by reflection because the library is compiled
+ * for Java 8. The methods are looked up once; on an older runtime
+ * {@link #isSupported()} is {@code false} and the callers fall back to platform threads.
+ */
+final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_UNSTARTED;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual;
+        Method builderName;
+        Method builderUnstarted;
+        Method newThreadPerTaskExecutor;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            builderName = builder.getMethod("name", String.class);
+            builderUnstarted = builder.getMethod("unstarted", Runnable.class);
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+            builderName = null;
+            builderUnstarted = null;
+            newThreadPerTaskExecutor = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_UNSTARTED = builderUnstarted;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return a new, unstarted virtual thread
+     * @throws IllegalStateException if this runtime has no virtual threads
+     */
+    static Thread unstarted(final String name, final Runnable runnable) {
+        try {
+            final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) BUILDER_UNSTARTED.invoke(builder, runnable);
+        } catch (ReflectiveOperationException | NullPointerException e) {
+            throw new IllegalStateException("virtual threads unavailable", e);
+        }
+    }
+
+    /**
+     * @return an executor starting a new thread of the factory per task
+     * @throws IllegalStateException if this runtime has no virtual threads
+     */
+    static ExecutorService newThreadPerTaskExecutor(final ThreadFactory threadFactory) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | NullPointerException e) {
+            throw new IllegalStateException("virtual threads unavailable", e);
+        }
+    }
+}
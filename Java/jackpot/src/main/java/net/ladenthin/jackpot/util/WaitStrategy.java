@@ -0,0 +1,59 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import net.ladenthin.jackpot.configuration.WaitStrategyType;
+
+/**
+ * How the single consumer of a {@link MpscQueue} waits until there is something to do.
+ */
+public interface WaitStrategy {
+
+    /**
+     * The condition a consumer waits for.
+     */
+    interface Waitable {
+
+        /**
+         * @return whether the consumer has something to do; called by the consumer only
+         */
+        boolean isReady();
+
+        /**
+         * Parks the consumer until a producer signals it; returns immediately if
+         * {@link #isReady()} holds already, and may return spuriously.
+         */
+        void park();
+    }
+
+    /**
+     * Blocks the calling consumer until {@link Waitable#isReady()} holds.
+     *
+     * @param waitable the condition
+     * @throws InterruptedException if the consumer was interrupted while waiting
+     */
+    void await(Waitable waitable) throws InterruptedException;
+
+    /**
+     * @param type the configured type; {@code null} (e.g. a configuration serialized before
+     * the setting existed) means {@link WaitStrategyType#Park}
+     * @return a strategy of the type
+     */
+    static WaitStrategy of(final WaitStrategyType type) {
+        if (type == null) {
+            return new ParkWaitStrategy();
+        }
+        switch (type) {
+            case Park:
+                return new ParkWaitStrategy();
+            case SpinThenPark:
+                return new SpinThenParkWaitStrategy(SpinThenParkWaitStrategy.DEFAULT_SPINS);
+            case BusySpin:
+                return new BusySpinWaitStrategy();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + type);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.util;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Queues elements keyed by message id on weighted channels and polls them by self-clocked
+ * fair queueing: every channel polls in ascending id order, and across the channels the
+ * element with the least virtual finish time goes first. The finish time of the first
+ * element of a channel is its start time plus its cost divided by the channel weight; a
+ * channel that gets busy starts at the virtual time (the finish time of the element polled
+ * last), so it neither catches up on the time it was idle nor waits behind the backlog of
+ * the others. While several channels hold elements, each gets its weight's share of the
+ * cost; a single channel gets everything.
+ * <p>
+ * Not thread-safe; one owner thread.
+ *
+ * @param <E> the element type
+ */
+public final class WeightedFairQueue<E> {
+
+    /**
+     * The fixed-point shift of the virtual times: a cost divided by a large weight keeps its
+     * fraction.
+     */
+    private static final int VIRTUAL_TIME_SHIFT = 16;
+
+    private final MessageIdWindow<E>[] queues;
+
+    private final int[] weights;
+
+    /**
+     * The cost of an element, e.g. its frame length. Unit: [bytes].
+     */
+    private final ToIntFunction<E> cost;
+
+    /**
+     * The virtual start time of the first element of every busy channel.
+     */
+    private final long[] startTimes;
+
+    /**
+     * The virtual finish time of the element polled last from every channel.
+     */
+    private final long[] finishTimes;
+
+    /**
+     * The finish time of the element polled last.
+     */
+    private long virtualTime;
+
+    private int size;
+
+    /**
+     * @param weights the weight of every channel; a weight below {@code 1} counts as
+     * {@code 1}
+     * @param initialCapacity the initial ring size of every channel, see
+     * {@link MessageIdWindow#MessageIdWindow(int)}
+     * @param cost the cost of an element, not negative
+     */
+    @SuppressWarnings("unchecked")
+    public WeightedFairQueue(final int[] weights, final int initialCapacity,
+        final ToIntFunction<E> cost) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("no channel");
+        }
+        queues = new MessageIdWindow[weights.length];
+        this.weights = new int[weights.length];
+        for (int i = 0; i < weights.length; ++i) {
+            queues[i] = new MessageIdWindow<>(initialCapacity);
+            this.weights[i] = Math.max(1, weights[i]);
+        }
+        this.cost = cost;
+        startTimes = new long[weights.length];
+        finishTimes = new long[weights.length];
+    }
+
+    /**
+     * Adds the element to its channel.
+     *
+     * @param channel the channel, below {@link #channels()}
+     * @param id the message id
+     * @param element the element, not {@code null}
+     * @return {@code false} if the channel holds an element with this id already (nothing
+     * changed)
+     */
+    public boolean put(final int channel, final long id, final E element) {
+        final MessageIdWindow<E> queue = queues[channel];
+        final boolean busy = !queue.isEmpty();
+        if (!queue.put(id, element)) {
+            return false;
+        }
+        if (!busy) {
+            startTimes[channel] = Math.max(virtualTime, finishTimes[channel]);
+        }
+        ++size;
+        return true;
+    }
+
+    /**
+     * @return whether the channel holds an element under the id
+     */
+    public boolean contains(final int channel, final long id) {
+        return queues[channel].contains(id);
+    }
+
+    /**
+     * Removes the element with the least virtual finish time: the lowest id of its channel;
+     * of equal finish times the one of the lower channel.
+     *
+     * @return the removed element, or {@code null} if every channel is empty
+     */
+    public E pollFirst() {
+        int next = -1;
+        long nextFinish = Long.MAX_VALUE;
+        for (int channel = 0; channel < queues.length; ++channel) {
+            final E first = queues[channel].first();
+            if (first == null) {
+                continue;
+            }
+            final long finish = startTimes[channel]
+                + ((long) cost.applyAsInt(first) << VIRTUAL_TIME_SHIFT) / weights[channel];
+            if (finish < nextFinish) {
+                next = channel;
+                nextFinish = finish;
+            }
+        }
+        if (next < 0) {
+            return null;
+        }
+        final E element = queues[next].pollFirst();
+        virtualTime = nextFinish;
+        finishTimes[next] = nextFinish;
+        startTimes[next] = nextFinish;
+        if (--size == 0) {
+            /**
+             * Idle: no channel is owed anything, and the virtual times start over instead
+             * of growing without bound.
+             */
+            virtualTime = 0;
+            for (int channel = 0; channel < queues.length; ++channel) {
+                finishTimes[channel] = 0;
+            }
+        }
+        return element;
+    }
+
+    /**
+     * @return the number of channels
+     */
+    public int channels() {
+        return queues.length;
+    }
+
+    /**
+     * @return the number of held elements of every channel
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
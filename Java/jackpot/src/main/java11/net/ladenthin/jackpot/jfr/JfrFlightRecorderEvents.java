@@ -0,0 +1,216 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+import net.ladenthin.jackpot.util.FlightRecorderEvents;
+
+/**
+ * The {@code jdk.jfr} implementation of {@link FlightRecorderEvents}, compiled for Java 11
+ * and loaded by name. The per-message events are disabled by default, a recording enables
+ * them by name (e.g. {@code net.ladenthin.jackpot.Serialize#enabled=true}).
+ * <p>
+ * Which kinds a recording enables is cached in {@link #enabledKinds} and refreshed whenever a
+ * recording changes its state: a setting changed on a running recording takes effect with
+ * the next start or stop of a recording.
+ */
+public final class JfrFlightRecorderEvents extends FlightRecorderEvents {
+
+    private static final String CATEGORY = "Jackpot";
+
+    /**
+     * The fields of every event.
+     */
+    @Category(CATEGORY)
+    @StackTrace(false)
+    abstract static class TransceiverEvent extends Event {
+
+        @Label("Message Id")
+        @Description("The (first) wire message id, -1 if none")
+        long messageId;
+
+        @Label("Messages")
+        int messages;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("net.ladenthin.jackpot.Serialize")
+    @Label("Serialize")
+    @Description("Serializing one message; bytes: the serialized size")
+    @Enabled(false)
+    static final class SerializeEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Compress")
+    @Label("Compress")
+    @Description("Compressing one payload; bytes: the uncompressed size")
+    @Enabled(false)
+    static final class CompressEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Decompress")
+    @Label("Decompress")
+    @Description("Decompressing one payload; bytes: the uncompressed size")
+    @Enabled(false)
+    static final class DecompressEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Deserialize")
+    @Label("Deserialize")
+    @Description("Deserializing one message; bytes: the serialized size")
+    @Enabled(false)
+    static final class DeserializeEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Read")
+    @Label("Read")
+    @Description("A frame read from the connection; bytes: the frame length")
+    @Enabled(false)
+    static final class ReadEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Write")
+    @Label("Write")
+    @Description("Writing and flushing a batch of frames; bytes: the frame lengths")
+    static final class WriteEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.ReorderWait")
+    @Label("Reorder Wait")
+    @Description("Received messages held back by a gap in the id sequence; messageId: the id"
+        + " that filled the gap, messages: the messages held back")
+    static final class ReorderWaitEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Deliver")
+    @Label("Deliver")
+    @Description("Delivering a batch of messages to the listeners and observers")
+    static final class DeliverEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Resend")
+    @Label("Resend")
+    @Description("Resending an unacknowledged message")
+    static final class ResendEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Reconnect")
+    @Label("Reconnect")
+    @Description("Connecting or reconnecting until the connection stands")
+    static final class ReconnectEvent extends TransceiverEvent {
+    }
+
+    @Name("net.ladenthin.jackpot.Backpressure")
+    @Label("Backpressure")
+    @Description("A sender blocked by the maxPendingMessages bound; messages: the permits asked for")
+    static final class BackpressureEvent extends TransceiverEvent {
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final EventType[] eventTypes = new EventType[KINDS.length];
+
+    /**
+     * Bit {@code ordinal} is set while a recording enables the kind.
+     */
+    private volatile int enabledKinds;
+
+    public JfrFlightRecorderEvents() {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("the flight recorder is not available");
+        }
+        for (int i = 0; i < KINDS.length; ++i) {
+            eventTypes[i] = EventType.getEventType(create(KINDS[i]).getClass());
+        }
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(final Recording recording) {
+                updateEnabledKinds();
+            }
+        });
+        updateEnabledKinds();
+    }
+
+    private void updateEnabledKinds() {
+        int enabled = 0;
+        for (int i = 0; i < KINDS.length; ++i) {
+            if (eventTypes[i].isEnabled()) {
+                enabled |= 1 << i;
+            }
+        }
+        enabledKinds = enabled;
+    }
+
+    private static TransceiverEvent create(final Kind kind) {
+        switch (kind) {
+            case Serialize:
+                return new SerializeEvent();
+            case Compress:
+                return new CompressEvent();
+            case Decompress:
+                return new DecompressEvent();
+            case Deserialize:
+                return new DeserializeEvent();
+            case Read:
+                return new ReadEvent();
+            case Write:
+                return new WriteEvent();
+            case ReorderWait:
+                return new ReorderWaitEvent();
+            case Deliver:
+                return new DeliverEvent();
+            case Resend:
+                return new ResendEvent();
+            case Reconnect:
+                return new ReconnectEvent();
+            case Backpressure:
+                return new BackpressureEvent();
+            default:
+                throw new IllegalArgumentException("unknown kind: " + kind);
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Object begin(final Kind kind) {
+        if ((enabledKinds & (1 << kind.ordinal())) == 0) {
+            return null;
+        }
+        final TransceiverEvent event = create(kind);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commit(final Object event, final long messageId, final int messages, final long bytes) {
+        if (event == null) {
+            return;
+        }
+        final TransceiverEvent transceiverEvent = (TransceiverEvent) event;
+        transceiverEvent.messageId = messageId;
+        transceiverEvent.messages = messages;
+        transceiverEvent.bytes = bytes;
+        transceiverEvent.commit();
+    }
+}
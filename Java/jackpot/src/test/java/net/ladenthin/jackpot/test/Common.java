@@ -13,6 +13,8 @@ import net.ladenthin.jackpot.configuration.BooleanCondition;
 import net.ladenthin.jackpot.configuration.CLZ4Compressor;
 import net.ladenthin.jackpot.configuration.CLZ4Decompressor;
 import net.ladenthin.jackpot.configuration.CompressCondition;
+import net.ladenthin.jackpot.configuration.CompressionDictionary;
+import net.ladenthin.jackpot.configuration.ConditionDictionary;
 import net.ladenthin.jackpot.configuration.ConditionGZIP;
 import net.ladenthin.jackpot.configuration.ConditionLZ4;
 import net.ladenthin.jackpot.configuration.SettingsCompression;
@@ -193,4 +195,62 @@ public class Common {
         2048,
         null
     );
+
+    /**
+     * The streamed deflate at the default level: one deflate context across all messages.
+     */
+    public final static SettingsCompression deflateStreamSettingsCompression = new SettingsCompression(
+        null,
+        null,
+        false,
+        false,
+        2048,
+        null,
+        true,
+        Deflater.DEFAULT_COMPRESSION
+    );
+
+    /**
+     * A dictionary holding {@link #simpleByteArray} itself: the best case, a payload equal
+     * to the dictionary.
+     */
+    public final static CompressionDictionary simpleCompressionDictionary =
+        new CompressionDictionary(7, simpleByteArray);
+
+    /**
+     * The dictionary compression of every non-empty payload with
+     * {@link #simpleCompressionDictionary}.
+     */
+    public final static SettingsCompression dictionarySettingsCompression = new SettingsCompression(
+        null,
+        null,
+        false,
+        false,
+        2048,
+        null,
+        false,
+        Deflater.DEFAULT_COMPRESSION,
+        true,
+        Arrays.asList(new ConditionDictionary(simpleCompressionDictionary.id)),
+        Arrays.asList(simpleCompressionDictionary)
+    );
+
+    /**
+     * The adaptive compression over a slow link (1 MB/s), where compressing pays off.
+     */
+    public final static SettingsCompression adaptiveSettingsCompression = new SettingsCompression(
+        null,
+        null,
+        false,
+        false,
+        2048,
+        CLZ4Decompressor.safeFastDecompressor,
+        false,
+        Deflater.DEFAULT_COMPRESSION,
+        false,
+        null,
+        null,
+        true,
+        1_000_000
+    );
 }
@@ -0,0 +1,259 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.binaryMessage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.BinaryMessageDecoder;
+
+public class BinaryMessageDecoderTest {
+
+    private static final int FLAG_NONE = 0;
+
+    /**
+     * The smallest receive buffer a reader may use: it must hold a complete header.
+     * Unit: [bytes].
+     */
+    private static final int RECEIVE_BUFFER_CAPACITY = 64;
+
+    /**
+     * The given messages encoded back to back into one direct buffer, ready to read.
+     */
+    private ByteBuffer encode(BinaryMessage... messages) {
+        int length = 0;
+        for (BinaryMessage bm : messages) {
+            length += bm.getFrameLength();
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        for (BinaryMessage bm : messages) {
+            bm.toByteBuffer(buffer);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Feeds the bytes through a small receive buffer, at most {@code bytesPerRead} at a time,
+     * the way a channel reader compacts and refills it, and collects every decoded frame.
+     */
+    private List<BinaryMessage> decodeThrough(ByteBuffer wire, int bytesPerRead)
+        throws IOException {
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(Integer.MAX_VALUE);
+        final ByteBuffer receive = ByteBuffer.allocateDirect(RECEIVE_BUFFER_CAPACITY);
+        final List<BinaryMessage> decoded = new ArrayList<>();
+        while (wire.hasRemaining()) {
+            for (int i = 0; i < bytesPerRead && receive.hasRemaining() && wire.hasRemaining(); ++i) {
+                receive.put(wire.get());
+            }
+            receive.flip();
+            BinaryMessage bm;
+            while ((bm = decoder.decode(receive)) != null) {
+                decoded.add(bm);
+            }
+            receive.compact();
+        }
+        return decoded;
+    }
+
+    @Test
+    public void decode_everyStateInOneBuffer_decodedInOrder() throws IOException {
+        // arrange
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(1L);
+        final BinaryMessage acknowledged = BinaryMessage.createAcknowledged(2L, Arrays.asList(7L, 8L));
+        final BinaryMessage message = BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression);
+        final ByteBuffer buffer = encode(heartbeat, acknowledged, message);
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(Integer.MAX_VALUE);
+
+        // act
+        final BinaryMessage first = decoder.decode(buffer);
+        final BinaryMessage second = decoder.decode(buffer);
+        final BinaryMessage third = decoder.decode(buffer);
+        final BinaryMessage fourth = decoder.decode(buffer);
+
+        // assert
+        assertThat(first, is(equalTo(heartbeat)));
+        assertThat(second, is(equalTo(acknowledged)));
+        assertThat(third, is(equalTo(message)));
+        assertThat(fourth, is(nullValue()));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void decode_incompleteHeader_nothingConsumed() throws IOException {
+        // arrange
+        final ByteBuffer buffer = encode(BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression));
+        buffer.limit(19);
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(Integer.MAX_VALUE);
+
+        // act
+        final BinaryMessage decoded = decoder.decode(buffer);
+
+        // assert
+        assertThat(decoded, is(nullValue()));
+        assertThat(buffer.position(), is(equalTo(0)));
+    }
+
+    @Test
+    public void decode_fedByteByByte_everyFrameDecoded() throws IOException {
+        // arrange
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(1L);
+        final BinaryMessage acknowledged = BinaryMessage.createAcknowledged(2L, Arrays.asList(7L, 8L));
+        final BinaryMessage message = BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression);
+
+        // act
+        final List<BinaryMessage> decoded = decodeThrough(encode(heartbeat, acknowledged, message), 1);
+
+        // assert
+        assertThat(decoded, is(equalTo(Arrays.asList(heartbeat, acknowledged, message))));
+    }
+
+    @Test
+    public void decode_gapReportFedByteByByte_decoded() throws IOException {
+        // arrange
+        final BinaryMessage gapReport = BinaryMessage.createGapReport(4L, new long[] {6L, 8L, 10L, 11L});
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(5L);
+
+        // act
+        final List<BinaryMessage> decoded = decodeThrough(encode(gapReport, heartbeat), 1);
+
+        // assert
+        assertThat(decoded, is(equalTo(Arrays.asList(gapReport, heartbeat))));
+    }
+
+    @Test
+    public void decode_acknowledgedRangesFedByteByByte_decoded() throws IOException {
+        // arrange
+        final BinaryMessage acknowledgement =
+            BinaryMessage.createAcknowledgedRanges(4L, new long[] {6L, 8L, 10L, 1000L});
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(5L);
+
+        // act
+        final List<BinaryMessage> decoded = decodeThrough(encode(acknowledgement, heartbeat), 1);
+
+        // assert
+        assertThat(decoded, is(equalTo(Arrays.asList(acknowledgement, heartbeat))));
+    }
+
+    @Test
+    public void decode_framesLargerThanReceiveBuffer_decodedWithoutGrowingIt() throws IOException {
+        // arrange: a payload and an acknowledgement batch, both far beyond the receive buffer
+        final byte[] payload = new byte[10000];
+        for (int i = 0; i < payload.length; ++i) {
+            payload[i] = (byte) i;
+        }
+        final List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 1000; ++i) {
+            ids.add(i);
+        }
+        final BinaryMessage message = BinaryMessage.box(1L, payload, Common.simpleSettingsCompression);
+        final BinaryMessage acknowledged = BinaryMessage.createAcknowledged(2L, ids);
+
+        // act
+        final List<BinaryMessage> decoded = decodeThrough(encode(message, acknowledged), RECEIVE_BUFFER_CAPACITY);
+
+        // assert
+        assertThat(decoded, is(equalTo(Arrays.asList(message, acknowledged))));
+    }
+
+    @Test
+    public void decode_fragmentsFedByteByByte_decodedWithOffsetAndTotalSize() throws IOException {
+        // arrange: the message in two fragments around a heartbeat
+        final byte[] msg = Common.simpleByteArray;
+        final int half = msg.length / 2;
+        final BinaryMessage first = BinaryMessage.boxFragment(7L, msg, 0, half, msg.length,
+            Common.alwaysGZIPSettingsCompression);
+        final BinaryMessage second = BinaryMessage.boxFragment(7L, msg, half, msg.length - half, msg.length,
+            Common.alwaysGZIPSettingsCompression);
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(8L);
+
+        // act
+        final List<BinaryMessage> decoded = decodeThrough(encode(first, heartbeat, second), 1);
+
+        // assert
+        assertThat(decoded, is(equalTo(Arrays.asList(first, heartbeat, second))));
+        assertThat(decoded.get(2).getFragmentOffset(), is(equalTo(half)));
+        assertThat(decoded.get(2).getFragmentTotalSize(), is(equalTo(msg.length)));
+    }
+
+    @Test
+    public void decode_channelFragmentsFedByteByByte_decodedWithChannelAndSequence() throws IOException {
+        // arrange: the fragments of a channel message around a channel message of another channel
+        final byte[] msg = Common.simpleByteArray;
+        final int half = msg.length / 2;
+        final BinaryMessage first = BinaryMessage.boxFragment(7L, msg, 0, half, msg.length,
+            Common.alwaysLZ4SettingsCompression).withChannel(2, 5L);
+        final BinaryMessage second = BinaryMessage.boxFragment(7L, msg, half, msg.length - half, msg.length,
+            Common.alwaysLZ4SettingsCompression).withChannel(2, 5L);
+        final BinaryMessage other = BinaryMessage.box(8L, msg, Common.simpleSettingsCompression).withChannel(0, 9L);
+
+        // act
+        final List<BinaryMessage> decoded = decodeThrough(encode(first, other, second), 1);
+
+        // assert
+        assertThat(decoded, is(equalTo(Arrays.asList(first, other, second))));
+        assertThat(decoded.get(1).getChannel(), is(equalTo(0)));
+        assertThat(decoded.get(1).getChannelSequence(), is(equalTo(9L)));
+        assertThat(decoded.get(2).getChannel(), is(equalTo(2)));
+        assertThat(decoded.get(2).getFragmentOffset(), is(equalTo(half)));
+    }
+
+    @Test
+    public void decode_negativeChannelSequence_throwsIOException() {
+        // arrange: a channel flag, an empty message of sequence -1
+        final ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.putInt(1024).putLong(1L).putInt(0).putInt(0).putInt(0).putLong(-1L).flip();
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(1024);
+
+        // act, assert
+        assertThrows(IOException.class, () -> decoder.decode(buffer));
+    }
+
+    @Test
+    public void decode_fragmentTotalSizeAboveMaximum_throwsIOException() {
+        // arrange: a fragment flag, an empty fragment of a 2 GiB message
+        final ByteBuffer buffer = ByteBuffer.allocate(28);
+        buffer.putInt(256).putLong(1L).putInt(0).putInt(0).putInt(Integer.MAX_VALUE).putInt(0).flip();
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(1024);
+
+        // act, assert
+        assertThrows(IOException.class, () -> decoder.decode(buffer));
+    }
+
+    @Test
+    public void decode_uncompressedSizeAboveMaximum_throwsIOException() {
+        // arrange: a message-state frame with a small payload but a 2 GiB uncompressed size
+        final ByteBuffer buffer = ByteBuffer.allocate(21);
+        buffer.putInt(FLAG_NONE).putLong(1L).putInt(Integer.MAX_VALUE).putInt(1).put((byte) 0).flip();
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(1024);
+
+        // act, assert
+        assertThrows(IOException.class, () -> decoder.decode(buffer));
+    }
+
+    @Test
+    public void decode_payloadLengthAboveMaximum_throwsIOException() {
+        // arrange
+        final ByteBuffer buffer = ByteBuffer.allocate(20);
+        buffer.putInt(FLAG_NONE).putLong(1L).putInt(100).putInt(2048).flip();
+        final BinaryMessageDecoder decoder = new BinaryMessageDecoder(1024);
+
+        // act, assert
+        assertThrows(IOException.class, () -> decoder.decode(buffer));
+    }
+}
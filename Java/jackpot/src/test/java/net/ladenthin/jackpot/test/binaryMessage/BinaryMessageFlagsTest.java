@@ -83,6 +83,117 @@ public class BinaryMessageFlagsTest {
         assertThat(recreated.isAcknowledged(), is(acknowledged));
         assertThat(recreated, is(equalTo(flags)));
     }
+
+    @Test
+    public void fromDataInputReplaceJava8_gapReportWritten_onlyGapReportFlagSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(false, false, false, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.isGapReport(), is(true));
+        assertThat(recreated.isAcknowledged(), is(false));
+        assertThat(recreated.isHeartbeat(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+        assertThat(recreated, is(not(equalTo(new BinaryMessageFlags(false, false, false, false)))));
+    }
+
+    @Test
+    public void fromDataInputReplaceJava8_acknowledgedRangesWritten_onlyAcknowledgedRangesFlagSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(false, false, false, false, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.isAcknowledgedRanges(), is(true));
+        assertThat(recreated.isAcknowledged(), is(false));
+        assertThat(recreated.isGapReport(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+    }
+
+    @Test
+    public void fromDataInputReplaceJava8_deflateStreamedWritten_onlyDeflateStreamedFlagSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(false, false, false, false, false, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.isDeflateStreamed(), is(true));
+        assertThat(recreated.isGzipUsed(), is(false));
+        assertThat(recreated.isAcknowledgedRanges(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+        assertThat(recreated, is(not(equalTo(new BinaryMessageFlags(false, false, false, false)))));
+    }
+
+    @Test
+    public void fromDataInputReplaceJava8_dictionaryUsedWritten_onlyDictionaryUsedFlagSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(false, false, false, false, false, false, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.isDictionaryUsed(), is(true));
+        assertThat(recreated.isDeflateStreamed(), is(false));
+        assertThat(recreated.isGzipUsed(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+    }
+
+    @Test
+    public void fromDataInputReplaceJava8_fragmentWithLz4Written_bothFlagsSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(true, false, false, false, false, false, false, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.isFragment(), is(true));
+        assertThat(recreated.isLz4Used(), is(true));
+        assertThat(recreated.isDictionaryUsed(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+        assertThat(recreated, is(not(equalTo(new BinaryMessageFlags(true, false, false, false)))));
+    }
+
+    @Test
+    public void fromDataInputReplaceJava8_streamChunkWithGzipWritten_bothFlagsSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(false, true, false, false, false, false, false, false, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.isStreamChunk(), is(true));
+        assertThat(recreated.isGzipUsed(), is(true));
+        assertThat(recreated.isFragment(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+        assertThat(recreated, is(not(equalTo(new BinaryMessageFlags(false, true, false, false)))));
+    }
+
+    @Test
+    public void fromDataInputReplaceJava8_channelWithFragmentAndLz4Written_allFlagsSet() throws IOException {
+        // arrange
+        final BinaryMessageFlags flags = new BinaryMessageFlags(true, false, false, false, false, false, false, false, true, false, true);
+
+        // act
+        final BinaryMessageFlags recreated = recreate(flags);
+
+        // assert
+        assertThat(recreated.hasChannel(), is(true));
+        assertThat(recreated.isFragment(), is(true));
+        assertThat(recreated.isLz4Used(), is(true));
+        assertThat(recreated.isStreamChunk(), is(false));
+        assertThat(recreated, is(equalTo(flags)));
+        assertThat(recreated, is(not(equalTo(new BinaryMessageFlags(true, false, false, false, false, false, false, false, true)))));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="equals and hashCode">
@@ -146,6 +257,70 @@ public class BinaryMessageFlagsTest {
         assertThrows(AssertionError.class, () -> new BinaryMessageFlags(true, false, false, true));
     }
 
+    @Test
+    public void constructor_gapReportWithAcknowledged_assertionErrorThrown() {
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, true, true));
+    }
+
+    @Test
+    public void constructor_acknowledgedRangesWithAcknowledged_assertionErrorThrown() {
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, true, false, true));
+    }
+
+    @Test
+    public void constructor_deflateStreamedWithGzip_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, true, false, false, false, false, true));
+    }
+
+    @Test
+    public void constructor_deflateStreamedWithHeartbeat_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, true, false, false, false, true));
+    }
+
+    @Test
+    public void constructor_dictionaryUsedWithDeflateStreamed_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, false, false, false, true, true));
+    }
+
+    @Test
+    public void constructor_fragmentWithDeflateStreamed_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, false, false, false, true, false, true));
+    }
+
+    @Test
+    public void constructor_fragmentWithAcknowledged_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, true, false, false, false, false, true));
+    }
+
+    @Test
+    public void constructor_streamChunkWithFragment_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, false, false, false, false, false, true, true));
+    }
+
+    @Test
+    public void constructor_streamChunkWithHeartbeat_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, true, false, false, false, false, false, false, true));
+    }
+
+    @Test
+    public void constructor_channelWithDeflateStreamed_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, false, false, false, true, false, false, false, true));
+    }
+
+    @Test
+    public void constructor_channelWithAcknowledged_assertionErrorThrown() {
+        // act, assert
+        assertThrows(AssertionError.class, () -> new BinaryMessageFlags(false, false, false, true, false, false, false, false, false, false, true));
+    }
+
     @Test
     public void constructor_acknowledgedWithHeartbeat_assertionErrorThrown() {
         // act, assert
@@ -20,15 +20,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.junit.jupiter.api.Test;
 
+import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.test.Common;
 import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.StreamingDeflater;
 
 public class BinaryMessageTest {
 
@@ -75,6 +79,56 @@ public class BinaryMessageTest {
         assertThat(Common.errorNotTheSame, recreated, is(equalTo(bm)));
     }
 
+    @Test
+    public void fromDataInputJava8_gapReportWritten_recreatedEqualsOriginal() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.createGapReport(5L, new long[] {7L, 9L, 12L, 12L});
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(Common.errorNotTheSame, recreated, is(equalTo(bm)));
+        assertThat(recreated.isStateGapReport(), is(true));
+        assertArrayEquals(new long[] {7L, 9L, 12L, 12L}, recreated.getReceivedRanges());
+    }
+
+    @Test
+    public void fromDataInputJava8_acknowledgedRangesWritten_recreatedEqualsOriginal() throws IOException {
+        // arrange: a wide first id and gaps of several varint lengths
+        final long[] ranges = {Long.MIN_VALUE + 1, Long.MIN_VALUE + 300, Long.MIN_VALUE + 302,
+            Long.MIN_VALUE + 302, Long.MIN_VALUE + 100000, Long.MIN_VALUE + 100000 + (1L << 40)};
+        final BinaryMessage bm = BinaryMessage.createAcknowledgedRanges(5L, ranges);
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(Common.errorNotTheSame, recreated, is(equalTo(bm)));
+        assertThat(recreated.isStateAcknowledgedRanges(), is(true));
+        assertArrayEquals(ranges, recreated.getAcknowledgedRanges());
+    }
+
+    /**
+     * The point of the encoding: a run of consecutive ids costs a few bytes, however long.
+     */
+    @Test
+    public void getFrameLength_thousandConsecutiveIdsRangeEncoded_farBelowListEncoding() {
+        // arrange
+        final List<Long> ids = new ArrayList<>();
+        for (long id = 1000; id < 2000; ++id) {
+            ids.add(id);
+        }
+
+        // act
+        final int rangeEncoded = BinaryMessage.createAcknowledgedRanges(1L, new long[] {1000L, 1999L}).getFrameLength();
+        final int listEncoded = BinaryMessage.createAcknowledged(1L, ids).getFrameLength();
+
+        // assert: flags, id, body length, count, first id and a two-byte varint
+        assertThat(rangeEncoded, is(equalTo(4 + 8 + 4 + 1 + 8 + 2)));
+        assertThat(listEncoded, is(equalTo(4 + 8 + 4 + 1000 * 8)));
+    }
+
     @Test
     public void fromDataInputJava8_uncompressedMessageWritten_recreatedEqualsOriginal() throws IOException {
         // arrange
@@ -221,6 +275,29 @@ public class BinaryMessageTest {
      */
     private static final int FLAG_ACKNOWLEDGED = 8;
 
+    /**
+     * The frame flag bit marking a gap report (see BinaryMessageFlags).
+     */
+    private static final int FLAG_GAP_REPORT = 16;
+
+    /**
+     * The frame flag bit marking range-encoded acknowledgements (see BinaryMessageFlags).
+     */
+    private static final int FLAG_ACKNOWLEDGED_RANGES = 32;
+
+    /**
+     * A range-encoded acknowledgement frame with the given body.
+     */
+    private DataInputStream rawAcknowledgedRangesFrame(final byte... body) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dOut = new DataOutputStream(baos);
+        dOut.writeInt(FLAG_ACKNOWLEDGED_RANGES);
+        dOut.writeLong(1L);
+        dOut.writeInt(body.length);
+        dOut.write(body);
+        return new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    }
+
     /**
      * A corrupt frame must be rejected with an {@link IOException} — which routes the reader
      * into its reconnect path — and never with a {@link RuntimeException}, which would kill
@@ -254,6 +331,55 @@ public class BinaryMessageTest {
         // act, assert
         assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn));
     }
+
+    @Test
+    public void fromDataInputJava8_gapReportRangeCountAboveMaximum_throwsIOException() throws IOException {
+        // arrange: 100 ranges of sixteen bytes each exceed a 1 KiB cap
+        final DataInputStream dIn = rawFrame(FLAG_GAP_REPORT, 1L, 100);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn, 1024));
+    }
+
+    @Test
+    public void fromDataInputJava8_acknowledgedRangesLengthAboveMaximum_throwsIOException() throws IOException {
+        // arrange
+        final DataInputStream dIn = rawFrame(FLAG_ACKNOWLEDGED_RANGES, 1L, 2048);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn, 1024));
+    }
+
+    @Test
+    public void fromDataInputJava8_acknowledgedRangeCountBeyondBody_throwsIOException() throws IOException {
+        // arrange: 100 ranges claimed in a three-byte body
+        final DataInputStream dIn = rawAcknowledgedRangesFrame((byte) 100, (byte) 0, (byte) 0);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn));
+    }
+
+    @Test
+    public void fromDataInputJava8_acknowledgedRangesVarintBeyond63Bits_throwsIOException() throws IOException {
+        // arrange: one range, first id 0, then a length varint of ten bytes
+        final DataInputStream dIn = rawAcknowledgedRangesFrame((byte) 1, (byte) 0, (byte) 0,
+            (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0xFF, (byte) 0xFF,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+            (byte) 0xFF, (byte) 0x01);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn));
+    }
+
+    @Test
+    public void fromDataInputJava8_acknowledgedRangesTrailingBytes_throwsIOException() throws IOException {
+        // arrange: one range 0..0, followed by a stray byte
+        final DataInputStream dIn = rawAcknowledgedRangesFrame((byte) 1, (byte) 0, (byte) 0,
+            (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 7);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="payload length cap">
@@ -421,6 +547,383 @@ public class BinaryMessageTest {
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="box from a reusable buffer">
+    /**
+     * A reused serialization buffer: {@link Common#simpleByteArray} followed by leftovers of
+     * an earlier, longer message.
+     */
+    private static byte[] reusedBuffer() {
+        final byte[] buffer = new byte[Common.simpleByteArray.length + 64];
+        Arrays.fill(buffer, (byte) 0x7F);
+        System.arraycopy(Common.simpleByteArray, 0, buffer, 0, Common.simpleByteArray.length);
+        return buffer;
+    }
+
+    @Test
+    public void box_bufferRangeUncompressed_copiedAndIndependentOfBuffer() throws IOException {
+        // arrange
+        final byte[] buffer = reusedBuffer();
+
+        // act
+        final BinaryMessage bm = BinaryMessage.box(
+            1L, buffer, Common.simpleByteArray.length, Common.simpleSettingsCompression);
+        Arrays.fill(buffer, (byte) 0);
+
+        // assert
+        assertThat(bm.getUncompressedSize(), is(equalTo(Common.simpleByteArray.length)));
+        assertArrayEquals(Common.simpleByteArray, bm.unbox(Common.simpleSettingsCompression));
+    }
+
+    @Test
+    public void box_bufferRangeGZIP_onlyRangeCompressed() throws IOException {
+        // arrange
+        final byte[] buffer = reusedBuffer();
+
+        // act
+        final BinaryMessage bm = BinaryMessage.box(
+            1L, buffer, Common.simpleByteArray.length, Common.alwaysGZIPSettingsCompression);
+        Arrays.fill(buffer, (byte) 0);
+
+        // assert
+        assertThat(Common.errorNotGZIPUsed, bm.isGzipUsed(), is(true));
+        assertArrayEquals(Common.simpleByteArray, recreate(bm).unbox(Common.alwaysGZIPSettingsCompression));
+    }
+
+    @Test
+    public void box_bufferRangeLZ4_onlyRangeCompressed() throws IOException {
+        // arrange
+        final byte[] buffer = reusedBuffer();
+
+        // act
+        final BinaryMessage bm = BinaryMessage.box(
+            1L, buffer, Common.simpleByteArray.length, Common.alwaysLZ4SettingsCompression);
+        Arrays.fill(buffer, (byte) 0);
+
+        // assert
+        assertThat(Common.errorNotLZ4Used, bm.isLz4Used(), is(true));
+        assertArrayEquals(Common.simpleByteArray, recreate(bm).unbox(Common.alwaysLZ4SettingsCompression));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="streamed deflate">
+    @Test
+    public void fromDataInputJava8_deflateStreamedMessageWritten_recreatedEqualsOriginalAndKeepsFlag() throws IOException {
+        // arrange
+        final BinaryMessage bm = new StreamingDeflater(Deflater.DEFAULT_COMPRESSION).deflate(
+            BinaryMessage.box(1L, Common.simpleByteArray, Common.simpleSettingsCompression));
+
+        // pre-assert
+        assertThat(bm.isDeflateStreamed(), is(true));
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(recreated.isDeflateStreamed(), is(true));
+        assertThat(recreated.getUncompressedSize(), is(equalTo(Common.simpleByteArray.length)));
+        assertThat(Common.errorNotTheSame, recreated, is(equalTo(bm)));
+    }
+
+    @Test
+    public void unbox_deflateStreamed_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage bm = new StreamingDeflater(Deflater.DEFAULT_COMPRESSION).deflate(
+            BinaryMessage.box(1L, Common.simpleByteArray, Common.simpleSettingsCompression));
+
+        // act, assert
+        assertThrows(IllegalStateException.class, () -> bm.unbox(Common.simpleSettingsCompression));
+    }
+
+    @Test
+    public void isDeflateStreamed_heartbeatState_throwsException() {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.createHeartbeat(1L);
+
+        // act, assert
+        assertThrows(IllegalStateException.class, bm::isDeflateStreamed);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="dictionary compression">
+    @Test
+    public void fromDataInputJava8_dictionaryCompressedMessageWritten_recreatedUnboxesToOriginal() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.box(1L, Common.simpleByteArray,
+            Common.dictionarySettingsCompression);
+
+        // pre-assert: the payload equals the dictionary, a few bytes of back reference remain
+        assertThat(bm.isDictionaryUsed(), is(true));
+        assertThat(bm.getPayloadLength(), is(lessThan(Common.simpleByteArray.length / 3)));
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(recreated.isDictionaryUsed(), is(true));
+        assertThat(Common.errorNotTheSame, recreated, is(equalTo(bm)));
+        assertArrayEquals(Common.simpleByteArray, recreated.unbox(Common.dictionarySettingsCompression));
+    }
+
+    @Test
+    public void unbox_dictionaryUnknownToReceiver_throwsIOException() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.box(1L, Common.simpleByteArray,
+            Common.dictionarySettingsCompression);
+
+        // act, assert
+        assertThrows(IOException.class, () -> bm.unbox(Common.simpleSettingsCompression));
+    }
+
+    @Test
+    public void unbox_dictionaryUncompressedSizeAboveMaximum_throwsIOException() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.box(1L, Common.simpleByteArray,
+            Common.dictionarySettingsCompression);
+
+        // act, assert
+        assertThrows(IOException.class,
+            () -> bm.unbox(Common.dictionarySettingsCompression, Common.simpleByteArray.length - 1));
+    }
+
+    @Test
+    public void box_dictionaryResultNotSmallerThanTinyInput_dictionarySkippedAndContentPreserved() throws IOException {
+        // arrange: nothing of the dictionary, two header bytes and a block on top
+        final byte[] tiny = new byte[] {(byte) 0xF3};
+
+        // act
+        final BinaryMessage bm = BinaryMessage.box(1L, tiny, Common.dictionarySettingsCompression);
+
+        // assert
+        assertThat(bm.isDictionaryUsed(), is(false));
+        assertArrayEquals(tiny, recreate(bm).unbox(Common.dictionarySettingsCompression));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="fragments">
+    /**
+     * The frame flag bit marking a fragment (see BinaryMessageFlags).
+     */
+    private static final int FLAG_FRAGMENT = 256;
+
+    /**
+     * {@link Common#simpleByteArray} as three fragments of at most {@code 8} bytes.
+     */
+    private static BinaryMessage[] simpleFragments(final long id) throws IOException {
+        final byte[] msg = Common.simpleByteArray;
+        final List<BinaryMessage> fragments = new ArrayList<>();
+        for (int offset = 0; offset < msg.length; offset += 8) {
+            fragments.add(BinaryMessage.boxFragment(id, msg, offset, Math.min(8, msg.length - offset),
+                msg.length, Common.alwaysLZ4SettingsCompression));
+        }
+        return fragments.toArray(new BinaryMessage[0]);
+    }
+
+    @Test
+    public void fromDataInputJava8_fragmentWritten_recreatedEqualsOriginalAndUnboxesToItsRange() throws IOException {
+        // arrange
+        final BinaryMessage bm = simpleFragments(1L)[1];
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(recreated, is(equalTo(bm)));
+        assertThat(recreated.isFragment(), is(true));
+        assertThat(recreated.isLz4Used(), is(true));
+        assertThat(recreated.getFragmentOffset(), is(equalTo(8)));
+        assertThat(recreated.getFragmentTotalSize(), is(equalTo(Common.simpleByteArray.length)));
+        assertThat(recreated.getFrameLength(), is(equalTo(bm.getFrameLength())));
+        assertArrayEquals(Arrays.copyOfRange(Common.simpleByteArray, 8, 16),
+            recreated.unbox(Common.alwaysLZ4SettingsCompression));
+    }
+
+    @Test
+    public void toDataOutput_fragmentedMessage_everyFragmentWrittenAsFrame() throws IOException {
+        // arrange
+        final BinaryMessage[] fragments = simpleFragments(3L);
+        final BinaryMessage fragmented = BinaryMessage.createFragmented(fragments);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        // act
+        fragmented.toDataOutput(new DataOutputStream(baos));
+
+        // assert
+        assertThat(baos.size(), is(equalTo(fragmented.getFrameLength())));
+        assertThat(fragmented.getUncompressedSize(), is(equalTo(Common.simpleByteArray.length)));
+        final DataInputStream dIn = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        for (final BinaryMessage fragment : fragments) {
+            assertThat(BinaryMessage.fromDataInputJava8(dIn), is(equalTo(fragment)));
+        }
+        assertThat(fragments[fragments.length - 1].isLastFragment(), is(true));
+        assertThat(fragments[0].isLastFragment(), is(false));
+    }
+
+    @Test
+    public void createFragmented_fragmentMissing_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage[] fragments = simpleFragments(1L);
+        final BinaryMessage[] withGap = {fragments[0], fragments[2]};
+
+        // act, assert
+        assertThrows(IllegalArgumentException.class, () -> BinaryMessage.createFragmented(withGap));
+    }
+
+    @Test
+    public void boxFragment_beyondTotalSize_throwsException() {
+        // act, assert
+        assertThrows(IllegalArgumentException.class, () -> BinaryMessage.boxFragment(1L,
+            Common.simpleByteArray, 8, 8, 12, Common.simpleSettingsCompression));
+    }
+
+    @Test
+    public void unbox_fragmentedMessage_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage fragmented = BinaryMessage.createFragmented(simpleFragments(1L));
+
+        // act, assert
+        assertThrows(IllegalStateException.class, () -> fragmented.unbox(Common.alwaysLZ4SettingsCompression));
+        assertThrows(IllegalStateException.class, fragmented::getHeaderLength);
+    }
+
+    @Test
+    public void fromDataInputJava8_fragmentBeyondTotalSize_throwsIOException() throws IOException {
+        // arrange: ten bytes at offset 0 of a five-byte message
+        final DataInputStream dIn = rawFrame(FLAG_FRAGMENT, 1L, 10, 0, 5, 0);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn, 1024));
+    }
+
+    @Test
+    public void fromDataInputJava8_fragmentTotalSizeAboveMaximum_throwsIOException() throws IOException {
+        // arrange: a fragment of a 2 GiB message; cap at 1 KiB
+        final DataInputStream dIn = rawFrame(FLAG_FRAGMENT, 1L, 0, 0, Integer.MAX_VALUE, 0);
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn, 1024));
+    }
+
+    @Test
+    public void getFragmentOffset_wholeMessage_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.box(1L, Common.simpleByteArray, Common.simpleSettingsCompression);
+
+        // act, assert
+        assertThat(bm.isFragment(), is(false));
+        assertThrows(IllegalStateException.class, bm::getFragmentOffset);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="stream chunks">
+    @Test
+    public void fromDataInputJava8_streamChunkWritten_recreatedEqualsOriginalAndUnboxesToItsLength() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.boxStreamChunk(4L, reusedBuffer(), Common.simpleByteArray.length,
+            Common.alwaysLZ4SettingsCompression);
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(recreated, is(equalTo(bm)));
+        assertThat(recreated.isStreamChunk(), is(true));
+        assertThat(recreated.isFragment(), is(false));
+        assertThat(recreated.isLz4Used(), is(true));
+        assertArrayEquals(Common.simpleByteArray, recreated.unbox(Common.alwaysLZ4SettingsCompression));
+    }
+
+    @Test
+    public void boxStreamChunk_bufferRangeUncompressed_copiedAndIndependentOfBuffer() throws IOException {
+        // arrange
+        final byte[] buffer = reusedBuffer();
+
+        // act
+        final BinaryMessage bm = BinaryMessage.boxStreamChunk(
+            5L, buffer, Common.simpleByteArray.length, Common.simpleSettingsCompression);
+        Arrays.fill(buffer, (byte) 0);
+
+        // assert
+        assertThat(bm.isStreamChunk(), is(true));
+        assertThat(bm.getUncompressedSize(), is(equalTo(Common.simpleByteArray.length)));
+        assertArrayEquals(Common.simpleByteArray, recreate(bm).unbox(Common.simpleSettingsCompression));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="channels">
+    /**
+     * The frame flag bit marking a channel message (see BinaryMessageFlags).
+     */
+    private static final int FLAG_CHANNEL = 1024;
+
+    @Test
+    public void fromDataInputJava8_channelMessageWritten_recreatedWithChannelAndSequence() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.box(6L, Common.simpleByteArray,
+            Common.alwaysLZ4SettingsCompression).withChannel(3, 41L);
+
+        // act
+        final BinaryMessage recreated = recreate(bm);
+
+        // assert
+        assertThat(recreated, is(equalTo(bm)));
+        assertThat(recreated.hasChannel(), is(true));
+        assertThat(recreated.getChannel(), is(equalTo(3)));
+        assertThat(recreated.getChannelSequence(), is(equalTo(41L)));
+        assertThat(recreated.getFrameLength(), is(equalTo(bm.getFrameLength())));
+        assertArrayEquals(Common.simpleByteArray, recreated.unbox(Common.alwaysLZ4SettingsCompression));
+    }
+
+    @Test
+    public void withChannel_fragmentedMessage_everyFragmentWrittenWithTheChannel() throws IOException {
+        // arrange
+        final BinaryMessage fragmented = BinaryMessage.createFragmented(simpleFragments(2L)).withChannel(1, 7L);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        // act
+        fragmented.toDataOutput(new DataOutputStream(baos));
+
+        // assert
+        assertThat(baos.size(), is(equalTo(fragmented.getFrameLength())));
+        final DataInputStream dIn = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        for (int i = 0; i < fragmented.getFragmentCount(); ++i) {
+            final BinaryMessage fragment = BinaryMessage.fromDataInputJava8(dIn);
+            assertThat(fragment, is(equalTo(fragmented.getFragment(i))));
+            assertThat(fragment.isFragment(), is(true));
+            assertThat(fragment.getChannel(), is(equalTo(1)));
+            assertThat(fragment.getChannelSequence(), is(equalTo(7L)));
+        }
+    }
+
+    @Test
+    public void getChannel_messageWithoutChannel_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage bm = BinaryMessage.box(1L, Common.simpleByteArray, Common.simpleSettingsCompression);
+
+        // act, assert
+        assertThat(bm.hasChannel(), is(false));
+        assertThrows(IllegalStateException.class, bm::getChannel);
+        assertThrows(IllegalStateException.class, bm::getChannelSequence);
+        assertThrows(IllegalStateException.class, () -> BinaryMessage.createHeartbeat(1L).withChannel(0, 0L));
+    }
+
+    @Test
+    public void fromDataInputJava8_channelBeyondMaximum_throwsIOException() throws IOException {
+        // arrange: an empty message of channel MAX_CHANNELS
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dOut = new DataOutputStream(baos);
+        dOut.writeInt(FLAG_CHANNEL);
+        dOut.writeLong(1L);
+        dOut.writeInt(0);
+        dOut.writeInt(0);
+        dOut.writeInt(CTransceiver.MAX_CHANNELS);
+        dOut.writeLong(0L);
+        final DataInputStream dIn = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.fromDataInputJava8(dIn, 1024));
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="state guards">
     @Test
     public void isLz4Used_heartbeatState_throwsException() {
@@ -486,6 +989,30 @@ public class BinaryMessageTest {
         assertThrows(UnsupportedOperationException.class, () -> acknowledged.add(4L));
     }
 
+    @Test
+    public void getReceivedRanges_heartbeatState_throwsException() {
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(1L);
+        assertThrows(IllegalStateException.class, heartbeat::getReceivedRanges);
+    }
+
+    @Test
+    public void createGapReport_oddRangeBoundCount_throwsException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> BinaryMessage.createGapReport(1L, new long[] {2L}));
+    }
+
+    @Test
+    public void createAcknowledgedRanges_overlappingRanges_throwsException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> BinaryMessage.createAcknowledgedRanges(1L, new long[] {2L, 5L, 5L, 6L}));
+    }
+
+    @Test
+    public void getAcknowledgedRanges_listEncodedAcknowledgement_throwsException() {
+        final BinaryMessage bm = BinaryMessage.createAcknowledged(1L, Arrays.asList(1L));
+        assertThrows(IllegalStateException.class, bm::getAcknowledgedRanges);
+    }
+
     @Test
     public void getAcknowledged_messageState_throwsException() throws IOException {
         // arrange
@@ -554,4 +1081,174 @@ public class BinaryMessageTest {
         assertThat(message.toString(), is(notNullValue()));
     }
     // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="frameLength">
+    /**
+     * The wire bytes of the given message.
+     */
+    private byte[] wireBytes(BinaryMessage bm) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        bm.toDataOutput(new DataOutputStream(baos));
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void frameLength_everyStateCompletelyBuffered_returnsWireLength() throws IOException {
+        // arrange
+        final byte[] heartbeat = wireBytes(BinaryMessage.createHeartbeat(1L));
+        final byte[] acknowledged = wireBytes(BinaryMessage.createAcknowledged(2L, Arrays.asList(5L, 6L, 7L)));
+        final byte[] message = wireBytes(BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression));
+
+        // act, assert
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(heartbeat), Integer.MAX_VALUE), is(equalTo(heartbeat.length)));
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(acknowledged), Integer.MAX_VALUE), is(equalTo(acknowledged.length)));
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(message), Integer.MAX_VALUE), is(equalTo(message.length)));
+    }
+
+    /**
+     * As soon as the length-determining header is buffered, the full length is known — the
+     * non-blocking reader needs it to size its buffer before the body arrived.
+     */
+    @Test
+    public void frameLength_onlyHeaderBuffered_returnsFullLength() throws IOException {
+        // arrange: a message frame truncated right after its length fields
+        final byte[] message = wireBytes(BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression));
+        final ByteBuffer truncated = ByteBuffer.wrap(message, 0, 20);
+
+        // act
+        final int frameLength = BinaryMessage.frameLength(truncated, Integer.MAX_VALUE);
+
+        // assert: nothing consumed
+        assertThat(frameLength, is(equalTo(message.length)));
+        assertThat(truncated.position(), is(equalTo(0)));
+    }
+
+    @Test
+    public void frameLength_headerIncomplete_returnsMinusOne() throws IOException {
+        // arrange
+        final byte[] message = wireBytes(BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression));
+
+        // act, assert
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(message, 0, 11), Integer.MAX_VALUE), is(equalTo(-1)));
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(message, 0, 19), Integer.MAX_VALUE), is(equalTo(-1)));
+    }
+
+    @Test
+    public void frameLength_payloadLengthAboveMaximum_throwsIOException() throws IOException {
+        // arrange: message-state frame claiming a 2 GiB payload; cap at 1 KiB
+        final ByteBuffer buffer = ByteBuffer.allocate(20);
+        buffer.putInt(0).putLong(1L).putInt(100).putInt(Integer.MAX_VALUE).flip();
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.frameLength(buffer, 1024));
+    }
+
+    @Test
+    public void frameLength_negativeAcknowledgedCount_throwsIOException() throws IOException {
+        // arrange
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(FLAG_ACKNOWLEDGED).putLong(1L).putInt(-1).flip();
+
+        // act, assert
+        assertThrows(IOException.class, () -> BinaryMessage.frameLength(buffer, Integer.MAX_VALUE));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="toByteBuffer">
+    /**
+     * The bytes {@link BinaryMessage#toByteBuffer(ByteBuffer)} writes into a direct buffer.
+     */
+    private byte[] byteBufferBytes(BinaryMessage bm) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bm.getFrameLength());
+        bm.toByteBuffer(buffer);
+        buffer.flip();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void toByteBuffer_everyState_sameBytesAsToDataOutput() throws IOException {
+        // arrange
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(1L);
+        final BinaryMessage acknowledged = BinaryMessage.createAcknowledged(2L, Arrays.asList(7L, 8L, 9L));
+        final BinaryMessage message = BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression);
+
+        // act, assert
+        assertArrayEquals(wireBytes(heartbeat), byteBufferBytes(heartbeat));
+        assertArrayEquals(wireBytes(acknowledged), byteBufferBytes(acknowledged));
+        assertArrayEquals(wireBytes(message), byteBufferBytes(message));
+    }
+
+    @Test
+    public void toByteBuffer_gapReport_sameBytesAndLengthAsToDataOutput() throws IOException {
+        // arrange
+        final BinaryMessage gapReport = BinaryMessage.createGapReport(4L, new long[] {6L, 8L});
+        final byte[] wire = wireBytes(gapReport);
+
+        // act, assert
+        assertArrayEquals(wire, byteBufferBytes(gapReport));
+        assertThat(gapReport.getFrameLength(), is(equalTo(wire.length)));
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(wire), Integer.MAX_VALUE), is(equalTo(wire.length)));
+    }
+
+    @Test
+    public void toByteBuffer_acknowledgedRanges_sameBytesAndLengthAsToDataOutput() throws IOException {
+        // arrange
+        final BinaryMessage acknowledgement = BinaryMessage.createAcknowledgedRanges(4L, new long[] {6L, 8L, 200L, 400L});
+        final byte[] wire = wireBytes(acknowledgement);
+
+        // act, assert
+        assertArrayEquals(wire, byteBufferBytes(acknowledgement));
+        assertThat(acknowledgement.getFrameLength(), is(equalTo(wire.length)));
+        assertThat(BinaryMessage.frameLength(ByteBuffer.wrap(wire), Integer.MAX_VALUE), is(equalTo(wire.length)));
+    }
+
+    @Test
+    public void getFrameLength_everyState_equalsWireLength() throws IOException {
+        // arrange
+        final BinaryMessage heartbeat = BinaryMessage.createHeartbeat(1L);
+        final BinaryMessage acknowledged = BinaryMessage.createAcknowledged(2L, Arrays.asList(7L, 8L, 9L));
+        final BinaryMessage message = BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression);
+
+        // act, assert
+        assertThat(heartbeat.getFrameLength(), is(equalTo(wireBytes(heartbeat).length)));
+        assertThat(acknowledged.getFrameLength(), is(equalTo(wireBytes(acknowledged).length)));
+        assertThat(message.getFrameLength(), is(equalTo(wireBytes(message).length)));
+    }
+
+    @Test
+    public void writeHeader_messageState_headerFollowedByPayloadBufferIsTheFrame() throws IOException {
+        // arrange
+        final BinaryMessage message = BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression);
+        final ByteBuffer buffer = ByteBuffer.allocate(message.getFrameLength());
+
+        // act
+        message.writeHeader(buffer);
+        final int headerEnd = buffer.position();
+        buffer.put(message.getPayloadBuffer());
+
+        // assert
+        assertThat(headerEnd, is(equalTo(message.getHeaderLength())));
+        assertArrayEquals(wireBytes(message), buffer.array());
+    }
+
+    @Test
+    public void getPayloadBuffer_messageState_readOnlyView() throws IOException {
+        // arrange
+        final BinaryMessage message = BinaryMessage.box(3L, Common.simpleByteArray, Common.simpleSettingsCompression);
+
+        // act
+        final ByteBuffer payload = message.getPayloadBuffer();
+
+        // assert
+        assertThat(payload.isReadOnly(), is(true));
+        assertThat(payload.remaining(), is(equalTo(message.getPayloadLength())));
+    }
+
+    @Test
+    public void getPayloadBuffer_heartbeatState_throwsException() {
+        assertThrows(IllegalStateException.class, () -> BinaryMessage.createHeartbeat(1L).getPayloadBuffer());
+    }
+    // </editor-fold>
 }
@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.configuration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.configuration.CompressionDictionary;
+
+/**
+ * {@link CompressionDictionary} guards its wire id and the deflate window, and keeps its bytes
+ * to itself.
+ */
+public class CompressionDictionaryTest {
+
+    private static final byte[] BYTES = "{\"type\":\"position\",\"vehicle\":\"".getBytes();
+
+    // <editor-fold defaultstate="collapsed" desc="constructor guards">
+    @Test
+    public void constructor_idAboveTwoBytes_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class,
+            () -> new CompressionDictionary(CompressionDictionary.MAX_ID + 1, BYTES));
+    }
+
+    @Test
+    public void constructor_negativeId_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new CompressionDictionary(-1, BYTES));
+    }
+
+    @Test
+    public void constructor_emptyDictionary_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new CompressionDictionary(1, new byte[0]));
+    }
+
+    @Test
+    public void constructor_beyondDeflateWindow_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class,
+            () -> new CompressionDictionary(1, new byte[CompressionDictionary.MAX_LENGTH + 1]));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="bytes">
+    @Test
+    public void applyTo_sourceModifiedAfterConstruction_dictionaryUnchanged() throws DataFormatException {
+        // arrange
+        final byte[] source = BYTES.clone();
+        final CompressionDictionary dictionary = new CompressionDictionary(1, source);
+        source[0] = 'X';
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        dictionary.applyTo(deflater);
+        deflater.setInput(BYTES);
+        deflater.finish();
+        final byte[] compressed = new byte[256];
+        final int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+
+        // act
+        final Inflater inflater = new Inflater(true);
+        new CompressionDictionary(1, BYTES).applyTo(inflater);
+        inflater.setInput(compressed, 0, compressedLength);
+        final byte[] restored = new byte[BYTES.length];
+        inflater.inflate(restored);
+        inflater.end();
+
+        // assert
+        assertArrayEquals(BYTES, restored);
+    }
+
+    @Test
+    public void fromFile_writtenDictionary_sameLengthAndId() throws IOException {
+        // arrange
+        final Path file = Files.createTempFile("jackpot-", ".dictionary");
+        try {
+            Files.write(file, BYTES);
+
+            // act
+            final CompressionDictionary dictionary = CompressionDictionary.fromFile(5, file);
+
+            // assert
+            assertThat(dictionary.id, is(equalTo(5)));
+            assertThat(dictionary.length(), is(equalTo(BYTES.length)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+    // </editor-fold>
+}
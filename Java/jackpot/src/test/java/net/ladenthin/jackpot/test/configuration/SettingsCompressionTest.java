@@ -8,6 +8,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.security.InvalidParameterException;
@@ -22,6 +23,8 @@ import net.ladenthin.jackpot.configuration.BooleanCondition;
 import net.ladenthin.jackpot.configuration.CLZ4Compressor;
 import net.ladenthin.jackpot.configuration.CLZ4Decompressor;
 import net.ladenthin.jackpot.configuration.CompressCondition;
+import net.ladenthin.jackpot.configuration.CompressionDictionary;
+import net.ladenthin.jackpot.configuration.ConditionDictionary;
 import net.ladenthin.jackpot.configuration.ConditionGZIP;
 import net.ladenthin.jackpot.configuration.ConditionLZ4;
 import net.ladenthin.jackpot.configuration.SettingsCompression;
@@ -56,6 +59,17 @@ public class SettingsCompressionTest {
      */
     private static final int GZIP_BUFFER_SIZE = 2048;
 
+    /**
+     * The id of the only dictionary of {@link #DICTIONARIES}.
+     */
+    private static final int DICTIONARY_ID = 3;
+
+    private static final List<CompressionDictionary> DICTIONARIES =
+        Arrays.asList(new CompressionDictionary(DICTIONARY_ID, "{\"name\":\"".getBytes()));
+
+    private static final List<ConditionDictionary> DICTIONARY_CONDITIONS =
+        Arrays.asList(new ConditionDictionary(DICTIONARY_ID));
+
     // <editor-fold defaultstate="collapsed" desc="constructor guards">
     @Test
     public void constructor_gzipAndLz4BothEnabled_throwsException() {
@@ -96,6 +110,76 @@ public class SettingsCompressionTest {
         assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
             null, null, false, false, -1, null));
     }
+
+    @Test
+    public void constructor_deflateStreamAndGzipEnabled_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            GZIP_CONDITIONS, null, true, false, GZIP_BUFFER_SIZE, null, true, Deflater.BEST_SPEED));
+    }
+
+    @Test
+    public void constructor_deflateStreamAndLz4Enabled_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, LZ4_CONDITIONS, false, true, GZIP_BUFFER_SIZE, CLZ4Decompressor.safeFastDecompressor,
+            true, Deflater.BEST_SPEED));
+    }
+
+    @Test
+    public void constructor_dictionaryAndDeflateStreamEnabled_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, true, Deflater.BEST_SPEED,
+            true, DICTIONARY_CONDITIONS, DICTIONARIES));
+    }
+
+    @Test
+    public void constructor_dictionaryEnabledWithoutConditions_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            true, null, DICTIONARIES));
+    }
+
+    @Test
+    public void constructor_dictionaryConditionWithUnknownId_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            true, Arrays.asList(new ConditionDictionary(DICTIONARY_ID + 1)), DICTIONARIES));
+    }
+
+    @Test
+    public void constructor_duplicateDictionaryIds_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            false, null, Arrays.asList(DICTIONARIES.get(0), DICTIONARIES.get(0))));
+    }
+
+    @Test
+    public void constructor_adaptiveAndGZIPEnabled_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            GZIP_CONDITIONS, null, true, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            false, null, null, true, SettingsCompression.DEFAULT_ADAPTIVE_BANDWIDTH));
+    }
+
+    @Test
+    public void constructor_adaptiveBandwidthZero_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            false, null, null, true, 0));
+    }
+
+    @Test
+    public void constructor_deflateStreamLevelAboveNine_throwsException() {
+        // act, assert
+        assertThrows(InvalidParameterException.class, () -> new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, true, 10));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="valid configurations">
@@ -134,6 +218,54 @@ public class SettingsCompressionTest {
         assertThat(settings.enableLZ4, is(false));
     }
 
+    @Test
+    public void constructor_deflateStreamEnabled_configurationAccepted() {
+        // arrange, act
+        final SettingsCompression settings =
+            new SettingsCompression(null, null, false, false, GZIP_BUFFER_SIZE, null, true, Deflater.BEST_SPEED);
+
+        // assert
+        assertThat(settings.enableDeflateStream, is(true));
+        assertThat(settings.deflateStreamLevel, is(equalTo(Deflater.BEST_SPEED)));
+    }
+
+    @Test
+    public void constructor_dictionaryEnabled_dictionariesById() {
+        // arrange, act
+        final SettingsCompression settings = new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            true, DICTIONARY_CONDITIONS, DICTIONARIES);
+
+        // assert
+        assertThat(settings.enableDictionary, is(true));
+        assertThat(settings.dictionaryConditions, hasSize(1));
+        assertThat(settings.dictionaries.get(DICTIONARY_ID), is(sameInstance(DICTIONARIES.get(0))));
+    }
+
+    @Test
+    public void constructor_dictionariesWithoutDictionaryCompression_acceptedToReceive() {
+        // arrange, act
+        final SettingsCompression settings = new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            false, null, DICTIONARIES);
+
+        // assert
+        assertThat(settings.enableDictionary, is(false));
+        assertThat(settings.dictionaries.containsKey(DICTIONARY_ID), is(true));
+    }
+
+    @Test
+    public void constructor_adaptiveEnabled_configurationAccepted() {
+        // arrange, act
+        final SettingsCompression settings = new SettingsCompression(
+            null, null, false, false, GZIP_BUFFER_SIZE, null, false, Deflater.BEST_SPEED,
+            false, null, null, true, 1_000_000);
+
+        // assert
+        assertThat(settings.enableAdaptive, is(true));
+        assertThat(settings.adaptiveBandwidth, is(equalTo(1_000_000L)));
+    }
+
     @Test
     public void constructor_noArguments_producesDisabledSafeDefault() {
         // arrange, act
@@ -144,6 +276,8 @@ public class SettingsCompressionTest {
         assertThat(settings.enableLZ4, is(false));
         assertThat(settings.gzipBufferSize, is(equalTo(GZIP_BUFFER_SIZE)));
         assertThat(settings.decompressor, is(equalTo(CLZ4Decompressor.safeFastDecompressor)));
+        assertThat(settings.enableAdaptive, is(false));
+        assertThat(settings.adaptiveBandwidth, is(equalTo(SettingsCompression.DEFAULT_ADAPTIVE_BANDWIDTH)));
     }
     // </editor-fold>
 
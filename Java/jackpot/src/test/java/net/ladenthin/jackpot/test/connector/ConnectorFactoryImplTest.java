@@ -23,8 +23,10 @@ import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.CUnixNamedPipeClientConnector;
 import net.ladenthin.jackpot.configuration.CUnixNamedPipeServerConnector;
 import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.connector.ClientSocketChannelConnector;
 import net.ladenthin.jackpot.connector.ClientSocketConnector;
 import net.ladenthin.jackpot.connector.Connector;
+import net.ladenthin.jackpot.connector.ServerSocketChannelConnector;
 import net.ladenthin.jackpot.connector.ServerSocketConnector;
 import net.ladenthin.jackpot.connector.UnixNamedPipeClientConnector;
 import net.ladenthin.jackpot.connector.UnixNamedPipeServerConnector;
@@ -73,6 +75,34 @@ public class ConnectorFactoryImplTest {
         // assert
         assertThat(connector, is(instanceOf(ClientSocketConnector.class)));
     }
+
+    @Test
+    public void getConnector_serverSocketChannelConnectionConfigured_returnsServerSocketChannelConnector() {
+        // arrange
+        final ConnectorFactoryImpl factory = new ConnectorFactoryImpl(sessionFor(
+            ConnectionType.ServerSocketChannelConnection,
+            new CConnector(new CServerSocketConnector(12345))));
+
+        // act
+        final Connector connector = factory.getConnector();
+
+        // assert
+        assertThat(connector, is(instanceOf(ServerSocketChannelConnector.class)));
+    }
+
+    @Test
+    public void getConnector_clientSocketChannelConnectionConfigured_returnsClientSocketChannelConnector() {
+        // arrange
+        final ConnectorFactoryImpl factory = new ConnectorFactoryImpl(sessionFor(
+            ConnectionType.ClientSocketChannelConnection,
+            new CConnector(new CClientSocketConnector("localhost", 12345))));
+
+        // act
+        final Connector connector = factory.getConnector();
+
+        // assert
+        assertThat(connector, is(instanceOf(ClientSocketChannelConnector.class)));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="unix pipe connectors">
@@ -118,5 +118,43 @@ public class CurrentWritingLockTest {
         // act, assert: the released id must not block anymore
         currentWritingLock.blockUntilCurrentWriting(1L);
     }
+
+    @Test
+    @Timeout(30)
+    public void blockUntilCurrentWriting_idOutsideLockedBatchRange_returnsImmediately() {
+        // arrange: a batch of the ids 10..20 is being written
+        currentWritingLock.setLock(10L, 20L);
+
+        // act, assert
+        currentWritingLock.blockUntilCurrentWriting(9L);
+        currentWritingLock.blockUntilCurrentWriting(21L);
+    }
+
+    @Test
+    @Timeout(30)
+    public void blockUntilCurrentWriting_idInsideLockedBatchRange_blocksUntilReleaseLock() throws InterruptedException {
+        // arrange
+        currentWritingLock.setLock(10L, 20L);
+        final CountDownLatch blockerReturned = new CountDownLatch(1);
+        final Thread blocker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                currentWritingLock.blockUntilCurrentWriting(15L);
+                blockerReturned.countDown();
+            }
+        });
+        blocker.start();
+
+        // pre-assert
+        assertThat("blockUntilCurrentWriting returned although the batch is being written",
+            blockerReturned.await(BLOCK_OBSERVATION_MILLIS, TimeUnit.MILLISECONDS), is(false));
+
+        // act
+        currentWritingLock.releaseLock();
+
+        // assert
+        assertThat("blockUntilCurrentWriting did not return after releaseLock",
+            blockerReturned.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+    }
     // </editor-fold>
 }
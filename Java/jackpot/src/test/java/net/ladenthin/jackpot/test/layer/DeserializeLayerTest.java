@@ -15,6 +15,7 @@ import com.google.gson.reflect.TypeToken;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -25,11 +26,13 @@ import org.junit.jupiter.api.Timeout;
 
 import net.ladenthin.jackpot.DeserializeLayer;
 import net.ladenthin.jackpot.ErrorLayer;
+import net.ladenthin.jackpot.TransceiverMetrics;
 import net.ladenthin.jackpot.configuration.CClientSocketConnector;
 import net.ladenthin.jackpot.configuration.CConnector;
 import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
 import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.ReceiveMode;
 import net.ladenthin.jackpot.message.TError;
 import net.ladenthin.jackpot.messageprocessing.ParallelErrorInformant;
 import net.ladenthin.jackpot.messageprocessing.SequentialMessageReceiver;
@@ -58,19 +61,37 @@ public class DeserializeLayerTest {
     private DeserializeLayer<SimpleMessage> deserializeLayer;
 
     private final List<SimpleMessage> received = new CopyOnWriteArrayList<>();
+
+    /**
+     * The size of every batch handed to the receiver.
+     */
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
     private volatile TError lastError;
 
     @BeforeEach
     public void setUp() {
+        deserializeLayer = createDeserializeLayer(ReceiveMode.Staged);
+    }
+
+    private DeserializeLayer<SimpleMessage> createDeserializeLayer(final ReceiveMode receiveMode) {
+        return createDeserializeLayer(receiveMode, CTransceiver.DEFAULT_MAX_DELIVERY_BATCH_MESSAGES, 0);
+    }
+
+    private DeserializeLayer<SimpleMessage> createDeserializeLayer(final ReceiveMode receiveMode,
+        final int maxDeliveryBatchMessages, final long deliveryBatchLinger) {
+        final CTransceiver transceiverConfiguration = new CTransceiver(
+            ConnectionType.ClientSocketConnection,
+            // never connected: messages are fed directly
+            new CConnector(new CClientSocketConnector("localhost", 1))
+        );
+        transceiverConfiguration.receiveMode = receiveMode;
+        transceiverConfiguration.maxDeliveryBatchMessages = maxDeliveryBatchMessages;
+        transceiverConfiguration.deliveryBatchLinger = deliveryBatchLinger;
         final CTransceiverSession session = new CTransceiverSession(
             "deserializeLayerTest",
             new TypeToken<SimpleMessage>() {}.getType(),
             SimpleMessage.class,
-            new CTransceiver(
-                ConnectionType.ClientSocketConnection,
-                // never connected: messages are fed directly
-                new CConnector(new CClientSocketConnector("localhost", 1))
-            )
+            transceiverConfiguration
         );
 
         final ErrorLayer errorLayer = new ErrorLayer(new ParallelErrorInformant() {
@@ -80,13 +101,19 @@ public class DeserializeLayerTest {
             }
         });
 
-        deserializeLayer = new DeserializeLayer<>(session, errorLayer,
+        return new DeserializeLayer<>(session, errorLayer,
             new SequentialMessageReceiver<SimpleMessage>() {
                 @Override
                 public void receiveMessage(SimpleMessage tm) {
                     received.add(tm);
                 }
-            });
+
+                @Override
+                public void receiveMessages(List<SimpleMessage> messages) {
+                    batchSizes.add(messages.size());
+                    received.addAll(messages);
+                }
+            }, new TransceiverMetrics());
     }
 
     @AfterEach
@@ -135,4 +162,118 @@ public class DeserializeLayerTest {
             lastError, is(notNullValue()));
     }
     // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="delivery batches">
+    private List<BinaryMessage> boxMessages(final int count, final List<SimpleMessage> expected)
+        throws IOException {
+        final List<BinaryMessage> boxed = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            final SimpleMessage message = new SimpleMessage(("message-" + i).getBytes());
+            expected.add(message);
+            boxed.add(BinaryMessage.box(i + 1, serialize(message), Common.simpleSettingsCompression));
+        }
+        return boxed;
+    }
+
+    @Test
+    @Timeout(30)
+    public void dataAvailable_stagedWithLinger_deliveredInFewerBatchesInOrder() throws Exception {
+        // arrange
+        deserializeLayer.shutdownRunnable();
+        deserializeLayer = createDeserializeLayer(ReceiveMode.Staged, 256, 200);
+        final int count = 50;
+        final List<SimpleMessage> expected = new ArrayList<>();
+        final List<BinaryMessage> boxed = boxMessages(count, expected);
+
+        // act
+        for (final BinaryMessage bm : boxed) {
+            deserializeLayer.dataAvailable(bm);
+        }
+        awaitReceived(count);
+
+        // assert
+        assertThat(received, is(equalTo(expected)));
+        assertThat(batchSizes.size() < count, is(true));
+    }
+
+    @Test
+    @Timeout(30)
+    public void dataAvailable_maxDeliveryBatchMessages_noBatchLarger() throws Exception {
+        // arrange
+        deserializeLayer.shutdownRunnable();
+        deserializeLayer = createDeserializeLayer(ReceiveMode.Staged, 4, 200);
+        final int count = 50;
+        final List<SimpleMessage> expected = new ArrayList<>();
+        final List<BinaryMessage> boxed = boxMessages(count, expected);
+
+        // act
+        for (final BinaryMessage bm : boxed) {
+            deserializeLayer.dataAvailable(bm);
+        }
+        awaitReceived(count);
+
+        // assert
+        assertThat(received, is(equalTo(expected)));
+        for (final int batchSize : batchSizes) {
+            assertThat(batchSize <= 4, is(true));
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="pipelined receive mode">
+    private void awaitReceived(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void dataAvailable_pipelinedManyMessages_deliveredInReceiveOrder() throws Exception {
+        // arrange
+        deserializeLayer.shutdownRunnable();
+        deserializeLayer = createDeserializeLayer(ReceiveMode.Pipelined);
+        final int count = 2000;
+        final List<SimpleMessage> expected = new ArrayList<>();
+        final List<BinaryMessage> boxed = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            final SimpleMessage message = new SimpleMessage(("message-" + i).getBytes());
+            expected.add(message);
+            boxed.add(BinaryMessage.box(i + 1, serialize(message), Common.simpleSettingsCompression));
+        }
+
+        // act
+        for (final BinaryMessage bm : boxed) {
+            deserializeLayer.dataAvailable(bm);
+        }
+        awaitReceived(count);
+
+        // assert
+        assertThat(received, is(equalTo(expected)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void dataAvailable_pipelinedPayloadIsGarbage_errorSurfacedAndLaterMessageDelivered() throws Exception {
+        // arrange
+        deserializeLayer.shutdownRunnable();
+        deserializeLayer = createDeserializeLayer(ReceiveMode.Pipelined);
+        final BinaryMessage garbage = BinaryMessage.box(
+            1L, new byte[] {1, 2, 3}, Common.simpleSettingsCompression);
+        final SimpleMessage validMessage = new SimpleMessage(Common.simpleByteArray);
+        final BinaryMessage valid = BinaryMessage.box(
+            2L, serialize(validMessage), Common.simpleSettingsCompression);
+
+        // act
+        deserializeLayer.dataAvailable(garbage);
+        deserializeLayer.dataAvailable(valid);
+        awaitReceived(1);
+
+        // assert
+        assertThat(received, hasSize(1));
+        assertThat(received.get(0), is(equalTo(validMessage)));
+        assertThat(lastError, is(notNullValue()));
+    }
+    // </editor-fold>
 }
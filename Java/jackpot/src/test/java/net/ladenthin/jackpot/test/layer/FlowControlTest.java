@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
 import net.ladenthin.jackpot.FlowControl;
+import net.ladenthin.jackpot.TransceiverMetrics;
 
 /**
  * Unit tests for the sender-side backpressure primitive {@link FlowControl}: a bounded
@@ -41,7 +42,8 @@ public class FlowControlTest {
     @Timeout(30)
     public void acquire_withinCapacity_proceedsAndCountsPending() {
         // arrange
-        final FlowControl flowControl = new FlowControl(2, SHORT_SEND_TIMEOUT_MILLIS);
+        final FlowControl flowControl = new FlowControl(2, SHORT_SEND_TIMEOUT_MILLIS,
+            new TransceiverMetrics());
 
         // act
         flowControl.acquire();
@@ -55,7 +57,8 @@ public class FlowControlTest {
     @Timeout(30)
     public void release_afterAcquire_capacityRestored() {
         // arrange
-        final FlowControl flowControl = new FlowControl(1, SHORT_SEND_TIMEOUT_MILLIS);
+        final FlowControl flowControl = new FlowControl(1, SHORT_SEND_TIMEOUT_MILLIS,
+            new TransceiverMetrics());
         flowControl.acquire();
 
         // act
@@ -70,7 +73,8 @@ public class FlowControlTest {
     @Timeout(30)
     public void acquire_capacityExhausted_throwsExceptionAfterSendTimeout() {
         // arrange
-        final FlowControl flowControl = new FlowControl(1, SHORT_SEND_TIMEOUT_MILLIS);
+        final FlowControl flowControl = new FlowControl(1, SHORT_SEND_TIMEOUT_MILLIS,
+            new TransceiverMetrics());
         flowControl.acquire();
         final long before = System.currentTimeMillis();
 
@@ -88,7 +92,7 @@ public class FlowControlTest {
     @Timeout(30)
     public void acquire_capacityFreedWhileWaiting_blockedAcquireProceeds() throws InterruptedException {
         // arrange: capacity 1, taken; a second acquire blocks (no timeout = wait forever)
-        final FlowControl flowControl = new FlowControl(1, 0);
+        final FlowControl flowControl = new FlowControl(1, 0, new TransceiverMetrics());
         flowControl.acquire();
 
         final CountDownLatch acquired = new CountDownLatch(1);
@@ -112,12 +116,61 @@ public class FlowControlTest {
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="bulk acquisition">
+    @Test
+    @Timeout(30)
+    public void acquireCount_withinCapacity_proceedsAndCountsPending() {
+        // arrange
+        final FlowControl flowControl = new FlowControl(5, SHORT_SEND_TIMEOUT_MILLIS,
+            new TransceiverMetrics());
+
+        // act
+        flowControl.acquire(3);
+
+        // assert
+        assertThat(flowControl.getPendingCount(), is(equalTo(3)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void acquireCount_partlyAvailable_takesNothingAndThrowsAfterSendTimeout() {
+        // arrange
+        final FlowControl flowControl = new FlowControl(4, SHORT_SEND_TIMEOUT_MILLIS,
+            new TransceiverMetrics());
+        flowControl.acquire(2);
+
+        // act
+        final IllegalStateException exception =
+            assertThrows(IllegalStateException.class, () -> flowControl.acquire(3));
+
+        // assert: all or nothing — the two free permits are still free
+        assertThat(exception.getMessage().contains("backpressure"), is(true));
+        assertThat(flowControl.getPendingCount(), is(equalTo(2)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void acquireCount_moreThanMaxPendingMessages_throwsImmediately() {
+        // arrange
+        final FlowControl flowControl = new FlowControl(2, 0, new TransceiverMetrics());
+
+        // act
+        final IllegalArgumentException exception =
+            assertThrows(IllegalArgumentException.class, () -> flowControl.acquire(3));
+
+        // assert
+        assertThat(exception.getMessage().contains("maxPendingMessages"), is(true));
+        assertThat(flowControl.getPendingCount(), is(equalTo(0)));
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="unbounded mode">
     @Test
     @Timeout(30)
     public void acquire_unboundedConfiguration_neverBlocks() {
         // arrange: maxPendingMessages 0 disables the bound
-        final FlowControl flowControl = new FlowControl(0, SHORT_SEND_TIMEOUT_MILLIS);
+        final FlowControl flowControl = new FlowControl(0, SHORT_SEND_TIMEOUT_MILLIS,
+            new TransceiverMetrics());
 
         // act: far more acquisitions than any bound
         for (int i = 0; i < 10000; i++) {
@@ -134,7 +187,7 @@ public class FlowControlTest {
     @Timeout(30)
     public void shutdown_waiterBlockedOnFullCapacity_waiterIsReleased() throws InterruptedException {
         // arrange
-        final FlowControl flowControl = new FlowControl(1, 0);
+        final FlowControl flowControl = new FlowControl(1, 0, new TransceiverMetrics());
         flowControl.acquire();
 
         final CountDownLatch returned = new CountDownLatch(1);
@@ -165,7 +218,7 @@ public class FlowControlTest {
     @Timeout(30)
     public void acquire_afterShutdown_neverBlocks() {
         // arrange
-        final FlowControl flowControl = new FlowControl(1, 0);
+        final FlowControl flowControl = new FlowControl(1, 0, new TransceiverMetrics());
         flowControl.acquire();
         flowControl.shutdown();
 
@@ -174,4 +227,38 @@ public class FlowControlTest {
         assertThat(flowControl.getPendingCount(), is(equalTo(0)));
     }
     // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="metrics">
+    @Test
+    @Timeout(30)
+    public void acquire_withinCapacity_noWaitRecorded() {
+        // arrange
+        final TransceiverMetrics metrics = new TransceiverMetrics();
+        final FlowControl flowControl = new FlowControl(1, SHORT_SEND_TIMEOUT_MILLIS, metrics);
+
+        // act
+        flowControl.acquire();
+
+        // assert
+        assertThat(metrics.getBackpressureWait().getCount(), is(equalTo(0L)));
+        assertThat(metrics.getPendingSendCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void acquire_capacityExhausted_waitRecorded() {
+        // arrange
+        final TransceiverMetrics metrics = new TransceiverMetrics();
+        final FlowControl flowControl = new FlowControl(1, SHORT_SEND_TIMEOUT_MILLIS, metrics);
+        flowControl.acquire();
+
+        // act
+        assertThrows(IllegalStateException.class, flowControl::acquire);
+
+        // assert
+        assertThat(metrics.getBackpressureWait().getCount(), is(equalTo(1L)));
+        assertThat(metrics.getBackpressureWait().getMax(),
+            is(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(SHORT_SEND_TIMEOUT_MILLIS - 50))));
+    }
+    // </editor-fold>
 }
@@ -7,9 +7,15 @@ package net.ladenthin.jackpot.test.layer;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.google.gson.reflect.TypeToken;
@@ -17,6 +23,7 @@ import com.google.gson.reflect.TypeToken;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -24,16 +31,19 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.mockito.InOrder;
 
 import net.ladenthin.jackpot.ConnectionLayer;
 import net.ladenthin.jackpot.ErrorLayer;
 import net.ladenthin.jackpot.ReadLayer;
 import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverMetrics;
 import net.ladenthin.jackpot.configuration.CClientSocketConnector;
 import net.ladenthin.jackpot.configuration.CConnector;
 import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
 import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.ReceiveMode;
 import net.ladenthin.jackpot.message.TError;
 import net.ladenthin.jackpot.messageprocessing.ParallelErrorInformant;
 import net.ladenthin.jackpot.test.Common;
@@ -67,6 +77,11 @@ public class ReadLayerTest {
      */
     private static final long POLL_INTERVAL_MILLIS = 10;
 
+    /**
+     * A small {@link CTransceiver#maxPendingMessages}; the receive window is twice of it.
+     */
+    private static final int SMALL_MAX_PENDING_MESSAGES = 1000;
+
     private ReadLayer<SimpleMessage> readLayer;
     private ConnectionLayer<SimpleMessage> connectionLayer;
     private Transceiver<SimpleMessage> transceiver;
@@ -79,15 +94,37 @@ public class ReadLayerTest {
 
     @BeforeEach
     public void setUp() {
+        transceiver = mock(Transceiver.class);
+        connectionLayer = mock(ConnectionLayer.class);
+
+        readLayer = createReadLayer(false);
+    }
+
+    private ReadLayer<SimpleMessage> createReadLayer(final boolean selectiveAcknowledgement) {
+        return createReadLayer(selectiveAcknowledgement, ReceiveMode.Staged);
+    }
+
+    private ReadLayer<SimpleMessage> createReadLayer(final boolean selectiveAcknowledgement,
+        final ReceiveMode receiveMode) {
+        return createReadLayer(selectiveAcknowledgement, receiveMode,
+            CTransceiver.DEFAULT_MAX_PENDING_MESSAGES);
+    }
+
+    private ReadLayer<SimpleMessage> createReadLayer(final boolean selectiveAcknowledgement,
+        final ReceiveMode receiveMode, final int maxPendingMessages) {
+        final CTransceiver transceiverConfiguration = new CTransceiver(
+            ConnectionType.ClientSocketConnection,
+            // never connected: the ConnectionLayer collaborator is a mock
+            new CConnector(new CClientSocketConnector("localhost", 1))
+        );
+        transceiverConfiguration.selectiveAcknowledgement = selectiveAcknowledgement;
+        transceiverConfiguration.receiveMode = receiveMode;
+        transceiverConfiguration.maxPendingMessages = maxPendingMessages;
         final CTransceiverSession session = new CTransceiverSession(
             "readLayerTest",
             new TypeToken<SimpleMessage>() {}.getType(),
             SimpleMessage.class,
-            new CTransceiver(
-                ConnectionType.ClientSocketConnection,
-                // never connected: the ConnectionLayer collaborator is a mock
-                new CConnector(new CClientSocketConnector("localhost", 1))
-            )
+            transceiverConfiguration
         );
 
         final ErrorLayer errorLayer = new ErrorLayer(new ParallelErrorInformant() {
@@ -97,10 +134,8 @@ public class ReadLayerTest {
             }
         });
 
-        transceiver = mock(Transceiver.class);
-        connectionLayer = mock(ConnectionLayer.class);
-
-        readLayer = new ReadLayer<>(session, connectionLayer, errorLayer, transceiver);
+        return new ReadLayer<>(session, connectionLayer, errorLayer, transceiver,
+            new TransceiverMetrics());
     }
 
     @AfterEach
@@ -234,6 +269,38 @@ public class ReadLayerTest {
         // assert: all three regular messages must be processed
         assertThat(waitForHeartbeatCount(3), is(equalTo(3L)));
     }
+
+    /**
+     * The receive window is derived from {@link CTransceiver#maxPendingMessages}: an id
+     * beyond it is dropped unacknowledged instead of growing the window, and processed once
+     * it is resent within the window.
+     */
+    @Test
+    @Timeout(30)
+    public void receiveMessage_idBeyondReceiveWindow_droppedUntilResentWithinTheWindow() {
+        // arrange
+        readLayer.shutdownRunnable();
+        readLayer = createReadLayer(false, ReceiveMode.Pipelined, SMALL_MAX_PENDING_MESSAGES);
+        final long receiveWindow = 2L * SMALL_MAX_PENDING_MESSAGES;
+        final long beyondId = FIRST_EXPECTED_ID + receiveWindow;
+
+        // act
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(beyondId));
+        for (long id = FIRST_EXPECTED_ID; id < beyondId; ++id) {
+            readLayer.receiveMessage(BinaryMessage.createHeartbeat(id));
+        }
+
+        // assert: the ids within the window are processed, the one beyond was dropped
+        assertThat(readLayer.getHeartbeatReceivedCount(), is(equalTo(receiveWindow)));
+        verify(connectionLayer, never()).enqueueAcknowledgement(beyondId);
+
+        // act: the resend
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(beyondId));
+
+        // assert
+        assertThat(readLayer.getHeartbeatReceivedCount(), is(equalTo(receiveWindow + 1)));
+        verify(connectionLayer).enqueueAcknowledgement(beyondId);
+    }
     // </editor-fold>
 
     /**
@@ -297,6 +364,22 @@ public class ReadLayerTest {
         verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS)).enqueueAcknowledgement(FIRST_EXPECTED_ID);
     }
 
+    @Test
+    @Timeout(30)
+    public void receiveMessage_acknowledgedRangesProcessed_rangesAppliedAndAcknowledged() throws InterruptedException {
+        // arrange
+        final long[] acknowledgedRanges = {5L, 9L, 12L, 12L};
+        final BinaryMessage acknowledgement =
+            BinaryMessage.createAcknowledgedRanges(FIRST_EXPECTED_ID, acknowledgedRanges);
+
+        // act
+        readLayer.receiveMessage(acknowledgement);
+
+        // assert
+        verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS)).applyAcknowledgedRanges(aryEq(acknowledgedRanges));
+        verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS)).enqueueAcknowledgement(FIRST_EXPECTED_ID);
+    }
+
     /**
      * When a stale duplicate is discarded, its acknowledgement must be enqueued AGAIN: the
      * duplicate means the sender resent because the first acknowledgement never arrived
@@ -322,5 +405,195 @@ public class ReadLayerTest {
         verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS).times(2))
             .enqueueAcknowledgement(FIRST_EXPECTED_ID);
     }
+
+    /**
+     * A stream chunk is acknowledged by its stream once read; without a stream listener the
+     * stream is discarded, so its chunks are acknowledged on arrival and do not hold back
+     * the other side.
+     */
+    @Test
+    @Timeout(30)
+    public void receiveMessage_streamChunkWithoutStreamListener_acknowledgementEnqueued() throws Exception {
+        // arrange
+        final byte[] chunk = ByteBuffer.allocate(Long.BYTES + 1 + 3)
+            .putLong(0L).put((byte) 1).put(new byte[] {1, 2, 3}).array();
+        final BinaryMessage bm = BinaryMessage.boxStreamChunk(
+            FIRST_EXPECTED_ID, chunk, chunk.length, Common.simpleSettingsCompression);
+
+        // act
+        readLayer.receiveMessage(bm);
+
+        // assert
+        verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS)).enqueueReadAcknowledgement(FIRST_EXPECTED_ID);
+        verify(connectionLayer, never()).enqueueAcknowledgement(FIRST_EXPECTED_ID);
+        verify(transceiver, never()).receiveMessage(any());
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="gap reports">
+    @Test
+    @Timeout(30)
+    public void receiveMessage_gapWithSelectiveAcknowledgement_gapReportedOnce() throws InterruptedException {
+        // arrange
+        readLayer.shutdownRunnable();
+        readLayer = createReadLayer(true);
+
+        // act: the expected id is missing, the one after it arrives
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID + 1));
+
+        // assert: reported at once with the held id
+        verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS)).reportGap(eq(BinaryMessage.createGapReport(
+            FIRST_EXPECTED_ID, new long[] {FIRST_EXPECTED_ID + 1, FIRST_EXPECTED_ID + 1})));
+
+        // act: the next arrival is within the report interval of the same expected id
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID + 2));
+
+        // assert: nothing new is reported
+        verify(connectionLayer, after(200).times(1)).reportGap(any());
+    }
+
+    @Test
+    @Timeout(30)
+    public void receiveMessage_gapWithoutSelectiveAcknowledgement_nothingReported() throws InterruptedException {
+        // act
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID + 1));
+
+        // assert
+        verify(connectionLayer, after(200).never()).reportGap(any());
+    }
+
+    @Test
+    @Timeout(30)
+    public void receiveMessage_gapReportReceived_appliedOutsideTheSequence() throws InterruptedException {
+        // arrange: the id of a gap report is the other side's expected id, not ours
+        final BinaryMessage gapReport = BinaryMessage.createGapReport(
+            FIRST_EXPECTED_ID + 5, new long[] {FIRST_EXPECTED_ID + 7, FIRST_EXPECTED_ID + 7});
+
+        // act
+        readLayer.receiveMessage(gapReport);
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID));
+
+        // assert: applied at once, not acknowledged, and the sequence is unaffected
+        verify(connectionLayer, timeout(WAIT_TIMEOUT_MILLIS)).applyGapReport(eq(gapReport));
+        assertThat(waitForHeartbeatCount(1), is(equalTo(1L)));
+        verify(connectionLayer, never()).enqueueAcknowledgement(FIRST_EXPECTED_ID + 5);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="pipelined receive mode">
+    /**
+     * With {@link ReceiveMode#Pipelined} the calling reader thread sequences in place: the
+     * messages are processed before {@link ReadLayer#receiveMessage} returns.
+     */
+    @Test
+    @Timeout(30)
+    public void receiveMessage_pipelinedOutOfOrderArrival_processedInPlaceInIdOrder() {
+        // arrange
+        readLayer.shutdownRunnable();
+        readLayer = createReadLayer(false, ReceiveMode.Pipelined);
+        final BinaryMessage first = BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID);
+        final BinaryMessage second = BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID + 1);
+        final BinaryMessage third = BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID + 2);
+
+        // act
+        readLayer.receiveMessage(first);
+        final long afterFirst = readLayer.getHeartbeatReceivedCount();
+        readLayer.receiveMessage(third);
+        final long afterGap = readLayer.getHeartbeatReceivedCount();
+        readLayer.receiveMessage(second);
+
+        // assert
+        assertThat(afterFirst, is(equalTo(1L)));
+        assertThat(afterGap, is(equalTo(1L)));
+        assertThat(readLayer.getHeartbeatReceivedCount(), is(equalTo(3L)));
+        verify(connectionLayer).enqueueAcknowledgement(FIRST_EXPECTED_ID + 2);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="logical channels">
+    @Test
+    @Timeout(30)
+    public void receiveMessage_channelMessageAheadOfGap_deliveredAndAcknowledgedBeforeTheGapCloses() throws Exception {
+        // arrange
+        readLayer.shutdownRunnable();
+        readLayer = createReadLayer(false, ReceiveMode.Pipelined);
+        final SimpleMessage payload = new SimpleMessage(Common.simpleByteArray);
+        final BinaryMessage ahead = BinaryMessage.box(FIRST_EXPECTED_ID + 1, serialize(payload),
+            Common.simpleSettingsCompression).withChannel(1, 0L);
+
+        // act
+        readLayer.receiveMessage(ahead);
+
+        // pre-assert: the first channel message waits for no other channel
+        verify(transceiver, timeout(WAIT_TIMEOUT_MILLIS)).receiveMessage(eq(payload));
+        verify(connectionLayer).enqueueAcknowledgement(FIRST_EXPECTED_ID + 1);
+
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID));
+        readLayer.receiveMessage(BinaryMessage.createHeartbeat(FIRST_EXPECTED_ID + 2));
+
+        // assert: the sequence passes the delivered id without processing it again
+        assertThat(readLayer.getHeartbeatReceivedCount(), is(equalTo(2L)));
+        verify(connectionLayer, times(1)).enqueueAcknowledgement(FIRST_EXPECTED_ID + 1);
+        verify(connectionLayer).enqueueAcknowledgement(FIRST_EXPECTED_ID + 2);
+        verify(transceiver, after(POLL_INTERVAL_MILLIS).times(1)).receiveMessage(eq(payload));
+    }
+
+    @Test
+    @Timeout(30)
+    public void receiveMessage_channelSuccessorAheadOfItsPredecessor_heldUntilThePredecessorArrives() throws Exception {
+        // arrange: the first id is missing, the channel's first message arrives after its second
+        readLayer.shutdownRunnable();
+        readLayer = createReadLayer(false, ReceiveMode.Pipelined);
+        final SimpleMessage first = new SimpleMessage(new byte[] {1});
+        final SimpleMessage second = new SimpleMessage(new byte[] {2});
+        final BinaryMessage firstOfChannel = BinaryMessage.box(FIRST_EXPECTED_ID + 1, serialize(first),
+            Common.simpleSettingsCompression).withChannel(2, 0L);
+        final BinaryMessage secondOfChannel = BinaryMessage.box(FIRST_EXPECTED_ID + 2, serialize(second),
+            Common.simpleSettingsCompression).withChannel(2, 1L);
+
+        // act
+        readLayer.receiveMessage(secondOfChannel);
+
+        // pre-assert: held behind its channel predecessor
+        verify(transceiver, after(POLL_INTERVAL_MILLIS).never()).receiveMessage(any());
+        verify(connectionLayer, never()).enqueueAcknowledgement(FIRST_EXPECTED_ID + 2);
+
+        readLayer.receiveMessage(firstOfChannel);
+
+        // assert: both delivered in channel order while the first id is still missing
+        final InOrder inOrder = inOrder(transceiver);
+        inOrder.verify(transceiver, timeout(WAIT_TIMEOUT_MILLIS)).receiveMessage(eq(first));
+        inOrder.verify(transceiver, timeout(WAIT_TIMEOUT_MILLIS)).receiveMessage(eq(second));
+        verify(connectionLayer).enqueueAcknowledgement(FIRST_EXPECTED_ID + 1);
+        verify(connectionLayer).enqueueAcknowledgement(FIRST_EXPECTED_ID + 2);
+        assertThat(readLayer.getHeartbeatReceivedCount(), is(equalTo(0L)));
+    }
+
+    /**
+     * The other side resends a channel message delivered ahead of a gap when its first
+     * acknowledgement got lost: the duplicate is acknowledged again, not dropped silently.
+     */
+    @Test
+    @Timeout(30)
+    public void receiveMessage_duplicateOfChannelMessageDeliveredAhead_acknowledgedAgain() throws Exception {
+        // arrange
+        readLayer.shutdownRunnable();
+        readLayer = createReadLayer(false, ReceiveMode.Pipelined);
+        final SimpleMessage payload = new SimpleMessage(Common.simpleByteArray);
+        final BinaryMessage ahead = BinaryMessage.box(FIRST_EXPECTED_ID + 1, serialize(payload),
+            Common.simpleSettingsCompression).withChannel(1, 0L);
+        readLayer.receiveMessage(ahead);
+
+        // pre-assert
+        verify(transceiver, timeout(WAIT_TIMEOUT_MILLIS)).receiveMessage(eq(payload));
+        verify(connectionLayer).enqueueAcknowledgement(FIRST_EXPECTED_ID + 1);
+
+        // act: the resend while the gap is still open
+        readLayer.receiveMessage(ahead);
+
+        // assert: acknowledged again, delivered once
+        verify(connectionLayer, times(2)).enqueueAcknowledgement(FIRST_EXPECTED_ID + 1);
+        verify(transceiver, after(POLL_INTERVAL_MILLIS).times(1)).receiveMessage(eq(payload));
+    }
     // </editor-fold>
 }
@@ -111,6 +111,79 @@ public class SendCompletionTrackerTest {
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="ranges">
+    @Test
+    @Timeout(10)
+    public void complete_everyIdOfRange_futureCompletesWithTheLastId() {
+        // arrange
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        tracker.registerRange(ANY_ID, 3, future);
+
+        // act: acknowledgements may arrive out of order
+        tracker.complete(ANY_ID + 2);
+        tracker.complete(ANY_ID);
+        final boolean doneBeforeLast = future.isDone();
+        tracker.complete(ANY_ID + 1);
+
+        // assert
+        assertThat(doneBeforeLast, is(false));
+        assertThat(future.isDone(), is(true));
+        assertThat(future.isCompletedExceptionally(), is(false));
+    }
+
+    @Test
+    @Timeout(10)
+    public void complete_idsAroundRange_rangeUnaffected() {
+        // arrange
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        tracker.registerRange(ANY_ID, 2, future);
+
+        // act
+        tracker.complete(ANY_ID - 1);
+        tracker.complete(ANY_ID + 2);
+        tracker.complete(ANY_ID);
+
+        // assert
+        assertThat(future.isDone(), is(false));
+    }
+
+    @Test
+    @Timeout(10)
+    public void fail_idOfRange_futureCompletesExceptionallyAndLaterAcknowledgementsIgnored() {
+        // arrange
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final IOException cause = new IOException("serialization failed");
+        tracker.registerRange(ANY_ID, 3, future);
+
+        // act
+        tracker.fail(ANY_ID + 1, cause);
+        tracker.complete(ANY_ID);
+        tracker.complete(ANY_ID + 2);
+
+        // assert
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> future.get(GET_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(sameInstance((Throwable) cause)));
+    }
+
+    @Test
+    @Timeout(10)
+    public void shutdown_pendingRange_completesExceptionally() {
+        // arrange
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        tracker.registerRange(ANY_ID, 2, future);
+        tracker.complete(ANY_ID);
+
+        // act
+        tracker.shutdown();
+
+        // assert
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> future.get(GET_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertThat(exception.getCause(), is(instanceOf(IllegalStateException.class)));
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="shutdown">
     @Test
     @Timeout(10)
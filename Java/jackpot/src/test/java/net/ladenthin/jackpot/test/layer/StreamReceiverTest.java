@@ -0,0 +1,284 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.layer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.ErrorLayer;
+import net.ladenthin.jackpot.StreamReceiver;
+import net.ladenthin.jackpot.TransceiverInputStream;
+import net.ladenthin.jackpot.TransceiverStreamListener;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.ThreadType;
+import net.ladenthin.jackpot.message.TError;
+import net.ladenthin.jackpot.messageprocessing.ParallelErrorInformant;
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * Unit tests for the {@link StreamReceiver}: the received chunks reach the listener's
+ * {@link TransceiverInputStream} and are acknowledged once read, not once received.
+ */
+public class StreamReceiverTest {
+
+    /**
+     * Upper bound for an awaited listener thread. Unit: [s].
+     */
+    private static final long WAIT_TIMEOUT_SECONDS = 5;
+
+    private final List<Long> acknowledged = new CopyOnWriteArrayList<>();
+
+    private final List<TError> errors = new CopyOnWriteArrayList<>();
+
+    private final ErrorLayer errorLayer = new ErrorLayer(new ParallelErrorInformant() {
+        @Override
+        public void informError(TError error) {
+            errors.add(error);
+        }
+    });
+
+    private StreamReceiver streamReceiver;
+
+    @AfterEach
+    public void tearDown() {
+        if (streamReceiver != null) {
+            streamReceiver.shutdown();
+        }
+    }
+
+    private StreamReceiver create(final TransceiverStreamListener listener) {
+        streamReceiver = new StreamReceiver(Common.alwaysLZ4SettingsCompression,
+            CTransceiver.DEFAULT_MAX_PAYLOAD_LENGTH, acknowledged::add, () -> listener, errorLayer,
+            ThreadType.Platform, "jackpot-Stream-test-");
+        return streamReceiver;
+    }
+
+    /**
+     * A chunk as {@link net.ladenthin.jackpot.TransceiverOutputStream} writes it: the
+     * stream id, the flags (bit 1: the last chunk), then the bytes.
+     */
+    private static BinaryMessage chunk(final long id, final long streamId, final boolean last,
+        final byte[] bytes) throws IOException {
+        final byte[] chunk = ByteBuffer.allocate(Long.BYTES + 1 + bytes.length)
+            .putLong(streamId).put((byte) (last ? 1 : 0)).put(bytes).array();
+        return BinaryMessage.boxStreamChunk(id, chunk, chunk.length,
+            Common.alwaysLZ4SettingsCompression);
+    }
+
+    private static byte[] readFully(final TransceiverInputStream stream) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[7];
+        int n;
+        while ((n = stream.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, n);
+        }
+        return bytes.toByteArray();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="delivery and acknowledgement">
+    @Test
+    @Timeout(30)
+    public void receive_chunksOfOneStream_listenerReadsThemInOrderAndAcknowledgesEach() throws Exception {
+        // arrange
+        final AtomicReference<byte[]> read = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        create(stream -> {
+            read.set(readFully(stream));
+            done.countDown();
+        });
+
+        // act
+        final boolean firstDeferred = streamReceiver.receive(chunk(1L, 9L, false, new byte[] {1, 2, 3}));
+        streamReceiver.receive(chunk(2L, 9L, false, new byte[] {4, 5, 6, 7, 8, 9, 10, 11}));
+        streamReceiver.receive(chunk(3L, 9L, true, new byte[] {12}));
+
+        // assert
+        assertThat(firstDeferred, is(true));
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}, read.get());
+        assertThat(acknowledged, contains(1L, 2L, 3L));
+        assertThat(errors, is(empty()));
+    }
+
+    @Test
+    @Timeout(30)
+    public void receive_listenerNotReadingYet_acknowledgementDeferredUntilRead() throws Exception {
+        // arrange
+        final CountDownLatch mayRead = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        create(stream -> {
+            try {
+                mayRead.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            readFully(stream);
+            done.countDown();
+        });
+
+        // act
+        streamReceiver.receive(chunk(1L, 0L, false, new byte[] {1}));
+        streamReceiver.receive(chunk(2L, 0L, true, new byte[] {2}));
+
+        // pre-assert: received, but neither read nor acknowledged
+        assertThat(acknowledged, is(empty()));
+        assertThat(streamReceiver.isUnread(1L), is(true));
+        assertThat(streamReceiver.isUnread(2L), is(true));
+
+        mayRead.countDown();
+
+        // assert
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(acknowledged, contains(1L, 2L));
+        assertThat(streamReceiver.isUnread(1L), is(false));
+    }
+
+    @Test
+    @Timeout(30)
+    public void receive_noListener_chunkDiscardedAndAcknowledgedOnArrival() throws Exception {
+        // arrange
+        create(null);
+
+        // act
+        streamReceiver.receive(chunk(1L, 0L, false, new byte[] {1}));
+        streamReceiver.receive(chunk(2L, 0L, true, new byte[] {2}));
+
+        // assert
+        assertThat(acknowledged, contains(1L, 2L));
+        assertThat(streamReceiver.isUnread(1L), is(false));
+    }
+
+    @Test
+    @Timeout(30)
+    public void receive_listenerReturnedEarly_restDiscardedAndAcknowledged() throws Exception {
+        // arrange
+        final CountDownLatch done = new CountDownLatch(1);
+        create(stream -> {
+            stream.read();
+            done.countDown();
+        });
+        streamReceiver.receive(chunk(1L, 0L, false, new byte[] {1, 2}));
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        // act
+        streamReceiver.receive(chunk(2L, 0L, true, new byte[] {3}));
+
+        // assert: the partly read chunk is acknowledged once the stream is closed
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_TIMEOUT_SECONDS);
+        while (acknowledged.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(acknowledged, contains(1L, 2L));
+    }
+
+    @Test
+    @Timeout(30)
+    public void receive_twoStreams_eachListenedToSeparately() throws Exception {
+        // arrange
+        final List<Long> streamIds = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(2);
+        create(stream -> {
+            readFully(stream);
+            streamIds.add(stream.getStreamId());
+            done.countDown();
+        });
+
+        // act: interleaved like two writers on one transceiver
+        streamReceiver.receive(chunk(1L, 4L, false, new byte[] {1}));
+        streamReceiver.receive(chunk(2L, 5L, false, new byte[] {2}));
+        streamReceiver.receive(chunk(3L, 5L, true, new byte[] {3}));
+        streamReceiver.receive(chunk(4L, 4L, true, new byte[] {4}));
+
+        // assert
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(streamIds.size(), is(equalTo(2)));
+        assertThat(streamIds.contains(4L) && streamIds.contains(5L), is(true));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="failures">
+    @Test
+    public void receive_chunkShorterThanItsHeader_errorNotifiedAndNotDeferred() throws Exception {
+        // arrange
+        create(stream -> readFully(stream));
+        final BinaryMessage corrupt = BinaryMessage.boxStreamChunk(1L, new byte[] {1, 2, 3}, 3,
+            Common.alwaysLZ4SettingsCompression);
+
+        // act
+        final boolean deferred = streamReceiver.receive(corrupt);
+
+        // assert: acknowledged by the caller like a message that fails to deserialize
+        assertThat(deferred, is(false));
+        assertThat(errors.size(), is(equalTo(1)));
+        assertThat(acknowledged, is(empty()));
+    }
+
+    @Test
+    @Timeout(30)
+    public void shutdown_streamStillReceiving_readerGetsIOException() throws Exception {
+        // arrange
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        create(stream -> {
+            try {
+                readFully(stream);
+            } catch (IOException e) {
+                failure.set(e);
+            }
+            done.countDown();
+        });
+        streamReceiver.receive(chunk(1L, 0L, false, new byte[] {1}));
+
+        // act
+        streamReceiver.shutdown();
+
+        // assert
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(failure.get(), is(notNullValue()));
+        assertThat(errors, is(empty()));
+    }
+
+    @Test
+    @Timeout(30)
+    public void read_afterListenerReturned_throwsIOException() throws Exception {
+        // arrange
+        final AtomicReference<TransceiverInputStream> escaped = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        create(stream -> {
+            escaped.set(stream);
+            done.countDown();
+        });
+        streamReceiver.receive(chunk(1L, 0L, true, new byte[] {1}));
+        assertThat(done.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_TIMEOUT_SECONDS);
+        while (acknowledged.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // act, assert: closed once the callback returned
+        assertThrows(IOException.class, () -> escaped.get().read());
+    }
+    // </editor-fold>
+}
@@ -4,6 +4,9 @@
 
 package net.ladenthin.jackpot.test.layer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.gson.reflect.TypeToken;
@@ -70,4 +73,23 @@ public class TransceiverTest {
             () -> transceiver.update(null, Integer.valueOf(42)));
     }
     // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="channel input validation">
+    @Test
+    @Timeout(30)
+    public void getChannelCount_noChannelWeights_singleChannel() {
+        // act, assert
+        assertThat(transceiver.getChannelCount(), is(equalTo(1)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void send_channelBeyondTheChannelCount_throwsException() {
+        // act, assert
+        assertThrows(IllegalArgumentException.class,
+            () -> transceiver.send(1, new SimpleMessage(new byte[] {1})));
+        assertThrows(IllegalArgumentException.class,
+            () -> transceiver.send(-1, new SimpleMessage(new byte[] {1})));
+    }
+    // </editor-fold>
 }
@@ -16,10 +16,14 @@ import static org.mockito.Mockito.when;
 
 import com.google.gson.reflect.TypeToken;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.AfterEach;
@@ -33,6 +37,7 @@ import net.ladenthin.jackpot.ConnectionLayer;
 import net.ladenthin.jackpot.ErrorLayer;
 import net.ladenthin.jackpot.FlowControl;
 import net.ladenthin.jackpot.SendCompletionTracker;
+import net.ladenthin.jackpot.TransceiverMetrics;
 import net.ladenthin.jackpot.WriteLayer;
 import net.ladenthin.jackpot.configuration.CClientSocketConnector;
 import net.ladenthin.jackpot.configuration.CConnector;
@@ -49,6 +54,8 @@ import net.ladenthin.jackpot.messageprocessing.ParallelErrorInformant;
 import net.ladenthin.jackpot.test.Common;
 import net.ladenthin.jackpot.test.sendAndReceive.SimpleMessage;
 import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.LongArrayList;
+import net.ladenthin.jackpot.util.NoConnectionPossible;
 
 /**
  * Unit tests for the {@link WriteLayer} reliability bookkeeping: every written message is
@@ -89,6 +96,14 @@ public class WriteLayerTest {
      */
     private final List<BinaryMessage> writtenToWire = new CopyOnWriteArrayList<>();
 
+    /**
+     * The size of every batch written with one flush (captured from the mocked
+     * {@link ConnectionLayer#writeBoxedSendableByteMessages}).
+     */
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    private final TransceiverMetrics metrics = new TransceiverMetrics();
+
     private volatile TError lastError;
 
     @BeforeEach
@@ -128,6 +143,15 @@ public class WriteLayerTest {
                 return null;
             }
         }).when(connectionLayer).writeBoxedSendableByteMessage(any(BinaryMessage.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                final List<BinaryMessage> batch = invocation.getArgument(0);
+                batchSizes.add(batch.size());
+                writtenToWire.addAll(batch);
+                return null;
+            }
+        }).when(connectionLayer).writeBoxedSendableByteMessages(any());
 
         final ErrorLayer errorLayer = new ErrorLayer(new ParallelErrorInformant() {
             @Override
@@ -136,8 +160,8 @@ public class WriteLayerTest {
             }
         });
 
-        writeLayer = new WriteLayer(errorLayer, connectionLayer, new FlowControl(0, 0),
-            new SendCompletionTracker());
+        writeLayer = new WriteLayer(errorLayer, connectionLayer, new FlowControl(0, 0, metrics),
+            new SendCompletionTracker(), metrics);
     }
 
     @AfterEach
@@ -197,6 +221,39 @@ public class WriteLayerTest {
             is(equalTo(countBeforeAcknowledgement - 1)));
     }
 
+    /**
+     * A write may wait for a slow peer; the acknowledgement of the message being written
+     * (applied on the selector loop that drains the write) must not wait for it.
+     */
+    @Test
+    @Timeout(30)
+    public void deleteId_writeOfTheMessageStalled_releasedWithoutWaitingForTheWrite() throws Exception {
+        // arrange: the write blocks until the acknowledgement was applied
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch acknowledged = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                writing.countDown();
+                acknowledged.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                writtenToWire.add((BinaryMessage) invocation.getArgument(0));
+                return null;
+            }
+        }).when(connectionLayer).writeBoxedSendableByteMessage(any(BinaryMessage.class));
+        writeLayer.transmitMessage(BinaryMessage.box(
+            PAYLOAD_ID, Common.simpleByteArray, Common.simpleSettingsCompression));
+        assertThat(writing.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+
+        // act
+        final CompletableFuture<Void> deleted = CompletableFuture.runAsync(
+            () -> writeLayer.deleteId(PAYLOAD_ID));
+
+        // assert: released while the write still waits
+        deleted.get(WAIT_TIMEOUT_MILLIS / 2, TimeUnit.MILLISECONDS);
+        assertThat(writeLayer.getUnacknowledgedMessageCount(), is(equalTo(0L)));
+        acknowledged.countDown();
+    }
+
     @Test
     @Timeout(30)
     public void deleteId_unknownIdGiven_noExceptionThrown() {
@@ -251,6 +308,28 @@ public class WriteLayerTest {
         // assert: no further write of the acknowledged id happened
         assertThat(writeCountForId(PAYLOAD_ID), is(equalTo(1)));
     }
+
+    /**
+     * A message resent after its deadline backs off: the second resend waits twice the resend
+     * interval, so three writes take at least three intervals instead of two.
+     */
+    @Test
+    @Timeout(30)
+    public void transmitMessage_neverAcknowledged_resendsBackOff() throws Exception {
+        // arrange
+        final BinaryMessage payload = BinaryMessage.box(
+            PAYLOAD_ID, Common.simpleByteArray, Common.simpleSettingsCompression);
+        final long start = System.currentTimeMillis();
+
+        // act
+        writeLayer.transmitMessage(payload);
+        final int writes = waitForWriteCount(PAYLOAD_ID, 3);
+        final long elapsed = System.currentTimeMillis() - start;
+
+        // assert
+        assertThat(writes, is(greaterThanOrEqualTo(3)));
+        assertThat(elapsed, is(greaterThanOrEqualTo(3 * RESEND_INTERVAL_MILLIS)));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="loop robustness">
@@ -298,6 +377,54 @@ public class WriteLayerTest {
         assertThat("The write loop died after the RuntimeException — later messages are never written.",
             waitForWriteCount(PAYLOAD_ID, 1), is(greaterThanOrEqualTo(1)));
     }
+
+    /**
+     * A fragmented message is retained with its last fragment only: a write failing on a
+     * middle fragment restarts the message with its first fragment, instead of leaving a
+     * hole over there until the resend interval elapsed.
+     */
+    @Test
+    @Timeout(30)
+    public void run_writeOfMiddleFragmentFails_messageRestartedFromFirstFragment() throws Exception {
+        // arrange: three fragments, the first write of the middle one fails
+        final int fragmentLength = 16;
+        final byte[] bytes = new byte[3 * fragmentLength];
+        final BinaryMessage[] fragments = new BinaryMessage[3];
+        for (int i = 0; i < fragments.length; ++i) {
+            fragments[i] = BinaryMessage.boxFragment(PAYLOAD_ID, bytes, i * fragmentLength,
+                fragmentLength, bytes.length, Common.simpleSettingsCompression);
+        }
+        final AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws NoConnectionPossible {
+                final BinaryMessage bm = invocation.getArgument(0);
+                if (bm.isFragment() && bm.getFragmentOffset() == fragmentLength
+                    && failed.compareAndSet(false, true)) {
+                    throw new NoConnectionPossible();
+                }
+                writtenToWire.add(bm);
+                return null;
+            }
+        }).when(connectionLayer).writeBoxedSendableByteMessage(any(BinaryMessage.class));
+
+        // act
+        writeLayer.transmitMessage(BinaryMessage.createFragmented(fragments));
+
+        // assert: every fragment is on the wire before the last one, ahead of any resend
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (writeCountForId(PAYLOAD_ID) < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        final List<Integer> offsets = new ArrayList<>();
+        for (BinaryMessage bm : writtenToWire) {
+            if (bm.getId() == PAYLOAD_ID && offsets.size() < 4) {
+                offsets.add(bm.getFragmentOffset());
+            }
+        }
+        assertThat(failed.get(), is(true));
+        assertThat(offsets, is(equalTo(Arrays.asList(0, 0, fragmentLength, 2 * fragmentLength))));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="acknowledgement sending">
@@ -305,31 +432,206 @@ public class WriteLayerTest {
     @Timeout(30)
     public void heartbeatSignal_pendingAcknowledgementsAvailable_acknowledgementMessageWritten() throws Exception {
         // arrange: the connection layer reports two received ids awaiting acknowledgement
-        when(connectionLayer.drainPendingAcknowledgements())
-            .thenReturn(Arrays.asList(7L, 8L))
-            .thenReturn(Collections.<Long>emptyList());
+        stubPendingAcknowledgements(7L, 8L);
 
         // act
         writeLayer.heartbeatSignal();
 
         // assert: an acknowledgement message carrying exactly those ids is written
+        final BinaryMessage acknowledgement = waitForAcknowledgement();
+        assertThat("No acknowledgement message was written although acknowledgements were pending.",
+            acknowledgement, is(notNullValue()));
+        assertThat(acknowledgement.getAcknowledged(), is(equalTo(Arrays.asList(7L, 8L))));
+    }
+
+    @Test
+    @Timeout(30)
+    public void heartbeatSignal_rangeEncodedAcknowledgementNegotiated_idsWrittenAsRanges() throws Exception {
+        // arrange: unordered ids with a duplicate, forming two runs
+        when(connectionLayer.isRangeEncodedAcknowledgement()).thenReturn(true);
+        stubPendingAcknowledgements(9L, 7L, 8L, 12L, 8L);
+
+        // act
+        writeLayer.heartbeatSignal();
+
+        // assert
+        final BinaryMessage acknowledgement = waitForAcknowledgement();
+        assertThat("No acknowledgement message was written although acknowledgements were pending.",
+            acknowledgement, is(notNullValue()));
+        assertThat(acknowledgement.isStateAcknowledgedRanges(), is(true));
+        assertThat(acknowledgement.getAcknowledgedRanges(), is(equalTo(new long[] {7L, 9L, 12L, 12L})));
+    }
+
+    @Test
+    @Timeout(30)
+    public void acknowledgeRanges_retainedIdsInRanges_releasedOthersRetained() throws Exception {
+        // arrange
+        for (long id = PAYLOAD_ID; id <= PAYLOAD_ID + 3; ++id) {
+            writeLayer.transmitMessage(BinaryMessage.box(
+                id, Common.simpleByteArray, Common.simpleSettingsCompression));
+        }
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (writeLayer.getUnacknowledgedMessageCount() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // act: the ranges reach far beyond the retained ids on both ends
+        writeLayer.acknowledgeRanges(new long[] {0L, PAYLOAD_ID, PAYLOAD_ID + 2, Long.MAX_VALUE - 1});
+
+        // assert: only PAYLOAD_ID + 1 is left
+        assertThat(writeLayer.getUnacknowledgedMessageCount(), is(equalTo(1L)));
+        assertThat(metrics.getAcknowledgementLatency().getCount(), is(equalTo(3L)));
+    }
+
+    /**
+     * Lets the first drain of the pending acknowledgements return the ids, every later one
+     * nothing.
+     */
+    private void stubPendingAcknowledgements(final long... ids) {
+        final AtomicBoolean drained = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (drained.compareAndSet(false, true)) {
+                final LongArrayList target = invocation.getArgument(0);
+                for (long id : ids) {
+                    target.add(id);
+                }
+            }
+            return null;
+        }).when(connectionLayer).drainPendingAcknowledgements(any(LongArrayList.class));
+    }
+
+    /**
+     * @return the first acknowledgement message written (of either encoding), or
+     * {@code null} after {@link #WAIT_TIMEOUT_MILLIS}
+     */
+    private BinaryMessage waitForAcknowledgement() throws InterruptedException {
         final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
-        BinaryMessage acknowledgement = null;
-        while (acknowledgement == null && System.currentTimeMillis() < deadline) {
+        while (System.currentTimeMillis() < deadline) {
             for (BinaryMessage bm : writtenToWire) {
-                if (bm.isStateAcknowledged()) {
-                    acknowledgement = bm;
-                    break;
+                if (bm.isStateAcknowledged() || bm.isStateAcknowledgedRanges()) {
+                    return bm;
                 }
             }
-            if (acknowledgement == null) {
-                writeLayer.heartbeatSignal();
-                Thread.sleep(POLL_INTERVAL_MILLIS);
+            writeLayer.heartbeatSignal();
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+        return null;
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="write batching">
+    @Test
+    @Timeout(30)
+    public void transmitMessage_messagesQueuedDuringWrite_writtenAsOneBatch() throws Exception {
+        // arrange: the first write blocks until the next messages are queued
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch queued = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                writing.countDown();
+                queued.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                writtenToWire.add((BinaryMessage) invocation.getArgument(0));
+                return null;
             }
+        }).when(connectionLayer).writeBoxedSendableByteMessage(any(BinaryMessage.class));
+        writeLayer.transmitMessage(BinaryMessage.box(
+            PAYLOAD_ID, Common.simpleByteArray, Common.simpleSettingsCompression));
+        assertThat(writing.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), is(true));
+
+        // act
+        for (long id = PAYLOAD_ID + 1; id <= PAYLOAD_ID + 3; ++id) {
+            writeLayer.transmitMessage(BinaryMessage.box(
+                id, Common.simpleByteArray, Common.simpleSettingsCompression));
         }
-        assertThat("No acknowledgement message was written although acknowledgements were pending.",
-            acknowledgement, is(notNullValue()));
-        assertThat(acknowledgement.getAcknowledged(), is(equalTo(Arrays.asList(7L, 8L))));
+        queued.countDown();
+
+        // assert: the three queued messages went out with one flush, in id order
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (writtenToWire.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+        assertThat(batchSizes, is(equalTo(Arrays.asList(3))));
+        assertThat(writtenToWire.get(1).getId(), is(equalTo(PAYLOAD_ID + 1)));
+        assertThat(writtenToWire.get(3).getId(), is(equalTo(PAYLOAD_ID + 3)));
+        assertThat(writeLayer.getUnacknowledgedMessageCount(), is(equalTo(4L)));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="gap reports">
+    /**
+     * A gap report releases what the other side processed or holds and resends only the
+     * missing id, without waiting for {@link Heartbeat#resendInterval}.
+     */
+    @Test
+    @Timeout(30)
+    public void applyGapReport_oneIdMissing_missingIdResentOthersReleased() throws Exception {
+        // arrange
+        for (long id = PAYLOAD_ID; id <= PAYLOAD_ID + 3; ++id) {
+            writeLayer.transmitMessage(BinaryMessage.box(
+                id, Common.simpleByteArray, Common.simpleSettingsCompression));
+        }
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (writeCountForId(PAYLOAD_ID + 3) < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // act: PAYLOAD_ID was processed, PAYLOAD_ID + 2 is held, PAYLOAD_ID + 1 is missing
+        writeLayer.applyGapReport(PAYLOAD_ID + 1, new long[] {PAYLOAD_ID + 2, PAYLOAD_ID + 2});
+
+        // assert
+        assertThat(metrics.getFastRetransmits(), is(equalTo(1L)));
+        assertThat(metrics.getAcknowledgementLatency().getCount(), is(equalTo(2L)));
+        final long resendDeadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (writeCountForId(PAYLOAD_ID + 1) < 2 && System.currentTimeMillis() < resendDeadline) {
+            Thread.sleep(1);
+        }
+        assertThat(writeCountForId(PAYLOAD_ID + 1), is(equalTo(2)));
+    }
+
+    /**
+     * A processed or held stream chunk may be unread over there: a gap report leaves it to
+     * the acknowledgement its stream sends once it read the chunk.
+     */
+    @Test
+    @Timeout(30)
+    public void applyGapReport_streamChunksProcessedAndHeld_streamChunksRetained() throws Exception {
+        // arrange: the stream chunks PAYLOAD_ID + 1 and PAYLOAD_ID + 3 between two messages
+        for (long id = PAYLOAD_ID; id <= PAYLOAD_ID + 3; ++id) {
+            writeLayer.transmitMessage((id - PAYLOAD_ID) % 2 == 0
+                ? BinaryMessage.box(id, Common.simpleByteArray, Common.simpleSettingsCompression)
+                : BinaryMessage.boxStreamChunk(id, Common.simpleByteArray.clone(),
+                    Common.simpleByteArray.length, Common.simpleSettingsCompression));
+        }
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (writeCountForId(PAYLOAD_ID + 3) < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // act: PAYLOAD_ID up to PAYLOAD_ID + 2 were processed, PAYLOAD_ID + 3 is held
+        writeLayer.applyGapReport(PAYLOAD_ID + 3, new long[] {PAYLOAD_ID + 3, PAYLOAD_ID + 3});
+
+        // assert
+        assertThat(metrics.getFastRetransmits(), is(equalTo(0L)));
+        assertThat(metrics.getAcknowledgementLatency().getCount(), is(equalTo(2L)));
+        assertThat(writeLayer.getUnacknowledgedMessageCount(), is(equalTo(2L)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void transmitGapReport_reportHandedIn_written() throws Exception {
+        // arrange
+        final BinaryMessage gapReport = BinaryMessage.createGapReport(7L, new long[] {9L, 9L});
+
+        // act
+        writeLayer.transmitGapReport(gapReport);
+
+        // assert
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (!writtenToWire.contains(gapReport) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+        assertThat(writtenToWire.contains(gapReport), is(true));
     }
     // </editor-fold>
 }
@@ -0,0 +1,187 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.nio;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.nio.ChannelTransport;
+import net.ladenthin.jackpot.nio.ChannelTransportListener;
+import net.ladenthin.jackpot.nio.SelectorLoopGroup;
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * The outbound queue of a {@link ChannelTransport} is bounded: a writer to a peer that does
+ * not read waits instead of queueing without limit, and continues once the peer reads.
+ */
+public class ChannelTransportTest {
+
+    private static final int MAX_PAYLOAD_LENGTH = 1024 * 1024;
+
+    /**
+     * Unit: [bytes].
+     */
+    private static final long MAX_OUTBOUND_BYTES = 256 * 1024;
+
+    /**
+     * Unit: [bytes].
+     */
+    private static final int PAYLOAD_LENGTH = 16 * 1024;
+
+    /**
+     * Far more than the socket buffers of both sides take. Unit: [bytes].
+     */
+    private static final int FRAMES = 4096;
+
+    /**
+     * Upper bound for the writer to block or to finish. Unit: [s].
+     */
+    private static final long WAIT_TIMEOUT_SECONDS = 20;
+
+    /**
+     * Poll interval. Unit: [ms].
+     */
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private SelectorLoopGroup group;
+
+    private ServerSocketChannel server;
+
+    private Socket peer;
+
+    private ChannelTransport transport;
+
+    private final AtomicReference<Thread> writerThread = new AtomicReference<>();
+
+    private final AtomicInteger framesWritten = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        group = SelectorLoopGroup.acquire();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("localhost", 0));
+        peer = new Socket("localhost", server.socket().getLocalPort());
+        final SocketChannel accepted = server.accept();
+        accepted.configureBlocking(false);
+        transport = new ChannelTransport(accepted, group.next(), MAX_PAYLOAD_LENGTH,
+            MAX_OUTBOUND_BYTES, new ChannelTransportListener() {
+                @Override
+                public void frameReceived(ChannelTransport transport, BinaryMessage bm) {
+                }
+
+                @Override
+                public void transportFailed(ChannelTransport transport, Exception cause) {
+                }
+            });
+        transport.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        transport.close();
+        peer.close();
+        server.close();
+        SelectorLoopGroup.release(group);
+    }
+
+    /**
+     * Writes {@link #FRAMES} frames on a thread of its own.
+     *
+     * @return whether every write succeeded
+     */
+    private CompletableFuture<Boolean> writeAll() throws Exception {
+        final BinaryMessage bm = BinaryMessage.box(1L, new byte[PAYLOAD_LENGTH],
+            Common.simpleSettingsCompression);
+        return CompletableFuture.supplyAsync(() -> {
+            writerThread.set(Thread.currentThread());
+            for (int i = 0; i < FRAMES; ++i) {
+                if (!transport.write(bm)) {
+                    return false;
+                }
+                framesWritten.incrementAndGet();
+            }
+            return true;
+        });
+    }
+
+    private void awaitWriterWaiting() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_TIMEOUT_SECONDS);
+        for (;;) {
+            final Thread thread = writerThread.get();
+            if (thread != null && thread.getState() == Thread.State.WAITING
+                && transport.getOutboundBytes() > 0) {
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("the writer never waited");
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void write_peerNeverReads_writerWaitsWithBoundedQueue() throws Exception {
+        // act
+        final CompletableFuture<Boolean> written = writeAll();
+        awaitWriterWaiting();
+
+        // assert: the queue holds at most the high-water mark plus the frame beyond it
+        assertThat(transport.getOutboundBytes(),
+            is(lessThanOrEqualTo(MAX_OUTBOUND_BYTES + PAYLOAD_LENGTH + 64)));
+        assertThat(framesWritten.get() < FRAMES, is(true));
+        assertThat(written.isDone(), is(false));
+
+        // act: a close releases the waiting writer
+        transport.close();
+
+        // assert
+        assertThat(written.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(false));
+    }
+
+    @Test
+    @Timeout(60)
+    public void write_peerStartsReading_writerContinuesAndFinishes() throws Exception {
+        // arrange
+        final CompletableFuture<Boolean> written = writeAll();
+        awaitWriterWaiting();
+
+        // act
+        final CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            try {
+                final InputStream in = peer.getInputStream();
+                final byte[] buffer = new byte[64 * 1024];
+                while (in.read(buffer) >= 0) {
+                    // discard
+                }
+            } catch (Exception e) {
+                // closed in teardown
+            }
+        });
+
+        // assert
+        assertThat(written.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(framesWritten.get(), is(equalTo(FRAMES)));
+        reader.cancel(true);
+    }
+}
@@ -0,0 +1,89 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.nio;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.nio.DirectBufferPool;
+
+public class DirectBufferPoolTest {
+
+    private static final int CAPACITY = 128;
+
+    @Test
+    public void acquire_emptyPool_newClearedDirectBuffer() {
+        // arrange
+        final DirectBufferPool pool = new DirectBufferPool(CAPACITY, 2);
+
+        // act
+        final ByteBuffer buffer = pool.acquire();
+
+        // assert
+        assertThat(buffer.isDirect(), is(true));
+        assertThat(buffer.capacity(), is(equalTo(CAPACITY)));
+        assertThat(buffer.remaining(), is(equalTo(CAPACITY)));
+    }
+
+    @Test
+    public void acquire_afterRelease_sameBufferCleared() {
+        // arrange
+        final DirectBufferPool pool = new DirectBufferPool(CAPACITY, 2);
+        final ByteBuffer buffer = pool.acquire();
+        buffer.putLong(1L).flip();
+
+        // act
+        pool.release(buffer);
+        final ByteBuffer reused = pool.acquire();
+
+        // assert
+        assertThat(reused, is(sameInstance(buffer)));
+        assertThat(reused.position(), is(equalTo(0)));
+        assertThat(reused.limit(), is(equalTo(CAPACITY)));
+    }
+
+    @Test
+    public void release_beyondMaximum_excessBuffersNotKept() {
+        // arrange
+        final DirectBufferPool pool = new DirectBufferPool(CAPACITY, 2);
+        final ByteBuffer first = pool.acquire();
+        final ByteBuffer second = pool.acquire();
+        final ByteBuffer third = pool.acquire();
+
+        // act
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        // assert
+        assertThat(pool.getPooledCount(), is(equalTo(2)));
+    }
+
+    @Test
+    public void release_foreignBuffers_ignored() {
+        // arrange
+        final DirectBufferPool pool = new DirectBufferPool(CAPACITY, 2);
+
+        // act
+        pool.release(ByteBuffer.allocate(CAPACITY));
+        pool.release(ByteBuffer.allocateDirect(CAPACITY + 1));
+        pool.release(ByteBuffer.allocateDirect(CAPACITY).asReadOnlyBuffer());
+
+        // assert
+        assertThat(pool.getPooledCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void constructor_capacityZero_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new DirectBufferPool(0, 1));
+    }
+}
@@ -0,0 +1,79 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.nio;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.nio.ChannelTransport;
+import net.ladenthin.jackpot.nio.ChannelTransportListener;
+import net.ladenthin.jackpot.nio.SelectorLoop;
+import net.ladenthin.jackpot.nio.SelectorLoopGroup;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * The {@link SelectorLoop} runs the tasks its own key handlers queue before it selects
+ * again, without waiting for unrelated I/O.
+ */
+public class SelectorLoopTest {
+
+    private static final int MAX_PAYLOAD_LENGTH = 1024;
+
+    private static final long MAX_OUTBOUND_BYTES = 64 * 1024;
+
+    /**
+     * Upper bound for a task to run. Unit: [s].
+     */
+    private static final long TASK_TIMEOUT_SECONDS = 5;
+
+    @Test
+    @Timeout(30)
+    public void execute_taskQueuedByKeyHandler_runsWithoutFurtherIo() throws Exception {
+        // arrange
+        final SelectorLoopGroup group = SelectorLoopGroup.acquire();
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+            try (Socket peer = new Socket("localhost", server.socket().getLocalPort());
+                SocketChannel accepted = server.accept()) {
+                accepted.configureBlocking(false);
+                final SelectorLoop loop = group.next();
+                final CountDownLatch taskRun = new CountDownLatch(1);
+                final ChannelTransport transport = new ChannelTransport(accepted, loop,
+                    MAX_PAYLOAD_LENGTH, MAX_OUTBOUND_BYTES, new ChannelTransportListener() {
+                        @Override
+                        public void frameReceived(ChannelTransport transport, BinaryMessage bm) {
+                            // on the loop thread: queued without a wakeup
+                            loop.execute(taskRun::countDown);
+                        }
+
+                        @Override
+                        public void transportFailed(ChannelTransport transport, Exception cause) {
+                        }
+                    });
+                transport.start();
+
+                // act: one frame, then silence
+                BinaryMessage.createHeartbeat(1L).toDataOutput(new DataOutputStream(peer.getOutputStream()));
+
+                // assert
+                assertThat(taskRun.await(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+                transport.close();
+            }
+        } finally {
+            SelectorLoopGroup.release(group);
+        }
+    }
+}
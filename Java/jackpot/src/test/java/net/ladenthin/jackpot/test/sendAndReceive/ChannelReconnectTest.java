@@ -0,0 +1,155 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverListener;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.message.TError;
+
+/**
+ * A channel connector connects on the selector loop, paced by
+ * {@link CTransceiver#reconnectInterval} and bounded by {@link CTransceiver#reconnectTimeout}:
+ * a missing peer surfaces as a {@link TError} once the timeout is over, a peer appearing
+ * within it is connected by a later attempt.
+ */
+public class ChannelReconnectTest {
+
+    private final static String HOST = "localhost";
+
+    private final static int PORT = 29094;
+
+    /**
+     * Unit: [ms].
+     */
+    private final static int RECONNECT_INTERVAL = 100;
+
+    /**
+     * Unit: [ms].
+     */
+    private final static int SHORT_RECONNECT_TIMEOUT = 1000;
+
+    /**
+     * Unit: [ms].
+     */
+    private final static int LONG_RECONNECT_TIMEOUT = 30000;
+
+    /**
+     * Several failed attempts before the server binds. Unit: [ms].
+     */
+    private static final long SERVER_LATE_MILLIS = 1000;
+
+    /**
+     * Upper bound for the error, far below the default reconnect timeout. Unit: [s].
+     */
+    private static final long ERROR_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Upper bound for the acknowledgement of a healthy peer. Unit: [s].
+     */
+    private static final long ACKNOWLEDGE_TIMEOUT_SECONDS = 20;
+
+    private final List<Transceiver<SimpleMessage>> transceivers = new ArrayList<>();
+
+    private final List<SimpleMessage> received = new CopyOnWriteArrayList<>();
+
+    private final CompletableFuture<TError> noConnectionPossible = new CompletableFuture<>();
+
+    private Transceiver<SimpleMessage> start(String transceiverId, ConnectionType connectionType,
+        CConnector connector, int reconnectTimeout) {
+        final CTransceiver configuration = new CTransceiver(connectionType, connector);
+        configuration.reconnectInterval = RECONNECT_INTERVAL;
+        configuration.reconnectTimeout = reconnectTimeout;
+        final Transceiver<SimpleMessage> transceiver = new Transceiver<>(new CTransceiverSession(
+            transceiverId,
+            new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class,
+            configuration
+        ));
+        transceiver.addListener(new TransceiverListener<SimpleMessage>() {
+            @Override
+            public void onMessage(SimpleMessage message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(TError error) {
+                if (error.noConnectionPossible) {
+                    noConnectionPossible.complete(error);
+                }
+            }
+        });
+        transceivers.add(transceiver);
+        return transceiver;
+    }
+
+    private Transceiver<SimpleMessage> startClient(int reconnectTimeout) {
+        return start("channelReconnectClient", ConnectionType.ClientSocketChannelConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)), reconnectTimeout);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Transceiver<SimpleMessage> transceiver : transceivers) {
+            transceiver.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void connect_noServer_surfacesNoConnectionPossibleAfterReconnectTimeout() throws Exception {
+        // arrange
+        final long start = System.currentTimeMillis();
+
+        // act
+        startClient(SHORT_RECONNECT_TIMEOUT);
+
+        // assert
+        assertThat(noConnectionPossible.get(ERROR_TIMEOUT_SECONDS, TimeUnit.SECONDS).noConnectionPossible,
+            is(true));
+        assertThat(System.currentTimeMillis() - start >= SHORT_RECONNECT_TIMEOUT, is(true));
+    }
+
+    @Test
+    @Timeout(60)
+    public void send_serverStartsLate_laterAttemptConnectsAndDelivers() throws Exception {
+        // arrange
+        final Transceiver<SimpleMessage> client = startClient(LONG_RECONNECT_TIMEOUT);
+        final SimpleMessage message = new SimpleMessage(new byte[] {1, 2, 3});
+        final CompletableFuture<Void> acknowledged = client.send(message);
+        Thread.sleep(SERVER_LATE_MILLIS);
+
+        // act
+        start("channelReconnectServer", ConnectionType.ServerSocketChannelConnection,
+            new CConnector(new CServerSocketConnector(PORT)), LONG_RECONNECT_TIMEOUT);
+
+        // assert
+        acknowledged.get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(received.size(), is(equalTo(1)));
+        assertThat(received.get(0), is(equalTo(message)));
+        assertThat(noConnectionPossible.isDone(), is(false));
+    }
+}
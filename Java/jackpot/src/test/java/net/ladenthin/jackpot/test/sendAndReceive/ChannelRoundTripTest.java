@@ -0,0 +1,214 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverListener;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CMessageIdLong;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.Heartbeat;
+import net.ladenthin.jackpot.configuration.SerializationType;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.test.Common;
+
+/**
+ * Messages of an interactive and a bulk channel (see {@link CTransceiver#channelWeights})
+ * share one connection: every message is delivered intact, and the order of every channel
+ * is kept, whatever the interleaving of the two.
+ */
+public class ChannelRoundTripTest {
+
+    private final static String HOST = "localhost";
+
+    private final static int PORT = 29092;
+
+    private final static int CHANNEL_PORT = 29093;
+
+    private final static int INTERACTIVE_CHANNEL = 0;
+
+    private final static int BULK_CHANNEL = 1;
+
+    /**
+     * The interactive channel gets four times the share of the bulk channel.
+     */
+    private final static int[] CHANNEL_WEIGHTS = {4, 1};
+
+    /**
+     * Unit: [bytes].
+     */
+    private final static int FRAGMENT_LENGTH = 64 * 1024;
+
+    /**
+     * Sixteen fragments. Unit: [bytes].
+     */
+    private final static int BULK_PAYLOAD_LENGTH = 1024 * 1024;
+
+    /**
+     * Unit: [bytes].
+     */
+    private final static int INTERACTIVE_PAYLOAD_LENGTH = 16;
+
+    private final static int BULK_MESSAGES = 4;
+
+    /**
+     * Small messages sent behind every bulk one.
+     */
+    private final static int INTERACTIVE_MESSAGES = 50;
+
+    /**
+     * Time budget for the server to bind before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for the acknowledgements of a healthy peer. Unit: [s].
+     */
+    private static final long ACKNOWLEDGE_TIMEOUT_SECONDS = 30;
+
+    private final List<Transceiver<SimpleMessage>> transceivers = new ArrayList<>();
+
+    private final List<SimpleMessage> received = new CopyOnWriteArrayList<>();
+
+    private Transceiver<SimpleMessage> start(String transceiverId, ConnectionType connectionType,
+        CConnector connector, SettingsCompression settingsCompression) {
+        final CTransceiver configuration = new CTransceiver(
+            SerializationType.ObjectOutputStreamSerialization,
+            SerializationType.ObjectOutputStreamSerialization,
+            connectionType,
+            settingsCompression,
+            connector,
+            new Heartbeat(),
+            new CMessageIdLong()
+        );
+        configuration.fragmentLength = FRAGMENT_LENGTH;
+        configuration.channelWeights = CHANNEL_WEIGHTS;
+        final Transceiver<SimpleMessage> transceiver = new Transceiver<>(new CTransceiverSession(
+            transceiverId,
+            new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class,
+            configuration
+        ));
+        transceiver.addListener(new TransceiverListener<SimpleMessage>() {
+            @Override
+            public void onMessage(SimpleMessage message) {
+                received.add(message);
+            }
+        });
+        transceivers.add(transceiver);
+        return transceiver;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Transceiver<SimpleMessage> transceiver : transceivers) {
+            transceiver.shutdown();
+        }
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the received messages of a channel, told apart by their payload length
+     */
+    private List<SimpleMessage> receivedOfLength(int length) {
+        final List<SimpleMessage> ofLength = new ArrayList<>();
+        for (SimpleMessage message : received) {
+            if (message.binaryContent.length == length) {
+                ofLength.add(message);
+            }
+        }
+        return ofLength;
+    }
+
+    /**
+     * Sends every bulk message on the bulk channel followed by interactive messages on the
+     * interactive channel, awaits every acknowledgement and asserts the order of both
+     * channels.
+     */
+    private void sendAndAssertChannelOrder(Transceiver<SimpleMessage> client) throws Exception {
+        final List<SimpleMessage> bulk = new ArrayList<>();
+        final List<SimpleMessage> interactive = new ArrayList<>();
+        final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>();
+        for (int round = 0; round < BULK_MESSAGES; ++round) {
+            final SimpleMessage bulkMessage = new SimpleMessage(pattern(BULK_PAYLOAD_LENGTH, round));
+            bulk.add(bulkMessage);
+            acknowledgements.add(client.send(BULK_CHANNEL, bulkMessage));
+            for (int i = 0; i < INTERACTIVE_MESSAGES; ++i) {
+                final SimpleMessage interactiveMessage = new SimpleMessage(
+                    pattern(INTERACTIVE_PAYLOAD_LENGTH, round * INTERACTIVE_MESSAGES + i));
+                interactive.add(interactiveMessage);
+                acknowledgements.add(client.send(INTERACTIVE_CHANNEL, interactiveMessage));
+            }
+        }
+        for (CompletableFuture<Void> acknowledgement : acknowledgements) {
+            acknowledgement.get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        // a message is acknowledged only after it was received and delivered
+        assertThat(received.size(), is(equalTo(bulk.size() + interactive.size())));
+        assertThat(receivedOfLength(BULK_PAYLOAD_LENGTH), is(equalTo(bulk)));
+        assertThat(receivedOfLength(INTERACTIVE_PAYLOAD_LENGTH), is(equalTo(interactive)));
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_bulkAndInteractiveChannelsOverSocket_everyChannelArrivesIntactInOrder()
+        throws Exception {
+        // arrange
+        start("channelServer", ConnectionType.ServerSocketConnection,
+            new CConnector(new CServerSocketConnector(PORT)), Common.alwaysGZIPSettingsCompression);
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final Transceiver<SimpleMessage> client = start("channelClient",
+            ConnectionType.ClientSocketConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)), Common.alwaysGZIPSettingsCompression);
+
+        // act, assert
+        assertThat(client.getChannelCount(), is(equalTo(CHANNEL_WEIGHTS.length)));
+        sendAndAssertChannelOrder(client);
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_bulkAndInteractiveChannelsOverSocketChannel_everyChannelArrivesIntactInOrder()
+        throws Exception {
+        // arrange
+        start("channelChannelServer", ConnectionType.ServerSocketChannelConnection,
+            new CConnector(new CServerSocketConnector(CHANNEL_PORT)), Common.alwaysLZ4SettingsCompression);
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final Transceiver<SimpleMessage> client = start("channelChannelClient",
+            ConnectionType.ClientSocketChannelConnection,
+            new CConnector(new CClientSocketConnector(HOST, CHANNEL_PORT)), Common.alwaysLZ4SettingsCompression);
+
+        // act, assert
+        sendAndAssertChannelOrder(client);
+    }
+}
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
 import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverBatchListener;
 import net.ladenthin.jackpot.TransceiverListener;
 import net.ladenthin.jackpot.configuration.CClientSocketConnector;
 import net.ladenthin.jackpot.configuration.CConnector;
@@ -139,6 +140,31 @@ public class ListenerApiRoundTripTest {
         }
     }
 
+    /**
+     * A recording {@link TransceiverBatchListener}: collects the batches thread-safely.
+     */
+    private static final class RecordingBatchListener implements TransceiverBatchListener<SimpleMessage> {
+
+        private final List<List<SimpleMessage>> batches = new ArrayList<>();
+
+        @Override
+        public void onMessages(List<SimpleMessage> messages) {
+            synchronized (batches) {
+                batches.add(messages);
+            }
+        }
+
+        private List<SimpleMessage> messages() {
+            final List<SimpleMessage> messages = new ArrayList<>();
+            synchronized (batches) {
+                for (final List<SimpleMessage> batch : batches) {
+                    messages.addAll(batch);
+                }
+            }
+            return messages;
+        }
+    }
+
     // <editor-fold defaultstate="collapsed" desc="test harness">
     private CTransceiverSession serverSession() {
         return new CTransceiverSession(
@@ -277,6 +303,103 @@ public class ListenerApiRoundTripTest {
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="batch listener">
+    @Test
+    @Timeout(60)
+    public void addBatchListener_burstSent_batchesCarryEveryMessageInOrder() throws Exception {
+        // arrange
+        startServerAndClient();
+        final RecordingBatchListener batchListener = new RecordingBatchListener();
+        final RecordingListener listener = new RecordingListener();
+        serverTransceiver.addBatchListener(batchListener);
+        serverTransceiver.addListener(listener);
+        final int count = 100;
+        final List<SimpleMessage> sent = new ArrayList<>();
+        final List<CompletableFuture<Void>> acknowledged = new ArrayList<>();
+
+        // act
+        for (int i = 0; i < count; ++i) {
+            final SimpleMessage message = new SimpleMessage(("batch-" + i).getBytes());
+            sent.add(message);
+            acknowledged.add(clientTransceiver.send(message));
+        }
+        CompletableFuture.allOf(acknowledged.toArray(new CompletableFuture<?>[0]))
+            .get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        waitForMessages(listener, count);
+
+        // assert: the batch listener saw the same messages as the per-message listener
+        assertThat(batchListener.messages(), is(equalTo(sent)));
+        assertThat(serverTransceiver.removeBatchListener(batchListener), is(true));
+        assertThat(serverTransceiver.removeBatchListener(batchListener), is(false));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="sendAll">
+    @Test
+    @Timeout(60)
+    public void sendAll_healthyPeer_oneFutureCompletesAndMessagesDeliveredInOrder() throws Exception {
+        // arrange
+        startServerAndClient();
+        final RecordingListener listener = new RecordingListener();
+        serverTransceiver.addListener(listener);
+        final int count = 50;
+        final List<SimpleMessage> sent = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            sent.add(new SimpleMessage(("bulk-" + i).getBytes()));
+        }
+
+        // act
+        clientTransceiver.sendAll(sent).get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        waitForMessages(listener, count);
+
+        // assert
+        synchronized (listener.messages) {
+            assertThat(listener.messages, is(equalTo(sent)));
+        }
+        assertThat(clientTransceiver.getMetrics().getAcknowledgementLatency().getCount(),
+            is(equalTo((long) count)));
+    }
+
+    @Test
+    @Timeout(60)
+    public void sendAll_oneMessageFailsToSerialize_futureCompletesExceptionallyOthersDelivered()
+        throws Exception {
+        // arrange
+        startServerAndClient();
+        final RecordingListener listener = new RecordingListener();
+        serverTransceiver.addListener(listener);
+        final List<SimpleMessage> messages = new ArrayList<>();
+        messages.add(new SimpleMessage("bulk-before".getBytes()));
+        messages.add(new UnserializableMessage("poison".getBytes()));
+        messages.add(new SimpleMessage("bulk-after".getBytes()));
+
+        // act
+        final CompletableFuture<Void> acknowledged = clientTransceiver.sendAll(messages);
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> acknowledged.get(FAILURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        final int received = waitForMessages(listener, 2);
+
+        // assert: the hole of the failed message does not stall the rest of the range
+        assertThat(exception.getCause(), is(instanceOf(Exception.class)));
+        assertThat(received, is(equalTo(2)));
+    }
+
+    @Test
+    @Timeout(60)
+    public void sendAll_emptyCollection_completedFutureReturned() throws Exception {
+        // arrange
+        startServerAndClient();
+
+        // act
+        final CompletableFuture<Void> acknowledged =
+            clientTransceiver.sendAll(new ArrayList<SimpleMessage>());
+
+        // assert
+        assertThat(acknowledged.isDone(), is(true));
+        assertThat(acknowledged.isCompletedExceptionally(), is(false));
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="removeListener">
     @Test
     @Timeout(60)
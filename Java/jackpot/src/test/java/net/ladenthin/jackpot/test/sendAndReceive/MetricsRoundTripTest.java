@@ -0,0 +1,159 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.google.gson.reflect.TypeToken;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverMetrics;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+
+/**
+ * {@link Transceiver#getMetrics()} over a live connection: both sides count the messages
+ * and bytes they exchanged, the sender records one acknowledgement latency per
+ * acknowledged message, and the opt-in MXBean lives exactly as long as the transceiver.
+ */
+public class MetricsRoundTripTest {
+
+    private final static String HOST = "localhost";
+
+    /**
+     * Distinct from all other integration test ports.
+     */
+    private final static int PORT = 29040;
+
+    private final static String CLIENT_ID = "metricsClient";
+
+    private static final int MESSAGES = 5;
+
+    /**
+     * Time budget for the server to open its connector before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for connecting and for each acknowledgement. Unit: [s].
+     */
+    private static final long TIMEOUT_SECONDS = 15;
+
+    /**
+     * Poll interval while waiting for delivery. Unit: [ms].
+     */
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private Transceiver<SimpleMessage> server;
+    private Transceiver<SimpleMessage> client;
+    private final AtomicInteger delivered = new AtomicInteger();
+
+    // <editor-fold defaultstate="collapsed" desc="test harness">
+    private static CTransceiverSession session(final String id, final CTransceiver transceiver) {
+        return new CTransceiverSession(id, new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class, transceiver);
+    }
+
+    private void connect(final boolean clientJmxMetrics) throws Exception {
+        final CompletableFuture<Transceiver<SimpleMessage>> serverStarted =
+            CompletableFuture.supplyAsync(() -> new Transceiver<>(session("metricsServer",
+                new CTransceiver(ConnectionType.ServerSocketConnection,
+                    new CConnector(new CServerSocketConnector(PORT))))));
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final CTransceiver clientConfiguration = new CTransceiver(
+            ConnectionType.ClientSocketConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)));
+        clientConfiguration.jmxMetrics = clientJmxMetrics;
+        client = CompletableFuture.supplyAsync(() -> new Transceiver<SimpleMessage>(
+            session(CLIENT_ID, clientConfiguration))).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        server = serverStarted.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        server.addListener(message -> delivered.incrementAndGet());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+    // </editor-fold>
+
+    @Test
+    @Timeout(90)
+    public void getMetrics_acknowledgedMessages_countedOnBothSides() throws Exception {
+        // arrange
+        connect(false);
+        final byte[] payload = new byte[100];
+
+        // act
+        for (int i = 0; i < MESSAGES; ++i) {
+            client.send(new SimpleMessage(payload)).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (delivered.get() < MESSAGES && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+
+        // assert
+        final TransceiverMetrics sent = client.getMetrics();
+        final TransceiverMetrics received = server.getMetrics();
+        assertThat(sent.getMessagesSent(), is(greaterThanOrEqualTo((long) MESSAGES)));
+        assertThat(sent.getAcknowledgementLatency().getCount(), is(equalTo((long) MESSAGES)));
+        assertThat(sent.getAcknowledgementLatency().getMax(), is(greaterThan(0L)));
+        assertThat(sent.getUncompressedBytesSent(),
+            is(greaterThanOrEqualTo((long) MESSAGES * payload.length)));
+        assertThat(sent.getBytesSent(), is(greaterThan(sent.getPayloadBytesSent())));
+        assertThat(sent.getConnects(), is(equalTo(1L)));
+        assertThat(sent.getReconnects(), is(equalTo(0L)));
+        assertThat(received.getMessagesReceived(), is(greaterThanOrEqualTo((long) MESSAGES)));
+        assertThat(received.getPayloadBytesReceived(),
+            is(greaterThanOrEqualTo(sent.getPayloadBytesSent())));
+    }
+
+    @Test
+    @Timeout(90)
+    public void jmxMetrics_enabled_registeredUntilShutdown() throws Exception {
+        // arrange
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(
+            "net.ladenthin.jackpot:type=Transceiver,name=" + ObjectName.quote(CLIENT_ID));
+
+        // act
+        connect(true);
+
+        // assert
+        assertThat(mBeanServer.isRegistered(name), is(true));
+        assertThat(mBeanServer.getAttribute(name, "Connects"), is(equalTo(1L)));
+
+        // act
+        client.shutdown();
+
+        // assert
+        assertThat(mBeanServer.isRegistered(name), is(false));
+    }
+}
@@ -0,0 +1,196 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CMessageIdLong;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.ReceiveMode;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * With {@link ReceiveMode#Pipelined} a channel connection applies the other side's
+ * acknowledgements on the selector loop. A slow peer keeps the bounded outbound queue
+ * ({@link CTransceiver#maxOutboundBytes}) full, so the writer waits for the loop to drain
+ * it — meanwhile the loop applies the acknowledgements of the frames already read, which
+ * must not wait for the writer: every message is acknowledged.
+ */
+public class PipelinedChannelBackpressureTest {
+
+    private final static String HOST = "localhost";
+
+    private final static int PORT = 29100;
+
+    /**
+     * A few frames fill the outbound queue. Unit: [bytes].
+     */
+    private final static int MAX_OUTBOUND_BYTES = 16 * 1024;
+
+    /**
+     * Batches far beyond the outbound queue and the socket buffers: the peer reads the first
+     * frames of a batch while the writer still waits for the rest. Unit: [bytes].
+     */
+    private final static int MAX_WRITE_BATCH_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Unit: [bytes].
+     */
+    private final static int PAYLOAD_LENGTH = 64 * 1024;
+
+    /**
+     * Random bytes: a compression cannot shrink the frames.
+     */
+    private final static long PAYLOAD_SEED = 42;
+
+    /**
+     * Far more than the socket buffers take.
+     */
+    private final static int MESSAGES = 1000;
+
+    /**
+     * The socket receive buffer of the slow peer, so its backlog reaches the sender soon.
+     * Unit: [bytes].
+     */
+    private static final int PEER_RECEIVE_BUFFER_BYTES = 16 * 1024;
+
+    /**
+     * The pause of the slow peer after every frame it reads. Unit: [ms].
+     */
+    private static final long PEER_READ_PAUSE_MILLIS = 1;
+
+    /**
+     * Upper bound for the acknowledgements. Unit: [s].
+     */
+    private static final long ACKNOWLEDGE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * A peer that reads one frame at a time, pauses, and acknowledges it at once; its
+     * acknowledgement messages take the ids the transceiver expects.
+     */
+    private static final class SlowPeer {
+
+        private final ServerSocket listener;
+
+        private final AtomicInteger messagesRead = new AtomicInteger();
+
+        private volatile Socket socket;
+
+        SlowPeer() throws IOException {
+            listener = new ServerSocket();
+            listener.setReuseAddress(true);
+            listener.setReceiveBufferSize(PEER_RECEIVE_BUFFER_BYTES);
+            listener.bind(new InetSocketAddress(PORT));
+            final Thread reader = new Thread(() -> {
+                try {
+                    socket = listener.accept();
+                    final DataInputStream dIn = new DataInputStream(
+                        new BufferedInputStream(socket.getInputStream()));
+                    final DataOutputStream dOut = new DataOutputStream(socket.getOutputStream());
+                    long nextId = new CMessageIdLong().begin + 1;
+                    for (;;) {
+                        final BinaryMessage bm = BinaryMessage.fromDataInputJava8(dIn);
+                        if (bm.isStateMessage()) {
+                            messagesRead.incrementAndGet();
+                        }
+                        BinaryMessage.createAcknowledged(nextId++,
+                            Collections.singletonList(bm.getId())).toDataOutput(dOut);
+                        dOut.flush();
+                        Thread.sleep(PEER_READ_PAUSE_MILLIS);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // closed — nothing to do
+                }
+            }, "test-slow-peer");
+            reader.start();
+        }
+
+        void close() {
+            try {
+                listener.close();
+                if (socket != null) {
+                    socket.close();
+                }
+            } catch (IOException e) {
+                // best effort
+            }
+        }
+    }
+
+    private SlowPeer peer;
+
+    private Transceiver<SimpleMessage> client;
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (peer != null) {
+            peer.close();
+        }
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_slowPeerFillsOutboundQueue_everyMessageAcknowledged() throws Exception {
+        // arrange
+        peer = new SlowPeer();
+        final CTransceiver configuration = new CTransceiver(
+            ConnectionType.ClientSocketChannelConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)));
+        configuration.receiveMode = ReceiveMode.Pipelined;
+        configuration.maxOutboundBytes = MAX_OUTBOUND_BYTES;
+        configuration.maxWriteBatchBytes = MAX_WRITE_BATCH_BYTES;
+        client = new Transceiver<>(new CTransceiverSession(
+            "pipelinedBackpressureClient",
+            new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class,
+            configuration
+        ));
+
+        final byte[] payload = new byte[PAYLOAD_LENGTH];
+        new Random(PAYLOAD_SEED).nextBytes(payload);
+
+        // act
+        final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; ++i) {
+            acknowledgements.add(client.send(new SimpleMessage(payload)));
+        }
+
+        // assert
+        CompletableFuture.allOf(acknowledgements.toArray(new CompletableFuture<?>[0]))
+            .get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertThat(peer.messagesRead.get(), is(equalTo(MESSAGES)));
+    }
+}
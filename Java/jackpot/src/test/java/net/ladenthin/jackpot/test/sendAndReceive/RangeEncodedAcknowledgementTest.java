@@ -0,0 +1,122 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.google.gson.reflect.TypeToken;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.Heartbeat;
+
+/**
+ * Only the client enables {@link CTransceiver#rangeEncodedAcknowledgement}: the server
+ * decodes the range-encoded acknowledgements anyway and answers in kind, so the messages of
+ * both directions are acknowledged.
+ */
+public class RangeEncodedAcknowledgementTest {
+
+    private final static String HOST = "localhost";
+
+    /**
+     * Distinct from all other integration test ports.
+     */
+    private final static int PORT = 29060;
+
+    private static final int MESSAGES = 5;
+
+    /**
+     * A short connection timeout starts the heartbeat timer after one second, which bounds
+     * the acknowledgement latency at its check interval. Unit: [ms].
+     */
+    private static final int CONNECTION_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * Beyond the test: every message is acknowledged, none resent. Unit: [ms].
+     */
+    private static final long RESEND_INTERVAL_MILLIS = 10000;
+
+    /**
+     * Time budget for the server to open its connector before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for connecting and for the acknowledgements. Unit: [s].
+     */
+    private static final long TIMEOUT_SECONDS = 15;
+
+    private Transceiver<SimpleMessage> server;
+    private Transceiver<SimpleMessage> client;
+
+    private static CTransceiverSession session(final String id, final CTransceiver transceiver) {
+        transceiver.heartbeat = new Heartbeat(RESEND_INTERVAL_MILLIS, CONNECTION_TIMEOUT_MILLIS);
+        return new CTransceiverSession(id, new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class, transceiver);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private static void sendAndAwaitAcknowledgements(final Transceiver<SimpleMessage> sender)
+        throws Exception {
+        final List<CompletableFuture<Void>> acknowledged = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; ++i) {
+            acknowledged.add(sender.send(new SimpleMessage(("message-" + i).getBytes())));
+        }
+        CompletableFuture.allOf(acknowledged.toArray(new CompletableFuture<?>[0]))
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_rangeEncodedAcknowledgementOnOneSide_bothDirectionsAcknowledged() throws Exception {
+        // arrange
+        final CompletableFuture<Transceiver<SimpleMessage>> serverStarted =
+            CompletableFuture.supplyAsync(() -> new Transceiver<>(session("rangeAckServer",
+                new CTransceiver(ConnectionType.ServerSocketConnection,
+                    new CConnector(new CServerSocketConnector(PORT))))));
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final CTransceiver clientConfiguration = new CTransceiver(
+            ConnectionType.ClientSocketConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)));
+        clientConfiguration.rangeEncodedAcknowledgement = true;
+        client = CompletableFuture.supplyAsync(() -> new Transceiver<SimpleMessage>(
+            session("rangeAckClient", clientConfiguration))).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        server = serverStarted.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // act
+        sendAndAwaitAcknowledgements(server);
+        sendAndAwaitAcknowledgements(client);
+
+        // assert
+        assertThat(server.getMetrics().getAcknowledgementLatency().getCount(), is(equalTo((long) MESSAGES)));
+        assertThat(client.getMetrics().getAcknowledgementLatency().getCount(), is(equalTo((long) MESSAGES)));
+    }
+}
@@ -0,0 +1,337 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverInputStream;
+import net.ladenthin.jackpot.TransceiverOutputStream;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CMessageIdLong;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.Heartbeat;
+import net.ladenthin.jackpot.configuration.SerializationType;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * A proxy between client and server drops one payload frame on the wire. With
+ * {@link CTransceiver#selectiveAcknowledgement} on both sides the server reports the gap as
+ * soon as the next message arrives and the client retransmits the missing one at once — the
+ * whole burst is delivered long before {@link Heartbeat#resendInterval} would resend it.
+ */
+public class SelectiveAcknowledgementTest {
+
+    private final static String HOST = "localhost";
+
+    /**
+     * The proxy port the client connects to. Distinct from all other integration test ports.
+     */
+    private final static int PROXY_PORT = 29050;
+
+    /**
+     * The real server port the proxy forwards to.
+     */
+    private final static int SERVER_PORT = 29051;
+
+    /**
+     * Far beyond the delivery bound: only a fast retransmit can deliver in time. Unit: [ms].
+     */
+    private static final long RESEND_INTERVAL_MILLIS = 60000;
+
+    /**
+     * The payload frame the proxy drops, counted from 1.
+     */
+    private static final int DROPPED_PAYLOAD_FRAME = 2;
+
+    private static final int MESSAGES = 5;
+
+    /**
+     * Time budget for the server to open its connector before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for connecting. Unit: [s].
+     */
+    private static final long TIMEOUT_SECONDS = 15;
+
+    /**
+     * Upper bound for the delivery of the burst, a fraction of the resend interval. Unit: [ms].
+     */
+    private static final long DELIVERY_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * How long a write beyond the stream window must stay blocked. Unit: [ms].
+     */
+    private static final long BLOCKED_MILLIS = 1000;
+
+    /**
+     * A single-connection TCP forwarder that decodes the frames from the client and drops
+     * one payload frame.
+     */
+    private static final class LossyProxy {
+
+        private final ServerSocket listener;
+        private final List<Socket> sockets = new ArrayList<>();
+
+        LossyProxy() throws IOException {
+            listener = new ServerSocket();
+            listener.setReuseAddress(true);
+            listener.bind(new InetSocketAddress(PROXY_PORT));
+            final Thread acceptor = new Thread(() -> {
+                try {
+                    final Socket clientSide = listener.accept();
+                    final Socket serverSide = new Socket(HOST, SERVER_PORT);
+                    synchronized (sockets) {
+                        sockets.add(clientSide);
+                        sockets.add(serverSide);
+                    }
+                    forwardDroppingOnePayload(clientSide.getInputStream(), serverSide.getOutputStream());
+                    forward(serverSide.getInputStream(), clientSide.getOutputStream());
+                } catch (IOException e) {
+                    // closed — nothing to do
+                }
+            }, "test-lossy-proxy-acceptor");
+            acceptor.start();
+        }
+
+        private void forwardDroppingOnePayload(final InputStream in, final OutputStream out) {
+            new Thread(() -> {
+                final DataInputStream dIn = new DataInputStream(new BufferedInputStream(in));
+                final DataOutputStream dOut = new DataOutputStream(new BufferedOutputStream(out));
+                int payloadFrames = 0;
+                try {
+                    for (;;) {
+                        final BinaryMessage bm = BinaryMessage.fromDataInputJava8(dIn);
+                        if (bm.isStateMessage() && ++payloadFrames == DROPPED_PAYLOAD_FRAME) {
+                            continue;
+                        }
+                        bm.toDataOutput(dOut);
+                        dOut.flush();
+                    }
+                } catch (IOException e) {
+                    // closed — nothing to do
+                }
+            }, "test-lossy-proxy-upstream").start();
+        }
+
+        private void forward(final InputStream in, final OutputStream out) {
+            new Thread(() -> {
+                final byte[] buffer = new byte[8192];
+                try {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        out.write(buffer, 0, read);
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    // closed — nothing to do
+                }
+            }, "test-lossy-proxy-downstream").start();
+        }
+
+        void close() {
+            try {
+                listener.close();
+            } catch (IOException e) {
+                // best effort
+            }
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    try {
+                        socket.close();
+                    } catch (IOException e) {
+                        // best effort
+                    }
+                }
+            }
+        }
+    }
+
+    private LossyProxy proxy;
+    private Transceiver<SimpleMessage> server;
+    private Transceiver<SimpleMessage> client;
+    private final List<SimpleMessage> serverReceived = new ArrayList<>();
+
+    private static CTransceiverSession session(final String id, final ConnectionType connectionType,
+        final CConnector connector) {
+        final CTransceiver transceiver = new CTransceiver(
+            SerializationType.ObjectOutputStreamSerialization,
+            SerializationType.ObjectOutputStreamSerialization,
+            connectionType,
+            new SettingsCompression(),
+            connector,
+            new Heartbeat(RESEND_INTERVAL_MILLIS),
+            new CMessageIdLong()
+        );
+        transceiver.selectiveAcknowledgement = true;
+        return new CTransceiverSession(id, new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class, transceiver);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+        if (proxy != null) {
+            proxy.close();
+        }
+    }
+
+    /**
+     * Starts the server behind the {@link LossyProxy} and connects the client through it.
+     *
+     * @param streamWindow the {@link CTransceiver#streamWindow} of the client
+     */
+    private void connect(final int streamWindow) throws Exception {
+        proxy = new LossyProxy();
+        final CompletableFuture<Transceiver<SimpleMessage>> serverStarted =
+            CompletableFuture.supplyAsync(() -> new Transceiver<>(session("sackServer",
+                ConnectionType.ServerSocketConnection,
+                new CConnector(new CServerSocketConnector(SERVER_PORT)))));
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final CTransceiverSession clientSession = session("sackClient",
+            ConnectionType.ClientSocketConnection,
+            new CConnector(new CClientSocketConnector(HOST, PROXY_PORT)));
+        clientSession.transceiverConfiguration.streamWindow = streamWindow;
+        client = CompletableFuture.supplyAsync(() -> new Transceiver<SimpleMessage>(clientSession))
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        server = serverStarted.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_payloadFrameDroppedOnTheWire_deliveredByFastRetransmit() throws Exception {
+        // arrange
+        connect(CTransceiver.DEFAULT_STREAM_WINDOW);
+        server.addListener(message -> {
+            synchronized (serverReceived) {
+                serverReceived.add(message);
+            }
+        });
+        final List<SimpleMessage> sent = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; ++i) {
+            sent.add(new SimpleMessage(("message-" + i).getBytes()));
+        }
+
+        // act
+        for (SimpleMessage message : sent) {
+            client.send(message);
+        }
+
+        // assert: the burst is complete and in order well before the resend interval
+        final long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (serverReceived) {
+                if (serverReceived.size() >= MESSAGES) {
+                    break;
+                }
+            }
+            Thread.sleep(50);
+        }
+        synchronized (serverReceived) {
+            assertThat(serverReceived, is(equalTo(sent)));
+        }
+        assertThat(client.getMetrics().getFastRetransmits(), is(greaterThanOrEqualTo(1L)));
+    }
+
+    /**
+     * The server processed a stream chunk but its stream did not read it yet when it reports
+     * a gap: the report must not open the stream window, the next chunk waits for the read.
+     */
+    @Test
+    @Timeout(90)
+    public void openStream_unreadChunkCoveredByGapReport_writerBlockedUntilRead() throws Exception {
+        // arrange
+        connect(1);
+        final CompletableFuture<TransceiverInputStream> streamArrived = new CompletableFuture<>();
+        final CountDownLatch readAllowed = new CountDownLatch(1);
+        final CompletableFuture<byte[]> streamRead = new CompletableFuture<>();
+        server.setStreamListener(stream -> {
+            streamArrived.complete(stream);
+            try {
+                readAllowed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int b;
+            while ((b = stream.read()) >= 0) {
+                bytes.write(b);
+            }
+            streamRead.complete(bytes.toByteArray());
+        });
+        final TransceiverOutputStream out = client.openStream();
+        out.write("chunk-1".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        streamArrived.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // act: the proxy drops the first message, the second one makes the server report the gap
+        client.send(new SimpleMessage("dropped".getBytes(StandardCharsets.UTF_8)));
+        client.send(new SimpleMessage("reported".getBytes(StandardCharsets.UTF_8)));
+        final long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MILLIS;
+        while (client.getMetrics().getFastRetransmits() < 1
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        final CompletableFuture<Void> secondChunk = CompletableFuture.runAsync(() -> {
+            try {
+                out.write("chunk-2".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(BLOCKED_MILLIS);
+
+        // assert
+        assertThat(client.getMetrics().getFastRetransmits(), is(greaterThanOrEqualTo(1L)));
+        assertThat(secondChunk.isDone(), is(not(true)));
+        readAllowed.countDown();
+        secondChunk.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        out.close();
+        assertThat(new String(streamRead.get(TIMEOUT_SECONDS, TimeUnit.SECONDS),
+            StandardCharsets.UTF_8), is(equalTo("chunk-1chunk-2")));
+    }
+}
@@ -0,0 +1,51 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import com.google.gson.reflect.TypeToken;
+import net.ladenthin.jackpot.configuration.*;
+
+/**
+ * The round trip of {@link AbstractConnectorRoundTripTest} over the selector-served channel
+ * connectors.
+ */
+public class SocketChannelConnectorRoundTripTest extends AbstractConnectorRoundTripTest {
+
+    private final static String host = "localhost";
+
+    /**
+     * A dedicated port, distinct from the other socket integration tests.
+     */
+    private final static int port = 29000;
+
+    @Override
+    CTransceiverSession getServerTransceiver() {
+        CServerSocketConnector cServerSocketConnector = new CServerSocketConnector(port);
+        CConnector serverConnector = new CConnector(cServerSocketConnector);
+        CTransceiver transceiverConfiguration = new CTransceiver(ConnectionType.ServerSocketChannelConnection, serverConnector);
+
+        return new CTransceiverSession(
+            "serverChannelTransceiver",
+            new TypeToken<SimpleMessage>(){}.getType(),
+            SimpleMessage.class,
+            transceiverConfiguration
+        );
+    }
+
+    @Override
+    CTransceiverSession getClientTransceiver() {
+        CClientSocketConnector cClientSocketConnector = new CClientSocketConnector(host, port);
+        CConnector clientConnector = new CConnector(cClientSocketConnector);
+        CTransceiver transceiverConfiguration = new CTransceiver(ConnectionType.ClientSocketChannelConnection, clientConnector);
+
+        return new CTransceiverSession(
+            "clientChannelTransceiver",
+            new TypeToken<SimpleMessage>(){}.getType(),
+            SimpleMessage.class,
+            transceiverConfiguration
+        );
+    }
+
+}
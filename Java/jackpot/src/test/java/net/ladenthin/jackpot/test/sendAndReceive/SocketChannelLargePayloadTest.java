@@ -0,0 +1,130 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverListener;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+
+/**
+ * Payloads far beyond the channel transport's pooled buffers, mixed with many small
+ * messages packed into shared buffers, arrive intact and in order.
+ */
+public class SocketChannelLargePayloadTest {
+
+    private final static String HOST = "localhost";
+
+    private final static int PORT = 29020;
+
+    /**
+     * Sixteen times the capacity of a pooled transport buffer. Unit: [bytes].
+     */
+    private final static int LARGE_PAYLOAD_LENGTH = 1024 * 1024;
+
+    /**
+     * Small messages sent around every large one.
+     */
+    private final static int SMALL_MESSAGES = 100;
+
+    /**
+     * Time budget for the server to bind before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for the acknowledgements of a healthy peer. Unit: [s].
+     */
+    private static final long ACKNOWLEDGE_TIMEOUT_SECONDS = 30;
+
+    private final List<Transceiver<SimpleMessage>> transceivers = new ArrayList<>();
+
+    private final List<SimpleMessage> received = new CopyOnWriteArrayList<>();
+
+    private Transceiver<SimpleMessage> start(String transceiverId, ConnectionType connectionType,
+        CConnector connector) {
+        final Transceiver<SimpleMessage> transceiver = new Transceiver<>(new CTransceiverSession(
+            transceiverId,
+            new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class,
+            new CTransceiver(connectionType, connector)
+        ));
+        transceiver.addListener(new TransceiverListener<SimpleMessage>() {
+            @Override
+            public void onMessage(SimpleMessage message) {
+                received.add(message);
+            }
+        });
+        transceivers.add(transceiver);
+        return transceiver;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Transceiver<SimpleMessage> transceiver : transceivers) {
+            transceiver.shutdown();
+        }
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_largeAndSmallPayloadsMixed_allArriveIntactInOrder() throws Exception {
+        // arrange
+        start("largePayloadServer", ConnectionType.ServerSocketChannelConnection,
+            new CConnector(new CServerSocketConnector(PORT)));
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final Transceiver<SimpleMessage> client = start("largePayloadClient",
+            ConnectionType.ClientSocketChannelConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)));
+
+        final List<SimpleMessage> sent = new ArrayList<>();
+        for (int round = 0; round < 2; ++round) {
+            for (int i = 0; i < SMALL_MESSAGES; ++i) {
+                sent.add(new SimpleMessage(pattern(16, round * SMALL_MESSAGES + i)));
+            }
+            sent.add(new SimpleMessage(pattern(LARGE_PAYLOAD_LENGTH, round)));
+        }
+
+        // act
+        final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>();
+        for (SimpleMessage message : sent) {
+            acknowledgements.add(client.send(message));
+        }
+        for (CompletableFuture<Void> acknowledgement : acknowledgements) {
+            acknowledgement.get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        // assert: a message is acknowledged only after it was received and delivered
+        assertThat(received, is(equalTo(sent)));
+    }
+}
@@ -0,0 +1,178 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverListener;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.nio.SelectorLoopGroup;
+
+/**
+ * Many channel transceiver pairs are served by the few shared selector threads: no pair owns
+ * a reader thread, every pair still exchanges (and acknowledges) messages in both
+ * directions, and the selector threads terminate once the last channel transceiver is shut
+ * down.
+ */
+public class SocketChannelMultiplexingTest {
+
+    private final static String HOST = "localhost";
+
+    /**
+     * The first of {@link #PAIRS} consecutive dedicated ports.
+     */
+    private final static int FIRST_PORT = 29010;
+
+    /**
+     * More connections than selector threads, so the loops must multiplex.
+     */
+    private final static int PAIRS = 8;
+
+    /**
+     * Time budget for the servers to bind before the clients connect. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for an acknowledgement of a healthy peer. Unit: [s].
+     */
+    private static final long ACKNOWLEDGE_TIMEOUT_SECONDS = 15;
+
+    /**
+     * Upper bound for deliveries and thread termination. Unit: [ms].
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 15000;
+
+    /**
+     * Poll interval. Unit: [ms].
+     */
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final List<Transceiver<SimpleMessage>> transceivers = new ArrayList<>();
+
+    private final List<SimpleMessage> received = new CopyOnWriteArrayList<>();
+
+    private CTransceiverSession session(String transceiverId, ConnectionType connectionType,
+        CConnector connector) {
+        return new CTransceiverSession(
+            transceiverId,
+            new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class,
+            new CTransceiver(connectionType, connector)
+        );
+    }
+
+    private Transceiver<SimpleMessage> start(CTransceiverSession session) {
+        final Transceiver<SimpleMessage> transceiver = new Transceiver<>(session);
+        transceiver.addListener(new TransceiverListener<SimpleMessage>() {
+            @Override
+            public void onMessage(SimpleMessage message) {
+                received.add(message);
+            }
+        });
+        transceivers.add(transceiver);
+        return transceiver;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Transceiver<SimpleMessage> transceiver : transceivers) {
+            transceiver.shutdown();
+        }
+    }
+
+    private List<String> liveThreadNames(String prefix) {
+        final List<String> names = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(prefix)) {
+                names.add(thread.getName());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_manyChannelPairs_allMessagesAcknowledgedOnSharedSelectorThreads() throws Exception {
+        // arrange
+        final List<Transceiver<SimpleMessage>> servers = new ArrayList<>();
+        final List<Transceiver<SimpleMessage>> clients = new ArrayList<>();
+        for (int i = 0; i < PAIRS; ++i) {
+            servers.add(start(session("multiplexServer" + i, ConnectionType.ServerSocketChannelConnection,
+                new CConnector(new CServerSocketConnector(FIRST_PORT + i)))));
+        }
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        for (int i = 0; i < PAIRS; ++i) {
+            clients.add(start(session("multiplexClient" + i, ConnectionType.ClientSocketChannelConnection,
+                new CConnector(new CClientSocketConnector(HOST, FIRST_PORT + i)))));
+        }
+
+        // act
+        final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>();
+        for (int i = 0; i < PAIRS; ++i) {
+            acknowledgements.add(clients.get(i).send(new SimpleMessage(("toServer" + i).getBytes())));
+            acknowledgements.add(servers.get(i).send(new SimpleMessage(("toClient" + i).getBytes())));
+        }
+        for (CompletableFuture<Void> acknowledgement : acknowledgements) {
+            acknowledgement.get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (received.size() < 2 * PAIRS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+
+        // assert: every message arrived, no per-transceiver reader thread exists, and the
+        // selector threads stay within the configured bound
+        assertThat(received.size(), is(equalTo(2 * PAIRS)));
+        assertThat(liveThreadNames("jackpot-ConnectionLayer-multiplex"), is(empty()));
+        assertThat(liveThreadNames("jackpot-SelectorLoop-").size(),
+            is(lessThanOrEqualTo(SelectorLoopGroup.getIoThreads())));
+    }
+
+    @Test
+    @Timeout(90)
+    public void shutdown_lastChannelTransceiverShutDown_selectorThreadsTerminate() throws Exception {
+        // arrange
+        start(session("selectorShutdownServer", ConnectionType.ServerSocketChannelConnection,
+            new CConnector(new CServerSocketConnector(FIRST_PORT + PAIRS))));
+
+        // pre-assert
+        assertThat(liveThreadNames("jackpot-SelectorLoop-").isEmpty(), is(false));
+
+        // act
+        tearDown();
+        transceivers.clear();
+
+        // assert
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (!liveThreadNames("jackpot-SelectorLoop-").isEmpty()
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+        assertThat(liveThreadNames("jackpot-SelectorLoop-"), is(empty()));
+    }
+}
@@ -0,0 +1,49 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import com.google.gson.reflect.TypeToken;
+import net.ladenthin.jackpot.configuration.*;
+
+/**
+ * The round trip with the spinning {@link WaitStrategyType}s: the server's layers spin then
+ * park, the client's layers never park.
+ */
+public class SpinningWaitStrategyRoundTripTest extends AbstractConnectorRoundTripTest {
+
+    private final static String host = "localhost";
+    private final static int port = 29030;
+
+    @Override
+    CTransceiverSession getServerTransceiver() {
+        CServerSocketConnector cServerSocketConnector = new CServerSocketConnector(port);
+        CConnector serverConnector = new CConnector(cServerSocketConnector);
+        CTransceiver transceiverConfiguration = new CTransceiver(ConnectionType.ServerSocketConnection, serverConnector);
+        transceiverConfiguration.waitStrategy = WaitStrategyType.SpinThenPark;
+
+        return new CTransceiverSession(
+            "serverTransceiver",
+            new TypeToken<SimpleMessage>(){}.getType(),
+            SimpleMessage.class,
+            transceiverConfiguration
+        );
+    }
+
+    @Override
+    CTransceiverSession getClientTransceiver() {
+        CClientSocketConnector cClientSocketConnector = new CClientSocketConnector(host, port);
+        CConnector clientConnector = new CConnector(cClientSocketConnector);
+        CTransceiver transceiverConfiguration = new CTransceiver(ConnectionType.ClientSocketConnection, clientConnector);
+        transceiverConfiguration.waitStrategy = WaitStrategyType.BusySpin;
+
+        return new CTransceiverSession(
+            "clientTransceiver",
+            new TypeToken<SimpleMessage>(){}.getType(),
+            SimpleMessage.class,
+            transceiverConfiguration
+        );
+    }
+
+}
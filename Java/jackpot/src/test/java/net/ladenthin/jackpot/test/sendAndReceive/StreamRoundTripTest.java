@@ -0,0 +1,263 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverInputStream;
+import net.ladenthin.jackpot.TransceiverListener;
+import net.ladenthin.jackpot.TransceiverOutputStream;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CMessageIdLong;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.Heartbeat;
+import net.ladenthin.jackpot.configuration.SerializationType;
+import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.test.Common;
+
+/**
+ * A byte stream opened with {@link Transceiver#openStream()} arrives intact in chunks of
+ * {@link CTransceiver#streamChunkLength} between the messages sent meanwhile, while the
+ * receiver never holds more than {@link CTransceiver#streamWindow} unread chunks.
+ */
+public class StreamRoundTripTest {
+
+    private final static String HOST = "localhost";
+
+    private final static int PORT = 29099;
+
+    private final static int CHANNEL_PORT = 29091;
+
+    /**
+     * Unit: [bytes].
+     */
+    private final static int CHUNK_LENGTH = 16 * 1024;
+
+    private final static int WINDOW = 4;
+
+    /**
+     * Five hundred and twelve chunks. Unit: [bytes].
+     */
+    private final static int STREAM_LENGTH = 8 * 1024 * 1024;
+
+    /**
+     * The length of one write; not a multiple of the chunk length. Unit: [bytes].
+     */
+    private final static int WRITE_LENGTH = 10000;
+
+    /**
+     * A small message is sent after every this many writes.
+     */
+    private final static int WRITES_PER_MESSAGE = 64;
+
+    /**
+     * How long the reader lets the chunks pile up before it reads. Unit: [ms].
+     */
+    private static final long READER_DELAY_MILLIS = 500;
+
+    /**
+     * Time budget for the server to bind before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for the acknowledgements of a healthy peer. Unit: [s].
+     */
+    private static final long ACKNOWLEDGE_TIMEOUT_SECONDS = 60;
+
+    private final List<Transceiver<SimpleMessage>> transceivers = new ArrayList<>();
+
+    private final List<SimpleMessage> received = new CopyOnWriteArrayList<>();
+
+    private Transceiver<SimpleMessage> start(String transceiverId, ConnectionType connectionType,
+        CConnector connector, SettingsCompression settingsCompression) {
+        final CTransceiver configuration = new CTransceiver(
+            SerializationType.ObjectOutputStreamSerialization,
+            SerializationType.ObjectOutputStreamSerialization,
+            connectionType,
+            settingsCompression,
+            connector,
+            new Heartbeat(),
+            new CMessageIdLong()
+        );
+        configuration.streamChunkLength = CHUNK_LENGTH;
+        configuration.streamWindow = WINDOW;
+        final Transceiver<SimpleMessage> transceiver = new Transceiver<>(new CTransceiverSession(
+            transceiverId,
+            new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class,
+            configuration
+        ));
+        transceiver.addListener(new TransceiverListener<SimpleMessage>() {
+            @Override
+            public void onMessage(SimpleMessage message) {
+                received.add(message);
+            }
+        });
+        transceivers.add(transceiver);
+        return transceiver;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Transceiver<SimpleMessage> transceiver : transceivers) {
+            transceiver.shutdown();
+        }
+    }
+
+    /**
+     * What the receiving listener saw.
+     */
+    private static final class ReadResult {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicLong length = new AtomicLong();
+        private final AtomicLong checksum = new AtomicLong();
+        private final AtomicInteger maxAvailable = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    }
+
+    /**
+     * Registers a listener that lets the chunks pile up, then reads the stream to its end.
+     */
+    private static ReadResult listen(Transceiver<SimpleMessage> server) {
+        final ReadResult result = new ReadResult();
+        server.setStreamListener((TransceiverInputStream stream) -> {
+            try {
+                Thread.sleep(READER_DELAY_MILLIS);
+                final CRC32 crc = new CRC32();
+                final byte[] buffer = new byte[4096];
+                long length = 0;
+                for (;;) {
+                    result.maxAvailable.accumulateAndGet(stream.available(), Math::max);
+                    final int n = stream.read(buffer);
+                    if (n < 0) {
+                        break;
+                    }
+                    crc.update(buffer, 0, n);
+                    length += n;
+                }
+                result.length.set(length);
+                result.checksum.set(crc.getValue());
+            } catch (Throwable e) {
+                result.failure.set(e);
+            } finally {
+                result.done.countDown();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes {@link #STREAM_LENGTH} pattern bytes, a small message after every
+     * {@link #WRITES_PER_MESSAGE} writes, and awaits every acknowledgement.
+     *
+     * @return the checksum of the written bytes
+     */
+    private long writeMixed(Transceiver<SimpleMessage> client, List<SimpleMessage> sent) throws Exception {
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[WRITE_LENGTH];
+        final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>();
+        final TransceiverOutputStream out = client.openStream();
+        int writes = 0;
+        for (long written = 0; written < STREAM_LENGTH; written += buffer.length) {
+            final int length = (int) Math.min(buffer.length, STREAM_LENGTH - written);
+            for (int i = 0; i < length; ++i) {
+                buffer[i] = (byte) ((written + i) * 31 + (written + i) / 4096);
+            }
+            out.write(buffer, 0, length);
+            crc.update(buffer, 0, length);
+            if (++writes % WRITES_PER_MESSAGE == 0) {
+                final SimpleMessage message = new SimpleMessage(new byte[] {(byte) writes});
+                sent.add(message);
+                acknowledgements.add(client.send(message));
+            }
+        }
+        out.close();
+        out.acknowledged().get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> acknowledgement : acknowledgements) {
+            acknowledgement.get(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return crc.getValue();
+    }
+
+    @Test
+    @Timeout(120)
+    public void openStream_lz4StreamWithSlowReader_arrivesIntactWithinTheWindow() throws Exception {
+        // arrange
+        final Transceiver<SimpleMessage> server = start("streamServer",
+            ConnectionType.ServerSocketConnection, new CConnector(new CServerSocketConnector(PORT)),
+            Common.alwaysLZ4SettingsCompression);
+        final ReadResult result = listen(server);
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final Transceiver<SimpleMessage> client = start("streamClient",
+            ConnectionType.ClientSocketConnection,
+            new CConnector(new CClientSocketConnector(HOST, PORT)), Common.alwaysLZ4SettingsCompression);
+        final List<SimpleMessage> sent = new ArrayList<>();
+
+        // act
+        final long checksum = writeMixed(client, sent);
+
+        // assert: the last chunk is acknowledged only after it was read
+        assertThat(result.done.await(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(result.failure.get(), is(nullValue()));
+        assertThat(result.length.get(), is(equalTo((long) STREAM_LENGTH)));
+        assertThat(result.checksum.get(), is(equalTo(checksum)));
+        assertThat(result.maxAvailable.get(), is(lessThanOrEqualTo(WINDOW * CHUNK_LENGTH)));
+        assertThat(received, is(equalTo(sent)));
+    }
+
+    @Test
+    @Timeout(120)
+    public void openStream_deflateStreamedOverChannel_arrivesIntact() throws Exception {
+        // arrange
+        final Transceiver<SimpleMessage> server = start("streamChannelServer",
+            ConnectionType.ServerSocketChannelConnection,
+            new CConnector(new CServerSocketConnector(CHANNEL_PORT)), Common.deflateStreamSettingsCompression);
+        final ReadResult result = listen(server);
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        final Transceiver<SimpleMessage> client = start("streamChannelClient",
+            ConnectionType.ClientSocketChannelConnection,
+            new CConnector(new CClientSocketConnector(HOST, CHANNEL_PORT)),
+            Common.deflateStreamSettingsCompression);
+        final List<SimpleMessage> sent = new ArrayList<>();
+
+        // act
+        final long checksum = writeMixed(client, sent);
+
+        // assert
+        assertThat(result.done.await(ACKNOWLEDGE_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(result.failure.get(), is(nullValue()));
+        assertThat(result.length.get(), is(equalTo((long) STREAM_LENGTH)));
+        assertThat(result.checksum.get(), is(equalTo(checksum)));
+        assertThat(result.maxAvailable.get(), is(lessThanOrEqualTo(WINDOW * CHUNK_LENGTH)));
+        assertThat(received, is(equalTo(sent)));
+    }
+}
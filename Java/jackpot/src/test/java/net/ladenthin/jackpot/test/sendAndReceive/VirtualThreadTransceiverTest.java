@@ -0,0 +1,133 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.sendAndReceive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.google.gson.reflect.TypeToken;
+
+import net.ladenthin.jackpot.Transceiver;
+import net.ladenthin.jackpot.TransceiverListener;
+import net.ladenthin.jackpot.configuration.CClientSocketConnector;
+import net.ladenthin.jackpot.configuration.CConnector;
+import net.ladenthin.jackpot.configuration.CServerSocketConnector;
+import net.ladenthin.jackpot.configuration.CTransceiver;
+import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.CodecExecutorType;
+import net.ladenthin.jackpot.configuration.ConnectionType;
+import net.ladenthin.jackpot.configuration.Heartbeat;
+import net.ladenthin.jackpot.configuration.ThreadType;
+
+/**
+ * A transceiver pair with {@link ThreadType#Virtual} layer loops and
+ * {@link CodecExecutorType#Virtual} (de)serialization: messages are delivered (on a virtual
+ * loop thread) and acknowledged (through the virtual reader, writer and timer threads).
+ */
+public class VirtualThreadTransceiverTest {
+
+    private final static String HOST = "localhost";
+
+    /**
+     * Distinct from all other integration test ports.
+     */
+    private final static int PORT = 29080;
+
+    private static final int MESSAGES = 5;
+
+    /**
+     * A short connection timeout starts the heartbeat timer after one second, which bounds
+     * the acknowledgement latency at its check interval. Unit: [ms].
+     */
+    private static final int CONNECTION_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * Beyond the test: every message is acknowledged, none resent. Unit: [ms].
+     */
+    private static final long RESEND_INTERVAL_MILLIS = 10000;
+
+    /**
+     * Time budget for the server to open its connector before the client connects. Unit: [ms].
+     */
+    private static final long SERVER_STARTUP_MILLIS = 1000;
+
+    /**
+     * Upper bound for connecting, delivery and the acknowledgements. Unit: [s].
+     */
+    private static final long TIMEOUT_SECONDS = 15;
+
+    private Transceiver<SimpleMessage> server;
+    private Transceiver<SimpleMessage> client;
+
+    private static CTransceiverSession session(final String id, final CTransceiver transceiver) {
+        transceiver.heartbeat = new Heartbeat(RESEND_INTERVAL_MILLIS, CONNECTION_TIMEOUT_MILLIS);
+        transceiver.threadType = ThreadType.Virtual;
+        transceiver.codecExecutor = CodecExecutorType.Virtual;
+        return new CTransceiverSession(id, new TypeToken<SimpleMessage>() {}.getType(),
+            SimpleMessage.class, transceiver);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(90)
+    public void send_virtualThreadsOnBothSides_deliveredOnVirtualThreadsAndAcknowledged() throws Exception {
+        // arrange
+        final CompletableFuture<Transceiver<SimpleMessage>> serverStarted =
+            CompletableFuture.supplyAsync(() -> new Transceiver<>(session("virtualServer",
+                new CTransceiver(ConnectionType.ServerSocketConnection,
+                    new CConnector(new CServerSocketConnector(PORT))))));
+        Thread.sleep(SERVER_STARTUP_MILLIS);
+        client = CompletableFuture.supplyAsync(() -> new Transceiver<SimpleMessage>(session("virtualClient",
+            new CTransceiver(ConnectionType.ClientSocketConnection,
+                new CConnector(new CClientSocketConnector(HOST, PORT)))))).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        server = serverStarted.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        final List<Boolean> deliveredOnVirtualThread = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(MESSAGES);
+        server.addListener(new TransceiverListener<SimpleMessage>() {
+            @Override
+            public void onMessage(SimpleMessage message) {
+                deliveredOnVirtualThread.add(Thread.currentThread().isVirtual());
+                delivered.countDown();
+            }
+        });
+
+        // act
+        final List<CompletableFuture<Void>> acknowledged = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; ++i) {
+            acknowledged.add(client.send(new SimpleMessage(("message-" + i).getBytes())));
+        }
+        CompletableFuture.allOf(acknowledged.toArray(new CompletableFuture<?>[0]))
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(delivered.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(deliveredOnVirtualThread.size(), is(equalTo(MESSAGES)));
+        for (Boolean virtual : deliveredOnVirtualThread) {
+            assertThat(virtual, is(true));
+        }
+    }
+}
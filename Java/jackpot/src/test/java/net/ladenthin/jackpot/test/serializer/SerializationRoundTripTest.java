@@ -8,8 +8,17 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import com.google.gson.reflect.TypeToken;
 
 import org.junit.jupiter.api.Test;
@@ -23,14 +32,22 @@ import net.ladenthin.jackpot.configuration.CConnector;
 import net.ladenthin.jackpot.configuration.CMessageIdLong;
 import net.ladenthin.jackpot.configuration.CTransceiver;
 import net.ladenthin.jackpot.configuration.CTransceiverSession;
+import net.ladenthin.jackpot.configuration.CodecExecutorType;
 import net.ladenthin.jackpot.configuration.ConnectionType;
 import net.ladenthin.jackpot.configuration.Heartbeat;
 import net.ladenthin.jackpot.configuration.SerializationType;
 import net.ladenthin.jackpot.configuration.SettingsCompression;
+import net.ladenthin.jackpot.deserializer.Deserializer;
 import net.ladenthin.jackpot.deserializer.ObjectOutputStreamDeserializer;
 import net.ladenthin.jackpot.serializer.DeserializerFactory;
+import net.ladenthin.jackpot.serializer.SerializeRunnable;
+import net.ladenthin.jackpot.serializer.Serializer;
 import net.ladenthin.jackpot.serializer.SerializerFactory;
+import net.ladenthin.jackpot.test.Common;
 import net.ladenthin.jackpot.test.sendAndReceive.SimpleMessage;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.CodecExecutor;
+import net.ladenthin.jackpot.util.FragmentAssembler;
 
 /**
  * Serialize/deserialize round trips through the factory pair
@@ -75,8 +92,8 @@ public class SerializationRoundTripTest {
             new SimpleMessage(SerializationRoundTripTest.class.getCanonicalName().getBytes());
 
         // act
-        final byte[] serialized = serializerFactory.getSerializer(message).serialize();
-        final SimpleMessage deserialized = deserializerFactory.getDeserializer(serialized).deserialize();
+        final byte[] serialized = serializerFactory.getSerializer().serialize(message);
+        final SimpleMessage deserialized = deserializerFactory.getDeserializer().deserialize(serialized);
 
         // pre-assert
         assertThat(serialized, is(notNullValue()));
@@ -85,6 +102,114 @@ public class SerializationRoundTripTest {
         // assert
         assertThat(deserialized, is(equalTo(message)));
     }
+
+    @ParameterizedTest
+    @EnumSource(SerializationType.class)
+    public void deserialize_rangeWithinLargerArray_onlyRangeRead(
+        SerializationType serializationType) throws Exception {
+        // arrange: the serialized bytes surrounded by garbage
+        final CTransceiverSession session = sessionFor(serializationType);
+        final SimpleMessage message = new SimpleMessage("range".getBytes());
+        final byte[] serialized = new SerializerFactoryImpl<SimpleMessage>(session).getSerializer().serialize(message);
+        final int offset = 7;
+        final byte[] padded = new byte[offset + serialized.length + 5];
+        Arrays.fill(padded, (byte) 0x5A);
+        System.arraycopy(serialized, 0, padded, offset, serialized.length);
+
+        // act
+        final SimpleMessage deserialized = new DeserializerFactoryImpl<SimpleMessage>(session).getDeserializer()
+            .deserialize(padded, offset, serialized.length);
+
+        // assert
+        assertThat(deserialized, is(equalTo(message)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SerializationType.class)
+    public void serialize_sharedInstanceFromManyThreads_everyMessageRoundTrips(
+        SerializationType serializationType) throws Exception {
+        // arrange
+        final CTransceiverSession session = sessionFor(serializationType);
+        final Serializer<SimpleMessage> serializer = new SerializerFactoryImpl<SimpleMessage>(session).getSerializer();
+        final Deserializer<SimpleMessage> deserializer =
+            new DeserializerFactoryImpl<SimpleMessage>(session).getDeserializer();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Boolean>> roundTrips = new ArrayList<>();
+
+        // act
+        try {
+            for (int i = 0; i < 200; ++i) {
+                final SimpleMessage message = new SimpleMessage(("message-" + i).getBytes());
+                roundTrips.add(executor.submit(
+                    () -> message.equals(deserializer.deserialize(serializer.serialize(message)))));
+            }
+
+            // assert
+            for (Future<Boolean> roundTrip : roundTrips) {
+                assertThat(roundTrip.get(10, TimeUnit.SECONDS), is(equalTo(true)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getSerializer_calledTwice_sameInstance() {
+        final SerializerFactory<SimpleMessage> serializerFactory =
+            new SerializerFactoryImpl<>(sessionFor(SerializationType.GsonSerialization));
+        assertThat(serializerFactory.getSerializer(), is(sameInstance(serializerFactory.getSerializer())));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="fragmentation">
+    @Test
+    public void call_messageBeyondFragmentLength_fragmentsReassembleToMessage() throws Exception {
+        // arrange
+        final CTransceiverSession session = sessionFor(SerializationType.ObjectOutputStreamSerialization);
+        final byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = (byte) (i % 251);
+        }
+        final SimpleMessage message = new SimpleMessage(content);
+        final CodecExecutor executor = CodecExecutor.create(CodecExecutorType.Bounded, 2, "fragmentTest");
+
+        try {
+            // act
+            final BinaryMessage boxed = new SerializeRunnable<>(new SerializerFactoryImpl<SimpleMessage>(session),
+                1L, message, Common.alwaysGZIPSettingsCompression, null, 8192, executor).call();
+
+            // pre-assert
+            assertThat(boxed.isFragmented(), is(true));
+            assertThat(boxed.getFragmentCount(), is(equalTo((boxed.getUncompressedSize() + 8191) / 8192)));
+
+            // assert: the fragments in reverse order restore the message
+            final FragmentAssembler assembler = new FragmentAssembler(Common.alwaysGZIPSettingsCompression);
+            BinaryMessage reassembled = null;
+            for (int i = boxed.getFragmentCount() - 1; i >= 0; --i) {
+                assertThat(boxed.getFragment(i).isGzipUsed(), is(true));
+                reassembled = assembler.add(boxed.getFragment(i));
+            }
+            assertThat(reassembled, is(notNullValue()));
+            assertThat(new DeserializerFactoryImpl<SimpleMessage>(session).getDeserializer()
+                .deserialize(reassembled.unbox(Common.simpleSettingsCompression)), is(equalTo(message)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void call_messageWithinFragmentLength_boxedWhole() throws Exception {
+        // arrange
+        final CTransceiverSession session = sessionFor(SerializationType.ObjectOutputStreamSerialization);
+
+        // act
+        final BinaryMessage boxed = new SerializeRunnable<>(new SerializerFactoryImpl<SimpleMessage>(session),
+            1L, new SimpleMessage("small".getBytes()), Common.simpleSettingsCompression, null, 8192, null).call();
+
+        // assert
+        assertThat(boxed.isFragmented(), is(false));
+        assertThat(boxed.isFragment(), is(false));
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="ObjectOutputStreamDeserializer type check">
@@ -100,13 +225,13 @@ public class SerializationRoundTripTest {
                 session.transceiverConfiguration
             )
         );
-        final byte[] foreignBytes = stringSerializerFactory.getSerializer("not a SimpleMessage").serialize();
+        final byte[] foreignBytes = stringSerializerFactory.getSerializer().serialize("not a SimpleMessage");
         final ObjectOutputStreamDeserializer<SimpleMessage> deserializer =
             new ObjectOutputStreamDeserializer<>(
-                new TypeToken<SimpleMessage>() {}.getType(), SimpleMessage.class, foreignBytes);
+                new TypeToken<SimpleMessage>() {}.getType(), SimpleMessage.class);
 
         // act, assert: the deserialized object is not an instance of the declared class
-        assertThrows(IllegalArgumentException.class, deserializer::deserialize);
+        assertThrows(IllegalArgumentException.class, () -> deserializer.deserialize(foreignBytes));
     }
     // </editor-fold>
 }
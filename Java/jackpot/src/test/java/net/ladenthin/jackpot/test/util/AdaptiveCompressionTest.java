@@ -0,0 +1,137 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.AdaptiveCompression;
+import net.ladenthin.jackpot.util.BinaryMessage;
+
+/**
+ * {@link AdaptiveCompression} picks per payload size the codec that sends fastest: no
+ * compression for incompressible payloads, a compression for repetitive payloads over a slow
+ * link; every message it boxes unboxes with the adaptive settings.
+ */
+public class AdaptiveCompressionTest {
+
+    private static final int LENGTH = 16 * 1024;
+
+    /**
+     * Enough messages to sample every codec and to confirm the choice a few times.
+     */
+    private static final int MESSAGES = 500;
+
+    private static byte[] randomPayload(final Random random) {
+        final byte[] payload = new byte[LENGTH];
+        random.nextBytes(payload);
+        return payload;
+    }
+
+    private static byte[] repetitivePayload() {
+        final byte[] payload = new byte[LENGTH];
+        final byte[] pattern = "{\"type\":\"position\",\"speed\":13.9}".getBytes();
+        for (int i = 0; i < payload.length; ++i) {
+            payload[i] = pattern[i % pattern.length];
+        }
+        return payload;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="choice">
+    @Test
+    public void box_firstMessages_noChoiceWhileSampling() throws IOException {
+        // arrange
+        final AdaptiveCompression adaptive = new AdaptiveCompression(1_000_000);
+
+        // act
+        adaptive.box(0, repetitivePayload(), LENGTH);
+
+        // assert
+        assertThat(adaptive.getChoice(LENGTH), is(nullValue()));
+    }
+
+    @Test
+    public void box_incompressiblePayloads_choiceNoneAndTriesBackOff() throws IOException {
+        // arrange
+        final AdaptiveCompression adaptive = new AdaptiveCompression(1_000_000);
+        final Random random = new Random(42);
+
+        // act
+        for (int i = 0; i < MESSAGES; ++i) {
+            adaptive.box(i, randomPayload(random), LENGTH);
+        }
+
+        // assert
+        assertThat(adaptive.getChoice(LENGTH), is(AdaptiveCompression.Codec.None));
+        assertThat(adaptive.getTryInterval(LENGTH), is(greaterThan(16)));
+    }
+
+    @Test
+    public void box_repetitivePayloadsOverSlowLink_compressionChosen() throws IOException {
+        // arrange
+        final AdaptiveCompression adaptive = new AdaptiveCompression(1_000_000);
+
+        // act
+        for (int i = 0; i < MESSAGES; ++i) {
+            adaptive.box(i, repetitivePayload(), LENGTH);
+        }
+
+        // assert
+        assertThat(adaptive.getChoice(LENGTH), is(notNullValue()));
+        assertThat(adaptive.getChoice(LENGTH), is(not(AdaptiveCompression.Codec.None)));
+    }
+
+    @Test
+    public void box_otherSizeBucket_sampledSeparately() throws IOException {
+        // arrange
+        final AdaptiveCompression adaptive = new AdaptiveCompression(1_000_000);
+        for (int i = 0; i < MESSAGES; ++i) {
+            adaptive.box(i, repetitivePayload(), LENGTH);
+        }
+
+        // act, assert
+        assertThat(adaptive.getChoice(64), is(nullValue()));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="round trip">
+    @Test
+    public void box_everyCodec_unboxesWithAdaptiveSettings() throws IOException {
+        // arrange
+        final AdaptiveCompression adaptive = new AdaptiveCompression(1_000_000);
+        final byte[] original = repetitivePayload();
+        final byte[] buffer = Arrays.copyOf(original, LENGTH * 2);
+
+        for (int i = 0; i < MESSAGES; ++i) {
+            // act: only the first LENGTH bytes of the reusable buffer count
+            final BinaryMessage bm = adaptive.box(i, buffer, LENGTH);
+
+            // assert
+            assertArrayEquals(original, bm.unbox(Common.adaptiveSettingsCompression));
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="invalid parameter">
+    @Test
+    public void constructor_bandwidthZero_throwsException() {
+        // act, assert
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveCompression(0));
+    }
+    // </editor-fold>
+}
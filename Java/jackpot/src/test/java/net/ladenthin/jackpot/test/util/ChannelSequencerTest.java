@@ -0,0 +1,95 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.ChannelSequencer;
+
+/**
+ * {@link ChannelSequencer} keeps the order of every channel on its own: a held message
+ * becomes the next once its channel predecessors are delivered, whatever the other channels
+ * hold.
+ */
+public class ChannelSequencerTest {
+
+    private static BinaryMessage message(final long id, final int channel, final long sequence)
+        throws IOException {
+        return BinaryMessage.box(id, Common.simpleByteArray, Common.simpleSettingsCompression)
+            .withChannel(channel, sequence);
+    }
+
+    @Test
+    public void isNext_freshChannel_onlyTheFirstSequence() throws IOException {
+        // arrange
+        final ChannelSequencer sequencer = new ChannelSequencer();
+
+        // act, assert
+        assertThat(sequencer.isNext(message(1L, 3, 0L)), is(true));
+        assertThat(sequencer.isNext(message(2L, 3, 1L)), is(false));
+    }
+
+    @Test
+    public void pollNext_heldOutOfOrder_releasedOneByOneAfterTheirPredecessor() throws IOException {
+        // arrange
+        final ChannelSequencer sequencer = new ChannelSequencer();
+        final BinaryMessage first = message(1L, 1, 0L);
+        final BinaryMessage second = message(4L, 1, 1L);
+        final BinaryMessage third = message(7L, 1, 2L);
+        sequencer.hold(third);
+        sequencer.hold(second);
+
+        // act, assert
+        assertThat(sequencer.pollNext(1), is(nullValue()));
+        sequencer.delivered(first);
+        assertThat(sequencer.pollNext(1), is(sameInstance(second)));
+        sequencer.delivered(second);
+        assertThat(sequencer.pollNext(1), is(sameInstance(third)));
+        sequencer.delivered(third);
+        assertThat(sequencer.pollNext(1), is(nullValue()));
+        assertThat(sequencer.heldCount(), is(equalTo(0)));
+    }
+
+    @Test
+    public void delivered_heldMessageProcessedInOrder_removedFromTheHeld() throws IOException {
+        // arrange: held behind a predecessor of its channel, then reached by the global order
+        final ChannelSequencer sequencer = new ChannelSequencer();
+        final BinaryMessage second = message(5L, 0, 1L);
+        sequencer.hold(second);
+
+        // act
+        sequencer.delivered(message(2L, 0, 0L));
+        sequencer.delivered(second);
+
+        // assert
+        assertThat(sequencer.heldCount(), is(equalTo(0)));
+        assertThat(sequencer.isNext(message(9L, 0, 2L)), is(true));
+    }
+
+    @Test
+    public void isNext_otherChannelHoldsMessages_channelsIndependent() throws IOException {
+        // arrange
+        final ChannelSequencer sequencer = new ChannelSequencer();
+        sequencer.hold(message(3L, 0, 1L));
+
+        // act
+        sequencer.delivered(message(4L, 2, 0L));
+
+        // assert
+        assertThat(sequencer.isNext(message(6L, 2, 1L)), is(true));
+        assertThat(sequencer.isNext(message(6L, 0, 1L)), is(false));
+        assertThat(sequencer.heldCount(), is(equalTo(1)));
+    }
+}
@@ -0,0 +1,182 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.configuration.CodecExecutorType;
+import net.ladenthin.jackpot.util.CodecExecutor;
+
+/**
+ * {@link CodecExecutor} replaces the unbounded cached pools of the serialize and deserialize
+ * layers: a burst of messages must not create a thread per message.
+ */
+public class CodecExecutorTest {
+
+    private static final int TASKS = 64;
+
+    /**
+     * Upper bound for a task to run. Unit: [s].
+     */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * Submits {@link #TASKS} tasks that each hold their thread briefly, so a pool without a
+     * bound would start one thread per task.
+     *
+     * @return the distinct threads the tasks ran on
+     */
+    private static Set<Thread> runBurst(final CodecExecutor executor) throws Exception {
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < TASKS; ++i) {
+            futures.add(executor.submit(() -> {
+                threads.add(Thread.currentThread());
+                Thread.sleep(5);
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return threads;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Bounded">
+    @Test
+    @Timeout(30)
+    public void submit_burstOnBoundedPool_threadCountBounded() throws Exception {
+        // arrange
+        final CodecExecutor executor = CodecExecutor.create(CodecExecutorType.Bounded, 2, "jackpot-test-bounded");
+
+        try {
+            // act
+            final Set<Thread> threads = runBurst(executor);
+
+            // assert
+            assertThat(threads.size(), is(lessThanOrEqualTo(2)));
+            for (Thread thread : threads) {
+                assertThat(thread.getName(), startsWith("jackpot-test-bounded-"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void submit_afterShutdown_throwsException() {
+        final CodecExecutor executor = CodecExecutor.create(CodecExecutorType.Bounded, 1, "jackpot-test-shutdown");
+        executor.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> true));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Shared">
+    @Test
+    @Timeout(30)
+    public void submit_twoSharedReferences_sameThreadsServeBoth() throws Exception {
+        // arrange
+        final CodecExecutor first = CodecExecutor.create(CodecExecutorType.Shared, 0, "unused");
+        final CodecExecutor second = CodecExecutor.create(CodecExecutorType.Shared, 0, "unused");
+
+        try {
+            // act
+            final Set<Thread> threads = runBurst(first);
+            threads.addAll(runBurst(second));
+
+            // assert
+            assertThat(threads.size(), is(lessThanOrEqualTo(CodecExecutor.getSharedThreads())));
+            for (Thread thread : threads) {
+                assertThat(thread.getName(), startsWith("jackpot-CodecExecutor-shared-"));
+            }
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void shutdown_oneOfTwoSharedReferences_poolKeepsServingTheOther() throws Exception {
+        // arrange
+        final CodecExecutor first = CodecExecutor.create(CodecExecutorType.Shared, 0, "unused");
+        final CodecExecutor second = CodecExecutor.create(CodecExecutorType.Shared, 0, "unused");
+
+        // act
+        first.shutdown();
+        first.shutdown();
+
+        // assert: the repeated shutdown released only one reference
+        try {
+            assertThat(second.submit(() -> true).get(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(equalTo(true)));
+        } finally {
+            second.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void shutdown_lastSharedReference_poolThreadsTerminate() throws Exception {
+        // arrange
+        final CodecExecutor executor = CodecExecutor.create(CodecExecutorType.Shared, 0, "unused");
+        final Set<Thread> threads = runBurst(executor);
+
+        // act
+        executor.shutdown();
+
+        // assert
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            assertThat(thread.isAlive(), is(false));
+        }
+    }
+
+    @Test
+    public void setSharedThreads_zero_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> CodecExecutor.setSharedThreads(0));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Virtual">
+    @Test
+    @Timeout(30)
+    public void submit_virtualOnJava21_runsOnNamedVirtualThreads() throws Exception {
+        // arrange
+        final CodecExecutor executor = CodecExecutor.create(CodecExecutorType.Virtual, 0, "jackpot-test-virtual");
+
+        try {
+            // act
+            final Set<Thread> threads = runBurst(executor);
+
+            // pre-assert: the tests run on Java 21+
+            assertThat(CodecExecutor.isVirtualThreadsSupported(), is(true));
+
+            // assert
+            for (Thread thread : threads) {
+                assertThat(thread.isVirtual(), is(true));
+                assertThat(thread.getName(), startsWith("jackpot-test-virtual-"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,134 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.configuration.CompressionDictionary;
+import net.ladenthin.jackpot.util.DictionaryCompression;
+import net.ladenthin.jackpot.util.DictionaryTrainer;
+
+/**
+ * {@link DictionaryTrainer} learns the structure the samples share, so that
+ * {@link DictionaryCompression} shrinks small messages which deflate alone cannot.
+ */
+public class DictionaryTrainerTest {
+
+    private static final int DICTIONARY_LENGTH = 4096;
+
+    private static final String[] STATES = {"driving", "parked", "charging", "maintenance"};
+
+    /**
+     * A JSON message of a few hundred bytes: fixed field names, varying values.
+     */
+    private static byte[] message(final Random random) {
+        return ("{\"type\":\"vehiclePosition\",\"vehicleId\":\"veh_" + random.nextInt(100000)
+            + "\",\"timestamp\":" + (1700000000000L + random.nextInt(1000000))
+            + ",\"position\":{\"latitude\":52." + random.nextInt(1000000)
+            + ",\"longitude\":13." + random.nextInt(1000000) + ",\"altitude\":" + random.nextInt(100)
+            + "},\"speedKilometersPerHour\":" + random.nextInt(130)
+            + ",\"heading\":" + random.nextInt(360)
+            + ",\"state\":\"" + STATES[random.nextInt(STATES.length)]
+            + "\",\"batteryStateOfCharge\":" + random.nextInt(100)
+            + ",\"sensors\":{\"frontCamera\":\"ok\",\"rearCamera\":\"ok\",\"lidar\":\"ok\",\"radar\":\"ok\"}}")
+            .getBytes();
+    }
+
+    private static List<byte[]> samples(final long seed, final int count) {
+        final Random random = new Random(seed);
+        final List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            samples.add(message(random));
+        }
+        return samples;
+    }
+
+    private static int deflatedLength(final byte[] message) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(message);
+        deflater.finish();
+        final byte[] compressed = new byte[message.length * 2];
+        final int length = deflater.deflate(compressed);
+        deflater.end();
+        return length;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="train">
+    @Test
+    public void train_similarSamples_unseenMessageShrinksAtLeastThreefold() throws IOException {
+        // arrange
+        final CompressionDictionary dictionary = new CompressionDictionary(1,
+            DictionaryTrainer.train(samples(1, 1000), DICTIONARY_LENGTH));
+        final byte[] unseen = message(new Random(2));
+
+        // act
+        final byte[] compressed = DictionaryCompression.compress(unseen, unseen.length,
+            Deflater.DEFAULT_COMPRESSION, dictionary);
+
+        // assert
+        assertThat(compressed.length * 3, is(lessThanOrEqualTo(unseen.length)));
+        assertThat(compressed.length, is(lessThan(deflatedLength(unseen))));
+        assertArrayEquals(unseen, DictionaryCompression.decompress(compressed, unseen.length,
+            Collections.singletonMap(dictionary.id, dictionary)));
+    }
+
+    @Test
+    public void train_manySamples_boundedByDictionaryLength() {
+        // act
+        final byte[] dictionary = DictionaryTrainer.train(samples(3, 1000), DICTIONARY_LENGTH);
+
+        // assert
+        assertThat(dictionary.length, is(lessThanOrEqualTo(DICTIONARY_LENGTH)));
+        assertThat(dictionary.length, is(greaterThan(0)));
+    }
+
+    @Test
+    public void train_beyondDeflateWindow_throwsException() {
+        // act, assert
+        assertThrows(IllegalArgumentException.class,
+            () -> DictionaryTrainer.train(samples(4, 10), CompressionDictionary.MAX_LENGTH + 1));
+    }
+
+    @Test
+    public void train_segmentShorterThanSubstring_throwsException() {
+        // act, assert
+        assertThrows(IllegalArgumentException.class,
+            () -> DictionaryTrainer.train(samples(5, 10), DICTIONARY_LENGTH, 4));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="decompress">
+    @Test
+    public void decompress_wrongUncompressedSize_throwsIOException() {
+        // arrange
+        final CompressionDictionary dictionary = new CompressionDictionary(1,
+            DictionaryTrainer.train(samples(6, 100), DICTIONARY_LENGTH));
+        final byte[] message = message(new Random(7));
+        final byte[] compressed = DictionaryCompression.compress(message, message.length,
+            Deflater.DEFAULT_COMPRESSION, dictionary);
+
+        // act, assert
+        assertThrows(IOException.class, () -> DictionaryCompression.decompress(compressed,
+            message.length - 1, Collections.singletonMap(dictionary.id, dictionary)));
+        assertThrows(IOException.class, () -> DictionaryCompression.decompress(compressed,
+            message.length + 1, Collections.singletonMap(dictionary.id, dictionary)));
+    }
+    // </editor-fold>
+}
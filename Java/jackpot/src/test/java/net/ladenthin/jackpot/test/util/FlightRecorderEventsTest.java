@@ -0,0 +1,125 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.FlightRecorderEvents;
+import net.ladenthin.jackpot.util.FlightRecorderEvents.Kind;
+
+/**
+ * {@link FlightRecorderEvents} records the pipeline events with the flight recorder of the
+ * test runtime, and does nothing while no recording enables them.
+ */
+public class FlightRecorderEventsTest {
+
+    private static final String SERIALIZE = "net.ladenthin.jackpot.Serialize";
+    private static final String COMPRESS = "net.ladenthin.jackpot.Compress";
+
+    private static final long ANY_ID = 42L;
+
+    private final FlightRecorderEvents events = FlightRecorderEvents.get();
+
+    private static List<RecordedEvent> recorded(final Recording recording, final String name)
+        throws IOException {
+        final Path file = Files.createTempFile("jackpot-", ".jfr");
+        try {
+            recording.dump(file);
+            final List<RecordedEvent> matching = new ArrayList<>();
+            for (final RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals(name)) {
+                    matching.add(event);
+                }
+            }
+            return matching;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void get_runtimeWithFlightRecorder_isAvailable() {
+        // act
+        final boolean available = events.isAvailable();
+
+        // assert
+        assertThat(available, is(true));
+    }
+
+    @Test
+    @Timeout(30)
+    public void begin_noRecording_returnsNull() {
+        // act
+        final Object event = events.begin(Kind.Serialize);
+
+        // assert
+        assertThat(event, is(nullValue()));
+    }
+
+    @Test
+    @Timeout(30)
+    public void commit_recordingEnablesKind_eventRecordedWithFields() throws IOException {
+        // arrange
+        try (Recording recording = new Recording()) {
+            recording.enable(SERIALIZE);
+            recording.start();
+
+            // act
+            events.commit(events.begin(Kind.Serialize), ANY_ID, 1, 100);
+            events.commit(events.begin(Kind.Deserialize), ANY_ID, 1, 100);
+            recording.stop();
+
+            // assert: only the enabled kind is recorded
+            final List<RecordedEvent> serialized = recorded(recording, SERIALIZE);
+            assertThat(serialized, hasSize(1));
+            assertThat(serialized.get(0).getLong("messageId"), is(equalTo(ANY_ID)));
+            assertThat(serialized.get(0).getInt("messages"), is(equalTo(1)));
+            assertThat(serialized.get(0).getLong("bytes"), is(equalTo(100L)));
+            assertThat(recorded(recording, "net.ladenthin.jackpot.Deserialize"), hasSize(0));
+        }
+        assertThat(events.begin(Kind.Serialize), is(nullValue()));
+    }
+
+    @Test
+    @Timeout(30)
+    public void box_compressEnabled_compressEventRecorded() throws IOException {
+        // arrange
+        final byte[] payload = new byte[4096];
+        try (Recording recording = new Recording()) {
+            recording.enable(COMPRESS);
+            recording.start();
+
+            // act
+            BinaryMessage.box(ANY_ID, payload, Common.alwaysLZ4SettingsCompression);
+            recording.stop();
+
+            // assert
+            final List<RecordedEvent> compressed = recorded(recording, COMPRESS);
+            assertThat(compressed, hasSize(1));
+            assertThat(compressed.get(0).getLong("messageId"), is(equalTo(ANY_ID)));
+            assertThat(compressed.get(0).getLong("bytes"), is(equalTo((long) payload.length)));
+        }
+    }
+}
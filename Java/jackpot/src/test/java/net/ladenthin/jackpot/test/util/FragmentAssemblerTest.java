@@ -0,0 +1,123 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.FragmentAssembler;
+
+/**
+ * {@link FragmentAssembler} restores a message from its fragments in any order, skips
+ * repeated fragments and rejects fragments that contradict the ones received before.
+ */
+public class FragmentAssemblerTest {
+
+    private static byte[] payload(final int length) {
+        final byte[] payload = new byte[length];
+        final Random random = new Random(42);
+        for (int i = 0; i < length; ++i) {
+            payload[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return payload;
+    }
+
+    private static BinaryMessage fragment(final long id, final byte[] msg, final int offset,
+        final int length) throws IOException {
+        return BinaryMessage.boxFragment(id, msg, offset, length, msg.length,
+            Common.alwaysLZ4SettingsCompression);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="reassembly">
+    @Test
+    public void add_fragmentsOutOfOrderAndRepeated_restoredOnceComplete() throws IOException {
+        // arrange
+        final byte[] msg = payload(10_000);
+        final FragmentAssembler assembler = new FragmentAssembler(Common.alwaysLZ4SettingsCompression);
+
+        // act
+        final BinaryMessage afterLast = assembler.add(fragment(5L, msg, 8000, 2000));
+        final BinaryMessage afterRepeat = assembler.add(fragment(5L, msg, 8000, 2000));
+        final BinaryMessage afterFirst = assembler.add(fragment(5L, msg, 0, 4000));
+        final boolean assembling = assembler.isAssembling(5L);
+        final BinaryMessage afterMiddle = assembler.add(fragment(5L, msg, 4000, 4000));
+
+        // assert
+        assertThat(afterLast, is(nullValue()));
+        assertThat(afterRepeat, is(nullValue()));
+        assertThat(afterFirst, is(nullValue()));
+        assertThat(assembling, is(true));
+        assertThat(afterMiddle, is(notNullValue()));
+        assertThat(afterMiddle.getId(), is(equalTo(5L)));
+        assertArrayEquals(msg, afterMiddle.unbox(Common.simpleSettingsCompression));
+        assertThat(assembler.isAssembling(5L), is(false));
+        assertThat(assembler.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void add_channelFragments_restoredMessageKeepsChannelAndSequence() throws IOException {
+        // arrange
+        final byte[] msg = payload(6000);
+        final FragmentAssembler assembler = new FragmentAssembler(Common.alwaysLZ4SettingsCompression);
+
+        // act
+        assembler.add(fragment(3L, msg, 0, 3000).withChannel(4, 12L));
+        final BinaryMessage restored = assembler.add(fragment(3L, msg, 3000, 3000).withChannel(4, 12L));
+
+        // assert
+        assertThat(restored.hasChannel(), is(true));
+        assertThat(restored.getChannel(), is(equalTo(4)));
+        assertThat(restored.getChannelSequence(), is(equalTo(12L)));
+        assertThat(restored.isFragment(), is(false));
+        assertArrayEquals(msg, restored.unbox(Common.simpleSettingsCompression));
+    }
+
+    @Test
+    public void add_fragmentsOfTwoMessagesInterleaved_bothRestored() throws IOException {
+        // arrange
+        final byte[] a = payload(3000);
+        final byte[] b = payload(5000);
+        final FragmentAssembler assembler = new FragmentAssembler(Common.alwaysLZ4SettingsCompression);
+
+        // act
+        assembler.add(fragment(1L, a, 0, 1500));
+        assembler.add(fragment(2L, b, 0, 2500));
+        final int inReassembly = assembler.size();
+        final BinaryMessage restoredA = assembler.add(fragment(1L, a, 1500, 1500));
+        final BinaryMessage restoredB = assembler.add(fragment(2L, b, 2500, 2500));
+
+        // assert
+        assertThat(inReassembly, is(equalTo(2)));
+        assertArrayEquals(a, restoredA.unbox(Common.simpleSettingsCompression));
+        assertArrayEquals(b, restoredB.unbox(Common.simpleSettingsCompression));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="contradicting fragments">
+    @Test
+    public void add_totalSizeDiffersFromEarlierFragment_throwsIOException() throws IOException {
+        // arrange
+        final byte[] msg = payload(1000);
+        final FragmentAssembler assembler = new FragmentAssembler(Common.alwaysLZ4SettingsCompression);
+        assembler.add(fragment(1L, msg, 0, 500));
+        final BinaryMessage other = fragment(1L, payload(2000), 500, 500);
+
+        // act, assert
+        assertThrows(IOException.class, () -> assembler.add(other));
+    }
+    // </editor-fold>
+}
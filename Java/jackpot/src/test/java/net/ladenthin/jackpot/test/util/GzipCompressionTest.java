@@ -0,0 +1,201 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.util.GzipCompression;
+
+/**
+ * {@link GzipCompression} writes the members of {@link GZIPOutputStream} and restores
+ * them, including members from other writers, into the announced size; anything else fails
+ * with an {@link IOException}.
+ */
+public class GzipCompressionTest {
+
+    private static byte[] payload(final int length) {
+        final byte[] payload = new byte[length];
+        final Random random = new Random(42);
+        for (int i = 0; i < length; ++i) {
+            payload[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return payload;
+    }
+
+    private static byte[] gzipOutputStream(final byte[] msg, final int level) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(msg);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzipInputStream(final byte[] compressed) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int n;
+            while ((n = gzip.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="compatibility">
+    @Test
+    public void compress_everyLevel_sameMemberAsGZIPOutputStream() throws IOException {
+        // arrange
+        final byte[] msg = payload(10_000);
+
+        for (int level = Deflater.DEFAULT_COMPRESSION; level <= Deflater.BEST_COMPRESSION; ++level) {
+            // act
+            final byte[] compressed = GzipCompression.compress(msg, msg.length, level);
+
+            // assert: the OS byte of the header differs before Java 16
+            final byte[] expected = gzipOutputStream(msg, level);
+            expected[9] = compressed[9];
+            assertArrayEquals(expected, compressed);
+        }
+    }
+
+    @Test
+    public void decompress_gzipOutputStreamMember_restored() throws IOException {
+        // arrange
+        final byte[] msg = payload(100_000);
+
+        // act
+        final byte[] restored = GzipCompression.decompress(
+            gzipOutputStream(msg, Deflater.BEST_SPEED), msg.length);
+
+        // assert
+        assertArrayEquals(msg, restored);
+    }
+
+    @Test
+    public void compress_bufferRange_gzipInputStreamRestoresOnlyTheRange() throws IOException {
+        // arrange
+        final byte[] msg = payload(1000);
+        final byte[] buffer = Arrays.copyOf(msg, 4096);
+
+        // act
+        final byte[] compressed = GzipCompression.compress(buffer, msg.length, Deflater.DEFAULT_COMPRESSION);
+
+        // assert
+        assertArrayEquals(msg, gzipInputStream(compressed));
+    }
+
+    @Test
+    public void decompress_headerWithFileName_restored() throws IOException {
+        // arrange: FNAME set and a zero-terminated name after the fixed header
+        final byte[] msg = payload(500);
+        final byte[] member = gzipOutputStream(msg, Deflater.DEFAULT_COMPRESSION);
+        final byte[] name = "payload.bin\0".getBytes();
+        final byte[] named = new byte[member.length + name.length];
+        System.arraycopy(member, 0, named, 0, 10);
+        named[3] = 8;
+        System.arraycopy(name, 0, named, 10, name.length);
+        System.arraycopy(member, 10, named, 10 + name.length, member.length - 10);
+
+        // act
+        final byte[] restored = GzipCompression.decompress(named, msg.length);
+
+        // assert
+        assertArrayEquals(msg, restored);
+    }
+
+    @Test
+    public void compress_emptyAndLargeAlternately_pooledContextRestoresEach() throws IOException {
+        // arrange
+        final byte[] large = payload(1 << 20);
+        final byte[] empty = new byte[0];
+
+        // act, assert
+        for (int i = 0; i < 3; ++i) {
+            assertArrayEquals(large, GzipCompression.decompress(
+                GzipCompression.compress(large, large.length, Deflater.BEST_SPEED), large.length));
+            assertArrayEquals(empty, GzipCompression.decompress(
+                GzipCompression.compress(empty, 0, Deflater.BEST_SPEED), 0));
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="corrupt payloads">
+    @Test
+    public void decompress_announcedSizeTooSmall_throwsIOException() {
+        // arrange
+        final byte[] msg = payload(1000);
+        final byte[] compressed = GzipCompression.compress(msg, msg.length, Deflater.DEFAULT_COMPRESSION);
+
+        // act, assert
+        assertThrows(IOException.class, () -> GzipCompression.decompress(compressed, msg.length - 1));
+    }
+
+    @Test
+    public void decompress_announcedSizeTooLarge_throwsIOException() {
+        // arrange
+        final byte[] msg = payload(1000);
+        final byte[] compressed = GzipCompression.compress(msg, msg.length, Deflater.DEFAULT_COMPRESSION);
+
+        // act, assert
+        assertThrows(IOException.class, () -> GzipCompression.decompress(compressed, msg.length + 1));
+    }
+
+    @Test
+    public void decompress_checksumFlipped_throwsIOException() {
+        // arrange
+        final byte[] msg = payload(1000);
+        final byte[] compressed = GzipCompression.compress(msg, msg.length, Deflater.DEFAULT_COMPRESSION);
+        compressed[compressed.length - 8] ^= 1;
+
+        // act, assert
+        assertThrows(IOException.class, () -> GzipCompression.decompress(compressed, msg.length));
+    }
+
+    @Test
+    public void decompress_truncated_throwsIOException() {
+        // arrange
+        final byte[] msg = payload(1000);
+        final byte[] compressed = GzipCompression.compress(msg, msg.length, Deflater.DEFAULT_COMPRESSION);
+
+        // act, assert
+        assertThrows(IOException.class, () -> GzipCompression.decompress(
+            Arrays.copyOf(compressed, compressed.length - 1), msg.length));
+    }
+
+    @Test
+    public void decompress_wrongMagic_throwsIOException() {
+        // arrange
+        final byte[] compressed = GzipCompression.compress(payload(100), 100, Deflater.DEFAULT_COMPRESSION);
+        compressed[0] = 0;
+
+        // act, assert
+        assertThrows(IOException.class, () -> GzipCompression.decompress(compressed, 100));
+    }
+
+    @Test
+    public void compress_invalidLevel_throwsException() {
+        // act, assert
+        assertThrows(IllegalArgumentException.class,
+            () -> GzipCompression.compress(payload(100), 100, Deflater.BEST_COMPRESSION + 1));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,158 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.util.HashedWheelTimer;
+
+/**
+ * {@link HashedWheelTimer} drives the heartbeat ticks and resend deadlines of every
+ * transceiver from one thread.
+ */
+public class HashedWheelTimerTest {
+
+    /**
+     * Upper bound to wait for a task. Unit: [s].
+     */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private HashedWheelTimer timer;
+
+    @BeforeEach
+    public void setUp() {
+        timer = HashedWheelTimer.acquire();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        HashedWheelTimer.release(timer);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="newTimeout">
+    @Test
+    @Timeout(30)
+    public void newTimeout_delay_runsNotBeforeDeadline() throws InterruptedException {
+        // arrange
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long delayMillis = 100;
+        final long start = System.nanoTime();
+
+        // act
+        final HashedWheelTimer.Timeout timeout = timer.newTimeout(ran::countDown, delayMillis, TimeUnit.MILLISECONDS);
+
+        // assert
+        assertThat(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(greaterThanOrEqualTo(delayMillis)));
+        assertThat(timeout.isExpired(), is(true));
+    }
+
+    @Test
+    @Timeout(30)
+    public void newTimeout_manyRandomDelays_everyTaskRunsNotBeforeItsDeadline() throws InterruptedException {
+        // arrange
+        final int tasks = 1000;
+        final CountDownLatch ran = new CountDownLatch(tasks);
+        final AtomicInteger early = new AtomicInteger();
+        final Random random = new Random(42);
+
+        // act
+        for (int i = 0; i < tasks; ++i) {
+            final long delayMillis = random.nextInt(300);
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            timer.newTimeout(() -> {
+                if (System.nanoTime() < deadline) {
+                    early.incrementAndGet();
+                }
+                ran.countDown();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // assert
+        assertThat(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(early.get(), is(equalTo(0)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void newTimeout_delayBeyondOneRotation_waitsForItsRound() throws InterruptedException {
+        // arrange: the wheel covers 512 ticks of 10 ms per rotation
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long delayMillis = 5300;
+        final long start = System.nanoTime();
+
+        // act
+        timer.newTimeout(ran::countDown, delayMillis, TimeUnit.MILLISECONDS);
+
+        // assert
+        assertThat(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(greaterThanOrEqualTo(delayMillis)));
+    }
+
+    @Test
+    @Timeout(30)
+    public void newTimeout_previousTaskThrows_laterTaskStillRuns() throws InterruptedException {
+        // arrange
+        final CountDownLatch ran = new CountDownLatch(1);
+        timer.newTimeout(() -> {
+            throw new IllegalStateException("failing task");
+        }, 0, TimeUnit.MILLISECONDS);
+
+        // act
+        timer.newTimeout(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        // assert
+        assertThat(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="cancel">
+    @Test
+    @Timeout(30)
+    public void cancel_beforeDeadline_taskNeverRuns() throws InterruptedException {
+        // arrange
+        final AtomicBoolean cancelledRan = new AtomicBoolean(false);
+        final CountDownLatch later = new CountDownLatch(1);
+        final HashedWheelTimer.Timeout timeout =
+            timer.newTimeout(() -> cancelledRan.set(true), 50, TimeUnit.MILLISECONDS);
+
+        // act
+        final boolean cancelled = timeout.cancel();
+        timer.newTimeout(later::countDown, 200, TimeUnit.MILLISECONDS);
+
+        // assert
+        assertThat(later.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(cancelled, is(true));
+        assertThat(timeout.isCancelled(), is(true));
+        assertThat(cancelledRan.get(), is(false));
+    }
+
+    @Test
+    @Timeout(30)
+    public void cancel_afterExpiry_returnsFalse() throws InterruptedException {
+        // arrange
+        final CountDownLatch ran = new CountDownLatch(1);
+        final HashedWheelTimer.Timeout timeout = timer.newTimeout(ran::countDown, 0, TimeUnit.MILLISECONDS);
+        assertThat(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        // act, assert
+        assertThat(timeout.cancel(), is(false));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,144 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.util.LatencyHistogram;
+import net.ladenthin.jackpot.util.LatencySnapshot;
+
+/**
+ * {@link LatencyHistogram} must count every value recorded by concurrent threads, report
+ * small values exactly and every value within its bucket precision.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * The relative error bound of the log-linear buckets (32 per power of two).
+     */
+    private static final double RELATIVE_PRECISION = 1.0 / 32;
+
+    @Test
+    public void snapshot_nothingRecorded_allZero() {
+        // arrange
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        final LatencySnapshot snapshot = histogram.snapshot();
+
+        // assert
+        assertThat(snapshot.getCount(), is(equalTo(0L)));
+        assertThat(snapshot.getMax(), is(equalTo(0L)));
+        assertThat(snapshot.getP99(), is(equalTo(0L)));
+        assertThat(snapshot.getMean(), is(closeTo(0, 0)));
+    }
+
+    @Test
+    public void getValueAtPercentile_smallValues_exact() {
+        // arrange: 1..50
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 50; ++v) {
+            histogram.record(v);
+        }
+
+        // act, assert
+        assertThat(histogram.getValueAtPercentile(50), is(equalTo(25L)));
+        assertThat(histogram.getValueAtPercentile(100), is(equalTo(50L)));
+        assertThat(histogram.getValueAtPercentile(0), is(equalTo(1L)));
+        assertThat(histogram.getTotal(), is(equalTo(50L * 51 / 2)));
+    }
+
+    @Test
+    public void getValueAtPercentile_largeValues_withinBucketPrecision() {
+        // arrange: 1000 values spread over six orders of magnitude
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final List<Long> values = new ArrayList<>();
+        for (int i = 1; i <= 1000; ++i) {
+            final long value = (long) Math.pow(i, 3);
+            values.add(value);
+            histogram.record(value);
+        }
+
+        // act, assert: the 99th percentile is the 990th value
+        final long expected = values.get(989);
+        final long p99 = histogram.getValueAtPercentile(99);
+        assertThat(p99, is(greaterThanOrEqualTo(expected)));
+        assertThat((double) p99, is(lessThanOrEqualTo(expected * (1 + RELATIVE_PRECISION))));
+        assertThat(histogram.getMax(), is(equalTo(1000L * 1000 * 1000)));
+    }
+
+    @Test
+    public void record_negativeValue_countedAsZero() {
+        // arrange
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        histogram.record(-5);
+
+        // assert
+        assertThat(histogram.getCount(), is(equalTo(1L)));
+        assertThat(histogram.getValueAtPercentile(100), is(equalTo(0L)));
+    }
+
+    @Test
+    public void record_longMaxValue_reported() {
+        // arrange
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        histogram.record(Long.MAX_VALUE);
+
+        // assert
+        assertThat(histogram.getValueAtPercentile(50), is(equalTo(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void getValueAtPercentile_outOfRange_throwsException() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.1));
+    }
+
+    @Test
+    @Timeout(60)
+    public void record_concurrentThreads_everyValueCounted() throws InterruptedException {
+        // arrange
+        final int threads = 4;
+        final int valuesPerThread = 100000;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final List<Thread> recorders = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            recorders.add(new Thread(() -> {
+                for (int i = 0; i < valuesPerThread; ++i) {
+                    histogram.record(i);
+                }
+            }));
+        }
+
+        // act
+        for (Thread recorder : recorders) {
+            recorder.start();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+
+        // assert
+        assertThat(histogram.getCount(), is(equalTo((long) threads * valuesPerThread)));
+        assertThat(histogram.getValueAtPercentile(100), is(equalTo(valuesPerThread - 1L)));
+        assertThat(histogram.getMax(), is(equalTo(valuesPerThread - 1L)));
+    }
+}
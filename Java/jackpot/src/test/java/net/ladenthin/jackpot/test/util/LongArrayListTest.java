@@ -0,0 +1,119 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.util.LongArrayList;
+
+/**
+ * {@link LongArrayList} collects the pending acknowledgements without boxing; folded into
+ * runs it is the source of the range-encoded acknowledgement frames.
+ */
+public class LongArrayListTest {
+
+    /**
+     * The first id the layers use: {@code initialMessageId + 1}.
+     */
+    private static final long FIRST_ID = Long.MIN_VALUE + 1;
+
+    // <editor-fold defaultstate="collapsed" desc="add / addAll / clear">
+    @Test
+    public void add_beyondInitialCapacity_everyElementKeptInOrder() {
+        // arrange
+        final LongArrayList list = new LongArrayList(2);
+
+        // act
+        for (long i = 0; i < 100; ++i) {
+            list.add(i);
+        }
+
+        // assert
+        assertThat(list.size(), is(equalTo(100)));
+        for (int i = 0; i < 100; ++i) {
+            assertThat(list.get(i), is(equalTo((long) i)));
+        }
+    }
+
+    @Test
+    public void addAll_otherList_appendedInOrder() {
+        // arrange
+        final LongArrayList list = new LongArrayList(1);
+        list.add(1L);
+        final LongArrayList other = new LongArrayList();
+        other.add(2L);
+        other.add(3L);
+
+        // act
+        list.addAll(other);
+
+        // assert
+        assertThat(list.toArray(), is(equalTo(new long[] {1L, 2L, 3L})));
+    }
+
+    @Test
+    public void clear_filledList_emptyAndReusable() {
+        // arrange
+        final LongArrayList list = new LongArrayList();
+        list.add(1L);
+
+        // act
+        list.clear();
+        list.add(2L);
+
+        // assert
+        assertThat(list.toArray(), is(equalTo(new long[] {2L})));
+    }
+
+    @Test
+    public void get_indexBeyondSize_throwsException() {
+        final LongArrayList list = new LongArrayList();
+        list.add(1L);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="sortToRanges">
+    @Test
+    public void sortToRanges_unorderedIdsWithDuplicates_ascendingRuns() {
+        // arrange
+        final LongArrayList list = new LongArrayList();
+        for (long id : new long[] {FIRST_ID + 5, FIRST_ID + 1, FIRST_ID, FIRST_ID + 1, FIRST_ID + 9, FIRST_ID + 4}) {
+            list.add(id);
+        }
+
+        // act
+        final long[] ranges = list.sortToRanges();
+
+        // assert
+        assertThat(ranges, is(equalTo(new long[] {FIRST_ID, FIRST_ID + 1, FIRST_ID + 4, FIRST_ID + 5,
+            FIRST_ID + 9, FIRST_ID + 9})));
+    }
+
+    @Test
+    public void sortToRanges_extremeValues_noOverflowIntoOneRun() {
+        // arrange
+        final LongArrayList list = new LongArrayList();
+        list.add(Long.MAX_VALUE);
+        list.add(Long.MIN_VALUE);
+
+        // act
+        final long[] ranges = list.sortToRanges();
+
+        // assert
+        assertThat(ranges, is(equalTo(new long[] {Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE})));
+    }
+
+    @Test
+    public void sortToRanges_emptyList_noRanges() {
+        assertThat(new LongArrayList().sortToRanges().length, is(equalTo(0)));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,248 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.util.MessageIdWindow;
+
+/**
+ * {@link MessageIdWindow} replaces the sorted sequencing buffers of the read and write
+ * layers, so it must behave like an id-ordered set: ascending polls, duplicate rejection and
+ * tolerant removal, also across ring growth and the id range start.
+ */
+public class MessageIdWindowTest {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The first id the layers use: {@code initialMessageId + 1}.
+     */
+    private static final long FIRST_ID = Long.MIN_VALUE + 1;
+
+    private static List<String> pollAll(MessageIdWindow<String> window) {
+        final List<String> polled = new ArrayList<>();
+        String element;
+        while ((element = window.pollFirst()) != null) {
+            polled.add(element);
+        }
+        return polled;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="put / pollFirst">
+    @Test
+    public void pollFirst_outOfOrderPuts_ascendingIdOrder() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(FIRST_ID + 2, "c");
+        window.put(FIRST_ID, "a");
+        window.put(FIRST_ID + 1, "b");
+
+        // act
+        final List<String> polled = pollAll(window);
+
+        // assert
+        assertThat(polled, is(equalTo(Arrays.asList("a", "b", "c"))));
+        assertThat(window.isEmpty(), is(true));
+    }
+
+    @Test
+    public void put_duplicateId_rejectedAndFirstKept() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(7L, "first");
+
+        // act
+        final boolean added = window.put(7L, "second");
+
+        // assert
+        assertThat(added, is(false));
+        assertThat(window.get(7L), is(equalTo("first")));
+        assertThat(window.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void put_spanBeyondCapacity_ringGrowsAndKeepsOrder() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            expected.add("m" + i);
+        }
+
+        // act: every second id first, then the gaps
+        for (int i = 0; i < 100; i += 2) {
+            window.put(FIRST_ID + i, "m" + i);
+        }
+        for (int i = 1; i < 100; i += 2) {
+            window.put(FIRST_ID + i, "m" + i);
+        }
+
+        // assert
+        assertThat(window.capacity(), is(equalTo(128)));
+        assertThat(pollAll(window), is(equalTo(expected)));
+    }
+
+    @Test
+    public void put_slidingWindow_ringDoesNotGrow() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+
+        // act: never more than the capacity in flight
+        for (long id = 0; id < 1000; ++id) {
+            window.put(id, "m" + id);
+            if (id >= INITIAL_CAPACITY - 1) {
+                window.pollFirst();
+            }
+        }
+
+        // assert
+        assertThat(window.capacity(), is(equalTo(INITIAL_CAPACITY)));
+        assertThat(window.firstId(), is(equalTo(1000L - INITIAL_CAPACITY + 1)));
+    }
+
+    @Test
+    public void put_idsSpanTooWide_throwsException() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(0L, "a");
+
+        // act, assert
+        assertThrows(IllegalStateException.class,
+            () -> window.put(MessageIdWindow.MAX_CAPACITY, "b"));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="remove">
+    @Test
+    public void remove_middleAndFirst_boundsFollowHeldIds() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(10L, "a");
+        window.put(11L, "b");
+        window.put(12L, "c");
+
+        // act
+        window.remove(11L);
+        window.remove(10L);
+
+        // assert
+        assertThat(window.firstId(), is(equalTo(12L)));
+        assertThat(window.first(), is(equalTo("c")));
+    }
+
+    @Test
+    public void remove_absentId_tolerantNoOp() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(10L, "a");
+
+        // act
+        final String removedBelow = window.remove(6L);
+        final String removedAbove = window.remove(14L);
+
+        // assert: 6 and 14 share the slot of 10, which must not be touched
+        assertThat(removedBelow, is(nullValue()));
+        assertThat(removedAbove, is(nullValue()));
+        assertThat(window.get(10L), is(equalTo("a")));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="stamps">
+    @Test
+    public void collectIdsWithStampAtMost_mixedStamps_onlyOverdueIdsAscending() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(3L, "c", 100L);
+        window.put(1L, "a", 50L);
+        window.put(2L, "b", 200L);
+        final List<Long> ids = new ArrayList<>();
+
+        // act
+        window.collectIdsWithStampAtMost(100L, ids::add);
+
+        // assert
+        assertThat(ids, is(equalTo(Arrays.asList(1L, 3L))));
+        assertThat(window.getStamp(2L), is(equalTo(200L)));
+    }
+
+    @Test
+    public void collectIdsWithStampAtMost_mixedStamps_returnsSmallestRemainingStamp() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(1L, "a", 50L);
+        window.put(2L, "b", 300L);
+        window.put(3L, "c", 200L);
+
+        // act
+        final long smallestRemaining = window.collectIdsWithStampAtMost(100L, id -> {});
+
+        // assert
+        assertThat(smallestRemaining, is(equalTo(200L)));
+    }
+
+    @Test
+    public void collectIdsWithStampAtMost_everyStampOverdue_returnsMaxValue() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(1L, "a", 50L);
+
+        // act, assert
+        assertThat(window.collectIdsWithStampAtMost(100L, id -> {}), is(equalTo(Long.MAX_VALUE)));
+        assertThat(new MessageIdWindow<String>(INITIAL_CAPACITY).collectIdsWithStampAtMost(100L, id -> {}),
+            is(equalTo(Long.MAX_VALUE)));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="idRanges">
+    @Test
+    public void idRanges_heldIdsWithGaps_consecutiveRunsAscending() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        for (long id : new long[] {FIRST_ID + 1, FIRST_ID + 2, FIRST_ID + 3, FIRST_ID + 6, FIRST_ID + 8, FIRST_ID + 9}) {
+            window.put(id, "x");
+        }
+
+        // act
+        final long[] ranges = window.idRanges(Integer.MAX_VALUE);
+
+        // assert
+        assertThat(ranges, is(equalTo(new long[] {
+            FIRST_ID + 1, FIRST_ID + 3, FIRST_ID + 6, FIRST_ID + 6, FIRST_ID + 8, FIRST_ID + 9})));
+        assertThat(window.lastId(), is(equalTo(FIRST_ID + 9)));
+    }
+
+    @Test
+    public void idRanges_moreRunsThanAllowed_lowestRunsReturned() {
+        // arrange
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        window.put(1L, "a");
+        window.put(3L, "b");
+        window.put(5L, "c");
+
+        // act
+        final long[] ranges = window.idRanges(2);
+
+        // assert
+        assertThat(ranges, is(equalTo(new long[] {1L, 1L, 3L, 3L})));
+    }
+
+    @Test
+    public void idRanges_emptyWindow_noRuns() {
+        final MessageIdWindow<String> window = new MessageIdWindow<>(INITIAL_CAPACITY);
+        assertThat(window.idRanges(Integer.MAX_VALUE).length, is(equalTo(0)));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,229 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import net.ladenthin.jackpot.configuration.WaitStrategyType;
+import net.ladenthin.jackpot.util.MpscQueue;
+import net.ladenthin.jackpot.util.ParkWaitStrategy;
+import net.ladenthin.jackpot.util.WaitStrategy;
+
+/**
+ * {@link MpscQueue} is the hand-off between the layer threads: it must keep the FIFO order
+ * of every producer, never lose an element under concurrent producers, and never let a
+ * waiting consumer miss a wake-up, whatever the {@link WaitStrategy}.
+ */
+public class MpscQueueTest {
+
+    private static final int PRODUCERS = 4;
+
+    private static final int ELEMENTS_PER_PRODUCER = 100000;
+
+    /**
+     * Upper bound for a consumer wake-up in the tests. Unit: [s].
+     */
+    private static final long WAKE_UP_TIMEOUT_SECONDS = 5;
+
+    // <editor-fold defaultstate="collapsed" desc="poll / drain">
+    @Test
+    public void poll_offeredElements_fifoOrderThenNull() {
+        // arrange
+        final MpscQueue<String> queue = new MpscQueue<>(new ParkWaitStrategy());
+        queue.offer("a");
+        queue.offer("b");
+
+        // act
+        final String first = queue.poll();
+        final String second = queue.poll();
+        final String third = queue.poll();
+
+        // assert
+        assertThat(first, is(equalTo("a")));
+        assertThat(second, is(equalTo("b")));
+        assertThat(third, is(nullValue()));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void drain_limitBelowQueued_restStaysQueued() {
+        // arrange
+        final MpscQueue<Integer> queue = new MpscQueue<>(new ParkWaitStrategy());
+        for (int i = 0; i < 5; ++i) {
+            queue.offer(i);
+        }
+        final List<Integer> drained = new ArrayList<>();
+
+        // act
+        final int count = queue.drain(drained::add, 3);
+
+        // assert
+        assertThat(count, is(equalTo(3)));
+        assertThat(drained, is(equalTo(Arrays.asList(0, 1, 2))));
+        assertThat(queue.poll(), is(equalTo(3)));
+    }
+
+    @Test
+    public void drain_sinkThrows_remainingElementsStayQueued() {
+        // arrange
+        final MpscQueue<Integer> queue = new MpscQueue<>(new ParkWaitStrategy());
+        queue.offer(1);
+        queue.offer(2);
+
+        // act
+        assertThrows(IllegalStateException.class, () -> queue.drain(element -> {
+            throw new IllegalStateException();
+        }, Integer.MAX_VALUE));
+
+        // assert: the failing element was taken, the next one is still there
+        assertThat(queue.poll(), is(equalTo(2)));
+    }
+
+    @Test
+    public void size_offeredAndPolled_countsQueuedElements() {
+        // arrange
+        final MpscQueue<String> queue = new MpscQueue<>(new ParkWaitStrategy());
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+
+        // act
+        queue.poll();
+
+        // assert
+        assertThat(queue.size(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void offer_null_throwsException() {
+        final MpscQueue<String> queue = new MpscQueue<>(new ParkWaitStrategy());
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    @Timeout(60)
+    public void offer_concurrentProducers_everyElementOnceInProducerOrder() throws Exception {
+        // arrange: every element encodes its producer and its sequence number
+        final MpscQueue<Long> queue = new MpscQueue<>(new ParkWaitStrategy());
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; ++p) {
+            final long producer = p;
+            producers.add(new Thread(() -> {
+                for (long i = 0; i < ELEMENTS_PER_PRODUCER; ++i) {
+                    queue.offer(producer * ELEMENTS_PER_PRODUCER + i);
+                }
+            }));
+        }
+
+        // act
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        final long[] nextPerProducer = new long[PRODUCERS];
+        int consumed = 0;
+        boolean inOrder = true;
+        while (consumed < PRODUCERS * ELEMENTS_PER_PRODUCER) {
+            final Long element = queue.poll();
+            if (element == null) {
+                queue.await();
+                continue;
+            }
+            final int producer = (int) (element / ELEMENTS_PER_PRODUCER);
+            inOrder &= element % ELEMENTS_PER_PRODUCER == nextPerProducer[producer];
+            nextPerProducer[producer]++;
+            consumed++;
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // assert
+        assertThat(inOrder, is(true));
+        assertThat(queue.poll(), is(nullValue()));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="await">
+    @ParameterizedTest
+    @EnumSource(WaitStrategyType.class)
+    @Timeout(30)
+    public void await_elementOfferedByOtherThread_consumerWakesUp(WaitStrategyType type) throws Exception {
+        // arrange
+        final MpscQueue<String> queue = new MpscQueue<>(WaitStrategy.of(type));
+        final CountDownLatch woken = new CountDownLatch(1);
+        final Thread consumer = new Thread(() -> {
+            try {
+                while (queue.poll() == null) {
+                    queue.await();
+                }
+                woken.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        // act
+        Thread.sleep(50);
+        queue.offer("a");
+
+        // assert
+        assertThat(woken.await(WAKE_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        consumer.join();
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategyType.class)
+    @Timeout(30)
+    public void await_signalledWithoutElement_consumerWakesUp(WaitStrategyType type) throws Exception {
+        // arrange
+        final MpscQueue<String> queue = new MpscQueue<>(WaitStrategy.of(type));
+        final CountDownLatch woken = new CountDownLatch(1);
+        final Thread consumer = new Thread(() -> {
+            try {
+                queue.await();
+                woken.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        // act
+        Thread.sleep(50);
+        queue.signal();
+
+        // assert
+        assertThat(woken.await(WAKE_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        consumer.join();
+    }
+
+    @Test
+    @Timeout(30)
+    public void await_signalledBeforeWaiting_returnsAtOnce() throws InterruptedException {
+        // arrange
+        final MpscQueue<String> queue = new MpscQueue<>(new ParkWaitStrategy());
+        queue.signal();
+
+        // act, assert: returns (the timeout fails the test otherwise)
+        queue.await();
+    }
+    // </editor-fold>
+}
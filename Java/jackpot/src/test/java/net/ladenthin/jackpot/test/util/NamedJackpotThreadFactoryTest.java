@@ -0,0 +1,81 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.configuration.ThreadType;
+import net.ladenthin.jackpot.util.NamedJackpotThreadFactory;
+
+/**
+ * {@link NamedJackpotThreadFactory} creates every library thread, platform or virtual per
+ * {@link ThreadType}, always under a {@code jackpot-} name.
+ */
+public class NamedJackpotThreadFactoryTest {
+
+    private static final Runnable NOOP = () -> {};
+
+    // <editor-fold defaultstate="collapsed" desc="newThread(Runnable)">
+    @Test
+    public void newThread_platformFactory_numberedPlatformThreads() {
+        // arrange
+        final NamedJackpotThreadFactory factory = new NamedJackpotThreadFactory("jackpot-test");
+
+        // act
+        final Thread first = factory.newThread(NOOP);
+        final Thread second = factory.newThread(NOOP);
+
+        // assert
+        assertThat(first.getName(), is(equalTo("jackpot-test-1")));
+        assertThat(second.getName(), is(equalTo("jackpot-test-2")));
+        assertThat(first.isVirtual(), is(false));
+    }
+
+    @Test
+    public void newThread_virtualFactoryOnJava21_numberedVirtualThreads() {
+        // arrange
+        final NamedJackpotThreadFactory factory = new NamedJackpotThreadFactory("jackpot-test", ThreadType.Virtual);
+
+        // act
+        final Thread thread = factory.newThread(NOOP);
+
+        // pre-assert: the tests run on Java 21+
+        assertThat(NamedJackpotThreadFactory.isVirtualThreadsSupported(), is(true));
+
+        // assert
+        assertThat(thread.getName(), is(equalTo("jackpot-test-1")));
+        assertThat(thread.isVirtual(), is(true));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="newThread(ThreadType, Runnable, String)">
+    @Test
+    public void newThread_virtualLoopThread_startsUnderExactName() throws InterruptedException {
+        // arrange
+        final String[] ranAs = new String[1];
+        final Thread thread = NamedJackpotThreadFactory.newThread(ThreadType.Virtual,
+            () -> ranAs[0] = Thread.currentThread().getName(), "jackpot-TestLayer-id");
+
+        // act
+        thread.start();
+        thread.join();
+
+        // assert
+        assertThat(thread.isVirtual(), is(true));
+        assertThat(ranAs[0], is(equalTo("jackpot-TestLayer-id")));
+    }
+
+    @Test
+    public void newThread_platformLoopThread_unstartedPlatformThread() {
+        final Thread thread = NamedJackpotThreadFactory.newThread(ThreadType.Platform, NOOP, "jackpot-TestLayer-id");
+        assertThat(thread.isVirtual(), is(false));
+        assertThat(thread.getState(), is(equalTo(Thread.State.NEW)));
+    }
+    // </editor-fold>
+}
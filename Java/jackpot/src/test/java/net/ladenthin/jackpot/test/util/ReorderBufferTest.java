@@ -0,0 +1,178 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import net.ladenthin.jackpot.util.ReorderBuffer;
+
+/**
+ * {@link ReorderBuffer} delivers the receive pipeline in order: completions in any order and
+ * on any thread must reach the consumer in claim order, one thread at a time, and a full ring
+ * must hold the producer back instead of overwriting a slot.
+ */
+public class ReorderBufferTest {
+
+    // <editor-fold defaultstate="collapsed" desc="order">
+    @Test
+    public void complete_outOfOrder_deliveredInClaimOrder() {
+        // arrange
+        final List<String> delivered = new ArrayList<>();
+        final ReorderBuffer<String> buffer = new ReorderBuffer<>(4, 4, delivered::addAll);
+        final long a = buffer.claim();
+        final long b = buffer.claim();
+        final long c = buffer.claim();
+
+        // act
+        buffer.complete(c, "c");
+        buffer.complete(b, "b");
+        final List<String> beforeFirst = new ArrayList<>(delivered);
+        buffer.complete(a, "a");
+
+        // assert
+        assertThat(beforeFirst, is(empty()));
+        assertThat(delivered, is(equalTo(Arrays.asList("a", "b", "c"))));
+        assertThat(buffer.size(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void complete_completedRunLongerThanMaxBatch_deliveredInBatchesOfMaxBatch() {
+        // arrange
+        final List<List<String>> batches = new ArrayList<>();
+        final ReorderBuffer<String> buffer = new ReorderBuffer<>(8, 2,
+            batch -> batches.add(new ArrayList<>(batch)));
+        final long a = buffer.claim();
+        final long b = buffer.claim();
+        final long c = buffer.claim();
+
+        // act
+        buffer.complete(b, "b");
+        buffer.complete(c, "c");
+        buffer.complete(a, "a");
+
+        // assert
+        assertThat(batches, is(equalTo(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c")))));
+    }
+
+    @Test
+    public void constructor_maxBatchZero_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ReorderBuffer<String>(4, 0, s -> { }));
+    }
+
+    @Test
+    public void complete_nullElement_throws() {
+        final ReorderBuffer<String> buffer = new ReorderBuffer<>(4, 4, s -> { });
+        final long sequence = buffer.claim();
+        assertThrows(NullPointerException.class, () -> buffer.complete(sequence, null));
+    }
+
+    @Test
+    public void constructor_capacityZero_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ReorderBuffer<String>(0, 4, s -> { }));
+    }
+
+    @Test
+    @Timeout(30)
+    public void complete_concurrentCompletions_deliveredInOrderOneThreadAtATime() throws Exception {
+        // arrange
+        final int count = 100000;
+        final List<Integer> delivered = new CopyOnWriteArrayList<>();
+        final AtomicInteger concurrentConsumers = new AtomicInteger();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final ReorderBuffer<Integer> buffer = new ReorderBuffer<>(64, 16, batch -> {
+            if (concurrentConsumers.incrementAndGet() > 1) {
+                overlapped.set(true);
+            }
+            delivered.addAll(batch);
+            concurrentConsumers.decrementAndGet();
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // act
+        try {
+            for (int i = 0; i < count; ++i) {
+                final long sequence = buffer.claim();
+                final int element = i;
+                executor.execute(() -> buffer.complete(sequence, element));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        // assert
+        assertThat(overlapped.get(), is(false));
+        assertThat(delivered.size(), is(equalTo(count)));
+        for (int i = 0; i < count; ++i) {
+            assertThat(delivered.get(i), is(equalTo(i)));
+        }
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="capacity">
+    @Test
+    @Timeout(30)
+    public void claim_ringFull_waitsUntilDelivered() throws Exception {
+        // arrange
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+        final ReorderBuffer<String> buffer = new ReorderBuffer<>(2, 2, delivered::addAll);
+        final long first = buffer.claim();
+        buffer.claim();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final Thread producer = new Thread(() -> {
+            buffer.claim();
+            claimed.set(true);
+        });
+
+        // act
+        producer.start();
+        Thread.sleep(50);
+        final boolean claimedWhileFull = claimed.get();
+        buffer.complete(first, "first");
+        producer.join(5000);
+
+        // assert
+        assertThat(claimedWhileFull, is(false));
+        assertThat(claimed.get(), is(true));
+    }
+
+    @Test
+    @Timeout(30)
+    public void close_producerWaiting_returnsAndCompletionsDropped() throws Exception {
+        // arrange
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+        final ReorderBuffer<String> buffer = new ReorderBuffer<>(1, 1, delivered::addAll);
+        final long first = buffer.claim();
+        final Thread producer = new Thread(buffer::claim);
+        producer.start();
+
+        // act
+        buffer.close();
+        producer.join(5000);
+        buffer.complete(first, "first");
+
+        // assert
+        assertThat(producer.isAlive(), is(false));
+        assertThat(delivered, is(empty()));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,232 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.util.LongArrayList;
+import net.ladenthin.jackpot.util.ResendQueues;
+
+/**
+ * {@link ResendQueues} replaces the full scan of the retained messages: a sweep must hand
+ * over exactly the overdue entries, honour the backoff per resend count and drop entries of
+ * acknowledged or rewritten messages.
+ */
+public class ResendQueuesTest {
+
+    /**
+     * Unit: [ms].
+     */
+    private static final long RESEND_INTERVAL = 100;
+
+    private static final int BACKOFF_LIMIT = 8;
+
+    /**
+     * The retained messages: id to the stamp of the last write, as the write layer holds them.
+     */
+    private final Map<Long, Long> retainedStamps = new HashMap<>();
+
+    private final ResendQueues.Retained retained = new ResendQueues.Retained() {
+        @Override
+        public boolean isRetained(final long id, final long stamp) {
+            final Long retainedStamp = retainedStamps.get(id);
+            return retainedStamp != null && retainedStamp == stamp;
+        }
+    };
+
+    private void write(final ResendQueues queues, final long id, final long stamp) {
+        retainedStamps.put(id, stamp);
+        queues.add(id, stamp, retained);
+    }
+
+    /**
+     * Writes the message and lets it run past its deadline {@code resends} times, as the
+     * write layer resends it.
+     *
+     * @return the stamp of the last write
+     */
+    private long writeResent(final ResendQueues queues, final long id, long stamp, final int resends) {
+        for (int i = 0; i < resends; ++i) {
+            write(queues, id, stamp);
+            stamp += queues.resendDelay(i);
+            pollOverdue(queues, stamp);
+        }
+        write(queues, id, stamp);
+        return stamp;
+    }
+
+    private LongArrayList pollOverdue(final ResendQueues queues, final long now) {
+        final LongArrayList overdue = new LongArrayList();
+        queues.pollOverdue(now, retained, overdue::add);
+        return overdue;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="resendDelay">
+    @Test
+    public void resendDelay_increasingResends_doublesUpToLimit() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+
+        // act / assert
+        assertThat(queues.resendDelay(0), is(equalTo(RESEND_INTERVAL)));
+        assertThat(queues.resendDelay(1), is(equalTo(2 * RESEND_INTERVAL)));
+        assertThat(queues.resendDelay(3), is(equalTo(8 * RESEND_INTERVAL)));
+        assertThat(queues.resendDelay(30), is(equalTo(8 * RESEND_INTERVAL)));
+    }
+
+    @Test
+    public void resendDelay_limitNotAPowerOfTwo_cappedAtLimit() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, 5);
+
+        // act / assert
+        assertThat(queues.resendDelay(2), is(equalTo(4 * RESEND_INTERVAL)));
+        assertThat(queues.resendDelay(3), is(equalTo(5 * RESEND_INTERVAL)));
+    }
+
+    @Test
+    public void resendDelay_limitOne_noBackoff() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, 1);
+
+        // act / assert
+        assertThat(queues.resendDelay(4), is(equalTo(RESEND_INTERVAL)));
+    }
+
+    @Test
+    public void constructor_limitBelowOne_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ResendQueues(RESEND_INTERVAL, 0));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="pollOverdue">
+    @Test
+    public void pollOverdue_partlyOverdue_onlyOverdueInWriteOrderAndNextDeadline() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        write(queues, 1, 1000);
+        write(queues, 2, 1010);
+        write(queues, 3, 1050);
+        final LongArrayList overdue = new LongArrayList();
+
+        // act
+        final long nextDeadline = queues.pollOverdue(1010 + RESEND_INTERVAL, retained, overdue::add);
+
+        // assert
+        assertThat(overdue.size(), is(equalTo(2)));
+        assertThat(overdue.get(0), is(equalTo(1L)));
+        assertThat(overdue.get(1), is(equalTo(2L)));
+        assertThat(nextDeadline, is(equalTo(1050 + RESEND_INTERVAL)));
+    }
+
+    @Test
+    public void pollOverdue_resentMessage_dueAfterBackoff() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        final long stamp = writeResent(queues, 1, 1000, 2);
+
+        // act
+        final LongArrayList early = pollOverdue(queues, stamp + 2 * RESEND_INTERVAL);
+        final LongArrayList due = pollOverdue(queues, stamp + 4 * RESEND_INTERVAL);
+
+        // assert
+        assertThat(queues.resends(1), is(equalTo(3)));
+        assertThat(early.isEmpty(), is(true));
+        assertThat(due.size(), is(equalTo(1)));
+        assertThat(due.get(0), is(equalTo(1L)));
+    }
+
+    @Test
+    public void pollOverdue_acknowledgedAndRewrittenEntries_staleEntriesDropped() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        writeResent(queues, 2, 1000 - RESEND_INTERVAL, 1);
+        write(queues, 1, 1000);
+        retainedStamps.remove(1L);
+        write(queues, 2, 1050);
+
+        // act
+        final LongArrayList overdue = pollOverdue(queues, 1000 + RESEND_INTERVAL);
+
+        // assert
+        assertThat(overdue.isEmpty(), is(true));
+        assertThat(queues.nextDeadline(retained), is(equalTo(1050 + 2 * RESEND_INTERVAL)));
+        assertThat(queues.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void release_resentMessageAcknowledged_nextWriteWithoutBackoff() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        final long stamp = writeResent(queues, 1, 1000, 2);
+
+        // act
+        queues.release(1);
+        write(queues, 1, stamp);
+
+        // assert
+        assertThat(queues.resends(1), is(equalTo(0)));
+        assertThat(queues.nextDeadline(retained), is(equalTo(stamp + RESEND_INTERVAL)));
+    }
+
+    @Test
+    public void nextDeadline_nothingRetained_maxValue() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        write(queues, 1, 1000);
+        retainedStamps.clear();
+
+        // act
+        final long nextDeadline = queues.nextDeadline(retained);
+
+        // assert
+        assertThat(nextDeadline, is(equalTo(Long.MAX_VALUE)));
+        assertThat(queues.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void add_beyondInitialCapacity_ringGrowsAndKeepsOrder() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        final int count = 1000;
+        for (int i = 0; i < count; ++i) {
+            write(queues, i, 1000 + i);
+        }
+
+        // act
+        final LongArrayList overdue = pollOverdue(queues, 1000 + count + RESEND_INTERVAL);
+
+        // assert
+        assertThat(overdue.size(), is(equalTo(count)));
+        for (int i = 0; i < count; ++i) {
+            assertThat(overdue.get(i), is(equalTo((long) i)));
+        }
+    }
+
+    @Test
+    public void add_acknowledgedHead_droppedOnAdd() {
+        // arrange
+        final ResendQueues queues = new ResendQueues(RESEND_INTERVAL, BACKOFF_LIMIT);
+        for (int i = 0; i < 10; ++i) {
+            write(queues, i, 1000);
+        }
+        retainedStamps.clear();
+
+        // act
+        write(queues, 10, 1010);
+
+        // assert
+        assertThat(queues.size(), is(equalTo(1)));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,86 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.util.ReusableByteArrayOutputStream;
+
+/**
+ * {@link ReusableByteArrayOutputStream} is the per-thread serialization target: the array
+ * survives {@link ReusableByteArrayOutputStream#recycle()} unless a large message grew it.
+ */
+public class ReusableByteArrayOutputStreamTest {
+
+    // <editor-fold defaultstate="collapsed" desc="write">
+    @Test
+    public void write_beyondInitialCapacity_everyByteKeptInOrder() {
+        // arrange
+        final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream();
+        final byte[] chunk = new byte[3000];
+        for (int i = 0; i < chunk.length; ++i) {
+            chunk[i] = (byte) i;
+        }
+
+        // act
+        out.write(chunk, 0, chunk.length);
+        out.write(chunk, 0, chunk.length);
+        out.write(7);
+
+        // assert
+        final byte[] written = out.toByteArray();
+        assertThat(out.size(), is(equalTo(2 * chunk.length + 1)));
+        assertThat(written[chunk.length + 5], is(equalTo((byte) 5)));
+        assertThat(written[written.length - 1], is(equalTo((byte) 7)));
+    }
+
+    @Test
+    public void write_rangeOutOfBounds_throwsException() {
+        final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream();
+        assertThrows(IndexOutOfBoundsException.class, () -> out.write(new byte[4], 2, 3));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="recycle">
+    @Test
+    public void recycle_smallMessageWritten_arrayKeptAndEmpty() {
+        // arrange
+        final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream();
+        out.write(new byte[] {1, 2, 3}, 0, 3);
+        final byte[] array = out.array();
+
+        // act
+        out.recycle();
+        out.write(9);
+
+        // assert
+        assertThat(out.array(), is(sameInstance(array)));
+        assertThat(out.toByteArray(), is(equalTo(new byte[] {9})));
+    }
+
+    @Test
+    public void recycle_largeMessageWritten_grownArrayDropped() {
+        // arrange
+        final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream();
+        final byte[] large = new byte[2 * 1024 * 1024];
+        out.write(large, 0, large.length);
+        final byte[] grown = out.array();
+
+        // act
+        out.recycle();
+
+        // assert
+        assertThat(out.array(), is(not(sameInstance(grown))));
+        assertThat(out.size(), is(equalTo(0)));
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,161 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.test.Common;
+import net.ladenthin.jackpot.util.BinaryMessage;
+import net.ladenthin.jackpot.util.StreamingDeflater;
+import net.ladenthin.jackpot.util.StreamingInflater;
+
+/**
+ * {@link StreamingDeflater} and {@link StreamingInflater} share one deflate context across
+ * the messages: each payload restores on its own given the payloads before it, and a message
+ * similar to an earlier one compresses to a back reference.
+ */
+public class StreamingDeflaterTest {
+
+    private final StreamingDeflater deflater = new StreamingDeflater(Deflater.DEFAULT_COMPRESSION);
+    private final StreamingInflater inflater = new StreamingInflater();
+
+    @AfterEach
+    public void tearDown() {
+        deflater.end();
+    }
+
+    private static BinaryMessage uncompressed(final long id, final byte[] payload) throws IOException {
+        return BinaryMessage.box(id, payload, Common.simpleSettingsCompression);
+    }
+
+    private static byte[] payload(final BinaryMessage bm) throws IOException {
+        return bm.unbox(Common.simpleSettingsCompression);
+    }
+
+    private static byte[] similarPayload(final int index) {
+        return ("{\"type\":\"position\",\"vehicle\":\"veh_" + index + "\",\"lat\":52.5" + index
+            + ",\"lon\":13.4" + index + ",\"speed\":13.9}").getBytes();
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="round trip">
+    @Test
+    public void inflate_messagesDeflatedInOrder_everyPayloadRestored() throws IOException {
+        for (int i = 0; i < 100; ++i) {
+            // arrange
+            final byte[] original = similarPayload(i);
+
+            // act
+            final BinaryMessage deflated = deflater.deflate(uncompressed(i, original));
+            final BinaryMessage inflated = inflater.inflate(deflated);
+
+            // assert
+            assertThat(deflated.isDeflateStreamed(), is(true));
+            assertThat(deflated.getUncompressedSize(), is(equalTo(original.length)));
+            assertThat(inflated.isDeflateStreamed(), is(false));
+            assertThat(inflated.getId(), is(equalTo((long) i)));
+            assertArrayEquals(original, payload(inflated));
+        }
+    }
+
+    @Test
+    public void deflate_messageSimilarToPredecessor_farSmallerThanTheFirst() throws IOException {
+        // arrange
+        final BinaryMessage first = deflater.deflate(uncompressed(0, similarPayload(1)));
+
+        // act
+        final BinaryMessage second = deflater.deflate(uncompressed(1, similarPayload(2)));
+
+        // assert: the context remembers the first message
+        assertThat(second.getPayloadLength(), is(lessThan(first.getPayloadLength() / 2)));
+    }
+
+    @Test
+    public void inflate_emptyPayloadsBetweenMessages_everyPayloadRestored() throws IOException {
+        // arrange
+        final byte[] empty = new byte[0];
+        final byte[] original = similarPayload(3);
+
+        // act
+        final BinaryMessage emptyFirst = inflater.inflate(deflater.deflate(uncompressed(0, empty)));
+        final BinaryMessage restored = inflater.inflate(deflater.deflate(uncompressed(1, original)));
+        final BinaryMessage emptySecond = inflater.inflate(deflater.deflate(uncompressed(2, empty)));
+
+        // assert
+        assertThat(payload(emptyFirst).length, is(equalTo(0)));
+        assertArrayEquals(original, payload(restored));
+        assertThat(payload(emptySecond).length, is(equalTo(0)));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="size bound">
+    @Test
+    public void deflate_incompressiblePayload_withinMaxDeflatedLength() throws IOException {
+        // arrange
+        final byte[] random = new byte[1 << 20];
+        new Random(42).nextBytes(random);
+
+        // act
+        final BinaryMessage deflated = deflater.deflate(uncompressed(0, random));
+
+        // assert
+        assertThat((long) deflated.getPayloadLength(),
+            is(lessThanOrEqualTo(StreamingDeflater.maxDeflatedLength(random.length))));
+        assertArrayEquals(random, payload(inflater.inflate(deflated)));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="corrupt payloads">
+    @Test
+    public void inflate_corruptPayload_throwsIOException() throws IOException {
+        // arrange: the payload is the tail of the frame
+        final BinaryMessage deflated = deflater.deflate(uncompressed(0, similarPayload(4)));
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        deflated.toDataOutput(new DataOutputStream(frame));
+        final byte[] bytes = frame.toByteArray();
+        Arrays.fill(bytes, bytes.length - deflated.getPayloadLength(), bytes.length, (byte) 0xFF);
+        final BinaryMessage corrupt =
+            BinaryMessage.fromDataInputJava8(new DataInputStream(new ByteArrayInputStream(bytes)));
+
+        // act, assert
+        assertThrows(IOException.class, () -> inflater.inflate(corrupt));
+    }
+
+    @Test
+    public void deflate_compressedMessage_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage gzip = BinaryMessage.box(0, similarPayload(5), Common.alwaysGZIPSettingsCompression);
+
+        // act, assert
+        assertThrows(IllegalArgumentException.class, () -> deflater.deflate(gzip));
+    }
+
+    @Test
+    public void inflate_notStreamedMessage_throwsException() throws IOException {
+        // arrange
+        final BinaryMessage bm = uncompressed(0, similarPayload(6));
+
+        // act, assert
+        assertThrows(IllegalArgumentException.class, () -> inflater.inflate(bm));
+    }
+    // </editor-fold>
+}
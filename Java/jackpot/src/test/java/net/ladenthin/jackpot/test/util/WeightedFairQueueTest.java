@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: 2026 Bernard Ladenthin <bernard.ladenthin@gmail.com>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package net.ladenthin.jackpot.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.ladenthin.jackpot.util.WeightedFairQueue;
+
+/**
+ * {@link WeightedFairQueue} polls every channel in id order and shares the cost between the
+ * busy channels by their weights; a channel that gets busy neither starves the others nor
+ * waits behind their backlog.
+ */
+public class WeightedFairQueueTest {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The cost of an element is its length.
+     */
+    private static WeightedFairQueue<String> queue(final int... weights) {
+        return new WeightedFairQueue<>(weights, INITIAL_CAPACITY, String::length);
+    }
+
+    /**
+     * An element of the given channel and cost: the channel digit, padded to the cost.
+     */
+    private static String element(final int channel, final int cost) {
+        final char[] chars = new char[cost];
+        Arrays.fill(chars, (char) ('0' + channel));
+        return new String(chars);
+    }
+
+    private static int channelOf(final String element) {
+        return element.charAt(0) - '0';
+    }
+
+    private static List<String> poll(final WeightedFairQueue<String> queue, final int count) {
+        final List<String> polled = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            polled.add(queue.pollFirst());
+        }
+        return polled;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="order within a channel">
+    @Test
+    public void pollFirst_singleChannelOutOfOrderPuts_ascendingIdOrder() {
+        // arrange
+        final WeightedFairQueue<String> queue = queue(1);
+        queue.put(0, 3L, "c");
+        queue.put(0, 1L, "a");
+        queue.put(0, 2L, "b");
+
+        // act
+        final List<String> polled = poll(queue, 4);
+
+        // assert
+        assertThat(polled, is(equalTo(Arrays.asList("a", "b", "c", null))));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void put_duplicateIdOfChannel_rejected() {
+        // arrange
+        final WeightedFairQueue<String> queue = queue(1, 1);
+        queue.put(1, 7L, "first");
+
+        // act
+        final boolean added = queue.put(1, 7L, "second");
+
+        // assert
+        assertThat(added, is(false));
+        assertThat(queue.contains(1, 7L), is(true));
+        assertThat(queue.contains(0, 7L), is(false));
+        assertThat(queue.size(), is(equalTo(1)));
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="fair share">
+    @Test
+    public void pollFirst_bulkChannelQueuedFirst_interactiveChannelNotHeldBehindIt() {
+        // arrange: ten large elements on channel 1 at the lower ids, then ten small ones on channel 0
+        final WeightedFairQueue<String> queue = queue(1, 1);
+        for (int i = 0; i < 10; ++i) {
+            queue.put(1, i, element(1, 1000));
+        }
+        for (int i = 10; i < 20; ++i) {
+            queue.put(0, i, element(0, 100));
+        }
+
+        // act
+        final List<String> polled = poll(queue, 11);
+
+        // assert: the small elements cost as much as one large element
+        int bulk = 0;
+        for (final String element : polled) {
+            bulk += channelOf(element);
+        }
+        assertThat(bulk, is(lessThanOrEqualTo(1)));
+    }
+
+    @Test
+    public void pollFirst_weightsOneAndThree_costSharedOneToThree() {
+        // arrange
+        final WeightedFairQueue<String> queue = queue(1, 3);
+        for (int i = 0; i < 40; ++i) {
+            queue.put(0, i, element(0, 100));
+            queue.put(1, 100 + i, element(1, 100));
+        }
+
+        // act
+        final List<String> polled = poll(queue, 40);
+
+        // assert
+        int weighted = 0;
+        for (final String element : polled) {
+            weighted += channelOf(element);
+        }
+        assertThat(weighted, is(greaterThanOrEqualTo(29)));
+        assertThat(weighted, is(lessThanOrEqualTo(31)));
+    }
+
+    @Test
+    public void put_channelBusyAfterIdling_sharesFromNowOnWithoutCatchingUp() {
+        // arrange: channel 0 alone for ten elements
+        final WeightedFairQueue<String> queue = queue(1, 1);
+        for (int i = 0; i < 20; ++i) {
+            queue.put(0, i, element(0, 100));
+        }
+        poll(queue, 10);
+
+        // act
+        for (int i = 0; i < 10; ++i) {
+            queue.put(1, 100 + i, element(1, 100));
+        }
+        final List<String> polled = poll(queue, 10);
+
+        // assert: alternating, not ten of channel 1 in a row
+        for (int i = 0; i < polled.size(); ++i) {
+            assertThat(channelOf(polled.get(i)), is(equalTo(i % 2)));
+        }
+    }
+
+    @Test
+    public void pollFirst_everyChannelEmpty_returnsNull() {
+        // arrange
+        final WeightedFairQueue<String> queue = queue(1, 2, 3);
+        queue.put(2, 1L, "x");
+        queue.pollFirst();
+
+        // act
+        final String polled = queue.pollFirst();
+
+        // assert
+        assertThat(polled, is(nullValue()));
+        assertThat(queue.size(), is(equalTo(0)));
+        assertThat(queue.channels(), is(equalTo(3)));
+    }
+    // </editor-fold>
+}